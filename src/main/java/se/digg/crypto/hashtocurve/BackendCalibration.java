@@ -0,0 +1,488 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.data.BackendSelection;
+import se.digg.crypto.hashtocurve.data.CalibrationReport;
+import se.digg.crypto.hashtocurve.data.DigestBackend;
+import se.digg.crypto.hashtocurve.data.FieldBackend;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.PipelineSettings;
+import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
+
+/**
+ * Selection of the backend implementations used by {@link HashToEllipticCurve} and
+ * {@link HashToScalar} suites: the implementation of the hash function, the field arithmetic of
+ * map to curve and the batch size. The fastest implementations depend on the CPU and the JVM, so
+ * they can be selected at startup by an optional calibration.
+ *
+ * <p>For each profile, {@link #calibrate(Set)} first verifies every available implementation
+ * against the test vector of RFC 9380 for the empty message, hash to field for the hash function
+ * implementations and the resulting point for the field arithmetic, and drops those that do not
+ * agree. It then runs a short microbenchmark of the remaining candidates, bounded by a time budget
+ * per candidate, and selects the fastest. The batch size is the fastest per element of the batch
+ * map to curve with the selected field arithmetic, where sizes within 5% of the fastest count as
+ * equal and the smallest of those is selected. The selection is used by the suites constructed
+ * afterwards through {@link HashToEllipticCurve#getInstance(HashToCurveProfile, byte[])} and
+ * {@link H2cUtils#createDigest(HashToCurveProfile)}, and is exposed by
+ * {@link #getSelection(HashToCurveProfile)} and by the returned report. The batch size is applied
+ * as the maximum batch size of {@link HashingProcessor} pipelines through
+ * {@link #getPipelineSettings(HashToCurveProfile)}. Without calibration, the Bouncy Castle digests
+ * and the field arithmetic measured fastest on typical servers are used.
+ *
+ * <p>Operators can pin a choice with the system properties {@value #DIGEST_PROPERTY},
+ * {@value #FIELD_PROPERTY} and {@value #BATCH_SIZE_PROPERTY}, which take the names of
+ * {@link DigestBackend} and {@link FieldBackend} and a positive integer. A property with the
+ * profile name appended, such as {@code se.digg.crypto.hashtocurve.backend.field.
+ * P521_XMD_SHA_512_SSWU_RO_}, applies to that profile only and takes precedence. A pinned choice
+ * is not measured by the calibration and overrides its result. A pinned field arithmetic that is
+ * not available for a profile is ignored for that profile.
+ */
+@Slf4j
+public final class BackendCalibration {
+
+  /** System property pinning the hash function implementation. */
+  public static final String DIGEST_PROPERTY = "se.digg.crypto.hashtocurve.backend.digest";
+  /** System property pinning the field arithmetic. */
+  public static final String FIELD_PROPERTY = "se.digg.crypto.hashtocurve.backend.field";
+  /** System property pinning the batch size. */
+  public static final String BATCH_SIZE_PROPERTY = "se.digg.crypto.hashtocurve.backend.batchSize";
+
+  /** Default time budget of the microbenchmark of each candidate. */
+  public static final Duration DEFAULT_CANDIDATE_BUDGET = Duration.ofMillis(50);
+
+  private static final int[] BATCH_SIZES = {1, 16, 64, 256};
+  /** Batch sizes with a time per element within this factor of the fastest count as equal. */
+  private static final double BATCH_SIZE_TOLERANCE = 1.05;
+  /** The number of field elements mapped per measured operation of the field arithmetic. */
+  private static final int FIELD_ELEMENTS = 16;
+
+  private static final byte[] CALIBRATION_DST =
+      "CALIBRATION-V01-CS02-with-hash2curve".getBytes(StandardCharsets.UTF_8);
+  private static final Map<HashToCurveProfile, BackendSelection> SELECTIONS =
+      new ConcurrentHashMap<>();
+
+  private BackendCalibration() {
+  }
+
+  /**
+   * Get the backends used by suites of a profile: the result of the last calibration of the
+   * profile, or the defaults if it has not been calibrated, with the choices pinned by the system
+   * properties applied.
+   *
+   * @param profile the hash to curve profile
+   * @return the backend selection of the profile
+   * @throws IllegalArgumentException if a system property has an invalid value
+   */
+  public static BackendSelection getSelection(final HashToCurveProfile profile) {
+    final BackendSelection selection = SELECTIONS.get(profile);
+    return pin(profile, selection != null ? selection : getDefaultSelection(profile));
+  }
+
+  /**
+   * Get the pipeline settings for hashing the messages of a profile with a
+   * {@link HashingProcessor}: the defaults of {@link PipelineSettings#defaults()} with the batch
+   * size of the backend selection of the profile as the maximum batch size.
+   *
+   * @param profile the hash to curve profile
+   * @return the pipeline settings of the profile
+   * @throws IllegalArgumentException if a system property has an invalid value
+   * @see PipelineSettings#forSelection(BackendSelection)
+   */
+  public static PipelineSettings getPipelineSettings(final HashToCurveProfile profile) {
+    return PipelineSettings.forSelection(getSelection(profile));
+  }
+
+  /**
+   * Get the field arithmetic implementations available for map to curve of a profile.
+   *
+   * @param profile the hash to curve profile
+   * @return the available field arithmetic, empty if hash to curve is not supported
+   */
+  public static Set<FieldBackend> getSupportedFields(final HashToCurveProfile profile) {
+    return switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_, P521_XMD_SHA_512_SSWU_RO_ ->
+          EnumSet.allOf(FieldBackend.class);
+      case P384_XMD_SHA_384_SSWU_RO_ ->
+          EnumSet.of(FieldBackend.BIG_INTEGER, FieldBackend.BC_CUSTOM_FIELD);
+      case BLS12381G1_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_NU_ ->
+          EnumSet.of(FieldBackend.LIMB);
+      case curve25519_XMD_SHA_512_ELL2_RO_ -> EnumSet.noneOf(FieldBackend.class);
+    };
+  }
+
+  /**
+   * Calibrates the backends of a set of profiles with a time budget of
+   * {@link #DEFAULT_CANDIDATE_BUDGET} per candidate.
+   *
+   * @param profiles the profiles to calibrate
+   * @return the calibration report
+   * @throws IllegalStateException if a pinned choice or all candidates of a choice disagree with
+   *         the test vectors
+   * @see #calibrate(Set, Duration)
+   */
+  public static CalibrationReport calibrate(final Set<HashToCurveProfile> profiles) {
+    return calibrate(profiles, DEFAULT_CANDIDATE_BUDGET);
+  }
+
+  /**
+   * Calibrates the backends of a set of profiles and selects them for the suites constructed
+   * afterwards. The calibration takes at most about the candidate budget times the number of
+   * candidates, which is at most 9 per profile.
+   *
+   * @param profiles the profiles to calibrate
+   * @param candidateBudget the time budget of the microbenchmark of each candidate
+   * @return the calibration report
+   * @throws IllegalStateException if a pinned choice or all candidates of a choice disagree with
+   *         the test vectors
+   * @throws IllegalArgumentException if a system property has an invalid value
+   */
+  public static CalibrationReport calibrate(final Set<HashToCurveProfile> profiles,
+      final Duration candidateBudget) {
+    final long start = System.nanoTime();
+    final List<CalibrationReport.ProfileCalibration> calibrations = new ArrayList<>();
+    for (final HashToCurveProfile profile : profiles) {
+      final CalibrationReport.ProfileCalibration calibration =
+          calibrateProfile(profile, candidateBudget.toNanos());
+      SELECTIONS.put(profile, calibration.selection());
+      log.info("Selected backends for {}: {}", profile.getCipherSuiteID(),
+          calibration.selection());
+      calibrations.add(calibration);
+    }
+    return new CalibrationReport(calibrations, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  /**
+   * Removes all calibration results, so that the defaults are used again.
+   */
+  static void clear() {
+    SELECTIONS.clear();
+  }
+
+  private static CalibrationReport.ProfileCalibration calibrateProfile(
+      final HashToCurveProfile profile, final long budget) {
+    final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+    final Vector vector = Vector.of(profile);
+    final String suffix = "." + profile.name();
+    final byte[] message = new byte[32];
+
+    // The hash function, verified by hash to field of the test vector
+    final DigestBackend pinnedDigest =
+        getEnumProperty(DIGEST_PROPERTY, suffix, DigestBackend.class);
+    final Map<DigestBackend, Duration> digestTimings = new EnumMap<>(DigestBackend.class);
+    final List<DigestBackend> digests = new ArrayList<>();
+    for (final DigestBackend digest : pinnedDigest != null ? EnumSet.of(pinnedDigest)
+        : EnumSet.allOf(DigestBackend.class)) {
+      final HashToField hashToField;
+      try {
+        hashToField = createHashToField(profile, spec,
+            vector.dst().getBytes(StandardCharsets.UTF_8), digest);
+      } catch (final IllegalArgumentException e) {
+        log.debug("Digest backend {} is not available for {}", digest, profile, e);
+        continue;
+      }
+      if (vector.u0().equals(hashToField.process(new byte[0])[0][0])) {
+        digests.add(digest);
+      } else {
+        log.warn("Digest backend {} disagrees with the test vector of {}", digest, profile);
+      }
+    }
+    final DigestBackend selectedDigest = select(digests, digestTimings, "digest", profile,
+        digest -> {
+          final HashToField hashToField =
+              createHashToField(profile, spec, CALIBRATION_DST, digest);
+          return () -> hashToField.process(message);
+        }, budget);
+
+    if (vector.x() == null) {
+      return new CalibrationReport.ProfileCalibration(profile,
+          pin(profile, new BackendSelection(selectedDigest, FieldBackend.BIG_INTEGER,
+              PipelineSettings.DEFAULT_MAX_BATCH_SIZE)), digestTimings, Map.of(), Map.of());
+    }
+
+    // The field arithmetic, verified by the point of the test vector
+    final Set<FieldBackend> supported = getSupportedFields(profile);
+    final FieldBackend pinnedField = getEnumProperty(FIELD_PROPERTY, suffix, FieldBackend.class);
+    final Map<FieldBackend, Duration> fieldTimings = new EnumMap<>(FieldBackend.class);
+    final List<FieldBackend> fields = new ArrayList<>();
+    for (final FieldBackend field : pinnedField != null && supported.contains(pinnedField)
+        ? EnumSet.of(pinnedField) : supported) {
+      final HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile,
+          vector.dst().getBytes(StandardCharsets.UTF_8),
+          new BackendSelection(selectedDigest, field, 1));
+      final ECPoint point = (profile.isRandomOracle()
+          ? h2c.hashToEllipticCurve(new byte[0])
+          : h2c.encodeToEllipticCurve(new byte[0])).normalize();
+      if (vector.x().equals(point.getAffineXCoord().toBigInteger())
+          && vector.y().equals(point.getAffineYCoord().toBigInteger())) {
+        fields.add(field);
+      } else {
+        log.warn("Field backend {} disagrees with the test vector of {}", field, profile);
+      }
+    }
+    final BigInteger[] u = createFieldElements(profile, spec, selectedDigest,
+        BATCH_SIZES[BATCH_SIZES.length - 1]);
+    final HashContext ctx = new HashContext();
+    final FieldBackend selectedField = select(fields, fieldTimings, "field", profile,
+        field -> {
+          final MapToCurve mapToCurve = HashToEllipticCurve.getInstance(profile,
+              CALIBRATION_DST, new BackendSelection(selectedDigest, field, 1)).mapToCurve;
+          return () -> {
+            for (int i = 0; i < FIELD_ELEMENTS; i++) {
+              mapToCurve.process(u[i], ctx);
+            }
+          };
+        }, budget);
+
+    // The batch size of the batch map to curve with the selected field arithmetic
+    final Integer pinnedBatchSize = getPositiveProperty(BATCH_SIZE_PROPERTY, suffix);
+    final Map<Integer, Duration> batchTimings = new LinkedHashMap<>();
+    int selectedBatchSize = pinnedBatchSize != null ? pinnedBatchSize : BATCH_SIZES[0];
+    if (pinnedBatchSize == null) {
+      final MapToCurve mapToCurve = HashToEllipticCurve.getInstance(profile, CALIBRATION_DST,
+          new BackendSelection(selectedDigest, selectedField, 1)).mapToCurve;
+      final double[] perElement = new double[BATCH_SIZES.length];
+      double best = Double.MAX_VALUE;
+      for (int i = 0; i < BATCH_SIZES.length; i++) {
+        final BigInteger[] batch = new BigInteger[BATCH_SIZES[i]];
+        System.arraycopy(u, 0, batch, 0, batch.length);
+        perElement[i] = measure(() -> mapToCurve.process(batch), budget) / batch.length;
+        batchTimings.put(batch.length, Duration.ofNanos(Math.round(perElement[i])));
+        best = Math.min(best, perElement[i]);
+      }
+      for (int i = BATCH_SIZES.length - 1; i >= 0; i--) {
+        if (perElement[i] <= best * BATCH_SIZE_TOLERANCE) {
+          selectedBatchSize = BATCH_SIZES[i];
+        }
+      }
+    }
+    return new CalibrationReport.ProfileCalibration(profile,
+        pin(profile, new BackendSelection(selectedDigest, selectedField, selectedBatchSize)),
+        digestTimings, fieldTimings, batchTimings);
+  }
+
+  /**
+   * Measures the verified candidates of a choice and selects the fastest. A single candidate is
+   * selected without measurement.
+   */
+  private static <T> T select(final List<T> candidates, final Map<T, Duration> timings,
+      final String choice, final HashToCurveProfile profile,
+      final Function<T, Runnable> operation, final long budget) {
+    if (candidates.isEmpty()) {
+      throw new IllegalStateException("No " + choice + " backend agrees with the test vector of "
+          + profile.getCipherSuiteID());
+    }
+    if (candidates.size() == 1) {
+      return candidates.get(0);
+    }
+    T fastest = null;
+    double best = Double.MAX_VALUE;
+    for (final T candidate : candidates) {
+      final double time = measure(operation.apply(candidate), budget);
+      timings.put(candidate, Duration.ofNanos(Math.round(time)));
+      if (time < best) {
+        best = time;
+        fastest = candidate;
+      }
+    }
+    return fastest;
+  }
+
+  /**
+   * Runs an operation for the first half of the budget to warm up the JIT compiler, and measures
+   * it during the second half.
+   *
+   * @return the mean time per operation in nanoseconds
+   */
+  private static double measure(final Runnable operation, final long budget) {
+    final long warmUpEnd = System.nanoTime() + budget / 2;
+    do {
+      operation.run();
+    } while (System.nanoTime() < warmUpEnd);
+    final long start = System.nanoTime();
+    long count = 0;
+    long elapsed;
+    do {
+      operation.run();
+      count++;
+      elapsed = System.nanoTime() - start;
+    } while (elapsed < budget / 2);
+    return (double) elapsed / count;
+  }
+
+  private static HashToField createHashToField(final HashToCurveProfile profile,
+      final ECParameterSpec spec, final byte[] dst, final DigestBackend digest) {
+    return new GenericHashToField(dst, spec,
+        new XmdMessageExpansion(H2cUtils.createDigest(profile, digest), profile.getK()),
+        profile.getL(), profile.isRandomOracle() ? 2 : 1);
+  }
+
+  private static BigInteger[] createFieldElements(final HashToCurveProfile profile,
+      final ECParameterSpec spec, final DigestBackend digest, final int count) {
+    final HashToField hashToField = createHashToField(profile, spec, CALIBRATION_DST, digest);
+    final BigInteger[] u = new BigInteger[count];
+    for (int i = 0; i < count; i++) {
+      u[i] = hashToField.process(new byte[] {(byte) i, (byte) (i >>> 8)})[0][0];
+    }
+    return u;
+  }
+
+  private static BackendSelection getDefaultSelection(final HashToCurveProfile profile) {
+    final FieldBackend field = switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_, P384_XMD_SHA_384_SSWU_RO_ -> FieldBackend.BC_CUSTOM_FIELD;
+      case P521_XMD_SHA_512_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_RO_,
+          BLS12381G1_XMD_SHA_256_SSWU_NU_ -> FieldBackend.LIMB;
+      case curve25519_XMD_SHA_512_ELL2_RO_ -> FieldBackend.BIG_INTEGER;
+    };
+    return new BackendSelection(DigestBackend.BOUNCY_CASTLE, field,
+        PipelineSettings.DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Applies the choices pinned by the system properties to a selection.
+   */
+  private static BackendSelection pin(final HashToCurveProfile profile,
+      final BackendSelection selection) {
+    final String suffix = "." + profile.name();
+    final DigestBackend digest = getEnumProperty(DIGEST_PROPERTY, suffix, DigestBackend.class);
+    final FieldBackend field = getEnumProperty(FIELD_PROPERTY, suffix, FieldBackend.class);
+    final Integer batchSize = getPositiveProperty(BATCH_SIZE_PROPERTY, suffix);
+    return new BackendSelection(digest != null ? digest : selection.digest(),
+        field != null && getSupportedFields(profile).contains(field) ? field : selection.field(),
+        batchSize != null ? batchSize : selection.batchSize());
+  }
+
+  /**
+   * Reads a system property naming a constant of an enum, preferring the property with the profile
+   * suffix.
+   *
+   * @return the constant named by the property, or null if it is not set
+   * @throws IllegalArgumentException if the value is not the name of a constant
+   */
+  private static <E extends Enum<E>> E getEnumProperty(final String name, final String suffix,
+      final Class<E> type) {
+    final String value = getProperty(name, suffix);
+    if (value == null) {
+      return null;
+    }
+    try {
+      return Enum.valueOf(type, value.trim().toUpperCase(Locale.ROOT));
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Invalid value " + value + " of system property " + name, e);
+    }
+  }
+
+  /**
+   * Reads a system property with a positive integer, preferring the property with the profile
+   * suffix.
+   *
+   * @return the value of the property, or null if it is not set
+   * @throws IllegalArgumentException if the value is not a positive integer
+   */
+  private static Integer getPositiveProperty(final String name, final String suffix) {
+    final String value = getProperty(name, suffix);
+    if (value == null) {
+      return null;
+    }
+    try {
+      final int batchSize = Integer.parseInt(value.trim());
+      if (batchSize <= 0) {
+        throw new IllegalArgumentException("Batch size must be positive");
+      }
+      return batchSize;
+    } catch (final IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Invalid value " + value + " of system property " + name, e);
+    }
+  }
+
+  /**
+   * Reads a system property, preferring the property with the profile suffix.
+   *
+   * @return the value of the property, or null if it is not set or blank
+   */
+  private static String getProperty(final String name, final String suffix) {
+    final String profileValue = System.getProperty(name + suffix);
+    final String value = profileValue != null ? profileValue : System.getProperty(name);
+    return value == null || value.isBlank() ? null : value;
+  }
+
+  /**
+   * The test vector of RFC 9380 for the empty message of a profile.
+   *
+   * @param dst the domain separation tag of the test vectors
+   * @param u0 the first field element of hash to field
+   * @param x the x coordinate of the point, or null if hash to curve is not supported
+   * @param y the y coordinate of the point, or null if hash to curve is not supported
+   */
+  private record Vector(String dst, BigInteger u0, BigInteger x, BigInteger y) {
+
+    static Vector of(final HashToCurveProfile profile) {
+      final String[] values = switch (profile) {
+        case P256_XMD_SHA_256_SSWU_RO_ -> new String[] {
+            "ad5342c66a6dd0ff080df1da0ea1c04b96e0330dd89406465eeba11582515009",
+            "2c15230b26dbc6fc9a37051158c95b79656e17a1a920b11394ca91c44247d3e4",
+            "8a7a74985cc5c776cdfe4b1f19884970453912e9d31528c060be9ab5c43e8415"};
+        case P384_XMD_SHA_384_SSWU_RO_ -> new String[] {
+            "25c8d7dc1acd4ee617766693f7f8829396065d1b447eedb155871feffd9c6653"
+                + "279ac7e5c46edb7010a0e4ff64c9f3b4",
+            "eb9fe1b4f4e14e7140803c1d99d0a93cd823d2b024040f9c067a8eca1f5a2eea"
+                + "c9ad604973527a356f3fa3aeff0e4d83",
+            "0c21708cff382b7f4643c07b105c2eaec2cead93a917d825601e63c8f21f6abd"
+                + "9abc22c93c2bed6f235954b25048bb1a"};
+        case P521_XMD_SHA_512_SSWU_RO_ -> new String[] {
+            "01e5f09974e5724f25286763f00ce76238c7a6e03dc396600350ee2c4135fb17"
+                + "dc555be99a4a4bae0fd303d4f66d984ed7b6a3ba386093752a855d26d559d69e"
+                + "7e9e",
+            "00fd767cebb2452030358d0e9cf907f525f50920c8f607889a6a35680727f64f"
+                + "4d66b161fafeb2654bea0d35086bec0a10b30b14adef3556ed9f7f1bc23cecc9"
+                + "c088",
+            "0169ba78d8d851e930680322596e39c78f4fe31b97e57629ef6460ddd68f8763"
+                + "fd7bd767a4e94a80d3d21a3c2ee98347e024fc73ee1c27166dc3fe5eeef782be"
+                + "411d"};
+        case curve25519_XMD_SHA_512_ELL2_RO_ -> new String[] {
+            "005fe8a7b8fef0a16c105e6cadf5a6740b3365e18692a9c05bfbb4d97f645a6a",
+            null,
+            null};
+        case BLS12381G1_XMD_SHA_256_SSWU_RO_ -> new String[] {
+            "0ba14bd907ad64a016293ee7c2d276b8eae71f25a4b941eece7b0d89f17f75cb"
+                + "3ae5438a614fb61d6835ad59f29c564f",
+            "052926add2207b76ca4fa57a8734416c8dc95e24501772c814278700eed6d1e4"
+                + "e8cf62d9c09db0fac349612b759e79a1",
+            "08ba738453bfed09cb546dbb0783dbb3a5f1f566ed67bb6be0e8c67e2e81a4cc"
+                + "68ee29813bb7994998f3eae0c9c6a265"};
+        case BLS12381G1_XMD_SHA_256_SSWU_NU_ -> new String[] {
+            "156c8a6a2c184569d69a76be144b5cdc5141d2d2ca4fe341f011e25e3969c55a"
+                + "d9e9b9ce2eb833c81a908e5fa4ac5f03",
+            "184bb665c37ff561a89ec2122dd343f20e0f4cbcaec84e3c3052ea81d1834e19"
+                + "2c426074b02ed3dca4e7676ce4ce48ba",
+            "04407b8d35af4dacc809927071fc0405218f1401a6d15af775810e4e460064bc"
+                + "c9468beeba82fdc751be70476c888bf3"};
+      };
+      return new Vector("QUUX-V01-CS02-with-" + profile.getCipherSuiteID(),
+          new BigInteger(values[0], 16), values[1] != null ? new BigInteger(values[1], 16) : null,
+          values[2] != null ? new BigInteger(values[2], 16) : null);
+    }
+  }
+
+}
@@ -0,0 +1,213 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.cache.CacheKey;
+import se.digg.crypto.hashtocurve.cache.HashResultCache;
+import se.digg.crypto.hashtocurve.data.CacheStatistics;
+
+/**
+ * Optional caching decorator of {@link HashToEllipticCurve}.
+ *
+ * <p>Hash results are kept in a bounded {@link HashResultCache}, keyed by a SHA-256 digest of the
+ * message, and concurrent requests for the same uncached message share one computation. Caching is
+ * opt-in: it only applies to calls made through an instance of this class. Each instance owns its
+ * cache, which therefore only holds results of the wrapped suite and its domain separation tag.
+ *
+ * <p>The points of hash_to_curve and encode_to_curve are cached under separate keys. The fused
+ * {@link #hashAndMultiply(byte[], BigInteger)} takes the hashed point from the cache and only
+ * computes the multiplication. The instance returned by {@link #withPrefix(byte[])} is a caching
+ * decorator of the prefixed suite that shares the cache and its bounds with this instance, under
+ * keys that include the prefix. {@link #deriveGenerators(byte[], int, int)} hashes through the
+ * cached batch method, so only the comb tables are computed for cached generators. The points of
+ * {@link #hashToEllipticCurveForDsts(byte[], byte[][])} are cached per tag, and a call with any
+ * uncached tag computes the points of all its tags in one shared expansion.
+ */
+public class CachingHashToEllipticCurve extends HashToEllipticCurve {
+
+  /** Key namespace of the points of hash_to_curve. */
+  private static final byte HASH = 0;
+  /** Key namespace of the points of encode_to_curve. */
+  private static final byte ENCODE = 1;
+  /** Key namespace of the points of hash_to_curve under another domain separation tag. */
+  private static final byte FOR_DST = 2;
+
+  private final HashToEllipticCurve delegate;
+  private final HashResultCache<ECPoint> cache;
+  /** The message prefix of the instance, empty unless created by {@link #withPrefix(byte[])}. */
+  private final byte[] scope;
+  private final byte[] hashNamespace;
+  private final byte[] encodeNamespace;
+
+  /**
+   * Creates a caching decorator.
+   *
+   * @param delegate the hash to curve implementation computing uncached results
+   * @param maximumSize the maximum number of cached points
+   * @param maximumWeight the maximum estimated memory use of the cached points in bytes
+   */
+  public CachingHashToEllipticCurve(final HashToEllipticCurve delegate, final long maximumSize,
+      final long maximumWeight) {
+    this(delegate, new HashResultCache<>(maximumSize, maximumWeight,
+        point -> 3L * (64 + point.getCurve().getFieldElementEncodingLength())), new byte[0]);
+  }
+
+  private CachingHashToEllipticCurve(final HashToEllipticCurve delegate,
+      final HashResultCache<ECPoint> cache, final byte[] scope) {
+    super(delegate.hashToField, delegate.mapToCurve, delegate.curveProcessor);
+    this.delegate = delegate;
+    this.cache = cache;
+    this.scope = scope;
+    this.hashNamespace = this.namespace(HASH, new byte[0]);
+    this.encodeNamespace = this.namespace(ENCODE, new byte[0]);
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final byte[] message) {
+    return this.cache.get(CacheKey.of(this.hashNamespace, message),
+        () -> this.delegate.hashToEllipticCurve(message));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final byte[] message, final HashContext ctx) {
+    return this.cache.get(CacheKey.of(this.hashNamespace, message),
+        () -> this.delegate.hashToEllipticCurve(message, ctx));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final ByteBuffer message) {
+    return this.cache.get(CacheKey.of(this.hashNamespace, message),
+        () -> this.delegate.hashToEllipticCurve(message));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final ByteBuffer message, final HashContext ctx) {
+    return this.cache.get(CacheKey.of(this.hashNamespace, message),
+        () -> this.delegate.hashToEllipticCurve(message, ctx));
+  }
+
+  @Override
+  public ECPoint[] hashToEllipticCurve(final byte[][] messages) {
+    final ECPoint[] points = new ECPoint[messages.length];
+    for (int i = 0; i < messages.length; i++) {
+      points[i] = this.hashToEllipticCurve(messages[i]);
+    }
+    return points;
+  }
+
+  @Override
+  public ECPoint hashAndMultiply(final byte[] message, final BigInteger scalar) {
+    return this.hashToEllipticCurve(message).multiply(scalar).normalize();
+  }
+
+  @Override
+  public ECPoint[] hashAndMultiply(final byte[] message, final BigInteger[] scalars) {
+    final ECPoint point = this.hashToEllipticCurve(message);
+    final ECPoint[] products = new ECPoint[scalars.length];
+    for (int i = 0; i < scalars.length; i++) {
+      products[i] = point.multiply(scalars[i]);
+    }
+    point.getCurve().normalizeAll(products);
+    return products;
+  }
+
+  @Override
+  public ECPoint[] hashToEllipticCurveForDsts(final byte[] message, final byte[][] dsts) {
+    // The first miss computes the points of all tags from one shared absorption of the message
+    final ECPoint[][] computed = new ECPoint[1][];
+    final ECPoint[] points = new ECPoint[dsts.length];
+    for (int i = 0; i < dsts.length; i++) {
+      final int index = i;
+      points[i] = this.cache.get(CacheKey.of(this.namespace(FOR_DST, dsts[i]), message), () -> {
+        if (computed[0] == null) {
+          computed[0] = this.delegate.hashToEllipticCurveForDsts(message, dsts);
+        }
+        return computed[0][index];
+      });
+    }
+    return points;
+  }
+
+  @Override
+  public ECPoint encodeToEllipticCurve(final byte[] message) {
+    return this.cache.get(CacheKey.of(this.encodeNamespace, message),
+        () -> this.delegate.encodeToEllipticCurve(message));
+  }
+
+  @Override
+  public HashToEllipticCurve withPrefix(final byte[] prefix) {
+    final byte[] prefixScope = Arrays.copyOf(this.scope, this.scope.length + prefix.length);
+    System.arraycopy(prefix, 0, prefixScope, this.scope.length, prefix.length);
+    return new CachingHashToEllipticCurve(this.delegate.withPrefix(prefix), this.cache,
+        prefixScope);
+  }
+
+  @Override
+  public int hashToEncodedPoint(final byte[] message, final boolean compressed, final byte[] out,
+      final int off) {
+    final ECPoint point = this.hashToEllipticCurve(message);
+    final int length = point.getEncodedLength(compressed);
+    if (off < 0 || out.length - off < length) {
+      throw new IllegalArgumentException("Output buffer too small for the encoded point");
+    }
+    point.encodeTo(compressed, out, off);
+    return length;
+  }
+
+  @Override
+  public int hashToEncodedPoints(final byte[][] messages, final boolean compressed,
+      final byte[] out, final int off) {
+    final ECPoint[] points = this.hashToEllipticCurve(messages);
+    if (points.length == 0) {
+      return 0;
+    }
+    final int length = points[0].getCurve().getAffinePointEncodingLength(compressed);
+    if (off < 0 || out.length - off < length * points.length) {
+      throw new IllegalArgumentException("Output buffer too small for the encoded point");
+    }
+    for (int i = 0; i < points.length; i++) {
+      final int recordOff = off + i * length;
+      if (points[i].isInfinity()) {
+        Arrays.fill(out, recordOff, recordOff + length, (byte) 0x00);
+      } else {
+        points[i].encodeTo(compressed, out, recordOff);
+      }
+    }
+    return length * points.length;
+  }
+
+  /**
+   * Get the key namespace of a kind of result: kind || I2OSP(len(scope), 4) || scope || tag.
+   *
+   * @param kind the kind of result
+   * @param tag further input of the result, such as a domain separation tag
+   * @return the namespace, used as the domain separation tag of the cache keys
+   */
+  private byte[] namespace(final byte kind, final byte[] tag) {
+    final byte[] namespace = new byte[5 + this.scope.length + tag.length];
+    namespace[0] = kind;
+    namespace[1] = (byte) (this.scope.length >>> 24);
+    namespace[2] = (byte) (this.scope.length >>> 16);
+    namespace[3] = (byte) (this.scope.length >>> 8);
+    namespace[4] = (byte) this.scope.length;
+    System.arraycopy(this.scope, 0, namespace, 5, this.scope.length);
+    System.arraycopy(tag, 0, namespace, 5 + this.scope.length, tag.length);
+    return namespace;
+  }
+
+  /**
+   * Get a snapshot of the cache counters.
+   *
+   * @return the cache statistics
+   */
+  public CacheStatistics getCacheStatistics() {
+    return this.cache.getStatistics();
+  }
+
+}
@@ -0,0 +1,59 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import se.digg.crypto.hashtocurve.cache.CacheKey;
+import se.digg.crypto.hashtocurve.cache.HashResultCache;
+import se.digg.crypto.hashtocurve.data.CacheStatistics;
+
+/**
+ * Optional caching decorator of {@link HashToScalar}.
+ *
+ * <p>Hash results are kept in a bounded {@link HashResultCache}, keyed by a SHA-256 digest of the
+ * domain separation tag and the input, and concurrent requests for the same uncached pair share
+ * one computation. Caching is opt-in: it only applies to calls made through an instance of this
+ * class.
+ */
+public class CachingHashToScalar implements HashToScalar {
+
+  private final HashToScalar delegate;
+  private final HashResultCache<BigInteger> cache;
+
+  /**
+   * Creates a caching decorator.
+   *
+   * @param delegate the hash to scalar implementation computing uncached results
+   * @param maximumSize the maximum number of cached scalars
+   * @param maximumWeight the maximum estimated memory use of the cached scalars in bytes
+   */
+  public CachingHashToScalar(final HashToScalar delegate, final long maximumSize,
+      final long maximumWeight) {
+    this.delegate = delegate;
+    this.cache = new HashResultCache<>(maximumSize, maximumWeight,
+        scalar -> 64 + scalar.bitLength() / 8);
+  }
+
+  @Override
+  public BigInteger process(final byte[] input, final byte[] dst) {
+    return this.cache.get(CacheKey.of(dst, input), () -> this.delegate.process(input, dst));
+  }
+
+  @Override
+  public BigInteger process(final ByteBuffer input, final byte[] dst) {
+    return this.cache.get(CacheKey.of(dst, input), () -> this.delegate.process(input, dst));
+  }
+
+  /**
+   * Get a snapshot of the cache counters.
+   *
+   * @return the cache statistics
+   */
+  public CacheStatistics getCacheStatistics() {
+    return this.cache.getStatistics();
+  }
+
+}
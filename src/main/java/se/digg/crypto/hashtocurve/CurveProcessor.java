@@ -19,4 +19,16 @@ public interface CurveProcessor {
    */
   ECPoint clearCofactor(ECPoint ecPoint);
 
+  /**
+   * Clears the cofactor from the given elliptic curve point without normalizing the result. The
+   * returned point is equal to the result of {@link #clearCofactor(ECPoint)}, but may be in
+   * projective coordinates, which lets callers batch or skip the conversion to affine coordinates.
+   *
+   * @param ecPoint the elliptic curve point to process
+   * @return the elliptic curve point with the cofactor cleared, possibly not normalized
+   */
+  default ECPoint clearCofactorUnnormalized(final ECPoint ecPoint) {
+    return this.clearCofactor(ecPoint);
+  }
+
 }
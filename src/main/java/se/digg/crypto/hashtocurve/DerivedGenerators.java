@@ -0,0 +1,304 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECLookupTable;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointCombMultiplier;
+import org.bouncycastle.math.ec.FixedPointPreCompInfo;
+import org.bouncycastle.math.ec.FixedPointUtil;
+
+/**
+ * Independent generators derived by hashing label || I2OSP(i, 4) to the curve for a range of
+ * indexes i, such as the generators of Pedersen and vector commitments.
+ *
+ * <p>Each generator carries the fixed-point comb table of {@link FixedPointUtil}, so scalar
+ * multiplications with {@link #multiply(int, BigInteger)} only add table entries instead of
+ * doubling and adding the generator. The tables can be written to a stream with
+ * {@link #write(OutputStream)} and read back with {@link #read(InputStream, ECCurve)}, which avoids
+ * both hashing and precomputation after a process restart. The comb table lookups do not depend
+ * on the scalar, so the multiplication is suitable for secret scalars. Instances are immutable
+ * and thread safe.
+ */
+public final class DerivedGenerators {
+
+  /** Format identifier of serialized generator tables, the ASCII bytes "H2CG". */
+  private static final int MAGIC = 0x48324347;
+  private static final int VERSION = 1;
+  private static final FixedPointCombMultiplier MULTIPLIER = new FixedPointCombMultiplier();
+
+  private final byte[] label;
+  private final int from;
+  private final ECPoint[] generators;
+
+  private DerivedGenerators(final byte[] label, final int from, final ECPoint[] generators) {
+    this.label = label;
+    this.from = from;
+    this.generators = generators;
+  }
+
+  /**
+   * Derives the generators of the indexes from (inclusive) to to (exclusive) in one batch and
+   * precomputes their comb tables.
+   *
+   * @param hashToEllipticCurve the hash to curve suite, including its domain separation tag
+   * @param label the label of the generators
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the derived generators
+   * @throws IllegalArgumentException if from is negative or greater than to
+   */
+  static DerivedGenerators derive(final HashToEllipticCurve hashToEllipticCurve,
+      final byte[] label, final int from, final int to) {
+    if (from < 0 || from > to) {
+      throw new IllegalArgumentException("Invalid index range [" + from + ", " + to + ")");
+    }
+    final byte[][] messages = new byte[to - from][];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = message(label, from + i);
+    }
+    final ECPoint[] generators = hashToEllipticCurve.hashToEllipticCurve(messages);
+    for (final ECPoint generator : generators) {
+      FixedPointUtil.precompute(generator);
+    }
+    return new DerivedGenerators(label.clone(), from, generators);
+  }
+
+  /**
+   * Get the message hashed to the generator of an index.
+   *
+   * @param label the label of the generators
+   * @param index the index of the generator
+   * @return label || I2OSP(index, 4)
+   */
+  static byte[] message(final byte[] label, final int index) {
+    final byte[] message = Arrays.copyOf(label, label.length + 4);
+    message[label.length] = (byte) (index >>> 24);
+    message[label.length + 1] = (byte) (index >>> 16);
+    message[label.length + 2] = (byte) (index >>> 8);
+    message[label.length + 3] = (byte) index;
+    return message;
+  }
+
+  /**
+   * Get the label of the generators.
+   *
+   * @return a copy of the label
+   */
+  public byte[] getLabel() {
+    return this.label.clone();
+  }
+
+  /**
+   * Get the index of the first generator.
+   *
+   * @return the first index
+   */
+  public int getFrom() {
+    return this.from;
+  }
+
+  /**
+   * Get the number of generators.
+   *
+   * @return the number of generators
+   */
+  public int size() {
+    return this.generators.length;
+  }
+
+  /**
+   * Get the generator of an index.
+   *
+   * @param index the index, in the range of the derivation
+   * @return the generator
+   * @throws IndexOutOfBoundsException if the index is outside the range of the derivation
+   */
+  public ECPoint getGenerator(final int index) {
+    return this.generators[this.position(index)];
+  }
+
+  /**
+   * Multiplies the generator of an index by a scalar using its comb table.
+   *
+   * @param index the index, in the range of the derivation
+   * @param k the scalar, which is reduced modulo the curve order if the order is known
+   * @return k times the generator
+   * @throws IndexOutOfBoundsException if the index is outside the range of the derivation
+   */
+  public ECPoint multiply(final int index, final BigInteger k) {
+    final ECPoint generator = this.generators[this.position(index)];
+    final BigInteger order = generator.getCurve().getOrder();
+    return MULTIPLIER.multiply(generator, order == null ? k : k.mod(order));
+  }
+
+  /**
+   * Writes the generators and their comb tables to a stream. The stream is not closed.
+   *
+   * @param out the output stream
+   * @throws IOException if the stream cannot be written
+   */
+  public void write(final OutputStream out) throws IOException {
+    final DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(this.label.length);
+    data.write(this.label);
+    data.writeInt(this.from);
+    data.writeInt(this.generators.length);
+    for (final ECPoint generator : this.generators) {
+      final FixedPointPreCompInfo info = FixedPointUtil.precompute(generator);
+      final ECLookupTable table = info.getLookupTable();
+      writePoint(data, generator);
+      data.writeInt(info.getWidth());
+      writePoint(data, info.getOffset());
+      data.writeInt(table.getSize());
+      for (int i = 0; i < table.getSize(); i++) {
+        writePoint(data, table.lookupVar(i));
+      }
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads generators and their comb tables written by {@link #write(OutputStream)}. All points are
+   * decoded on the given curve, which rejects points that are not on the curve. The width of each
+   * table must be the width {@link FixedPointUtil} uses for the curve, and the table must be
+   * consistent with its generator: the first two entries are the generator and twice the
+   * generator, every other entry is the sum of an earlier entry and the power of two point of its
+   * lowest index bit, and the offset matches the second power of two point. This costs a few
+   * additions per entry. The powers of two points beyond the first are taken from the table, since
+   * checking them would cost as much as the precomputation, so a table from an untrusted source
+   * must still be recomputed. The generators are read one at a time, so a corrupted count fails at
+   * the end of the stream instead of allocating memory for it. The stream is not closed.
+   *
+   * @param in the input stream
+   * @param curve the curve of the generators, which must be the curve instance of the hash to
+   *        curve suite for the points to be interchangeable with its output
+   * @return the generators with their comb tables attached
+   * @throws IOException if the stream cannot be read or does not hold valid generator tables for
+   *         the curve
+   */
+  public static DerivedGenerators read(final InputStream in, final ECCurve curve)
+      throws IOException {
+    final DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+      throw new IOException("Not a generator table of a supported version");
+    }
+    try {
+      final byte[] label = readBytes(data);
+      final int from = data.readInt();
+      final int count = data.readInt();
+      if (from < 0 || count < 0 || count > Integer.MAX_VALUE - from) {
+        throw new IOException("Invalid index range of generator table");
+      }
+      final int width = FixedPointUtil.getCombSize(curve) > 250 ? 6 : 5;
+      final List<ECPoint> generators = new ArrayList<>(Math.min(count, 1024));
+      for (int i = 0; i < count; i++) {
+        final ECPoint generator = readPoint(data, curve);
+        final FixedPointPreCompInfo info = new FixedPointPreCompInfo();
+        info.setWidth(data.readInt());
+        info.setOffset(readPoint(data, curve));
+        final int size = data.readInt();
+        if (info.getWidth() != width || size != 1 << width) {
+          throw new IOException("Invalid comb table size");
+        }
+        final ECPoint[] table = new ECPoint[size];
+        for (int j = 0; j < size; j++) {
+          table[j] = readPoint(data, curve);
+        }
+        if (!isCombTable(generator, info.getOffset(), table)) {
+          throw new IOException("Comb table does not match its generator");
+        }
+        info.setLookupTable(curve.createCacheSafeLookupTable(table, 0, size));
+        curve.precompute(generator, FixedPointUtil.PRECOMP_NAME, existing -> info);
+        generators.add(generator);
+      }
+      return new DerivedGenerators(label, from, generators.toArray(new ECPoint[0]));
+    } catch (final IllegalArgumentException e) {
+      throw new IOException("Invalid point in generator table", e);
+    }
+  }
+
+  /**
+   * Checks that a table has the structure of the comb table of {@link FixedPointUtil}, where
+   * entry 0 is the generator P, the offset is P - 2^d * P and entry i, for i &gt;= 1 with lowest
+   * set bit b, is entry i - 2^b plus 2^(b * d) * P, with d the number of comb columns.
+   *
+   * @param generator the generator
+   * @param offset the offset of the table
+   * @param table the normalized table entries
+   * @return true if the table is consistent with the generator
+   */
+  private static boolean isCombTable(final ECPoint generator, final ECPoint offset,
+      final ECPoint[] table) {
+    // The power of two points, taken from entry 2^b, and the expected entries and offset
+    final ECPoint[] expected = new ECPoint[table.length + 1];
+    final ECPoint[] pow2 = new ECPoint[Integer.numberOfTrailingZeros(table.length)];
+    for (int b = 0; b < pow2.length; b++) {
+      pow2[b] = b == 0 ? generator : table[1 << b].subtract(generator);
+    }
+    expected[0] = generator;
+    for (int i = 1; i < table.length; i++) {
+      final int b = Integer.numberOfTrailingZeros(i);
+      expected[i] = table[i - (1 << b)].add(pow2[b]);
+    }
+    expected[table.length] = generator.subtract(pow2[1]);
+    generator.getCurve().normalizeAll(expected);
+    boolean valid = expected[table.length].equals(offset);
+    for (int i = 0; i < table.length; i++) {
+      valid &= expected[i].equals(table[i]);
+    }
+    return valid;
+  }
+
+  /**
+   * Get the position of an index in the generator array.
+   *
+   * @param index the index of a generator
+   * @return the position in the array
+   * @throws IndexOutOfBoundsException if the index is outside the range of the derivation
+   */
+  private int position(final int index) {
+    final long position = (long) index - this.from;
+    if (position < 0 || position >= this.generators.length) {
+      throw new IndexOutOfBoundsException("Index " + index + " outside of the derived range");
+    }
+    return (int) position;
+  }
+
+  private static void writePoint(final DataOutputStream data, final ECPoint point)
+      throws IOException {
+    final byte[] encoded = point.getEncoded(false);
+    data.writeInt(encoded.length);
+    data.write(encoded);
+  }
+
+  private static ECPoint readPoint(final DataInputStream data, final ECCurve curve)
+      throws IOException {
+    return curve.decodePoint(readBytes(data));
+  }
+
+  private static byte[] readBytes(final DataInputStream data) throws IOException {
+    final int length = data.readInt();
+    if (length < 0 || length > 65536) {
+      throw new IOException("Invalid length in generator table: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    data.readFully(bytes);
+    return bytes;
+  }
+
+}
@@ -0,0 +1,243 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed constants of a prime field, shared by all operations in that field.
+ *
+ * <p>The constants c1 to c5 of the Tonelli-Shanks square root, including the first non-square
+ * element of the field, are computed once per prime instead of once per square root. Squareness is
+ * tested with the Jacobi symbol, which for a prime modulus equals the Legendre symbol but is much
+ * cheaper to compute than the exponentiation of Euler's criterion. Inversion uses the safegcd
+ * algorithm of {@link SafeGcdInverter}, whose divstep loop runs in constant time. Faster variable
+ * time inversion and square roots are provided for public values. Instances are immutable and
+ * thread safe.
+ */
+@SuppressWarnings("checkstyle:MemberName")
+public final class FieldContext {
+
+  /** Limits the number of cached contexts if callers use many distinct primes. */
+  private static final int MAX_CACHED_CONTEXTS = 64;
+  private static final Map<BigInteger, FieldContext> CONTEXTS = new ConcurrentHashMap<>();
+
+  private final BigInteger p;
+  /** The largest integer c1 such that 2^c1 divides p - 1. */
+  private final int c1;
+  /** (p - 1) / 2^c1. */
+  private final BigInteger c2;
+  /** (c2 - 1) / 2. */
+  private final BigInteger c3;
+  /** The first non-square element of the field. */
+  private final BigInteger c4;
+  /** c4^c2. */
+  private final BigInteger c5;
+  private final SafeGcdInverter inverter;
+
+  private FieldContext(final BigInteger p) {
+    this.p = p;
+    this.c1 = p.subtract(BigInteger.ONE).getLowestSetBit();
+    this.c2 = p.subtract(BigInteger.ONE).shiftRight(this.c1);
+    this.c3 = this.c2.subtract(BigInteger.ONE).shiftRight(1);
+    this.c4 = this.getFirstNonSquare();
+    this.c5 = this.c4.modPow(this.c2, p);
+    this.inverter = new SafeGcdInverter(p);
+  }
+
+  /**
+   * Get the field context of an odd prime.
+   *
+   * @param p the field prime
+   * @return the field context of p
+   * @throws IllegalArgumentException if p is not odd and greater than 2
+   */
+  public static FieldContext getInstance(final BigInteger p) {
+    final FieldContext cached = CONTEXTS.get(p);
+    if (cached != null) {
+      return cached;
+    }
+    if (!p.testBit(0) || p.compareTo(BigInteger.TWO) <= 0) {
+      throw new IllegalArgumentException("Field prime must be an odd prime");
+    }
+    final FieldContext context = new FieldContext(p);
+    if (CONTEXTS.size() < MAX_CACHED_CONTEXTS) {
+      CONTEXTS.putIfAbsent(p, context);
+    }
+    return context;
+  }
+
+  /**
+   * Get the field prime.
+   *
+   * @return the field prime
+   */
+  public BigInteger getP() {
+    return this.p;
+  }
+
+  /**
+   * Test if a value is square in the field. Zero is regarded as square.
+   *
+   * @param val value to test
+   * @return true if val is square
+   */
+  public boolean isSquare(final BigInteger val) {
+    return jacobi(val, this.p) >= 0;
+  }
+
+  /**
+   * Calculate the inverse of val in the field, with the inverse of zero defined as zero as by inv0
+   * of RFC 9380. The divstep loop of the inversion runs in constant time for all field elements,
+   * while the reduction of val and the conversions from and to {@link BigInteger} are left to the
+   * JDK, see {@link SafeGcdInverter}.
+   *
+   * @param val value, which is reduced modulo p
+   * @return the inverse of val in the range [0, p), or zero if val is zero in the field
+   */
+  public BigInteger inv0(final BigInteger val) {
+    return this.inverter.inverse(val);
+  }
+
+  /**
+   * Calculate the inverse of val in the field in variable time, with the inverse of zero defined
+   * as zero. Only for public values, see {@link #inv0(BigInteger)} for secret values.
+   *
+   * @param val value, which is reduced modulo p
+   * @return the inverse of val in the range [0, p), or zero if val is zero in the field
+   */
+  public BigInteger inv0VariableTime(final BigInteger val) {
+    final BigInteger reduced = val.mod(this.p);
+    return reduced.signum() == 0 ? BigInteger.ZERO : reduced.modInverse(this.p);
+  }
+
+  /**
+   * Calculate the square root of a square val in the field in variable time. Only for public
+   * values, see {@link #sqrt(BigInteger)} for secret values. For p = 3 (mod 4) this is a single
+   * exponentiation, and otherwise the Tonelli-Shanks algorithm, which stops each sequence of
+   * squarings as soon as it reaches one.
+   *
+   * @param val value, which must be square in the field
+   * @return square root of val in the field
+   * @throws ArithmeticException if val is not square in the field
+   */
+  public BigInteger sqrtVariableTime(final BigInteger val) {
+    final BigInteger a = val.mod(this.p);
+    if (a.signum() == 0) {
+      return BigInteger.ZERO;
+    }
+    // a^((c2 + 1) / 2) = a^(c3 + 1)
+    BigInteger r = a.modPow(this.c3.add(BigInteger.ONE), this.p);
+    if (this.c1 == 1) {
+      if (!r.multiply(r).mod(this.p).equals(a)) {
+        throw new ArithmeticException("Value is not square in the field");
+      }
+      return r;
+    }
+    BigInteger t = a.modPow(this.c2, this.p);
+    BigInteger c = this.c5;
+    int m = this.c1;
+    while (!t.equals(BigInteger.ONE)) {
+      int i = 0;
+      BigInteger t2 = t;
+      while (!t2.equals(BigInteger.ONE)) {
+        t2 = t2.multiply(t2).mod(this.p);
+        if (++i == m) {
+          throw new ArithmeticException("Value is not square in the field");
+        }
+      }
+      BigInteger b = c;
+      for (int j = 0; j < m - i - 1; j++) {
+        b = b.multiply(b).mod(this.p);
+      }
+      m = i;
+      c = b.multiply(b).mod(this.p);
+      t = t.multiply(c).mod(this.p);
+      r = r.multiply(b).mod(this.p);
+    }
+    return r;
+  }
+
+  /**
+   * Calculate the square root of val in the field using the constant time Tonelli-Shanks algorithm
+   * of section I.4 of RFC 9380.
+   *
+   * @param val value
+   * @return square root of val in the field
+   */
+  public BigInteger sqrt(final BigInteger val) {
+    BigInteger z = val.modPow(this.c3, this.p);
+    BigInteger t = z.multiply(z).multiply(val).mod(this.p);
+    z = z.multiply(val).mod(this.p);
+    BigInteger b = t;
+    BigInteger c = this.c5;
+    for (int i = this.c1; i >= 2; i--) {
+      for (int j = 1; j <= i - 2; j++) {
+        b = b.multiply(b).mod(this.p);
+      }
+      final boolean e = b.equals(BigInteger.ONE);
+      final BigInteger zt = z.multiply(c).mod(this.p);
+      z = H2cUtils.cmov(zt, z, e);
+      c = c.multiply(c).mod(this.p);
+      final BigInteger tt = t.multiply(c).mod(this.p);
+      t = H2cUtils.cmov(tt, t, e);
+      b = t;
+    }
+    return z;
+  }
+
+  /**
+   * Computes the Jacobi symbol (a/n) for an odd positive n. Factors of two are removed by shifts
+   * and the symbol is reduced by quadratic reciprocity, so no modular exponentiation is needed.
+   *
+   * @param a the numerator
+   * @param n the odd positive denominator
+   * @return the Jacobi symbol, -1, 0 or 1
+   */
+  public static int jacobi(final BigInteger a, final BigInteger n) {
+    BigInteger x = a.mod(n);
+    BigInteger y = n;
+    int result = 1;
+    while (x.signum() != 0) {
+      final int twos = x.getLowestSetBit();
+      x = x.shiftRight(twos);
+      final int yMod8 = y.intValue() & 7;
+      if ((twos & 1) == 1 && (yMod8 == 3 || yMod8 == 5)) {
+        result = -result;
+      }
+      if ((x.intValue() & 3) == 3 && (yMod8 & 3) == 3) {
+        result = -result;
+      }
+      final BigInteger r = y.mod(x);
+      y = x;
+      x = r;
+    }
+    return y.equals(BigInteger.ONE) ? result : 0;
+  }
+
+  /**
+   * Get the first non-square member of the field.
+   *
+   * @return first non-square member of the field
+   */
+  @SuppressWarnings("PMD.AvoidThrowingRawExceptionTypes")
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "THROWS_METHOD_THROWS_RUNTIMEEXCEPTION",
+      justification = "RuntimeException is appropriate for illegal field state")
+  private BigInteger getFirstNonSquare() {
+    final BigInteger maxCount = new BigInteger("1000");
+    BigInteger nonSquare = BigInteger.ONE;
+    while (this.isSquare(nonSquare)) {
+      nonSquare = nonSquare.add(BigInteger.ONE);
+      if (nonSquare.compareTo(maxCount) > 0) {
+        throw new RuntimeException("Illegal Field. No non square value can be found");
+      }
+    }
+    return nonSquare;
+  }
+
+}
@@ -5,10 +5,20 @@
 package se.digg.crypto.hashtocurve;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.util.Arrays;
+import se.digg.crypto.hashtocurve.data.DigestBackend;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.Bls12381Curve;
+import se.digg.crypto.hashtocurve.impl.JcaDigest;
 
 /**
  * Utility functions for hash 2 curve.
@@ -31,52 +41,83 @@ public class H2cUtils {
   }
 
   /**
-   * Test if a value is square in a curve order.
+   * Test if a value is square in a curve order. Zero is regarded as square.
    *
    * @param val value to test
-   * @param order curve order
+   * @param order curve order, an odd prime
    * @return true if val is square
+   * @see FieldContext#isSquare(BigInteger)
    */
   public static boolean isSquare(final BigInteger val, final BigInteger order) {
-    final BigInteger modPow =
-        val.modPow(order.subtract(BigInteger.ONE).divide(BigInteger.TWO), order);
-    return modPow.equals(BigInteger.ONE) || modPow.equals(BigInteger.ZERO);
+    return FieldContext.getInstance(order).isSquare(val);
   }
 
   /**
    * Calculate the square root of val in a curve order.
    *
    * @param val value
-   * @param order curve order
+   * @param order curve order, an odd prime
    * @return square root of val in curve order
+   * @see FieldContext#sqrt(BigInteger)
    */
   public static BigInteger sqrt(final BigInteger val, final BigInteger order) {
-    // Get the largest integer c1 where 2^c1 divides order - 1
-    final int c1 = order.subtract(BigInteger.ONE).getLowestSetBit();
-    final BigInteger c2 = order.subtract(BigInteger.ONE).divide(BigInteger.TWO.pow(c1));
-    final BigInteger c3 = c2.subtract(BigInteger.ONE).divide(BigInteger.TWO);
-    final BigInteger c4 = getFirstNonSquare(order);
-    final BigInteger c5 = c4.modPow(c2, order);
-
-    // Procedure
-    BigInteger z = val.modPow(c3, order);
-    BigInteger t = z.multiply(z).multiply(val).mod(order);
-    z = z.multiply(val).mod(order);
-    BigInteger b = t;
-    BigInteger c = c5;
-    for (int i = c1; i >= 2; i--) {
-      for (int j = 1; j <= i - 2; j++) {
-        b = b.multiply(b).mod(order);
-      }
-      final boolean e = b.equals(BigInteger.ONE);
-      final BigInteger zt = z.multiply(c).mod(order);
-      z = cmov(zt, z, e);
-      c = c.multiply(c).mod(order);
-      final BigInteger tt = t.multiply(c).mod(order);
-      t = cmov(tt, t, e);
-      b = t;
+    return FieldContext.getInstance(order).sqrt(val);
+  }
+
+  /**
+   * Get the curve parameters of a hash to curve profile.
+   *
+   * @param profile the hash to curve profile
+   * @return the curve parameters of the profile
+   */
+  public static ECParameterSpec getParameterSpec(final HashToCurveProfile profile) {
+    return switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-256");
+      case P384_XMD_SHA_384_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-384");
+      case P521_XMD_SHA_512_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-521");
+      case curve25519_XMD_SHA_512_ELL2_RO_ -> ECNamedCurveTable.getParameterSpec("curve25519");
+      case BLS12381G1_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_NU_ ->
+          Bls12381Curve.getG1ParameterSpec();
+    };
+  }
+
+  /**
+   * Creates a new instance of the hash function of a hash to curve profile, using the
+   * implementation selected by {@link BackendCalibration#getSelection(HashToCurveProfile)}.
+   *
+   * @param profile the hash to curve profile
+   * @return a new digest instance
+   */
+  public static Digest createDigest(final HashToCurveProfile profile) {
+    return createDigest(profile, BackendCalibration.getSelection(profile).digest());
+  }
+
+  /**
+   * Creates a new instance of the hash function of a hash to curve profile.
+   *
+   * @param profile the hash to curve profile
+   * @param backend the implementation of the hash function
+   * @return a new digest instance
+   * @throws IllegalArgumentException if the JCA implementation of the hash function is not
+   *         available
+   */
+  public static Digest createDigest(final HashToCurveProfile profile,
+      final DigestBackend backend) {
+    if (backend == DigestBackend.JCA) {
+      return switch (profile) {
+        case P256_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_RO_,
+            BLS12381G1_XMD_SHA_256_SSWU_NU_ -> new JcaDigest("SHA-256", 64);
+        case P384_XMD_SHA_384_SSWU_RO_ -> new JcaDigest("SHA-384", 128);
+        case P521_XMD_SHA_512_SSWU_RO_, curve25519_XMD_SHA_512_ELL2_RO_ ->
+            new JcaDigest("SHA-512", 128);
+      };
     }
-    return z;
+    return switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_RO_,
+          BLS12381G1_XMD_SHA_256_SSWU_NU_ -> new SHA256Digest();
+      case P384_XMD_SHA_384_SSWU_RO_ -> new SHA384Digest();
+      case P521_XMD_SHA_512_SSWU_RO_, curve25519_XMD_SHA_512_ELL2_RO_ -> new SHA512Digest();
+    };
   }
 
   /**
@@ -86,25 +127,46 @@ public class H2cUtils {
    * @param spec the ECParameterSpec specifying the curve field
    * @return the sign of 'val'
    * @throws IllegalArgumentException if spec.getCurve().getField().getDimension() != 1
+   * @see #sgn0(BigInteger[])
    */
   public static int sgn0(final BigInteger val, final ECParameterSpec spec) {
     if (spec.getCurve().getField().getDimension() == 1) {
       return val.mod(BigInteger.TWO).intValue();
     }
-    // TODO implement sign0 test for extension fields
-    throw new IllegalArgumentException("Extension fields != 1 is not implemented yet");
+    throw new IllegalArgumentException(
+        "Elements of extension fields have more than one component, use sgn0(BigInteger[])");
+  }
+
+  /**
+   * Returns the sign of an element of an extension field of degree m as defined by sgn0 in
+   * section 4.1 of RFC 9380: the sign of the first non-zero component, or 0 for the zero element.
+   *
+   * @param val the m components of the element, each in the range [0, p)
+   * @return the sign of 'val'
+   */
+  public static int sgn0(final BigInteger[] val) {
+    int sign = 0;
+    boolean zero = true;
+    for (final BigInteger component : val) {
+      final int signI = component.testBit(0) ? 1 : 0;
+      sign |= zero ? signI : 0;
+      zero &= component.signum() == 0;
+    }
+    return sign;
   }
 
   /**
    * Calculates the modular inverse of a BigInteger 'val' with respect to a given BigInteger
-   * 'order'.
+   * 'order', with the inverse of zero defined as zero as by inv0 of RFC 9380. The inverse is
+   * computed in constant time by the safegcd algorithm with the constants of the field context.
    *
    * @param val the BigInteger value to calculate the inverse for
-   * @param order the BigInteger representing the order
+   * @param order the BigInteger representing the odd prime order
    * @return the modular inverse of 'val' with respect to 'order'
+   * @see FieldContext#inv0(BigInteger)
    */
   public static BigInteger inv0(final BigInteger val, final BigInteger order) {
-    return val.modInverse(order);
+    return FieldContext.getInstance(order).inv0(val);
   }
 
   /**
@@ -146,6 +208,43 @@ public class H2cUtils {
     return new BigInteger(Arrays.concatenate(new byte[] {0x00}, val));
   }
 
+  /**
+   * Feeds the remaining bytes of a buffer to a digest. The bytes of a heap buffer are passed to the
+   * digest in place. The bytes of a direct or read-only buffer are read through the chunk buffer,
+   * one chunk at a time, so that no copy of the whole message is made. The position, limit and
+   * content of the buffer are not modified.
+   *
+   * @param digest the digest to update
+   * @param data the buffer holding the bytes between its position and limit
+   * @param chunk scratch buffer for reading direct or read-only buffers
+   */
+  public static void update(final Digest digest, final ByteBuffer data, final byte[] chunk) {
+    final int position = data.position();
+    final int limit = data.limit();
+    if (data.hasArray()) {
+      digest.update(data.array(), data.arrayOffset() + position, limit - position);
+      return;
+    }
+    for (int offset = position; offset < limit; offset += chunk.length) {
+      final int length = Math.min(chunk.length, limit - offset);
+      data.get(offset, chunk, 0, length);
+      digest.update(chunk, 0, length);
+    }
+  }
+
+  /**
+   * Copies the remaining bytes of a buffer to a new array. The position, limit and content of the
+   * buffer are not modified.
+   *
+   * @param data the buffer holding the bytes between its position and limit
+   * @return the bytes between the position and the limit of the buffer
+   */
+  public static byte[] toByteArray(final ByteBuffer data) {
+    final byte[] bytes = new byte[data.remaining()];
+    data.get(data.position(), bytes);
+    return bytes;
+  }
+
   /**
    * Performs bitwise XOR operation on two byte arrays.
    *
@@ -169,26 +268,4 @@ public class H2cUtils {
     return xorArray;
   }
 
-  /**
-   * Get the first non-square member of the curve order.
-   *
-   * @param order curve order
-   * @return first non-square member of the curve order
-   */
-  @SuppressWarnings("PMD.AvoidThrowingRawExceptionTypes")
-  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
-      value = "THROWS_METHOD_THROWS_RUNTIMEEXCEPTION",
-      justification = "RuntimeException is appropriate for illegal field state")
-  private static BigInteger getFirstNonSquare(final BigInteger order) {
-    final BigInteger maxCount = new BigInteger("1000");
-    BigInteger nonSquare = BigInteger.ONE;
-    while (isSquare(nonSquare, order)) {
-      nonSquare = nonSquare.add(BigInteger.ONE);
-      if (nonSquare.compareTo(maxCount) > 0) {
-        throw new RuntimeException("Illegal Field. No non square value can be found");
-      }
-    }
-    return nonSquare;
-  }
-
 }
@@ -0,0 +1,84 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Reusable scratch state for hashing messages to a curve.
+ *
+ * <p>A context holds the buffers and temporaries of all pipeline stages, such as the digest
+ * instance and intermediate hash values of the message expansion, the uniform bytes and the field
+ * element temporaries of the map to curve. Each stage keeps its own scratch object in the context,
+ * created on first use. Passing the same context to repeated calls lets the stages reuse their
+ * scratch state instead of allocating it per call.
+ *
+ * <p>A context is not thread safe. The intended use is one context per thread, for example held in
+ * a {@link ThreadLocal}. A context may be shared by several hash to curve instances used by the
+ * same thread.
+ *
+ * <p>The scratch objects are keyed by stage instance, and instances created on demand, such as the
+ * expansions returned by withPrefix, each add an entry. To keep a long-lived context from growing
+ * without bound, the context holds at most {@value #MAX_STAGES} scratch objects and drops all of
+ * them when a further stage asks for one. The dropped objects are recreated on their next use.
+ */
+public final class HashContext {
+
+  /** The largest number of scratch objects held by a context. */
+  static final int MAX_STAGES = 32;
+
+  private final Map<Object, Object> scratch = new IdentityHashMap<>();
+  private byte[] uniformBytes = new byte[0];
+
+  /**
+   * Get the scratch object of a pipeline stage, creating it on first use.
+   *
+   * @param owner the stage instance owning the scratch object
+   * @param factory creates the scratch object, only called on first use
+   * @param <T> the type of the scratch object
+   * @return the scratch object of the stage
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getScratch(final Object owner, final Supplier<T> factory) {
+    T value = (T) this.scratch.get(owner);
+    if (value == null) {
+      if (this.scratch.size() >= MAX_STAGES) {
+        this.scratch.clear();
+      }
+      value = factory.get();
+      this.scratch.put(owner, value);
+    }
+    return value;
+  }
+
+  /**
+   * Get the number of scratch objects held by the context.
+   *
+   * @return the number of scratch objects
+   */
+  int size() {
+    return this.scratch.size();
+  }
+
+  /**
+   * Get a buffer for uniform bytes of at least the requested length. The buffer is reused by later
+   * calls and its content is only valid until the next call.
+   *
+   * @param length the minimum buffer length
+   * @return the buffer
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "EI_EXPOSE_REP",
+      justification = "The scratch buffer is intentionally shared with the pipeline stages")
+  public byte[] getUniformBytes(final int length) {
+    if (this.uniformBytes.length < length) {
+      this.uniformBytes = new byte[length];
+    }
+    return this.uniformBytes;
+  }
+
+}
@@ -5,9 +5,37 @@
 package se.digg.crypto.hashtocurve;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
 import lombok.RequiredArgsConstructor;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
 import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.data.BackendSelection;
+import se.digg.crypto.hashtocurve.data.DigestBackend;
+import se.digg.crypto.hashtocurve.data.ExecutionMode;
+import se.digg.crypto.hashtocurve.data.FieldBackend;
 import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.WarmUpReport;
+import se.digg.crypto.hashtocurve.impl.BatchShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.Bls12381G1CurveProcessor;
+import se.digg.crypto.hashtocurve.impl.Bls12381G1MapToCurve;
+import se.digg.crypto.hashtocurve.impl.GenericCurveProcessor;
+import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+import se.digg.crypto.hashtocurve.impl.GenericSqrtRatioCalculator;
+import se.digg.crypto.hashtocurve.impl.P256MapToCurve;
+import se.digg.crypto.hashtocurve.impl.P521MapToCurve;
+import se.digg.crypto.hashtocurve.impl.P521SqrtRatioCalculator;
+import se.digg.crypto.hashtocurve.impl.ShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.VariableTimeShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
 
 /**
  * Main class for implementing hash to elliptic curve according to RFC 9380.
@@ -22,6 +50,10 @@ import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
  * 5. P = clear_cofactor(R)
  * 6. return P
  * </code>
+ *
+ * <p>If the hash to field produces a single field element, as for the nonuniform _NU_ profiles,
+ * every hashing method computes encode_to_curve instead, which maps that element and clears the
+ * cofactor of the result.
  */
 @RequiredArgsConstructor
 public class HashToEllipticCurve {
@@ -30,10 +62,236 @@ public class HashToEllipticCurve {
   protected final MapToCurve mapToCurve;
   protected final CurveProcessor curveProcessor;
 
+  /** Default number of training iterations per profile of {@link #warmUp(Set)}. */
+  public static final int DEFAULT_WARM_UP_ITERATIONS = 2000;
+
+  private static final byte[] WARM_UP_DST =
+      "WARMUP-V01-CS02-with-hash2curve".getBytes(StandardCharsets.UTF_8);
+
   public static HashToEllipticCurve getInstance(final HashToCurveProfile profile) {
     return null;
   }
 
+  /**
+   * Creates a hash to curve instance for a profile and domain separation tag, with the backends
+   * selected by {@link BackendCalibration#getSelection(HashToCurveProfile)}. Without calibration
+   * or pinned backends, the P-256 and P-384 profiles use the limb based map to curve
+   * {@link BatchShallueVanDeWoestijneMapToCurve}, the P-521 profile uses {@link P521MapToCurve} on
+   * the Mersenne prime field, and the BLS12-381 G1 profiles use {@link Bls12381G1MapToCurve} with
+   * {@link Bls12381G1CurveProcessor}. Instances of the nonuniform _NU_ profiles hash to a single
+   * field element, so all their hashing methods compute encode_to_curve, like
+   * {@link #encodeToEllipticCurve(byte[])}.
+   *
+   * @param profile the hash to curve profile
+   * @param dst the domain separation tag
+   * @return the hash to curve instance
+   * @throws IllegalArgumentException if hash to curve is not supported for the profile
+   */
+  public static HashToEllipticCurve getInstance(final HashToCurveProfile profile,
+      final byte[] dst) {
+    return getInstance(profile, dst, BackendCalibration.getSelection(profile));
+  }
+
+  /**
+   * Creates a hash to curve instance for a profile and domain separation tag in an execution mode.
+   * The suites of both modes produce identical points, and differ in map_to_curve only as
+   * described by {@link ExecutionMode}. In {@link ExecutionMode#PUBLIC_INPUT}, the NIST curve
+   * profiles use {@link VariableTimeShallueVanDeWoestijneMapToCurve}. In
+   * {@link ExecutionMode#SECRET_INPUT}, the profiles use the field arithmetic selected by
+   * {@link BackendCalibration#getSelection(HashToCurveProfile)} if it runs in constant time, and
+   * otherwise the constant time limb arithmetic of the profile.
+   *
+   * @param profile the hash to curve profile
+   * @param dst the domain separation tag
+   * @param mode the execution mode
+   * @return the hash to curve instance
+   * @throws IllegalArgumentException if hash to curve is not supported for the profile
+   */
+  public static HashToEllipticCurve getInstance(final HashToCurveProfile profile,
+      final byte[] dst, final ExecutionMode mode) {
+    checkSupported(profile);
+    final BackendSelection selection = BackendCalibration.getSelection(profile);
+    final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+    return switch (mode) {
+      case PUBLIC_INPUT -> switch (profile) {
+        case P256_XMD_SHA_256_SSWU_RO_, P384_XMD_SHA_384_SSWU_RO_, P521_XMD_SHA_512_SSWU_RO_ ->
+            create(profile, spec, dst, selection.digest(),
+                new VariableTimeShallueVanDeWoestijneMapToCurve(spec, profile.getZ()));
+        default -> getInstance(profile, dst, selection);
+      };
+      case SECRET_INPUT -> {
+        if (selection.field().isConstantTime()) {
+          yield getInstance(profile, dst, selection);
+        }
+        final FieldBackend field =
+            BackendCalibration.getSupportedFields(profile).contains(FieldBackend.LIMB)
+                ? FieldBackend.LIMB
+                : FieldBackend.BC_CUSTOM_FIELD;
+        yield getInstance(profile, dst,
+            new BackendSelection(selection.digest(), field, selection.batchSize()));
+      }
+    };
+  }
+
+  /**
+   * Creates a hash to curve instance for a profile and domain separation tag with explicitly
+   * selected backends.
+   *
+   * @param profile the hash to curve profile
+   * @param dst the domain separation tag
+   * @param selection the backends to use
+   * @return the hash to curve instance
+   * @throws IllegalArgumentException if hash to curve is not supported for the profile, or the
+   *         selected field arithmetic is not available for the profile
+   */
+  public static HashToEllipticCurve getInstance(final HashToCurveProfile profile,
+      final byte[] dst, final BackendSelection selection) {
+    checkSupported(profile);
+    final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+    return create(profile, spec, dst, selection.digest(),
+        createMapToCurve(profile, spec, selection.field()));
+  }
+
+  private static void checkSupported(final HashToCurveProfile profile) {
+    if (profile == HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_) {
+      throw new IllegalArgumentException(
+          "Hash to curve is not supported for profile " + profile.getCipherSuiteID());
+    }
+  }
+
+  private static HashToEllipticCurve create(final HashToCurveProfile profile,
+      final ECParameterSpec spec, final byte[] dst, final DigestBackend digest,
+      final MapToCurve mapToCurve) {
+    final HashToField hashToField = new GenericHashToField(dst.clone(), spec,
+        new XmdMessageExpansion(H2cUtils.createDigest(profile, digest), profile.getK()),
+        profile.getL(), profile.isRandomOracle() ? 2 : 1);
+    final CurveProcessor curveProcessor = switch (profile) {
+      case BLS12381G1_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_NU_ ->
+          new Bls12381G1CurveProcessor();
+      default -> new GenericCurveProcessor(spec);
+    };
+    return new HashToEllipticCurve(hashToField, mapToCurve, curveProcessor);
+  }
+
+  private static MapToCurve createMapToCurve(final HashToCurveProfile profile,
+      final ECParameterSpec spec, final FieldBackend field) {
+    if (!BackendCalibration.getSupportedFields(profile).contains(field)) {
+      throw new IllegalArgumentException("Field backend " + field + " is not available for profile "
+          + profile.getCipherSuiteID());
+    }
+    return switch (field) {
+      case BIG_INTEGER -> new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      case BC_CUSTOM_FIELD -> new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      case LIMB -> switch (profile) {
+        case P256_XMD_SHA_256_SSWU_RO_ -> new P256MapToCurve(spec);
+        case P521_XMD_SHA_512_SSWU_RO_ -> new P521MapToCurve(spec);
+        default -> new Bls12381G1MapToCurve(spec);
+      };
+    };
+  }
+
+  /**
+   * Warms up the library for a set of profiles with {@value #DEFAULT_WARM_UP_ITERATIONS}
+   * training iterations per profile.
+   *
+   * @param profiles the profiles to warm up
+   * @return the timing report of the warm-up
+   * @see #warmUp(Set, int)
+   */
+  public static WarmUpReport warmUp(final Set<HashToCurveProfile> profiles) {
+    return warmUp(profiles, DEFAULT_WARM_UP_ITERATIONS);
+  }
+
+  /**
+   * Warms up the library for a set of profiles, so that the first hashes after startup run at
+   * steady-state speed. Call this before reporting readiness to take traffic.
+   *
+   * <p>For each profile, the curve parameters are looked up and the per-field constants, such as
+   * the square root constants of the field and of the curve order, are precomputed. A training
+   * workload then runs every stage of the profile through the implementations of
+   * {@link #getInstance(HashToCurveProfile, byte[])}, and for the NIST curves also through the
+   * generic implementations: message expansion, hash to field, sqrt_ratio, map to curve, cofactor
+   * clearing, point encoding, batch hashing, hashing with a {@link HashContext} and hash to
+   * scalar, so that the JIT compiler optimizes the code paths used by later calls. The _NU_
+   * profiles also train encode_to_curve, and profiles without hash to curve support only train
+   * hash to field and hash to scalar. The warm-up uses its own domain separation tag and has no
+   * effect on results.
+   *
+   * @param profiles the profiles to warm up
+   * @param iterations the number of training iterations per profile
+   * @return the timing report of the warm-up
+   */
+  public static WarmUpReport warmUp(final Set<HashToCurveProfile> profiles, final int iterations) {
+    final long start = System.nanoTime();
+    final List<WarmUpReport.ProfileTiming> timings = new ArrayList<>();
+    for (final HashToCurveProfile profile : profiles) {
+      timings.add(warmUp(profile, iterations));
+    }
+    return new WarmUpReport(timings, Duration.ofNanos(System.nanoTime() - start));
+  }
+
+  private static WarmUpReport.ProfileTiming warmUp(final HashToCurveProfile profile,
+      final int iterations) {
+    final long start = System.nanoTime();
+    final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+    FieldContext.getInstance(spec.getCurve().getField().getCharacteristic());
+    FieldContext.getInstance(spec.getN());
+    final boolean hashToCurveSupported =
+        profile != HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_;
+    final boolean genericMapSupported = switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_, P384_XMD_SHA_384_SSWU_RO_, P521_XMD_SHA_512_SSWU_RO_ -> true;
+      default -> false;
+    };
+    final HashToField hashToField = new GenericHashToField(WARM_UP_DST, spec,
+        new XmdMessageExpansion(H2cUtils.createDigest(profile), profile.getK()),
+        profile.getL());
+    final HashToScalar hashToScalar =
+        new GenericOPRFHashToScalar(spec, H2cUtils.createDigest(profile), profile.getK());
+    final HashToEllipticCurve h2c = hashToCurveSupported ? getInstance(profile, WARM_UP_DST) : null;
+    HashToEllipticCurve genericH2c = null;
+    SqrtRatioCalculator sqrtRatioCalculator = null;
+    if (genericMapSupported) {
+      genericH2c = new HashToEllipticCurve(hashToField,
+          new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new GenericCurveProcessor(spec));
+      sqrtRatioCalculator = profile == HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_
+          ? new P521SqrtRatioCalculator()
+          : new GenericSqrtRatioCalculator(spec, profile.getZ());
+    }
+    final long initialized = System.nanoTime();
+
+    final HashContext ctx = new HashContext();
+    final byte[] out = new byte[1 + 2 * spec.getCurve().getFieldElementEncodingLength()];
+    final byte[][] batch = new byte[16][];
+    for (int i = 0; i < iterations; i++) {
+      // Vary the message length to train the digest update paths
+      final byte[] message = new byte[i % 97];
+      Arrays.fill(message, (byte) i);
+      hashToScalar.process(message, WARM_UP_DST);
+      final BigInteger[][] u = hashToField.process(message);
+      if (genericMapSupported) {
+        sqrtRatioCalculator.sqrtRatio(u[0][0], u[1][0]);
+        genericH2c.hashToEllipticCurve(message);
+      }
+      if (!hashToCurveSupported) {
+        continue;
+      }
+      if (!profile.isRandomOracle()) {
+        h2c.encodeToEllipticCurve(message);
+      }
+      h2c.hashToEllipticCurve(message);
+      h2c.hashToEllipticCurve(message, ctx);
+      h2c.hashToEncodedPoint(message, (i & 1) == 0, out, 0);
+      batch[i % batch.length] = message;
+      if (i % batch.length == batch.length - 1) {
+        h2c.hashToEllipticCurve(batch);
+      }
+    }
+    final long trained = System.nanoTime();
+    return new WarmUpReport.ProfileTiming(profile, Duration.ofNanos(initialized - start),
+        Duration.ofNanos(trained - initialized), iterations, hashToCurveSupported);
+  }
+
   /**
    * Hashes a message to an elliptic curve point.
    *
@@ -41,11 +299,398 @@ public class HashToEllipticCurve {
    * @return the resulting elliptic curve point P
    */
   public ECPoint hashToEllipticCurve(final byte[] message) {
+    final ECPoint R = this.map(this.hashToField.process(message));
+    return this.curveProcessor.clearCofactor(R);
+  }
+
+  /**
+   * Hashes a message to an elliptic curve point, reusing the scratch state kept in a context. The
+   * result is identical to {@link #hashToEllipticCurve(byte[])}. A caller that keeps one context
+   * per thread avoids the per-call allocation of digest instances, buffers and field element
+   * temporaries in the stages that support a context.
+   *
+   * @param message the message to be hashed
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the resulting elliptic curve point P
+   */
+  public ECPoint hashToEllipticCurve(final byte[] message, final HashContext ctx) {
+    final ECPoint R = this.map(this.hashToField.process(message, ctx), ctx);
+    return this.curveProcessor.clearCofactor(R);
+  }
+
+  /**
+   * Hashes a message held in a buffer to an elliptic curve point. The message is the bytes between
+   * the position and the limit of the buffer, which are not modified. Heap buffers, direct buffers
+   * and views of memory segments obtained with {@code MemorySegment.asByteBuffer()} are read by the
+   * message expansion without copying the message to an intermediate array. The result is
+   * identical to {@link #hashToEllipticCurve(byte[])} on the bytes of the message.
+   *
+   * @param message the buffer holding the message to be hashed
+   * @return the resulting elliptic curve point P
+   */
+  public ECPoint hashToEllipticCurve(final ByteBuffer message) {
+    final ECPoint R = this.map(this.hashToField.process(message));
+    return this.curveProcessor.clearCofactor(R);
+  }
+
+  /**
+   * Hashes a message held in a buffer to an elliptic curve point, reusing the scratch state kept in
+   * a context. The result is identical to {@link #hashToEllipticCurve(ByteBuffer)}.
+   *
+   * @param message the buffer holding the message to be hashed
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the resulting elliptic curve point P
+   */
+  public ECPoint hashToEllipticCurve(final ByteBuffer message, final HashContext ctx) {
+    final ECPoint R = this.map(this.hashToField.process(message, ctx), ctx);
+    return this.curveProcessor.clearCofactor(R);
+  }
+
+  /**
+   * Hashes a batch of messages to elliptic curve points. All messages are hashed to field in one
+   * batch and all field elements are mapped to the curve in one batch, so that implementations of
+   * {@link HashToField} and {@link MapToCurve} can share work across the batch. The resulting
+   * points are normalized together with a single field inversion.
+   *
+   * @param messages the messages to be hashed
+   * @return the resulting elliptic curve points, in the same order as the input messages
+   */
+  public ECPoint[] hashToEllipticCurve(final byte[][] messages) {
+    final ECPoint[] points = this.hashToUnnormalizedPoints(messages);
+    if (points.length > 0) {
+      points[0].getCurve().normalizeAll(points);
+    }
+    return points;
+  }
+
+  /**
+   * Hashes a message to an elliptic curve point and multiplies it by a scalar, such as the blinding
+   * and evaluation steps of an OPRF. The hashed point is passed to the multiplier of the curve in
+   * the coordinates produced by map to curve and cofactor clearing, so only the product is
+   * normalized. The result is identical to
+   * {@code hashToEllipticCurve(message).multiply(scalar).normalize()}, computed with the same
+   * multiplier as {@link ECPoint#multiply(BigInteger)}.
+   *
+   * @param message the message to be hashed
+   * @param scalar the scalar
+   * @return the normalized product of the scalar and the hashed point
+   */
+  public ECPoint hashAndMultiply(final byte[] message, final BigInteger scalar) {
+    return this.hashToUnnormalizedPoint(message).multiply(scalar).normalize();
+  }
+
+  /**
+   * Hashes a message to an elliptic curve point and multiplies it by several scalars. The message
+   * is hashed once and all products are computed from the same point instance, so the WNAF
+   * precomputation that the multiplier attaches to the point is built once and shared by all
+   * scalars. The products are normalized together with a single field inversion.
+   *
+   * @param message the message to be hashed
+   * @param scalars the scalars
+   * @return the normalized products, in the same order as the scalars
+   */
+  public ECPoint[] hashAndMultiply(final byte[] message, final BigInteger[] scalars) {
+    final ECPoint point = this.hashToUnnormalizedPoint(message);
+    final ECPoint[] products = new ECPoint[scalars.length];
+    for (int i = 0; i < scalars.length; i++) {
+      products[i] = point.multiply(scalars[i]);
+    }
+    point.getCurve().normalizeAll(products);
+    return products;
+  }
+
+  /**
+   * Creates a hash to curve of messages that start with a common prefix, such as a fixed protocol
+   * context string followed by a short per-user suffix. Hashing msg with the returned instance
+   * gives the same point as hashing prefix || msg with this instance. With the XMD message
+   * expansion the prefix is absorbed once into an immutable snapshot of the digest state, and each
+   * message only absorbs the suffix, l_i_b_str and DST_prime. The returned instance shares the map
+   * to curve and cofactor clearing of this instance. The caching and metering decorators return an
+   * instance decorated in the same way.
+   *
+   * @param prefix the common prefix of the messages
+   * @return a hash to curve of the messages following the prefix
+   */
+  public HashToEllipticCurve withPrefix(final byte[] prefix) {
+    return new HashToEllipticCurve(this.hashToField.withPrefix(prefix), this.mapToCurve,
+        this.curveProcessor);
+  }
+
+  /**
+   * Derives independent generators by hashing label || I2OSP(i, 4) for each index i from from
+   * (inclusive) to to (exclusive) in one batch, and precomputes the fixed-point comb table of each
+   * generator for fast scalar multiplication. See {@link DerivedGenerators} for storing the tables.
+   * The generators are hashed with {@link #hashToEllipticCurve(byte[][])} of this instance, so the
+   * caching and metering decorators cache and record the derivation as a batch of messages.
+   *
+   * @param label the label of the generators
+   * @param from the first index
+   * @param to the index after the last index
+   * @return the derived generators
+   * @throws IllegalArgumentException if from is negative or greater than to
+   */
+  public DerivedGenerators deriveGenerators(final byte[] label, final int from, final int to) {
+    return DerivedGenerators.derive(this, label, from, to);
+  }
+
+  /**
+   * Hashes one message to elliptic curve points under several domain separation tags, each in
+   * place of the domain separation tag of this instance, such as one tag per tenant. The message
+   * expansion absorbs the message once and forks the saved digest state per tag, the field
+   * elements of all tags are mapped to the curve in one batch, and the points are normalized
+   * together with a single field inversion. The point of each tag is identical to the result of
+   * {@link #hashToEllipticCurve(byte[])} on a suite with that tag.
+   *
+   * @param message the message to be hashed
+   * @param dsts the domain separation tags
+   * @return the resulting elliptic curve points, in the same order as the domain separation tags
+   * @throws UnsupportedOperationException if the hash to field of this instance does not support
+   *         other domain separation tags
+   */
+  public ECPoint[] hashToEllipticCurveForDsts(final byte[] message, final byte[][] dsts) {
+    final BigInteger[][][] u = this.hashToField.processForDsts(message, dsts);
+    final ECPoint[] points = this.toUnnormalizedPoints(u);
+    if (points.length > 0) {
+      points[0].getCurve().normalizeAll(points);
+    }
+    return points;
+  }
+
+  /**
+   * Encodes a message to an elliptic curve point with the nonuniform encoding encode_to_curve of
+   * section 3 of RFC 9380, used by the _NU_ suites. The message is hashed to a single field
+   * element, which is mapped to the curve before the cofactor is cleared. The hash to field of
+   * this instance must produce at least one field element, as for the instances of the _NU_
+   * profiles created by {@link #getInstance(HashToCurveProfile, byte[])}.
+   *
+   * @param message the message to be encoded
+   * @return the resulting elliptic curve point P
+   */
+  public ECPoint encodeToEllipticCurve(final byte[] message) {
     final BigInteger[][] u = this.hashToField.process(message);
+    final ECPoint Q = this.mapToCurve.process(u[0][0]);
+    return this.curveProcessor.clearCofactor(Q);
+  }
+
+  /**
+   * Hashes a message to an elliptic curve point and writes its SEC1 encoding to a buffer.
+   *
+   * <p>The point is encoded directly from its projective coordinates with a single field
+   * inversion, without first creating a normalized {@link ECPoint} or intermediate encoding arrays.
+   * The encoding is identical to {@code hashToEllipticCurve(message).getEncoded(compressed)}, which
+   * is 1 + N bytes for compressed and 1 + 2N bytes for uncompressed points, where N is the byte
+   * length of a field element. The point at infinity is encoded as the single byte 0x00.
+   *
+   * @param message the message to be hashed
+   * @param compressed true for the compressed encoding, false for the uncompressed encoding
+   * @param out the buffer to write the encoded point to
+   * @param off the offset in the buffer to write the encoded point at
+   * @return the number of bytes written
+   * @throws IllegalArgumentException if the encoded point does not fit in the buffer
+   */
+  public int hashToEncodedPoint(final byte[] message, final boolean compressed, final byte[] out,
+      final int off) {
+    final ECPoint P = this.hashToUnnormalizedPoint(message);
+    if (P.isInfinity()) {
+      checkBuffer(1, out, off);
+      out[off] = 0x00;
+      return 1;
+    }
+    final int length = getEncodedLength(P.getCurve(), compressed);
+    checkBuffer(length, out, off);
+    final ECFieldElement inverseZ = P.isNormalized() ? null : P.getZCoord(0).invert();
+    encodePoint(P, inverseZ, compressed, out, off);
+    return length;
+  }
+
+  /**
+   * Hashes a batch of messages to elliptic curve points and writes their SEC1 encodings to a buffer
+   * as consecutive fixed-width records.
+   *
+   * <p>All points are converted from projective coordinates with one shared field inversion
+   * (Montgomery's batch inversion trick) and encoded directly into the buffer. Each record is
+   * identical to the encoding written by {@link #hashToEncodedPoint(byte[], boolean, byte[], int)},
+   * except that the encoding of the point at infinity is padded with zero bytes to the record
+   * width.
+   *
+   * @param messages the messages to be hashed
+   * @param compressed true for the compressed encoding, false for the uncompressed encoding
+   * @param out the buffer to write the encoded points to
+   * @param off the offset in the buffer to write the first encoded point at
+   * @return the number of bytes written
+   * @throws IllegalArgumentException if the encoded points do not fit in the buffer
+   */
+  public int hashToEncodedPoints(final byte[][] messages, final boolean compressed,
+      final byte[] out, final int off) {
+    final ECPoint[] points = this.hashToUnnormalizedPoints(messages);
+    if (points.length == 0) {
+      return 0;
+    }
+    final int length = getEncodedLength(points[0].getCurve(), compressed);
+    checkBuffer(length * points.length, out, off);
+
+    final ECFieldElement[] inverseZ = invertDenominators(points);
+    for (int i = 0; i < points.length; i++) {
+      final int recordOff = off + i * length;
+      if (points[i].isInfinity()) {
+        Arrays.fill(out, recordOff, recordOff + length, (byte) 0x00);
+      } else {
+        encodePoint(points[i], inverseZ[i], compressed, out, recordOff);
+      }
+    }
+    return length * points.length;
+  }
+
+  /**
+   * Hashes a message to a point with the cofactor cleared, but not normalized.
+   *
+   * @param message the message to be hashed
+   * @return the resulting point, possibly in projective coordinates
+   */
+  private ECPoint hashToUnnormalizedPoint(final byte[] message) {
+    return this.curveProcessor.clearCofactorUnnormalized(
+        this.map(this.hashToField.process(message)));
+  }
+
+  /**
+   * Maps the field elements of one hash to the curve and adds the resulting points. A single field
+   * element, as produced for the _NU_ profiles, is mapped on its own as in encode_to_curve.
+   *
+   * @param u the field elements of the hash
+   * @return Q0 + Q1, or Q0 for a single field element
+   */
+  private ECPoint map(final BigInteger[][] u) {
     final ECPoint Q0 = this.mapToCurve.process(u[0][0]);
-    final ECPoint Q1 = this.mapToCurve.process(u[1][0]);
-    final ECPoint R = Q0.add(Q1);
-    return this.curveProcessor.clearCofactor(R);
+    return u.length == 1 ? Q0 : Q0.add(this.mapToCurve.process(u[1][0]));
+  }
+
+  /**
+   * Maps the field elements of one hash to the curve and adds the resulting points, reusing the
+   * scratch state kept in a context.
+   *
+   * @param u the field elements of the hash
+   * @param ctx the reusable scratch context of the calling thread
+   * @return Q0 + Q1, or Q0 for a single field element
+   */
+  private ECPoint map(final BigInteger[][] u, final HashContext ctx) {
+    final ECPoint Q0 = this.mapToCurve.process(u[0][0], ctx);
+    return u.length == 1 ? Q0 : Q0.add(this.mapToCurve.process(u[1][0], ctx));
+  }
+
+  /**
+   * Hashes a batch of messages to points with the cofactor cleared, but not normalized.
+   *
+   * @param messages the messages to be hashed
+   * @return the resulting points, possibly in projective coordinates
+   */
+  private ECPoint[] hashToUnnormalizedPoints(final byte[][] messages) {
+    return this.toUnnormalizedPoints(this.hashToField.process(messages));
+  }
+
+  /**
+   * Maps the field elements of a batch of hashes to the curve in one batch and clears the cofactor
+   * of the resulting points, without normalizing them.
+   *
+   * @param u the field elements of each hash, two each or one each for the _NU_ profiles
+   * @return the resulting points, possibly in projective coordinates
+   */
+  private ECPoint[] toUnnormalizedPoints(final BigInteger[][][] u) {
+    final int count = u.length == 0 ? 0 : u[0].length;
+    final BigInteger[] elements = new BigInteger[count * u.length];
+    for (int i = 0; i < u.length; i++) {
+      for (int j = 0; j < count; j++) {
+        elements[count * i + j] = u[i][j][0];
+      }
+    }
+    final ECPoint[] q = this.mapToCurve.process(elements);
+    final ECPoint[] points = new ECPoint[u.length];
+    for (int i = 0; i < u.length; i++) {
+      final ECPoint R = count == 1 ? q[i] : q[2 * i].add(q[2 * i + 1]);
+      points[i] = this.curveProcessor.clearCofactorUnnormalized(R);
+    }
+    return points;
+  }
+
+  /**
+   * Inverts the Z coordinates of all finite, non-normalized points with a single field inversion.
+   *
+   * @param points the points
+   * @return the inverted Z coordinate of each point, or null for normalized or infinite points
+   */
+  private static ECFieldElement[] invertDenominators(final ECPoint[] points) {
+    final ECFieldElement[] inverseZ = new ECFieldElement[points.length];
+    final int[] index = new int[points.length];
+    int count = 0;
+    for (int i = 0; i < points.length; i++) {
+      if (!points[i].isInfinity() && !points[i].isNormalized()) {
+        index[count++] = i;
+      }
+    }
+    if (count == 0) {
+      return inverseZ;
+    }
+    final ECFieldElement[] acc = new ECFieldElement[count];
+    acc[0] = points[index[0]].getZCoord(0);
+    for (int j = 1; j < count; j++) {
+      acc[j] = acc[j - 1].multiply(points[index[j]].getZCoord(0));
+    }
+    ECFieldElement inv = acc[count - 1].invert();
+    for (int j = count - 1; j > 0; j--) {
+      inverseZ[index[j]] = inv.multiply(acc[j - 1]);
+      inv = inv.multiply(points[index[j]].getZCoord(0));
+    }
+    inverseZ[index[0]] = inv;
+    return inverseZ;
+  }
+
+  private static int getEncodedLength(final ECCurve curve, final boolean compressed) {
+    final int fieldLength = curve.getFieldElementEncodingLength();
+    return compressed ? 1 + fieldLength : 1 + 2 * fieldLength;
+  }
+
+  private static void checkBuffer(final int length, final byte[] out, final int off) {
+    if (off < 0 || out.length - off < length) {
+      throw new IllegalArgumentException("Output buffer too small for the encoded point");
+    }
+  }
+
+  /**
+   * Writes the SEC1 encoding of a finite point, converting it to affine coordinates.
+   *
+   * @param point the point
+   * @param inverseZ the inverse of the Z coordinate, or null if the point is normalized
+   * @param compressed true for the compressed encoding
+   * @param out the output buffer
+   * @param off the output offset
+   */
+  private static void encodePoint(final ECPoint point, final ECFieldElement inverseZ,
+      final boolean compressed, final byte[] out, final int off) {
+    ECFieldElement x = point.getRawXCoord();
+    ECFieldElement y = point.getRawYCoord();
+    if (inverseZ != null) {
+      switch (point.getCurve().getCoordinateSystem()) {
+        case ECCurve.COORD_HOMOGENEOUS -> {
+          x = x.multiply(inverseZ);
+          y = y.multiply(inverseZ);
+        }
+        case ECCurve.COORD_JACOBIAN, ECCurve.COORD_JACOBIAN_CHUDNOVSKY,
+            ECCurve.COORD_JACOBIAN_MODIFIED -> {
+          final ECFieldElement inverseZ2 = inverseZ.square();
+          x = x.multiply(inverseZ2);
+          y = y.multiply(inverseZ2.multiply(inverseZ));
+        }
+        default -> throw new IllegalArgumentException("Unsupported coordinate system");
+      }
+    }
+    final int fieldLength = x.getEncodedLength();
+    if (compressed) {
+      out[off] = (byte) (y.testBitZero() ? 0x03 : 0x02);
+      x.encodeTo(out, off + 1);
+    } else {
+      out[off] = 0x04;
+      x.encodeTo(out, off + 1);
+      y.encodeTo(out, off + 1 + fieldLength);
+    }
   }
 
 }
@@ -5,6 +5,8 @@
 package se.digg.crypto.hashtocurve;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import org.bouncycastle.util.Arrays;
 
 /**
  * Interface for Hash To Field.
@@ -20,4 +22,87 @@ public interface HashToField {
    */
   BigInteger[][] process(byte[] message);
 
+  /**
+   * Processes a message held in a buffer, such as a direct buffer or a view of a memory segment.
+   * The message is the bytes between the position and the limit of the buffer, which are not
+   * modified. The result is identical to {@link #process(byte[])} on those bytes.
+   *
+   * @param message the buffer holding the message to process
+   * @return a two-dimensional {@link BigInteger} array as the result of the processing
+   */
+  default BigInteger[][] process(final ByteBuffer message) {
+    return this.process(H2cUtils.toByteArray(message));
+  }
+
+  /**
+   * Processes a batch of messages. The result for each message is identical to calling
+   * {@link #process(byte[])} on that message.
+   *
+   * @param messages the messages to process
+   * @return the field elements of each message, in the same order as the input messages
+   */
+  default BigInteger[][][] process(final byte[][] messages) {
+    final BigInteger[][][] u = new BigInteger[messages.length][][];
+    for (int i = 0; i < messages.length; i++) {
+      u[i] = this.process(messages[i]);
+    }
+    return u;
+  }
+
+  /**
+   * Processes a message, keeping the scratch state of the processing in a reusable context. The
+   * result is identical to {@link #process(byte[])}, but implementations may return an array that
+   * is owned by the context and overwritten by the next call with the same context.
+   *
+   * @param message the input byte array representing the message to process
+   * @param ctx the reusable scratch context of the calling thread
+   * @return a two-dimensional {@link BigInteger} array as the result of the processing
+   */
+  default BigInteger[][] process(final byte[] message, final HashContext ctx) {
+    return this.process(message);
+  }
+
+  /**
+   * Processes a message held in a buffer, keeping the scratch state of the processing in a reusable
+   * context. The result is identical to {@link #process(ByteBuffer)}, but implementations may
+   * return an array that is owned by the context and overwritten by the next call with the same
+   * context.
+   *
+   * @param message the buffer holding the message to process
+   * @param ctx the reusable scratch context of the calling thread
+   * @return a two-dimensional {@link BigInteger} array as the result of the processing
+   */
+  default BigInteger[][] process(final ByteBuffer message, final HashContext ctx) {
+    return this.process(message);
+  }
+
+  /**
+   * Processes one message under several domain separation tags, each in place of the domain
+   * separation tag of this instance. Implementations may absorb the message once for all tags.
+   *
+   * @param message the message to process
+   * @param dsts the domain separation tags
+   * @return the field elements of the message under each tag, in the same order as the tags
+   * @throws UnsupportedOperationException if the implementation does not support other domain
+   *         separation tags
+   */
+  default BigInteger[][][] processForDsts(final byte[] message, final byte[][] dsts) {
+    throw new UnsupportedOperationException(
+        "Hash to field does not support other domain separation tags");
+  }
+
+  /**
+   * Creates a hash to field of messages that start with a common prefix. Processing msg with the
+   * returned instance gives the same field elements as processing prefix || msg with this instance.
+   * The default implementation concatenates the prefix and each message, implementations may absorb
+   * the prefix once.
+   *
+   * @param prefix the common prefix of the messages
+   * @return a hash to field of the messages following the prefix
+   */
+  default HashToField withPrefix(final byte[] prefix) {
+    final byte[] prefixCopy = prefix.clone();
+    return message -> this.process(Arrays.concatenate(prefixCopy, message));
+  }
+
 }
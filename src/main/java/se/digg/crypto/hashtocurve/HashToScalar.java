@@ -5,6 +5,7 @@
 package se.digg.crypto.hashtocurve;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 
 /**
  * Interface for the Hash to Scalar operation.
@@ -21,4 +22,50 @@ public interface HashToScalar {
    */
   BigInteger process(byte[] input, byte[] dst);
 
+  /**
+   * Hash an input held in a buffer, such as a direct buffer or a view of a memory segment. The
+   * input is the bytes between the position and the limit of the buffer, which are not modified.
+   * The result is identical to {@link #process(byte[], byte[])} on those bytes.
+   *
+   * @param input the buffer holding the input to be processed
+   * @param dst the domain separation tag used in the operation
+   * @return the resulting scalar
+   */
+  default BigInteger process(final ByteBuffer input, final byte[] dst) {
+    return this.process(H2cUtils.toByteArray(input), dst);
+  }
+
+  /**
+   * Hash a batch of inputs under the same domain separation tag. The result for each input is
+   * identical to calling {@link #process(byte[], byte[])} on that input.
+   *
+   * @param inputs the input byte arrays to be processed
+   * @param dst the domain separation tag used in the operation
+   * @return the resulting scalars, in the same order as the inputs
+   */
+  default BigInteger[] process(final byte[][] inputs, final byte[] dst) {
+    final BigInteger[] scalars = new BigInteger[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      scalars[i] = this.process(inputs[i], dst);
+    }
+    return scalars;
+  }
+
+  /**
+   * Hash one input under several domain separation tags. The result for each tag is identical to
+   * calling {@link #process(byte[], byte[])} with that tag. Implementations may absorb the input
+   * once for all tags.
+   *
+   * @param input the input byte array to be processed
+   * @param dsts the domain separation tags
+   * @return the resulting scalars, in the same order as the domain separation tags
+   */
+  default BigInteger[] processForDsts(final byte[] input, final byte[][] dsts) {
+    final BigInteger[] scalars = new BigInteger[dsts.length];
+    for (int i = 0; i < dsts.length; i++) {
+      scalars[i] = this.process(input, dsts[i]);
+    }
+    return scalars;
+  }
+
 }
@@ -0,0 +1,534 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.PipelineSettings;
+
+/**
+ * A {@link Flow.Processor} hashing a stream of messages to elliptic curve points or scalars.
+ *
+ * <p>Received messages are grouped into micro-batches, which pass through the stages of the hash
+ * as separately scheduled tasks on an executor: hash to field, map to curve, and cofactor clearing
+ * with normalization. Each stage runs at most the configured number of batches at a time, so that
+ * a slow stage does not take over the executor. Batches are formed without waiting: while the first
+ * stage has an idle worker, received messages are dispatched at once, and while all its workers are
+ * busy, messages accumulate into a batch of up to the maximum batch size. Under load the batches
+ * therefore grow, and the batch implementations of the stages, such as the shared field inversion
+ * of {@link se.digg.crypto.hashtocurve.impl.BatchShallueVanDeWoestijneMapToCurve} and the joint
+ * normalization of the points, apply without any tuning.
+ *
+ * <p>Results are emitted in the order of the received messages, and only as requested by the
+ * subscriber. The processor requests at most the buffer size of messages from upstream beyond
+ * those delivered downstream, so a slow subscriber slows down the publisher instead of growing the
+ * queues of the stages, which together never hold more than the buffer size of messages.
+ *
+ * <p>A processor supports a single subscriber. An exception thrown by a stage cancels the upstream
+ * subscription and is signaled to the subscriber with {@code onError}. An error signaled by the
+ * publisher is passed on at once, dropping the messages in the pipeline.
+ *
+ * @param <T> the type of the results
+ */
+public final class HashingProcessor<T> implements Flow.Processor<byte[], T> {
+
+  private final List<Stage> stages;
+  private final Executor executor;
+  private final int maxBatchSize;
+  private final int bufferSize;
+  private final int replenishSize;
+
+  private final ReentrantLock batchLock = new ReentrantLock();
+  private final List<byte[]> pending = new ArrayList<>();
+  private volatile long batchCount;
+
+  private final ConcurrentHashMap<Long, Batch> completed = new ConcurrentHashMap<>();
+  private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+  private final AtomicReference<Flow.Subscriber<? super T>> downstream = new AtomicReference<>();
+  private final AtomicReference<Throwable> error = new AtomicReference<>();
+  private final AtomicLong demand = new AtomicLong();
+  private final AtomicInteger wip = new AtomicInteger();
+  private volatile boolean upstreamDone;
+  private volatile boolean cancelled;
+
+  // Only accessed by the thread running the drain loop
+  private boolean upstreamRequested;
+  private boolean upstreamCancelled;
+  private boolean subscribed;
+  private boolean terminated;
+  private Batch current;
+  private int index;
+  private long nextSeq;
+  private int consumed;
+
+  private HashingProcessor(final List<Step> steps, final PipelineSettings settings,
+      final Executor executor) {
+    final List<Stage> stageList = new ArrayList<>();
+    for (final Step step : steps) {
+      stageList.add(new Stage(stageList.size(), step.parallelism(), step.operation()));
+    }
+    this.stages = List.copyOf(stageList);
+    this.executor = Objects.requireNonNull(executor, "executor");
+    this.maxBatchSize = settings.maxBatchSize();
+    this.bufferSize = settings.bufferSize();
+    this.replenishSize = Math.max(1, settings.bufferSize() / 2);
+  }
+
+  /**
+   * Creates a processor hashing messages to points with the default settings on the common
+   * fork-join pool.
+   *
+   * @param hashToCurve the hash to curve instance
+   * @return the processor
+   * @see #ofPoints(HashToEllipticCurve, PipelineSettings, Executor)
+   */
+  public static HashingProcessor<ECPoint> ofPoints(final HashToEllipticCurve hashToCurve) {
+    return ofPoints(hashToCurve, PipelineSettings.defaults(), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a processor hashing messages to points of a profile on the common fork-join pool,
+   * with the backends and batch size selected for the profile by {@link BackendCalibration}.
+   *
+   * @param profile the hash to curve profile
+   * @param dst the domain separation tag
+   * @return the processor
+   * @throws IllegalArgumentException if hash to curve is not supported for the profile
+   * @see BackendCalibration#getPipelineSettings(HashToCurveProfile)
+   */
+  public static HashingProcessor<ECPoint> ofPoints(final HashToCurveProfile profile,
+      final byte[] dst) {
+    return ofPoints(HashToEllipticCurve.getInstance(profile, dst),
+        BackendCalibration.getPipelineSettings(profile), ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Creates a processor hashing messages to points. Each message is hashed to as many field
+   * elements as the hash to field of the instance produces, which are mapped to the curve and
+   * added before the cofactor is cleared. The results are therefore those of
+   * {@link HashToEllipticCurve#hashToEllipticCurve(byte[])} for the instances of the _RO_ profiles
+   * and those of {@link HashToEllipticCurve#encodeToEllipticCurve(byte[])} for the instances of
+   * the _NU_ profiles. The emitted points are normalized.
+   *
+   * @param hashToCurve the hash to curve instance
+   * @param settings the pipeline settings
+   * @param executor the executor running the stages
+   * @return the processor
+   */
+  public static HashingProcessor<ECPoint> ofPoints(final HashToEllipticCurve hashToCurve,
+      final PipelineSettings settings, final Executor executor) {
+    final HashToField hashToField = hashToCurve.hashToField;
+    final MapToCurve mapToCurve = hashToCurve.mapToCurve;
+    final CurveProcessor curveProcessor = hashToCurve.curveProcessor;
+    return new HashingProcessor<>(List.of(
+        Step.of(settings.expansionParallelism(),
+            (byte[][] messages) -> hashToField.process(messages)),
+        Step.of(settings.mappingParallelism(),
+            (BigInteger[][][] u) -> mapToCurve(mapToCurve, u)),
+        Step.of(settings.clearingParallelism(),
+            (ECPoint[][] q) -> clearCofactor(curveProcessor, q))),
+        settings, executor);
+  }
+
+  /**
+   * Creates a processor hashing messages to scalars. The hash to scalar has a single stage, which
+   * runs with the hash to field parallelism of the settings.
+   *
+   * @param hashToScalar the hash to scalar instance
+   * @param dst the domain separation tag
+   * @param settings the pipeline settings
+   * @param executor the executor running the stage
+   * @return the processor
+   */
+  public static HashingProcessor<BigInteger> ofScalars(final HashToScalar hashToScalar,
+      final byte[] dst, final PipelineSettings settings, final Executor executor) {
+    final byte[] tag = dst.clone();
+    return new HashingProcessor<>(List.of(
+        Step.of(settings.expansionParallelism(),
+            (byte[][] messages) -> hashToScalar.process(messages, tag))),
+        settings, executor);
+  }
+
+  private static ECPoint[][] mapToCurve(final MapToCurve mapToCurve, final BigInteger[][][] u) {
+    final int count = u[0].length;
+    final BigInteger[] elements = new BigInteger[count * u.length];
+    for (int i = 0; i < u.length; i++) {
+      for (int j = 0; j < count; j++) {
+        elements[count * i + j] = u[i][j][0];
+      }
+    }
+    final ECPoint[] points = mapToCurve.process(elements);
+    final ECPoint[][] q = new ECPoint[u.length][count];
+    for (int i = 0; i < u.length; i++) {
+      System.arraycopy(points, count * i, q[i], 0, count);
+    }
+    return q;
+  }
+
+  private static ECPoint[] clearCofactor(final CurveProcessor curveProcessor, final ECPoint[][] q) {
+    final ECPoint[] points = new ECPoint[q.length];
+    for (int i = 0; i < q.length; i++) {
+      ECPoint sum = q[i][0];
+      for (int j = 1; j < q[i].length; j++) {
+        sum = sum.add(q[i][j]);
+      }
+      points[i] = curveProcessor.clearCofactorUnnormalized(sum);
+    }
+    points[0].getCurve().normalizeAll(points);
+    return points;
+  }
+
+  @Override
+  public void subscribe(final Flow.Subscriber<? super T> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    if (!this.downstream.compareAndSet(null, subscriber)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(final long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("The processor supports a single subscriber"));
+      return;
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onSubscribe(final Flow.Subscription subscription) {
+    Objects.requireNonNull(subscription, "subscription");
+    if (!this.upstream.compareAndSet(null, subscription)) {
+      subscription.cancel();
+      return;
+    }
+    this.drain();
+  }
+
+  @Override
+  public void onNext(final byte[] item) {
+    Objects.requireNonNull(item, "item");
+    Batch batch = null;
+    this.batchLock.lock();
+    try {
+      if (this.upstreamDone || this.cancelled) {
+        return;
+      }
+      this.pending.add(item);
+      if (this.pending.size() >= this.maxBatchSize || this.stages.get(0).hasIdleWorker()) {
+        batch = this.takePending();
+      }
+    } finally {
+      this.batchLock.unlock();
+    }
+    if (batch != null) {
+      this.stages.get(0).offer(batch);
+    }
+  }
+
+  @Override
+  public void onError(final Throwable throwable) {
+    Objects.requireNonNull(throwable, "throwable");
+    this.batchLock.lock();
+    try {
+      this.upstreamDone = true;
+      this.pending.clear();
+    } finally {
+      this.batchLock.unlock();
+    }
+    this.error.compareAndSet(null, throwable);
+    this.drain();
+  }
+
+  @Override
+  public void onComplete() {
+    Batch batch = null;
+    this.batchLock.lock();
+    try {
+      if (!this.pending.isEmpty()) {
+        batch = this.takePending();
+      }
+      this.upstreamDone = true;
+    } finally {
+      this.batchLock.unlock();
+    }
+    if (batch != null) {
+      this.stages.get(0).offer(batch);
+    }
+    this.drain();
+  }
+
+  /** Moves the pending messages into a new batch. Must be called holding the batch lock. */
+  private Batch takePending() {
+    final Batch batch = new Batch(this.batchCount, this.pending.toArray(new byte[0][]));
+    this.pending.clear();
+    this.batchCount = batch.seq + 1;
+    return batch;
+  }
+
+  /** Dispatches the pending messages, called when a worker of the first stage becomes idle. */
+  private void flushPending() {
+    Batch batch = null;
+    this.batchLock.lock();
+    try {
+      if (!this.pending.isEmpty() && !this.cancelled) {
+        batch = this.takePending();
+      }
+    } finally {
+      this.batchLock.unlock();
+    }
+    if (batch != null) {
+      this.stages.get(0).offer(batch);
+    }
+  }
+
+  private void fail(final Throwable throwable) {
+    this.error.compareAndSet(null, throwable);
+    this.drain();
+  }
+
+  /**
+   * Runs the drain loop, or makes the thread currently running it loop once more. All signals to
+   * the subscriber and all calls to the upstream subscription are made by the drain loop, which
+   * serializes them.
+   */
+  private void drain() {
+    if (this.wip.getAndIncrement() != 0) {
+      return;
+    }
+    int missed = 1;
+    do {
+      this.drainLoop();
+      missed = this.wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void drainLoop() {
+    final Flow.Subscription up = this.upstream.get();
+    if (this.terminated || this.cancelled) {
+      this.terminate(up);
+      return;
+    }
+    if (up != null && !this.upstreamRequested) {
+      this.upstreamRequested = true;
+      up.request(this.bufferSize);
+    }
+    final Flow.Subscriber<? super T> down = this.downstream.get();
+    if (down == null) {
+      return;
+    }
+    if (!this.subscribed) {
+      this.subscribed = true;
+      down.onSubscribe(new DownstreamSubscription());
+    }
+    final long requested = this.demand.get();
+    long emitted = 0;
+    while (true) {
+      if (this.cancelled) {
+        this.terminate(up);
+        return;
+      }
+      final Throwable throwable = this.error.get();
+      if (throwable != null) {
+        this.terminate(up);
+        down.onError(throwable);
+        return;
+      }
+      if (this.current == null) {
+        this.current = this.completed.remove(this.nextSeq);
+        if (this.current != null) {
+          this.nextSeq++;
+          this.index = 0;
+        }
+      }
+      if (this.current == null) {
+        if (this.upstreamDone && this.nextSeq == this.batchCount) {
+          this.terminate(up);
+          down.onComplete();
+          return;
+        }
+        break;
+      }
+      if (emitted == requested) {
+        break;
+      }
+      final Object result = this.current.results[this.index];
+      this.current.results[this.index++] = null;
+      if (this.index == this.current.results.length) {
+        this.current = null;
+      }
+      emitted++;
+      down.onNext((T) result);
+      if (++this.consumed == this.replenishSize) {
+        this.consumed = 0;
+        if (!this.upstreamDone) {
+          up.request(this.replenishSize);
+        }
+      }
+    }
+    if (emitted != 0 && requested != Long.MAX_VALUE) {
+      this.demand.addAndGet(-emitted);
+    }
+  }
+
+  private void terminate(final Flow.Subscription up) {
+    this.terminated = true;
+    this.current = null;
+    this.completed.clear();
+    if (up != null && !this.upstreamCancelled) {
+      this.upstreamCancelled = true;
+      up.cancel();
+    }
+  }
+
+  /**
+   * The operation and parallelism of a stage.
+   *
+   * @param parallelism the maximum number of batches processed by the stage at a time
+   * @param operation maps the state of a batch to its state after the stage
+   */
+  private record Step(int parallelism, Function<Object, Object> operation) {
+
+    @SuppressWarnings("unchecked")
+    static <A, B> Step of(final int parallelism, final Function<A, B> operation) {
+      return new Step(parallelism, state -> operation.apply((A) state));
+    }
+  }
+
+  /**
+   * A micro-batch of messages passing through the stages.
+   */
+  private static final class Batch {
+    final long seq;
+    Object state;
+    Object[] results;
+
+    Batch(final long seq, final byte[][] messages) {
+      this.seq = seq;
+      this.state = messages;
+    }
+  }
+
+  /**
+   * A stage of the pipeline, running at most its parallelism of batches at a time on the executor.
+   * Batches waiting for a worker are kept in the queue of the stage.
+   */
+  private final class Stage {
+    final int position;
+    final int parallelism;
+    final Function<Object, Object> operation;
+    final ConcurrentLinkedQueue<Batch> queue = new ConcurrentLinkedQueue<>();
+    final AtomicInteger active = new AtomicInteger();
+
+    Stage(final int position, final int parallelism, final Function<Object, Object> operation) {
+      this.position = position;
+      this.parallelism = parallelism;
+      this.operation = operation;
+    }
+
+    boolean hasIdleWorker() {
+      return this.active.get() < this.parallelism;
+    }
+
+    void offer(final Batch batch) {
+      this.queue.add(batch);
+      this.schedule();
+    }
+
+    void schedule() {
+      while (true) {
+        final int running = this.active.get();
+        if (running >= this.parallelism || this.queue.isEmpty()) {
+          return;
+        }
+        if (!this.active.compareAndSet(running, running + 1)) {
+          continue;
+        }
+        final Batch batch = this.queue.poll();
+        if (batch == null) {
+          this.active.decrementAndGet();
+          continue;
+        }
+        try {
+          HashingProcessor.this.executor.execute(() -> this.run(batch));
+        } catch (final RejectedExecutionException e) {
+          this.active.decrementAndGet();
+          HashingProcessor.this.fail(e);
+          return;
+        }
+      }
+    }
+
+    void run(final Batch batch) {
+      boolean success = false;
+      try {
+        if (!HashingProcessor.this.cancelled && HashingProcessor.this.error.get() == null) {
+          batch.state = this.operation.apply(batch.state);
+          success = true;
+        }
+      } catch (final RuntimeException | Error e) {
+        HashingProcessor.this.fail(e);
+      } finally {
+        this.active.decrementAndGet();
+      }
+      if (this.position == 0) {
+        HashingProcessor.this.flushPending();
+      }
+      if (success) {
+        if (this.position == HashingProcessor.this.stages.size() - 1) {
+          batch.results = (Object[]) batch.state;
+          batch.state = null;
+          HashingProcessor.this.completed.put(batch.seq, batch);
+          HashingProcessor.this.drain();
+        } else {
+          HashingProcessor.this.stages.get(this.position + 1).offer(batch);
+        }
+      }
+      this.schedule();
+    }
+  }
+
+  /**
+   * The subscription of the subscriber of the processor.
+   */
+  private final class DownstreamSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(final long n) {
+      if (n <= 0) {
+        HashingProcessor.this.fail(
+            new IllegalArgumentException("Requested number of items must be positive"));
+        return;
+      }
+      HashingProcessor.this.demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+      HashingProcessor.this.drain();
+    }
+
+    @Override
+    public void cancel() {
+      HashingProcessor.this.cancelled = true;
+      HashingProcessor.this.drain();
+    }
+  }
+
+}
@@ -21,4 +21,31 @@ public interface MapToCurve {
    */
   ECPoint process(BigInteger element);
 
+  /**
+   * Maps a batch of field elements to points on the elliptic curve. The result for each element is
+   * identical to calling {@link #process(BigInteger)} on that element.
+   *
+   * @param elements the input field elements to be mapped to points on the curve
+   * @return the elliptic curve points, in the same order as the input elements
+   */
+  default ECPoint[] process(final BigInteger[] elements) {
+    final ECPoint[] points = new ECPoint[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      points[i] = this.process(elements[i]);
+    }
+    return points;
+  }
+
+  /**
+   * Maps a field element to a point on the elliptic curve, keeping the field element temporaries
+   * in a reusable context. The result is identical to {@link #process(BigInteger)}.
+   *
+   * @param element the input BigInteger element to be mapped to a point on the curve
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the elliptic curve point corresponding to the input element
+   */
+  default ECPoint process(final BigInteger element, final HashContext ctx) {
+    return this.process(element);
+  }
+
 }
@@ -4,6 +4,9 @@
 
 package se.digg.crypto.hashtocurve;
 
+import java.nio.ByteBuffer;
+import org.bouncycastle.util.Arrays;
+
 /**
  * The MessageExpansion interface defines a contract for expanding a message.
  */
@@ -19,4 +22,123 @@ public interface MessageExpansion {
    */
   byte[] expandMessage(byte[] msg, byte[] dst, int lenInBytes);
 
+  /**
+   * Expands a message into a caller provided buffer, keeping the scratch state of the expansion in
+   * a reusable context. The output is identical to {@link #expandMessage(byte[], byte[], int)}.
+   *
+   * @param msg the original message to be expanded
+   * @param dst domain separation tag
+   * @param lenInBytes the desired length of the expanded message in bytes
+   * @param out the buffer to write the expanded message to, of at least lenInBytes bytes
+   * @param ctx the reusable scratch context of the calling thread
+   */
+  default void expandMessage(final byte[] msg, final byte[] dst, final int lenInBytes,
+      final byte[] out, final HashContext ctx) {
+    System.arraycopy(this.expandMessage(msg, dst, lenInBytes), 0, out, 0, lenInBytes);
+  }
+
+  /**
+   * Expands a message held in a buffer, such as a direct buffer or a view of a memory segment. The
+   * message is the bytes between the position and the limit of the buffer, which are not modified.
+   * The output is identical to {@link #expandMessage(byte[], byte[], int)} on those bytes. The
+   * default implementation copies the message to an array, implementations may read the buffer
+   * directly.
+   *
+   * @param msg the buffer holding the original message to be expanded
+   * @param dst domain separation tag
+   * @param lenInBytes the desired length of the expanded message in bytes
+   * @return the expanded message as a byte array
+   */
+  default byte[] expandMessage(final ByteBuffer msg, final byte[] dst, final int lenInBytes) {
+    return this.expandMessage(H2cUtils.toByteArray(msg), dst, lenInBytes);
+  }
+
+  /**
+   * Expands a message held in a buffer into a caller provided buffer, keeping the scratch state of
+   * the expansion in a reusable context. The output is identical to
+   * {@link #expandMessage(ByteBuffer, byte[], int)}.
+   *
+   * @param msg the buffer holding the original message to be expanded
+   * @param dst domain separation tag
+   * @param lenInBytes the desired length of the expanded message in bytes
+   * @param out the buffer to write the expanded message to, of at least lenInBytes bytes
+   * @param ctx the reusable scratch context of the calling thread
+   */
+  default void expandMessage(final ByteBuffer msg, final byte[] dst, final int lenInBytes,
+      final byte[] out, final HashContext ctx) {
+    System.arraycopy(this.expandMessage(msg, dst, lenInBytes), 0, out, 0, lenInBytes);
+  }
+
+  /**
+   * Expands one message under several domain separation tags. The result for each tag is identical
+   * to calling {@link #expandMessage(byte[], byte[], int)} with that tag. Implementations may
+   * absorb the message once, since the message precedes the domain separation tag in the input of
+   * the expansion.
+   *
+   * @param msg the original message to be expanded
+   * @param dsts the domain separation tags
+   * @param lenInBytes the desired length of each expanded message in bytes
+   * @return the expanded messages, in the same order as the domain separation tags
+   */
+  default byte[][] expandMessageForDsts(final byte[] msg, final byte[][] dsts,
+      final int lenInBytes) {
+    final byte[][] expanded = new byte[dsts.length][];
+    for (int i = 0; i < dsts.length; i++) {
+      expanded[i] = this.expandMessage(msg, dsts[i], lenInBytes);
+    }
+    return expanded;
+  }
+
+  /**
+   * Creates an expansion of messages that start with a common prefix. Expanding msg with the
+   * returned instance gives the same output as expanding prefix || msg with this instance. The
+   * default implementation concatenates the prefix and each message, implementations may absorb
+   * the prefix once.
+   *
+   * @param prefix the common prefix of the messages
+   * @return an expansion of the messages following the prefix
+   */
+  default MessageExpansion withPrefix(final byte[] prefix) {
+    final byte[] prefixCopy = prefix.clone();
+    final MessageExpansion parent = this;
+    return new MessageExpansion() {
+      @Override
+      public byte[] expandMessage(final byte[] msg, final byte[] dst, final int lenInBytes) {
+        return parent.expandMessage(Arrays.concatenate(prefixCopy, msg), dst, lenInBytes);
+      }
+
+      @Override
+      public int getMaxExpansionLength() {
+        return parent.getMaxExpansionLength();
+      }
+    };
+  }
+
+  /**
+   * Get the largest length in bytes of a single expansion. Longer outputs must be split over
+   * several expansions.
+   *
+   * @return the maximum value of lenInBytes
+   */
+  default int getMaxExpansionLength() {
+    return 65535;
+  }
+
+  /**
+   * Expands a batch of messages under the same domain separation tag. The result for each message
+   * is identical to calling {@link #expandMessage(byte[], byte[], int)} on that message.
+   *
+   * @param msgs the original messages to be expanded
+   * @param dst domain separation tag
+   * @param lenInBytes the desired length of each expanded message in bytes
+   * @return the expanded messages, in the same order as the input messages
+   */
+  default byte[][] expandMessages(final byte[][] msgs, final byte[] dst, final int lenInBytes) {
+    final byte[][] expanded = new byte[msgs.length][];
+    for (int i = 0; i < msgs.length; i++) {
+      expanded[i] = this.expandMessage(msgs[i], dst, lenInBytes);
+    }
+    return expanded;
+  }
+
 }
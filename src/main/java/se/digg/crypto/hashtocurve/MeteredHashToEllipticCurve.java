@@ -0,0 +1,294 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.metrics.HashToCurveMetrics;
+import se.digg.crypto.hashtocurve.metrics.HashToCurveMetrics.Stage;
+
+/**
+ * Optional metering decorator of {@link HashToEllipticCurve}.
+ *
+ * <p>Every call records the number of messages, their sizes, the latency and, if the call throws,
+ * whether the input was rejected with an {@link IllegalArgumentException}, such as by the length
+ * checks of {@link MessageExpansion}, or failed otherwise. The time of each stage is recorded by
+ * wrapping the hash to field, map to curve and curve processor of the decorated suite, so the
+ * decorator computes with those components rather than by calling the decorated suite. To combine
+ * metering with caching, wrap the metered suite in the caching decorator. Metering is opt-in: it
+ * only applies to calls made through an instance of this class, including the instance returned
+ * by {@link #withPrefix(byte[])}, which records to the same metrics. Batch calls record each
+ * message with the mean latency of the batch, including the batch hashed by
+ * {@link #deriveGenerators(byte[], int, int)}.
+ */
+public class MeteredHashToEllipticCurve extends HashToEllipticCurve {
+
+  private final HashToCurveMetrics metrics;
+
+  /**
+   * Creates a metering decorator.
+   *
+   * @param delegate the hash to curve suite providing the components to meter
+   * @param metrics the metrics to record to, typically those of the profile of the suite
+   */
+  public MeteredHashToEllipticCurve(final HashToEllipticCurve delegate,
+      final HashToCurveMetrics metrics) {
+    this(new MeteredHashToField(delegate.hashToField, metrics),
+        new MeteredMapToCurve(delegate.mapToCurve, metrics),
+        new MeteredCurveProcessor(delegate.curveProcessor, metrics), metrics);
+  }
+
+  private MeteredHashToEllipticCurve(final HashToField hashToField, final MapToCurve mapToCurve,
+      final CurveProcessor curveProcessor, final HashToCurveMetrics metrics) {
+    super(hashToField, mapToCurve, curveProcessor);
+    this.metrics = metrics;
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final byte[] message) {
+    return this.meter(message.length, () -> super.hashToEllipticCurve(message));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final byte[] message, final HashContext ctx) {
+    return this.meter(message.length, () -> super.hashToEllipticCurve(message, ctx));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final ByteBuffer message) {
+    return this.meter(message.remaining(), () -> super.hashToEllipticCurve(message));
+  }
+
+  @Override
+  public ECPoint hashToEllipticCurve(final ByteBuffer message, final HashContext ctx) {
+    return this.meter(message.remaining(), () -> super.hashToEllipticCurve(message, ctx));
+  }
+
+  @Override
+  public ECPoint[] hashToEllipticCurve(final byte[][] messages) {
+    return this.meterBatch(messages, () -> super.hashToEllipticCurve(messages));
+  }
+
+  @Override
+  public ECPoint hashAndMultiply(final byte[] message, final BigInteger scalar) {
+    return this.meter(message.length, () -> super.hashAndMultiply(message, scalar));
+  }
+
+  @Override
+  public ECPoint[] hashAndMultiply(final byte[] message, final BigInteger[] scalars) {
+    return this.meter(message.length, () -> super.hashAndMultiply(message, scalars));
+  }
+
+  @Override
+  public HashToEllipticCurve withPrefix(final byte[] prefix) {
+    return new MeteredHashToEllipticCurve(this.hashToField.withPrefix(prefix), this.mapToCurve,
+        this.curveProcessor, this.metrics);
+  }
+
+  @Override
+  public ECPoint[] hashToEllipticCurveForDsts(final byte[] message, final byte[][] dsts) {
+    return this.meter(message.length, () -> super.hashToEllipticCurveForDsts(message, dsts));
+  }
+
+  @Override
+  public ECPoint encodeToEllipticCurve(final byte[] message) {
+    return this.meter(message.length, () -> super.encodeToEllipticCurve(message));
+  }
+
+  @Override
+  public int hashToEncodedPoint(final byte[] message, final boolean compressed, final byte[] out,
+      final int off) {
+    return this.meter(message.length,
+        () -> super.hashToEncodedPoint(message, compressed, out, off));
+  }
+
+  @Override
+  public int hashToEncodedPoints(final byte[][] messages, final boolean compressed,
+      final byte[] out, final int off) {
+    return this.meterBatch(messages,
+        () -> super.hashToEncodedPoints(messages, compressed, out, off));
+  }
+
+  /**
+   * Get the metrics recorded by this decorator.
+   *
+   * @return the metrics
+   */
+  public HashToCurveMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  private <T> T meter(final int messageLength, final Supplier<T> operation) {
+    final long start = System.nanoTime();
+    try {
+      return operation.get();
+    } catch (final IllegalArgumentException e) {
+      this.metrics.recordRejectedInput();
+      throw e;
+    } catch (final RuntimeException e) {
+      this.metrics.recordError();
+      throw e;
+    } finally {
+      this.metrics.recordOperation(messageLength, System.nanoTime() - start);
+    }
+  }
+
+  private <T> T meterBatch(final byte[][] messages, final Supplier<T> operation) {
+    final long start = System.nanoTime();
+    try {
+      return operation.get();
+    } catch (final IllegalArgumentException e) {
+      this.metrics.recordRejectedInput();
+      throw e;
+    } catch (final RuntimeException e) {
+      this.metrics.recordError();
+      throw e;
+    } finally {
+      final long meanNanos = (System.nanoTime() - start) / Math.max(1, messages.length);
+      for (final byte[] message : messages) {
+        this.metrics.recordOperation(message.length, meanNanos);
+      }
+    }
+  }
+
+  /**
+   * Hash to field recording the time of each call.
+   */
+  private record MeteredHashToField(HashToField delegate, HashToCurveMetrics metrics)
+      implements HashToField {
+
+    @Override
+    public BigInteger[][] process(final byte[] message) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(message);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public BigInteger[][] process(final ByteBuffer message) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(message);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public BigInteger[][][] process(final byte[][] messages) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(messages);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public BigInteger[][] process(final byte[] message, final HashContext ctx) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(message, ctx);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public BigInteger[][] process(final ByteBuffer message, final HashContext ctx) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(message, ctx);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public BigInteger[][][] processForDsts(final byte[] message, final byte[][] dsts) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.processForDsts(message, dsts);
+      } finally {
+        this.metrics.recordStage(Stage.HASH_TO_FIELD, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public HashToField withPrefix(final byte[] prefix) {
+      return new MeteredHashToField(this.delegate.withPrefix(prefix), this.metrics);
+    }
+  }
+
+  /**
+   * Map to curve recording the time of each call.
+   */
+  private record MeteredMapToCurve(MapToCurve delegate, HashToCurveMetrics metrics)
+      implements MapToCurve {
+
+    @Override
+    public ECPoint process(final BigInteger element) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(element);
+      } finally {
+        this.metrics.recordStage(Stage.MAP_TO_CURVE, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public ECPoint[] process(final BigInteger[] elements) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(elements);
+      } finally {
+        this.metrics.recordStage(Stage.MAP_TO_CURVE, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public ECPoint process(final BigInteger element, final HashContext ctx) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.process(element, ctx);
+      } finally {
+        this.metrics.recordStage(Stage.MAP_TO_CURVE, System.nanoTime() - start);
+      }
+    }
+  }
+
+  /**
+   * Curve processor recording the time of each cofactor clearing.
+   */
+  private record MeteredCurveProcessor(CurveProcessor delegate, HashToCurveMetrics metrics)
+      implements CurveProcessor {
+
+    @Override
+    public ECPoint clearCofactor(final ECPoint ecPoint) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.clearCofactor(ecPoint);
+      } finally {
+        this.metrics.recordStage(Stage.CLEAR_COFACTOR, System.nanoTime() - start);
+      }
+    }
+
+    @Override
+    public ECPoint clearCofactorUnnormalized(final ECPoint ecPoint) {
+      final long start = System.nanoTime();
+      try {
+        return this.delegate.clearCofactorUnnormalized(ecPoint);
+      } finally {
+        this.metrics.recordStage(Stage.CLEAR_COFACTOR, System.nanoTime() - start);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,314 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.math.BigInteger;
+import org.bouncycastle.util.BigIntegers;
+
+/**
+ * Modular inversion by the constant time divstep algorithm of Bernstein and Yang, "Fast
+ * constant-time gcd computation and modular inversion" (safegcd).
+ *
+ * <p>Starting from f = m and g = x, each divstep halves g after conditionally swapping and adding
+ * f and g, until g is zero and f is the gcd +1 or -1. The divsteps are batched 62 at a time: a
+ * batch only depends on the low 62 bits of f and g, so it runs on single words and produces a
+ * transition matrix, scaled by 2^62, that is then applied to the full values of f and g and to
+ * the coefficients d and e, where d * x = f and e * x = g (mod m). The coefficients are kept in
+ * the range (-2m, m) by adding a multiple of the modulus chosen so that the division by 2^62 is
+ * exact. The number of divsteps is fixed by the bound of the paper for the bit length of the
+ * modulus, and the divsteps and the updates are branch free, so the divstep loop runs in constant
+ * time for all inputs of a modulus. Values are represented as signed 62-bit limbs, with the
+ * sign in the top limb, and the matrix products are accumulated in 128 bits. Instances are
+ * immutable and thread safe.
+ *
+ * <p>The input is converted to limbs through a byte array of the fixed length of the modulus, and
+ * the result is converted back the same way, without branches on the value. The constant time
+ * guarantee still ends at the {@link BigInteger} boundary: the reduction of the input and the
+ * conversions to and from the variable-length representation of {@link BigInteger} are performed
+ * by the JDK, which makes no timing guarantees.
+ */
+final class SafeGcdInverter {
+
+  private static final int BITS = 62;
+  private static final long MASK = (1L << BITS) - 1;
+
+  private final BigInteger modulus;
+  /** The number of limbs, which hold values in (-2m, m) with the sign in the top limb. */
+  private final int size;
+  /** The byte length of the modulus, used for the fixed-length conversions. */
+  private final int byteLength;
+  private final long[] modulusLimbs;
+  /** m^-1 (mod 2^62). */
+  private final long modulusInverse;
+  /** The number of batches of 62 divsteps that suffice for all inputs. */
+  private final int batches;
+
+  /**
+   * Creates an inverter for an odd modulus.
+   *
+   * @param modulus the odd modulus
+   * @throws IllegalArgumentException if the modulus is not odd and greater than 1
+   */
+  SafeGcdInverter(final BigInteger modulus) {
+    if (!modulus.testBit(0) || modulus.compareTo(BigInteger.ONE) <= 0) {
+      throw new IllegalArgumentException("Modulus must be odd and greater than 1");
+    }
+    this.modulus = modulus;
+    final int d = modulus.bitLength();
+    this.size = Math.max(2, d / BITS + 1);
+    this.byteLength = (d + 7) / 8;
+    this.modulusLimbs = this.toLimbs(modulus);
+    this.modulusInverse = modulus.modInverse(BigInteger.ONE.shiftLeft(BITS)).longValue();
+    // Theorem 11.2 of the paper
+    final int iterations = d < 46 ? (49 * d + 80) / 17 : (49 * d + 57) / 17;
+    this.batches = (iterations + BITS - 1) / BITS;
+  }
+
+  /**
+   * Computes the inverse of a value modulo the modulus, with the inverse of zero defined as zero
+   * as by inv0 of RFC 9380.
+   *
+   * @param x the value to invert, which is reduced modulo the modulus
+   * @return the inverse of x in the range [0, m), or zero if x is zero modulo m
+   * @throws ArithmeticException if x is not relatively prime to the modulus, which for a prime
+   *         modulus never happens
+   */
+  BigInteger inverse(final BigInteger x) {
+    final long[] f = this.modulusLimbs.clone();
+    final long[] g = this.toLimbs(x.mod(this.modulus));
+    long bits = 0;
+    for (final long limb : g) {
+      bits |= limb;
+    }
+    // -1 if x is not zero modulo m
+    final long nonZero = (bits | -bits) >> 63;
+    final long[] d = new long[this.size];
+    final long[] e = new long[this.size];
+    e[0] = 1;
+    final long[] t = new long[4];
+    final long[] acc = new long[4];
+    // eta is -delta, with delta = 1 initially
+    long eta = -1;
+    for (int i = 0; i < this.batches; i++) {
+      eta = divsteps(eta, f[0], g[0], t);
+      this.updateDe(d, e, t, acc);
+      updateFg(f, g, t, acc, this.size);
+    }
+    // f is the gcd of m and x, up to sign, so +1 or -1 for invertible x and m for zero
+    final long sign = f[this.size - 1] >> 63;
+    long diff = f[0] ^ ((sign & MASK) | 1);
+    for (int i = 1; i < this.size - 1; i++) {
+      diff |= f[i] ^ (sign & MASK);
+    }
+    diff |= f[this.size - 1] ^ sign;
+    // Only a value sharing a factor with a composite modulus fails, so the branch is not secret
+    if ((((diff | -diff) >> 63) & nonZero) != 0) {
+      throw new ArithmeticException("Value is not invertible");
+    }
+    this.normalize(d, sign);
+    return this.fromLimbs(d);
+  }
+
+  /**
+   * Runs 62 divsteps on the low bits of f and g.
+   *
+   * @param eta minus delta
+   * @param f the low bits of f, odd
+   * @param g the low bits of g
+   * @param t the transition matrix u, v, q, r scaled by 2^62
+   * @return minus delta after the divsteps
+   */
+  private static long divsteps(final long eta, final long f, final long g, final long[] t) {
+    long n = eta;
+    long fi = f;
+    long gi = g;
+    long u = 1;
+    long v = 0;
+    long q = 0;
+    long r = 1;
+    for (int i = 0; i < BITS; i++) {
+      // c1 is -1 if delta > 0, and c2 is -1 if g is odd
+      long c1 = n >> 63;
+      final long c2 = -(gi & 1);
+      // Conditionally negate f, u, v and add them to g, q, r
+      gi += ((fi ^ c1) - c1) & c2;
+      q += ((u ^ c1) - c1) & c2;
+      r += ((v ^ c1) - c1) & c2;
+      // If both conditions hold, f, u, v take the values of g, q, r before the addition
+      c1 &= c2;
+      n = (n ^ c1) - (c1 + 1);
+      fi += gi & c1;
+      u += q & c1;
+      v += r & c1;
+      gi >>= 1;
+      u <<= 1;
+      v <<= 1;
+    }
+    t[0] = u;
+    t[1] = v;
+    t[2] = q;
+    t[3] = r;
+    return n;
+  }
+
+  /**
+   * Computes [f, g] = t [f, g] / 2^62.
+   */
+  private static void updateFg(final long[] f, final long[] g, final long[] t, final long[] acc,
+      final int size) {
+    final long u = t[0];
+    final long v = t[1];
+    final long q = t[2];
+    final long r = t[3];
+    clear(acc);
+    for (int i = 0; i < size; i++) {
+      mulAdd(acc, 0, u, f[i]);
+      mulAdd(acc, 0, v, g[i]);
+      mulAdd(acc, 2, q, f[i]);
+      mulAdd(acc, 2, r, g[i]);
+      // The low 62 bits of the first limb are zero by construction of t
+      if (i > 0) {
+        f[i - 1] = acc[0] & MASK;
+        g[i - 1] = acc[2] & MASK;
+      }
+      shift(acc, 0);
+      shift(acc, 2);
+    }
+    f[size - 1] = acc[0];
+    g[size - 1] = acc[2];
+  }
+
+  /**
+   * Computes [d, e] = (t [d, e] + m [md, me]) / 2^62, where md and me are chosen so that the
+   * division is exact and the results stay in the range (-2m, m).
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private void updateDe(final long[] d, final long[] e, final long[] t, final long[] acc) {
+    final long u = t[0];
+    final long v = t[1];
+    final long q = t[2];
+    final long r = t[3];
+    // Start with u or q for negative d, plus v or r for negative e
+    final long sd = d[this.size - 1] >> 63;
+    final long se = e[this.size - 1] >> 63;
+    long md = (u & sd) + (v & se);
+    long me = (q & sd) + (r & se);
+    clear(acc);
+    mulAdd(acc, 0, u, d[0]);
+    mulAdd(acc, 0, v, e[0]);
+    mulAdd(acc, 2, q, d[0]);
+    mulAdd(acc, 2, r, e[0]);
+    md -= (this.modulusInverse * acc[0] + md) & MASK;
+    me -= (this.modulusInverse * acc[2] + me) & MASK;
+    mulAdd(acc, 0, this.modulusLimbs[0], md);
+    mulAdd(acc, 2, this.modulusLimbs[0], me);
+    shift(acc, 0);
+    shift(acc, 2);
+    for (int i = 1; i < this.size; i++) {
+      mulAdd(acc, 0, u, d[i]);
+      mulAdd(acc, 0, v, e[i]);
+      mulAdd(acc, 0, this.modulusLimbs[i], md);
+      mulAdd(acc, 2, q, d[i]);
+      mulAdd(acc, 2, r, e[i]);
+      mulAdd(acc, 2, this.modulusLimbs[i], me);
+      d[i - 1] = acc[0] & MASK;
+      e[i - 1] = acc[2] & MASK;
+      shift(acc, 0);
+      shift(acc, 2);
+    }
+    d[this.size - 1] = acc[0];
+    e[this.size - 1] = acc[2];
+  }
+
+  /**
+   * Brings d from the range (-2m, m) to [0, m), negated if the sign of f is negative.
+   */
+  private void normalize(final long[] d, final long signF) {
+    addModulusIfNegative(d, this.modulusLimbs);
+    final long negate = signF >> 63;
+    for (int i = 0; i < this.size; i++) {
+      d[i] = (d[i] ^ negate) - negate;
+    }
+    propagate(d);
+    addModulusIfNegative(d, this.modulusLimbs);
+    propagate(d);
+  }
+
+  private static void addModulusIfNegative(final long[] d, final long[] m) {
+    final long negative = d[d.length - 1] >> 63;
+    for (int i = 0; i < d.length; i++) {
+      d[i] += m[i] & negative;
+    }
+  }
+
+  /**
+   * Brings the low limbs back to the range [0, 2^62) with the carries in the top limb.
+   */
+  private static void propagate(final long[] d) {
+    for (int i = 0; i < d.length - 1; i++) {
+      d[i + 1] += d[i] >> BITS;
+      d[i] &= MASK;
+    }
+  }
+
+  private static void clear(final long[] acc) {
+    acc[0] = 0;
+    acc[1] = 0;
+    acc[2] = 0;
+    acc[3] = 0;
+  }
+
+  /**
+   * Adds the signed product a * b to the 128-bit accumulator acc[i + 1] : acc[i].
+   */
+  private static void mulAdd(final long[] acc, final int i, final long a, final long b) {
+    final long lo = a * b;
+    final long s = acc[i] + lo;
+    acc[i + 1] += Math.multiplyHigh(a, b) + (((acc[i] & lo) | ((acc[i] | lo) & ~s)) >>> 63);
+    acc[i] = s;
+  }
+
+  /**
+   * Arithmetic shift right by 62 bits of the 128-bit accumulator acc[i + 1] : acc[i].
+   */
+  private static void shift(final long[] acc, final int i) {
+    acc[i] = (acc[i] >>> BITS) | (acc[i + 1] << (64 - BITS));
+    acc[i + 1] >>= BITS;
+  }
+
+  private long[] toLimbs(final BigInteger x) {
+    // Decode the big-endian bytes of a value in [0, m), padded to the length of the modulus
+    final byte[] bytes = BigIntegers.asUnsignedByteArray(this.byteLength, x);
+    final long[] z = new long[this.size];
+    for (int i = 0; i < bytes.length; i++) {
+      final long value = bytes[bytes.length - 1 - i] & 0xffL;
+      final int k = 8 * i / BITS;
+      final int shift = 8 * i % BITS;
+      if (k < this.size) {
+        z[k] |= (value << shift) & MASK;
+      }
+      if (shift > BITS - 8 && k + 1 < this.size) {
+        // The byte straddles two limbs
+        z[k + 1] |= value >>> (BITS - shift);
+      }
+    }
+    return z;
+  }
+
+  private BigInteger fromLimbs(final long[] x) {
+    final byte[] bytes = new byte[(BITS * this.size + 7) / 8];
+    for (int i = 0; i < bytes.length; i++) {
+      final int k = 8 * i / BITS;
+      final int shift = 8 * i % BITS;
+      long value = x[k] >>> shift;
+      if (shift > BITS - 8 && k + 1 < this.size) {
+        value |= x[k + 1] << (BITS - shift);
+      }
+      bytes[bytes.length - 1 - i] = (byte) value;
+    }
+    return new BigInteger(1, bytes);
+  }
+
+}
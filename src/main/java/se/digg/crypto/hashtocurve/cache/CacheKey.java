@@ -0,0 +1,87 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import se.digg.crypto.hashtocurve.H2cUtils;
+
+/**
+ * Cache key holding a SHA-256 digest of the hash input instead of the input itself.
+ *
+ * <p>The digest is computed over the length-prefixed domain separation tag followed by the
+ * length-prefixed message, so distinct (DST, message) pairs cannot produce the same encoding before
+ * hashing. Cache keys therefore only collide if SHA-256 does.
+ */
+public final class CacheKey {
+
+  private final byte[] digest;
+  private final int hash;
+
+  private CacheKey(final byte[] digest) {
+    this.digest = digest;
+    this.hash = (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8
+        | digest[3] & 0xff;
+  }
+
+  /**
+   * Creates the cache key of a domain separation tag and message pair.
+   *
+   * @param dst the domain separation tag
+   * @param message the message
+   * @return the cache key
+   */
+  public static CacheKey of(final byte[] dst, final byte[] message) {
+    final SHA256Digest sha256 = new SHA256Digest();
+    updateWithLength(sha256, dst);
+    updateWithLength(sha256, message);
+    final byte[] digest = new byte[sha256.getDigestSize()];
+    sha256.doFinal(digest, 0);
+    return new CacheKey(digest);
+  }
+
+  /**
+   * Creates the cache key of a domain separation tag and a message held in a buffer. The key is
+   * equal to the key of the bytes between the position and the limit of the buffer, which are not
+   * modified.
+   *
+   * @param dst the domain separation tag
+   * @param message the buffer holding the message
+   * @return the cache key
+   */
+  public static CacheKey of(final byte[] dst, final ByteBuffer message) {
+    final SHA256Digest sha256 = new SHA256Digest();
+    updateWithLength(sha256, dst);
+    updateLength(sha256, message.remaining());
+    H2cUtils.update(sha256, message, new byte[sha256.getByteLength()]);
+    final byte[] digest = new byte[sha256.getDigestSize()];
+    sha256.doFinal(digest, 0);
+    return new CacheKey(digest);
+  }
+
+  private static void updateWithLength(final SHA256Digest sha256, final byte[] data) {
+    updateLength(sha256, data.length);
+    sha256.update(data, 0, data.length);
+  }
+
+  private static void updateLength(final SHA256Digest sha256, final int length) {
+    sha256.update((byte) (length >>> 24));
+    sha256.update((byte) (length >>> 16));
+    sha256.update((byte) (length >>> 8));
+    sha256.update((byte) length);
+  }
+
+  @Override
+  public boolean equals(final Object other) {
+    return other instanceof final CacheKey key && Arrays.equals(this.digest, key.digest);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.hash;
+  }
+
+}
@@ -0,0 +1,95 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.cache;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often keys have been accessed, used as the
+ * admission filter of the TinyLFU eviction policy.
+ *
+ * <p>Each key hash selects one counter in each of four rows. The counters are stored sixteen to a
+ * {@code long}. When the number of recorded accesses reaches ten times the cache capacity, all
+ * counters are halved so that the estimate follows recent popularity. This class is not thread
+ * safe.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * Creates a sketch sized for a cache of the given capacity.
+   *
+   * @param maximumSize the maximum number of cache entries
+   */
+  FrequencySketch(final long maximumSize) {
+    final int capacity = (int) Math.min(Math.max(maximumSize, 16), 1 << 30);
+    this.table = new long[Integer.highestOneBit(capacity - 1) << 1];
+    this.tableMask = this.table.length - 1;
+    this.sampleSize = 10 * capacity;
+  }
+
+  /**
+   * Returns the estimated number of accesses of a key, between 0 and 15.
+   *
+   * @param hash the key hash
+   * @return the estimated frequency
+   */
+  int frequency(final int hash) {
+    final int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      final int index = this.indexOf(hash, i);
+      final int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access of a key.
+   *
+   * @param hash the key hash
+   */
+  void increment(final int hash) {
+    final int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= this.incrementAt(this.indexOf(hash, i), start + i);
+    }
+    if (added && ++this.size == this.sampleSize) {
+      this.reset();
+    }
+  }
+
+  private boolean incrementAt(final int index, final int counter) {
+    final int offset = counter << 2;
+    final long mask = 0xfL << offset;
+    if ((this.table[index] & mask) != mask) {
+      this.table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private int indexOf(final int hash, final int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return (int) h & this.tableMask;
+  }
+
+  private void reset() {
+    for (int i = 0; i < this.table.length; i++) {
+      this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+    }
+    this.size = this.size >>> 1;
+  }
+
+}
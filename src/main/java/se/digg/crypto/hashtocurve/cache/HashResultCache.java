@@ -0,0 +1,363 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import se.digg.crypto.hashtocurve.data.CacheStatistics;
+
+/**
+ * Bounded in-memory cache of hash results with a W-TinyLFU eviction policy and single-flight
+ * loading.
+ *
+ * <p>New entries enter a small LRU admission window holding 1% of the entries. Entries leaving the
+ * window compete for a place in the main segmented LRU, split in a probation and a protected
+ * segment, and are only admitted if a {@link FrequencySketch} estimates them to be accessed more
+ * often than the entry they would replace. This keeps popular results cached while one-off inputs
+ * pass through the window. The cache is bounded both by the number of entries and by the estimated
+ * memory use of the entries.
+ *
+ * <p>Concurrent lookups of the same missing key are collapsed into a single computation, which the
+ * other callers wait for. Lookups of cached entries do not block on each other apart from a short
+ * lock when updating the eviction order.
+ *
+ * @param <V> the type of cached values
+ */
+public class HashResultCache<V> {
+
+  /** Estimated memory use in bytes of a cache entry, excluding the value. */
+  public static final long ENTRY_OVERHEAD = 160;
+
+  private static final int WINDOW = 0;
+  private static final int PROBATION = 1;
+  private static final int PROTECTED = 2;
+  private static final int REMOVED = 3;
+
+  private final long maximumSize;
+  private final long maximumWeight;
+  private final ToLongFunction<V> weigher;
+
+  private final ConcurrentHashMap<CacheKey, Node<V>> data = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<CacheKey, CompletableFuture<V>> loading =
+      new ConcurrentHashMap<>();
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final FrequencySketch sketch;
+  private final AccessOrder<V> window = new AccessOrder<>();
+  private final AccessOrder<V> probation = new AccessOrder<>();
+  private final AccessOrder<V> protectedSegment = new AccessOrder<>();
+  private final long windowMaximum;
+  private final long protectedMaximum;
+  private long weight;
+
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder sharedLoadCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+
+  /**
+   * Creates a cache.
+   *
+   * @param maximumSize the maximum number of entries
+   * @param maximumWeight the maximum estimated memory use of all entries in bytes
+   * @param weigher estimates the memory use of a value in bytes
+   * @throws IllegalArgumentException if maximumSize or maximumWeight is not positive
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public HashResultCache(final long maximumSize, final long maximumWeight,
+      final ToLongFunction<V> weigher) {
+    if (maximumSize <= 0 || maximumWeight <= 0) {
+      throw new IllegalArgumentException("Cache size and weight bounds must be positive");
+    }
+    this.maximumSize = maximumSize;
+    this.maximumWeight = maximumWeight;
+    this.weigher = weigher;
+    this.sketch = new FrequencySketch(maximumSize);
+    this.windowMaximum = Math.max(1, maximumSize / 100);
+    this.protectedMaximum = (maximumSize - this.windowMaximum) * 8 / 10;
+  }
+
+  /**
+   * Returns the cached value of a key, computing and caching it if it is missing. If another thread
+   * is already computing the value of the same key, this call waits for that computation instead
+   * of starting a new one.
+   *
+   * @param key the cache key
+   * @param loader computes the value on a cache miss
+   * @return the cached or computed value
+   * @throws RuntimeException any exception thrown by the loader, also for callers waiting for the
+   *         failed computation
+   */
+  public V get(final CacheKey key, final Supplier<V> loader) {
+    final Node<V> node = this.data.get(key);
+    if (node != null) {
+      this.hitCount.increment();
+      this.afterRead(node);
+      return node.value;
+    }
+
+    final CompletableFuture<V> future = new CompletableFuture<>();
+    final CompletableFuture<V> inFlight = this.loading.putIfAbsent(key, future);
+    if (inFlight != null) {
+      this.sharedLoadCount.increment();
+      return join(inFlight);
+    }
+    try {
+      final Node<V> loaded = this.data.get(key);
+      if (loaded != null) {
+        // Completed by another thread between the lookup and the single-flight registration
+        this.hitCount.increment();
+        this.afterRead(loaded);
+        future.complete(loaded.value);
+        return loaded.value;
+      }
+      this.missCount.increment();
+      final V value = loader.get();
+      this.put(key, value);
+      future.complete(value);
+      return value;
+    } catch (final RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.loading.remove(key, future);
+    }
+  }
+
+  /**
+   * Get a snapshot of the cache counters.
+   *
+   * @return the cache statistics
+   */
+  public CacheStatistics getStatistics() {
+    this.lock.lock();
+    try {
+      return new CacheStatistics(this.hitCount.sum(), this.missCount.sum(),
+          this.sharedLoadCount.sum(), this.evictionCount.sum(), this.data.size(), this.weight);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all entries from the cache. Counters are not reset.
+   */
+  public void invalidateAll() {
+    this.lock.lock();
+    try {
+      for (final Node<V> node : this.data.values()) {
+        node.segment = REMOVED;
+      }
+      this.data.clear();
+      this.window.clear();
+      this.probation.clear();
+      this.protectedSegment.clear();
+      this.weight = 0;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private static <V> V join(final CompletableFuture<V> future) {
+    try {
+      return future.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof final RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof final Error cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void afterRead(final Node<V> node) {
+    this.lock.lock();
+    try {
+      this.sketch.increment(node.key.hashCode());
+      switch (node.segment) {
+        case WINDOW -> this.window.moveToBack(node);
+        case PROBATION -> {
+          this.probation.remove(node);
+          node.segment = PROTECTED;
+          this.protectedSegment.addLast(node);
+          if (this.protectedSegment.size > this.protectedMaximum) {
+            final Node<V> demoted = this.protectedSegment.removeFirst();
+            demoted.segment = PROBATION;
+            this.probation.addLast(demoted);
+          }
+        }
+        case PROTECTED -> this.protectedSegment.moveToBack(node);
+        default -> {
+          // Evicted concurrently
+        }
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void put(final CacheKey key, final V value) {
+    final Node<V> node = new Node<>(key, value, ENTRY_OVERHEAD + this.weigher.applyAsLong(value));
+    this.lock.lock();
+    try {
+      this.sketch.increment(key.hashCode());
+      if (this.data.putIfAbsent(key, node) != null) {
+        return;
+      }
+      node.segment = WINDOW;
+      this.window.addLast(node);
+      this.weight += node.weight;
+      this.evict();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Moves entries leaving the admission window into the main segments, and evicts entries until
+   * the cache is within its bounds.
+   */
+  private void evict() {
+    while (this.window.size > this.windowMaximum) {
+      final Node<V> candidate = this.window.removeFirst();
+      final long mainSize = this.probation.size + this.protectedSegment.size;
+      if (mainSize < this.maximumSize - this.windowMaximum) {
+        candidate.segment = PROBATION;
+        this.probation.addLast(candidate);
+        continue;
+      }
+      final Node<V> victim = this.probation.size > 0
+          ? this.probation.first()
+          : this.protectedSegment.first();
+      if (victim != null && this.sketch.frequency(candidate.key.hashCode()) > this.sketch
+          .frequency(victim.key.hashCode())) {
+        this.removeNode(victim);
+        candidate.segment = PROBATION;
+        this.probation.addLast(candidate);
+      } else {
+        candidate.segment = REMOVED;
+        this.removeNode(candidate);
+      }
+    }
+    while (this.weight > this.maximumWeight) {
+      final Node<V> victim;
+      if (this.probation.size > 0) {
+        victim = this.probation.first();
+      } else if (this.protectedSegment.size > 0) {
+        victim = this.protectedSegment.first();
+      } else {
+        victim = this.window.first();
+      }
+      this.removeNode(victim);
+    }
+  }
+
+  private void removeNode(final Node<V> node) {
+    switch (node.segment) {
+      case WINDOW -> this.window.remove(node);
+      case PROBATION -> this.probation.remove(node);
+      case PROTECTED -> this.protectedSegment.remove(node);
+      default -> {
+        // Already unlinked
+      }
+    }
+    node.segment = REMOVED;
+    this.data.remove(node.key, node);
+    this.weight -= node.weight;
+    this.evictionCount.increment();
+  }
+
+  /**
+   * Cache entry, linked into the access order list of its segment.
+   *
+   * @param <V> the type of the cached value
+   */
+  private static final class Node<V> {
+    final CacheKey key;
+    final V value;
+    final long weight;
+    int segment;
+    Node<V> prev;
+    Node<V> next;
+
+    Node(final CacheKey key, final V value, final long weight) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Doubly linked list of entries from least to most recently used.
+   *
+   * @param <V> the type of the cached values
+   */
+  private static final class AccessOrder<V> {
+    Node<V> head;
+    Node<V> tail;
+    long size;
+
+    Node<V> first() {
+      return this.head;
+    }
+
+    void addLast(final Node<V> node) {
+      node.prev = this.tail;
+      node.next = null;
+      if (this.tail == null) {
+        this.head = node;
+      } else {
+        this.tail.next = node;
+      }
+      this.tail = node;
+      this.size++;
+    }
+
+    Node<V> removeFirst() {
+      final Node<V> node = this.head;
+      this.remove(node);
+      return node;
+    }
+
+    void remove(final Node<V> node) {
+      if (node.prev == null) {
+        this.head = node.next;
+      } else {
+        node.prev.next = node.next;
+      }
+      if (node.next == null) {
+        this.tail = node.prev;
+      } else {
+        node.next.prev = node.prev;
+      }
+      node.prev = null;
+      node.next = null;
+      this.size--;
+    }
+
+    void moveToBack(final Node<V> node) {
+      if (this.tail != node) {
+        this.remove(node);
+        this.addLast(node);
+      }
+    }
+
+    void clear() {
+      this.head = null;
+      this.tail = null;
+      this.size = 0;
+    }
+  }
+
+}
@@ -0,0 +1,35 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * The backend implementations selected for a profile.
+ *
+ * @param digest the hash function implementation used for message expansion
+ * @param field the field arithmetic used by map to curve, {@link FieldBackend#BIG_INTEGER} for
+ *        profiles without hash to curve support
+ * @param batchSize the number of messages to hash together in a batch, applied as the maximum
+ *        batch size of {@link PipelineSettings#forSelection(BackendSelection)}
+ */
+public record BackendSelection(
+    DigestBackend digest,
+    FieldBackend field,
+    int batchSize) {
+
+  /**
+   * Creates a backend selection.
+   *
+   * @param digest the hash function implementation
+   * @param field the field arithmetic
+   * @param batchSize the batch size
+   * @throws IllegalArgumentException if the batch size is not positive
+   */
+  public BackendSelection {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("Batch size must be positive");
+    }
+  }
+
+}
@@ -0,0 +1,109 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A point in affine coordinates on the BLS12-381 curve E2: y^2 = x^3 + 4 * (1 + I) over the
+ * extension field F_p^2 = F_p[I] / (I^2 + 1), or the point at infinity.
+ *
+ * <p>Bouncy Castle has no curve arithmetic over extension fields, so the points of the BLS12-381
+ * G2 suites are returned in this type rather than as an {@code ECPoint}. Each coordinate is an
+ * array {c0, c1} of the integer values of the coordinate c0 + c1 * I.
+ */
+public final class Bls12381G2Point {
+
+  private static final Bls12381G2Point INFINITY = new Bls12381G2Point(null, null);
+
+  private final BigInteger[] affineX;
+  private final BigInteger[] affineY;
+
+  private Bls12381G2Point(final BigInteger[] x, final BigInteger[] y) {
+    this.affineX = x;
+    this.affineY = y;
+  }
+
+  /**
+   * Creates a point from its affine coordinates. The coordinates are not validated.
+   *
+   * @param x the x coordinate {c0, c1}
+   * @param y the y coordinate {c0, c1}
+   * @return the point
+   */
+  public static Bls12381G2Point of(final BigInteger[] x, final BigInteger[] y) {
+    if (x.length != 2 || y.length != 2) {
+      throw new IllegalArgumentException("Coordinates must have two components");
+    }
+    return new Bls12381G2Point(x.clone(), y.clone());
+  }
+
+  /**
+   * Get the point at infinity.
+   *
+   * @return the point at infinity
+   */
+  public static Bls12381G2Point getInfinity() {
+    return INFINITY;
+  }
+
+  public boolean isInfinity() {
+    return this.affineX == null;
+  }
+
+  /**
+   * Get the x coordinate.
+   *
+   * @return the x coordinate {c0, c1}
+   * @throws IllegalStateException if the point is the point at infinity
+   */
+  public BigInteger[] getX() {
+    if (this.isInfinity()) {
+      throw new IllegalStateException("The point at infinity has no affine coordinates");
+    }
+    return this.affineX.clone();
+  }
+
+  /**
+   * Get the y coordinate.
+   *
+   * @return the y coordinate {c0, c1}
+   * @throws IllegalStateException if the point is the point at infinity
+   */
+  public BigInteger[] getY() {
+    if (this.isInfinity()) {
+      throw new IllegalStateException("The point at infinity has no affine coordinates");
+    }
+    return this.affineY.clone();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Bls12381G2Point other)) {
+      return false;
+    }
+    return Arrays.equals(this.affineX, other.affineX) && Arrays.equals(this.affineY, other.affineY);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(Arrays.hashCode(this.affineX), Arrays.hashCode(this.affineY));
+  }
+
+  @Override
+  public String toString() {
+    if (this.isInfinity()) {
+      return "INF";
+    }
+    return "(" + this.affineX[0].toString(16) + " + " + this.affineX[1].toString(16) + " * I, "
+        + this.affineY[0].toString(16) + " + " + this.affineY[1].toString(16) + " * I)";
+  }
+
+}
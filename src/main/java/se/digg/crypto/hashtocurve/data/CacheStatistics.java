@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * Snapshot of the counters of a hash result cache.
+ *
+ * @param hitCount the number of lookups served from the cache
+ * @param missCount the number of lookups that computed the result
+ * @param sharedLoadCount the number of lookups that waited for a concurrent computation of the same
+ *        key instead of computing the result themselves
+ * @param evictionCount the number of entries evicted or rejected by the eviction policy
+ * @param size the current number of entries
+ * @param weight the current estimated memory use of the entries in bytes
+ */
+public record CacheStatistics(
+    long hitCount,
+    long missCount,
+    long sharedLoadCount,
+    long evictionCount,
+    long size,
+    long weight) {
+}
@@ -0,0 +1,65 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Report of a backend calibration run.
+ *
+ * @param profiles the calibration of each profile
+ * @param total the total time of the calibration
+ */
+public record CalibrationReport(
+    List<ProfileCalibration> profiles,
+    Duration total) {
+
+  /**
+   * Creates a report with an unmodifiable copy of the profile calibrations.
+   *
+   * @param profiles the calibration of each profile
+   * @param total the total time of the calibration
+   */
+  public CalibrationReport {
+    profiles = List.copyOf(profiles);
+  }
+
+  /**
+   * Calibration of a single profile. The timings hold the measured time per operation of each
+   * candidate that agreed on the test vectors, and are empty for a choice that was pinned by
+   * configuration or had a single candidate.
+   *
+   * @param profile the hash to curve profile
+   * @param selection the selected backends
+   * @param digestTimings the time per message expansion of each hash function implementation
+   * @param fieldTimings the time per map to curve of each field arithmetic
+   * @param batchTimings the time per map to curve in batches of each batch size
+   */
+  public record ProfileCalibration(
+      HashToCurveProfile profile,
+      BackendSelection selection,
+      Map<DigestBackend, Duration> digestTimings,
+      Map<FieldBackend, Duration> fieldTimings,
+      Map<Integer, Duration> batchTimings) {
+
+    /**
+     * Creates a profile calibration with unmodifiable copies of the timings.
+     *
+     * @param profile the hash to curve profile
+     * @param selection the selected backends
+     * @param digestTimings the timings of the hash function implementations
+     * @param fieldTimings the timings of the field arithmetic
+     * @param batchTimings the timings of the batch sizes
+     */
+    public ProfileCalibration {
+      digestTimings = Map.copyOf(digestTimings);
+      fieldTimings = Map.copyOf(fieldTimings);
+      batchTimings = Map.copyOf(batchTimings);
+    }
+  }
+
+}
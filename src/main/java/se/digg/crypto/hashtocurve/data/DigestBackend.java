@@ -0,0 +1,17 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * Implementations of the hash function used for message expansion.
+ */
+public enum DigestBackend {
+
+  /** The Bouncy Castle lightweight digests. */
+  BOUNCY_CASTLE,
+  /** The message digests of the installed JCA security providers. */
+  JCA
+
+}
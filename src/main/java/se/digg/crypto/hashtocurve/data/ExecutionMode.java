@@ -0,0 +1,36 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * Execution modes of a hash to curve suite, trading side channel resistance for speed.
+ *
+ * <p>The modes differ in map_to_curve only. Message expansion, the reduction of hash_to_field,
+ * cofactor clearing and point encoding are the same in both modes. The reduction of hash_to_field
+ * and the conversions between {@link java.math.BigInteger} and the field representations at the
+ * stage boundaries use BigInteger arithmetic in both modes, which is not guaranteed to run in
+ * constant time.
+ */
+public enum ExecutionMode {
+
+  /**
+   * For public inputs, such as identifiers and transcript commitments, where timing side channels
+   * do not matter. map_to_curve uses the fastest variable time BigInteger arithmetic: inversion by
+   * {@link java.math.BigInteger#modInverse(java.math.BigInteger)}, squareness by the Jacobi symbol,
+   * a single square root of the square candidate instead of sqrt_ratio, and branches on all
+   * intermediate values. For the BLS12-381 G1 profiles, the constant time map on 64-bit limbs is
+   * also the fastest and is used in this mode.
+   */
+  PUBLIC_INPUT,
+  /**
+   * For secret inputs, such as OPRF password inputs. map_to_curve uses the straight-line program
+   * of section F.2 of RFC 9380 on fixed-size limb field arithmetic, with branch-free selections
+   * and constant time inversion and square roots. The field arithmetic is the calibrated or pinned
+   * {@link FieldBackend} if that runs in constant time, or else the constant time default of the
+   * profile.
+   */
+  SECRET_INPUT
+
+}
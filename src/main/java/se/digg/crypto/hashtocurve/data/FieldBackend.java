@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * Implementations of the field arithmetic used by map to curve.
+ */
+public enum FieldBackend {
+
+  /** BigInteger arithmetic, available for the NIST curves. */
+  BIG_INTEGER(false),
+  /**
+   * The 32-bit limb arithmetic of the Bouncy Castle custom curve fields, available for the NIST
+   * curves.
+   */
+  BC_CUSTOM_FIELD(true),
+  /**
+   * The dedicated 64-bit limb kernels of this library, available for P-256, P-521 and BLS12-381.
+   */
+  LIMB(true);
+
+  private final boolean constantTime;
+
+  FieldBackend(final boolean constantTime) {
+    this.constantTime = constantTime;
+  }
+
+  /**
+   * Test if map to curve with this field arithmetic runs in constant time, as required by
+   * {@link ExecutionMode#SECRET_INPUT}.
+   *
+   * @return true if the map runs in constant time
+   */
+  public boolean isConstantTime() {
+    return this.constantTime;
+  }
+
+}
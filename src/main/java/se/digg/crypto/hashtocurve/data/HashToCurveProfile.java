@@ -13,7 +13,11 @@ import lombok.Getter;
  *
  * <p>
  * _NU_ is identical to _RO_, * except that the encoding type is encode_to_curve. encode_to_curve is
- * not yet implemented in this lib, thus these options are not yet included.
+ * only implemented for the BLS12-381 G1 suites, thus the other _NU_ options are not yet included.
+ *
+ * <p>The profiles are the suites over prime fields. The BLS12381G2_XMD:SHA-256_SSWU_RO_ suite over
+ * the extension field F_p^2 is implemented by
+ * {@link se.digg.crypto.hashtocurve.impl.Bls12381G2HashToCurve}.
  */
 @SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
 @Getter
@@ -29,6 +33,10 @@ public enum HashToCurveProfile {
   curve25519_XMD_SHA_512_ELL2_RO_("curve25519_XMD:SHA-512_ELL2_RO_", BigInteger.valueOf(2), 48,
       128),
   // curve25519_XMD_SHA_512_ELL2_NU_("curve25519_XMD:SHA-512_ELL2_NU_", BigInteger.valueOf(2), 128),
+  BLS12381G1_XMD_SHA_256_SSWU_RO_("BLS12381G1_XMD:SHA-256_SSWU_RO_", BigInteger.valueOf(11), 64,
+      128),
+  BLS12381G1_XMD_SHA_256_SSWU_NU_("BLS12381G1_XMD:SHA-256_SSWU_NU_", BigInteger.valueOf(11), 64,
+      128),
   ;
 
   /** The cipher suite ID. */
@@ -49,4 +57,14 @@ public enum HashToCurveProfile {
   private final int L;
   private final int k;
 
+  /**
+   * Tests if the profile is a random oracle suite, with the encoding type hash_to_curve. The
+   * nonuniform _NU_ suites use the encoding type encode_to_curve.
+   *
+   * @return true for the _RO_ suites, false for the _NU_ suites
+   */
+  public boolean isRandomOracle() {
+    return this.cipherSuiteID.endsWith("_RO_");
+  }
+
 }
@@ -0,0 +1,77 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+/**
+ * Settings of a hashing pipeline processing a stream of messages.
+ *
+ * @param maxBatchSize the maximum number of messages processed together as one micro-batch
+ * @param bufferSize the maximum number of messages received from upstream but not yet delivered
+ *        downstream, which bounds the memory use and the queues of all stages
+ * @param expansionParallelism the maximum number of batches in the hash to field stage at a time
+ * @param mappingParallelism the maximum number of batches in the map to curve stage at a time
+ * @param clearingParallelism the maximum number of batches in the cofactor clearing stage at a
+ *        time
+ */
+public record PipelineSettings(
+    int maxBatchSize,
+    int bufferSize,
+    int expansionParallelism,
+    int mappingParallelism,
+    int clearingParallelism) {
+
+  /** Default maximum number of messages of a micro-batch. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 64;
+  /** Default maximum number of messages in the pipeline. */
+  public static final int DEFAULT_BUFFER_SIZE = 1024;
+
+  /**
+   * Creates pipeline settings.
+   *
+   * @param maxBatchSize the maximum number of messages processed together as one micro-batch
+   * @param bufferSize the maximum number of messages in the pipeline
+   * @param expansionParallelism the parallelism of the hash to field stage
+   * @param mappingParallelism the parallelism of the map to curve stage
+   * @param clearingParallelism the parallelism of the cofactor clearing stage
+   * @throws IllegalArgumentException if a value is not positive, or if the buffer is smaller than
+   *         a batch
+   */
+  public PipelineSettings {
+    if (maxBatchSize <= 0 || expansionParallelism <= 0 || mappingParallelism <= 0
+        || clearingParallelism <= 0) {
+      throw new IllegalArgumentException("Batch size and parallelism must be positive");
+    }
+    if (bufferSize < maxBatchSize) {
+      throw new IllegalArgumentException("Buffer size must be at least the maximum batch size");
+    }
+  }
+
+  /**
+   * Get the default settings, with a single hash to field worker and one map to curve and cofactor
+   * clearing worker per available processor.
+   *
+   * @return the default settings
+   */
+  public static PipelineSettings defaults() {
+    final int processors = Runtime.getRuntime().availableProcessors();
+    return new PipelineSettings(DEFAULT_MAX_BATCH_SIZE, DEFAULT_BUFFER_SIZE, 1, processors,
+        processors);
+  }
+
+  /**
+   * Get the default settings with the batch size of a backend selection as the maximum batch
+   * size. The buffer is enlarged to hold a batch if the batch size exceeds the default buffer size.
+   *
+   * @param selection the backend selection
+   * @return the settings for the selection
+   */
+  public static PipelineSettings forSelection(final BackendSelection selection) {
+    final PipelineSettings defaults = defaults();
+    return new PipelineSettings(selection.batchSize(),
+        Math.max(defaults.bufferSize(), selection.batchSize()), defaults.expansionParallelism(),
+        defaults.mappingParallelism(), defaults.clearingParallelism());
+  }
+
+}
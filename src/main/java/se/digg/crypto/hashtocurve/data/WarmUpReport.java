@@ -0,0 +1,50 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.data;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Timing report of a warm-up run.
+ *
+ * @param profiles the timings of each warmed-up profile
+ * @param total the total time of the warm-up
+ */
+public record WarmUpReport(
+    List<ProfileTiming> profiles,
+    Duration total) {
+
+  /**
+   * Creates a report with an unmodifiable copy of the profile timings.
+   *
+   * @param profiles the timings of each warmed-up profile
+   * @param total the total time of the warm-up
+   */
+  public WarmUpReport {
+    profiles = List.copyOf(profiles);
+  }
+
+  /**
+   * Warm-up timing of a single profile.
+   *
+   * @param profile the hash to curve profile
+   * @param initialization the time spent looking up curve parameters and precomputing the
+   *        constants of the profile
+   * @param training the time spent running the training workload through the stages of the
+   *        profile
+   * @param iterations the number of training iterations
+   * @param hashToCurveSupported false if the profile only supports hash to field and hash to
+   *        scalar, in which case only those stages were trained
+   */
+  public record ProfileTiming(
+      HashToCurveProfile profile,
+      Duration initialization,
+      Duration training,
+      int iterations,
+      boolean hashToCurveSupported) {
+  }
+
+}
@@ -0,0 +1,297 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.MapToCurve;
+
+/**
+ * Implements the Shallue van de Woestijne Map to curve of section 6.6.2 of RFC 9380 for batches of
+ * field elements on the NIST curves P-256, P-384 and P-521.
+ *
+ * <p>Field elements are held as fixed-size arrays of 32-bit limbs and all arithmetic runs on the
+ * Bouncy Castle custom field implementations for these primes. The straight-line program of
+ * section F.2 is evaluated with branchless mask selections, using the sqrt_ratio variant for
+ * q = 3 (mod 4) of section F.2.1.2. The final division x / tv4 of all elements in a batch shares a
+ * single field inversion (Montgomery's batch inversion trick). The resulting points are identical
+ * to those of {@link ShallueVanDeWoestijneMapToCurve}.
+ *
+ * <p>When the Vector API module is present, see {@link VectorSupport}, batches of at least one
+ * vector of elements are mapped by {@link LaneShallueVanDeWoestijneMap} instead, which runs the
+ * same straight-line program on one element per vector lane.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+public class BatchShallueVanDeWoestijneMapToCurve implements MapToCurve {
+
+  private final ECCurve curve;
+  private final LimbField field;
+  private final int[] a;
+  private final int[] b;
+  private final int[] z;
+  /** sqrt(-Z) in F. */
+  private final int[] c2;
+  /** The 4-bit windows of the exponent c1 = (q - 3) / 4, most significant first. */
+  private final int[] c1Windows;
+
+  private final Supplier<Temporaries> temporariesFactory;
+
+  /** The lane-parallel map, or null if the Vector API was not enabled at construction. */
+  private final LaneShallueVanDeWoestijneMap laneMap;
+
+  /**
+   * Constructs the batch map for a NIST curve.
+   *
+   * @param ecParameterSpec the curve parameters
+   * @param z the Z parameter of the suite
+   * @throws IllegalArgumentException if the curve is not P-256, P-384 or P-521
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public BatchShallueVanDeWoestijneMapToCurve(final ECParameterSpec ecParameterSpec,
+      final BigInteger z) {
+    this.curve = ecParameterSpec.getCurve();
+    this.field = LimbField.forCurve(this.curve);
+    final BigInteger p = this.field.getP();
+    this.a = this.field.fromBigInteger(this.curve.getA().toBigInteger());
+    this.b = this.field.fromBigInteger(this.curve.getB().toBigInteger());
+    this.z = this.field.fromBigInteger(z);
+    final BigInteger c1 = p.subtract(BigInteger.valueOf(3)).shiftRight(2);
+    this.c2 = this.field.fromBigInteger(
+        z.negate().mod(p).modPow(p.add(BigInteger.ONE).shiftRight(2), p));
+    this.c1Windows = new int[(c1.bitLength() + 3) / 4];
+    for (int i = 0; i < this.c1Windows.length; i++) {
+      final int shift = 4 * (this.c1Windows.length - 1 - i);
+      this.c1Windows[i] = c1.shiftRight(shift).intValue() & 0xf;
+    }
+    this.temporariesFactory = () -> new Temporaries(this.field);
+    this.laneMap =
+        VectorSupport.isEnabled() ? new LaneShallueVanDeWoestijneMap(this.curve, z) : null;
+  }
+
+  @Override
+  public ECPoint process(final BigInteger element) {
+    return this.process(new BigInteger[] {element})[0];
+  }
+
+  /**
+   * Maps a field element to a point on the curve, using field element temporaries kept in the
+   * context.
+   *
+   * @param element the input field element
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the mapped point
+   */
+  @Override
+  public ECPoint process(final BigInteger element, final HashContext ctx) {
+    final Temporaries t = ctx.getScratch(this, this.temporariesFactory);
+    this.field.fromBigInteger(element, t.u);
+    this.map(t, t.x, t.y, t.tv4);
+    this.field.inv(t.tv4, t.tv4);
+    this.field.multiply(t.x, t.tv4, t.x, t.tt);
+    return this.curve.createPoint(this.field.toBigInteger(t.x), this.field.toBigInteger(t.y));
+  }
+
+  /**
+   * Maps a batch of field elements to points on the curve.
+   *
+   * @param elements the input field elements
+   * @return the mapped points, in the same order as the input elements
+   */
+  @Override
+  public ECPoint[] process(final BigInteger[] elements) {
+    if (this.laneMap != null && elements.length >= this.laneMap.lanes()
+        && VectorSupport.isEnabled()) {
+      return this.laneMap.process(elements);
+    }
+    final int n = elements.length;
+    final Temporaries t = new Temporaries(this.field);
+    final int[][] x = new int[n][];
+    final int[][] y = new int[n][];
+    final int[][] tv4 = new int[n][];
+    for (int i = 0; i < n; i++) {
+      x[i] = this.field.create();
+      y[i] = this.field.create();
+      tv4[i] = this.field.create();
+      this.field.fromBigInteger(elements[i], t.u);
+      this.map(t, x[i], y[i], tv4[i]);
+    }
+    this.batchInvert(tv4, t);
+    final ECPoint[] points = new ECPoint[n];
+    for (int i = 0; i < n; i++) {
+      this.field.multiply(x[i], tv4[i], x[i], t.tt);
+      points[i] = this.curve.createPoint(this.field.toBigInteger(x[i]),
+          this.field.toBigInteger(y[i]));
+    }
+    return points;
+  }
+
+  /**
+   * Steps 1 to 24 of the straight-line map of section F.2. The returned x coordinate is the
+   * numerator of the fraction x / tv4.
+   *
+   * @param t temporaries, with the input element in t.u
+   * @param x the x coordinate numerator
+   * @param y the y coordinate
+   * @param tv4 the x coordinate denominator
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private void map(final Temporaries t, final int[] x, final int[] y, final int[] tv4) {
+    final LimbField f = this.field;
+    f.square(t.u, t.tv1, t.tt);
+    f.multiply(this.z, t.tv1, t.tv1, t.tt);
+    f.square(t.tv1, t.tv2, t.tt);
+    f.add(t.tv2, t.tv1, t.tv2);
+    f.add(t.tv2, t.one, t.tv3);
+    f.multiply(this.b, t.tv3, t.tv3, t.tt);
+    f.copy(this.z, tv4);
+    f.negate(t.tv2, t.tv5);
+    f.cmov(~f.isZero(t.tv2), t.tv5, tv4);
+    f.multiply(this.a, tv4, tv4, t.tt);
+    f.square(t.tv3, t.tv2, t.tt);
+    f.square(tv4, t.tv6, t.tt);
+    f.multiply(this.a, t.tv6, t.tv5, t.tt);
+    f.add(t.tv2, t.tv5, t.tv2);
+    f.multiply(t.tv2, t.tv3, t.tv2, t.tt);
+    f.multiply(t.tv6, tv4, t.tv6, t.tt);
+    f.multiply(this.b, t.tv6, t.tv5, t.tt);
+    f.add(t.tv2, t.tv5, t.tv2);
+    f.multiply(t.tv1, t.tv3, x, t.tt);
+    final int isGx1Square = this.sqrtRatio(t, t.tv2, t.tv6, t.y1);
+    f.multiply(t.tv1, t.u, y, t.tt);
+    f.multiply(y, t.y1, y, t.tt);
+    f.cmov(isGx1Square, t.tv3, x);
+    f.cmov(isGx1Square, t.y1, y);
+    final int e1 = ((f.sgn0(t.u) ^ f.sgn0(y)) - 1) >> 31;
+    f.negate(y, t.tv5);
+    f.cmov(~e1, t.tv5, y);
+  }
+
+  /**
+   * The sqrt_ratio subroutine for q = 3 (mod 4) of section F.2.1.2 of RFC 9380.
+   *
+   * @param t temporaries
+   * @param u the u parameter
+   * @param v the v parameter, v != 0
+   * @param y the resulting square root
+   * @return -1 if u / v is square, else 0
+   */
+  private int sqrtRatio(final Temporaries t, final int[] u, final int[] v, final int[] y) {
+    final LimbField f = this.field;
+    f.square(v, t.s1, t.tt);
+    f.multiply(u, v, t.s2, t.tt);
+    f.multiply(t.s1, t.s2, t.s1, t.tt);
+    this.powC1(t, t.s1, y);
+    f.multiply(y, t.s2, y, t.tt);
+    f.multiply(y, this.c2, t.s2, t.tt);
+    f.square(y, t.s1, t.tt);
+    f.multiply(t.s1, v, t.s1, t.tt);
+    final int isQR = f.equalTo(t.s1, u);
+    f.cmov(~isQR, t.s2, y);
+    return isQR;
+  }
+
+  /**
+   * Raises x to the public exponent c1 with a fixed 4-bit window.
+   *
+   * @param t temporaries
+   * @param x the base
+   * @param z the result
+   */
+  private void powC1(final Temporaries t, final int[] x, final int[] z) {
+    final LimbField f = this.field;
+    f.copy(t.one, t.table[0]);
+    for (int i = 1; i < t.table.length; i++) {
+      f.multiply(t.table[i - 1], x, t.table[i], t.tt);
+    }
+    f.copy(t.one, z);
+    for (final int window : this.c1Windows) {
+      for (int j = 0; j < 4; j++) {
+        f.square(z, z, t.tt);
+      }
+      if (window != 0) {
+        f.multiply(z, t.table[window], z, t.tt);
+      }
+    }
+  }
+
+  /**
+   * Replaces every element with its inverse using a single field inversion.
+   *
+   * @param elements non-zero field elements
+   * @param t temporaries
+   */
+  private void batchInvert(final int[][] elements, final Temporaries t) {
+    final int n = elements.length;
+    if (n == 0) {
+      return;
+    }
+    final LimbField f = this.field;
+    final int[][] acc = new int[n][];
+    acc[0] = elements[0].clone();
+    for (int i = 1; i < n; i++) {
+      acc[i] = f.create();
+      f.multiply(acc[i - 1], elements[i], acc[i], t.tt);
+    }
+    f.inv(acc[n - 1], t.tv1);
+    for (int i = n - 1; i > 0; i--) {
+      f.multiply(t.tv1, acc[i - 1], t.tv2, t.tt);
+      f.multiply(t.tv1, elements[i], t.tv1, t.tt);
+      f.copy(t.tv2, elements[i]);
+    }
+    f.copy(t.tv1, elements[0]);
+  }
+
+  /**
+   * Field element temporaries shared by all elements of a batch, or kept in a {@link HashContext}
+   * for mapping single elements.
+   */
+  private static final class Temporaries {
+    final int[] u;
+    /** Results of mapping a single element. */
+    final int[] x;
+    final int[] y;
+    final int[] tv4;
+    final int[] one;
+    final int[] tv1;
+    final int[] tv2;
+    final int[] tv3;
+    final int[] tv5;
+    final int[] tv6;
+    final int[] y1;
+    final int[] s1;
+    final int[] s2;
+    final int[][] table;
+    final int[] tt;
+
+    Temporaries(final LimbField field) {
+      this.u = field.create();
+      this.x = field.create();
+      this.y = field.create();
+      this.tv4 = field.create();
+      this.one = field.create();
+      this.one[0] = 1;
+      this.tv1 = field.create();
+      this.tv2 = field.create();
+      this.tv3 = field.create();
+      this.tv5 = field.create();
+      this.tv6 = field.create();
+      this.y1 = field.create();
+      this.s1 = field.create();
+      this.s2 = field.create();
+      this.table = new int[16][];
+      for (int i = 0; i < this.table.length; i++) {
+        this.table[i] = field.create();
+      }
+      this.tt = field.createExt();
+    }
+  }
+
+}
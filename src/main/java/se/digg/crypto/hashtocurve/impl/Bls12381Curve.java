@@ -0,0 +1,78 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECFieldElement;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * The BLS12-381 curve E: y^2 = x^3 + 4 over the 381-bit prime field, with the order and cofactor
+ * of the subgroup G1. The curve is not in the Bouncy Castle named curve table.
+ *
+ * <p>Points use Jacobian coordinates, the cheapest Bouncy Castle coordinate system for a = 0. The
+ * curve lets {@link Bls12381G1MapToCurve} and {@link Bls12381G1CurveProcessor} hand over points in
+ * Jacobian coordinates, so that the conversion to affine coordinates is deferred to the final
+ * normalization of the hashed point.
+ */
+public class Bls12381Curve extends ECCurve.Fp {
+
+  /** The order r of the subgroup G1. */
+  public static final BigInteger R =
+      new BigInteger("73eda753299d7d483339d80809a1d80553bda402fffe5bfeffffffff00000001", 16);
+  /** The cofactor h of the subgroup G1. */
+  public static final BigInteger H = new BigInteger("396c8c005555e1568c00aaab0000aaab", 16);
+
+  private static final BigInteger G_X = new BigInteger("17f1d3a73197d7942695638c4fa9ac0fc3688c4f"
+      + "9774b905a14e3a3f171bac586c55e83ff97a1aeffb3af00adb22c6bb", 16);
+  private static final BigInteger G_Y = new BigInteger("08b3f481e3aaa0f1a09e30ed741d8ae4fcf5e095"
+      + "d5d00af600db18cb2c04b3edd03cc744a2888ae40caa232946c5e7e1", 16);
+
+  private static final ECParameterSpec G1_PARAMETER_SPEC;
+
+  static {
+    final Bls12381Curve curve = new Bls12381Curve();
+    G1_PARAMETER_SPEC = new ECParameterSpec(curve, curve.createPoint(G_X, G_Y), R, H);
+  }
+
+  /**
+   * Creates the BLS12-381 curve.
+   */
+  public Bls12381Curve() {
+    // The field prime is a known prime, so the primality check of the constructor is skipped
+    super(Bls12381Field.P, BigInteger.ZERO, BigInteger.valueOf(4), R, H, true);
+    this.coord = COORD_JACOBIAN;
+  }
+
+  /**
+   * Get the parameters of the BLS12-381 subgroup G1 with the standard generator.
+   *
+   * @return the G1 curve parameters
+   */
+  public static ECParameterSpec getG1ParameterSpec() {
+    return G1_PARAMETER_SPEC;
+  }
+
+  @Override
+  protected ECCurve cloneCurve() {
+    return new Bls12381Curve();
+  }
+
+  /**
+   * Creates a point from Jacobian coordinates, representing the affine point (x / z^2, y / z^3).
+   *
+   * @param x the Jacobian X coordinate
+   * @param y the Jacobian Y coordinate
+   * @param z the Jacobian Z coordinate, not zero
+   * @return the point, not normalized
+   */
+  ECPoint createJacobianPoint(final BigInteger x, final BigInteger y, final BigInteger z) {
+    return this.createRawPoint(this.fromBigInteger(x), this.fromBigInteger(y),
+        new ECFieldElement[] {this.fromBigInteger(z)});
+  }
+
+}
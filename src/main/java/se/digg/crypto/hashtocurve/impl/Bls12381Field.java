@@ -0,0 +1,378 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Montgomery arithmetic on six 64-bit limbs for the 381-bit base field of BLS12-381.
+ *
+ * <p>Field elements are little-endian arrays of {@link #SIZE} limbs holding the Montgomery form
+ * x * 2^384 mod p, fully reduced, so that equality and zero tests compare limbs directly. The
+ * multiplication is the coarsely integrated operand scanning (CIOS) Montgomery multiplication on
+ * {@link Math#unsignedMultiplyHigh(long, long)}. Since p has three spare bits in the top limb, sums
+ * of two reduced elements never overflow six limbs. Multiplications take an explicit scratch array
+ * of {@link #EXT_SIZE} limbs, so that the arithmetic does not allocate. All operations except
+ * exponentiation to secret exponents run in constant time; the exponents used here are public
+ * constants of the field.
+ */
+final class Bls12381Field {
+
+  /** The number of 64-bit limbs of a field element. */
+  static final int SIZE = 6;
+  /** The number of 64-bit limbs of the multiplication scratch array. */
+  static final int EXT_SIZE = 8;
+
+  /** The field prime. */
+  static final BigInteger P = new BigInteger("1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf"
+      + "6730d2a0f6b0f6241eabfffeb153ffffb9feffffffffaaab", 16);
+
+  private static final long[] PL = toLimbs(P);
+  /** -p^-1 mod 2^64. */
+  private static final long N0 = -inverse64(PL[0]);
+  /** 2^768 mod p, converts to Montgomery form. */
+  private static final long[] R2 = toLimbs(BigInteger.ONE.shiftLeft(768).mod(P));
+  private static final long[] ZERO = new long[SIZE];
+  /** The Montgomery form of 1, 2^384 mod p. */
+  private static final long[] ONE = toLimbs(BigInteger.ONE.shiftLeft(384).mod(P));
+  /** The integer 1, converts from Montgomery form. */
+  private static final long[] RAW_ONE = {1, 0, 0, 0, 0, 0};
+
+  /** The 4-bit windows of the exponent p - 2 of the inversion, most significant first. */
+  private static final int[] INV_WINDOWS = windows(P.subtract(BigInteger.TWO));
+
+  private Bls12381Field() {
+  }
+
+  static long[] create() {
+    return new long[SIZE];
+  }
+
+  static long[] createExt() {
+    return new long[EXT_SIZE];
+  }
+
+  /**
+   * Creates the Montgomery form of 1.
+   *
+   * @return the field element 1
+   */
+  static long[] one() {
+    return ONE.clone();
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @return the field element
+   */
+  static long[] fromBigInteger(final BigInteger x) {
+    final long[] z = create();
+    fromBigInteger(x, z, createExt());
+    return z;
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @param z the field element to write
+   * @param tt multiplication scratch
+   */
+  static void fromBigInteger(final BigInteger x, final long[] z, final long[] tt) {
+    final BigInteger reduced = x.signum() < 0 || x.compareTo(P) >= 0 ? x.mod(P) : x;
+    // Decode the big-endian two's complement bytes, skipping a leading sign byte
+    final byte[] bytes = reduced.toByteArray();
+    Arrays.fill(z, 0, SIZE, 0L);
+    for (int i = 0; i < bytes.length && i < 8 * SIZE; i++) {
+      z[i >>> 3] |= (bytes[bytes.length - 1 - i] & 0xffL) << ((i & 7) << 3);
+    }
+    multiply(z, R2, z, tt);
+  }
+
+  /**
+   * Converts a field element to its integer value.
+   *
+   * @param x the field element
+   * @return the integer value of x, in the range [0, p)
+   */
+  static BigInteger toBigInteger(final long[] x) {
+    final long[] raw = create();
+    multiply(x, RAW_ONE, raw, createExt());
+    final byte[] bytes = new byte[8 * SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[bytes.length - 1 - i] = (byte) (raw[i >>> 3] >>> ((i & 7) << 3));
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  static void copy(final long[] x, final long[] z) {
+    System.arraycopy(x, 0, z, 0, SIZE);
+  }
+
+  /**
+   * Constant time test if two field elements are equal.
+   *
+   * @param x field element
+   * @param y field element
+   * @return -1 if x equals y, else 0
+   */
+  static int equalTo(final long[] x, final long[] y) {
+    long d = 0;
+    for (int i = 0; i < SIZE; i++) {
+      d |= x[i] ^ y[i];
+    }
+    return (int) ((d | -d) >> 63) ^ -1;
+  }
+
+  /**
+   * Constant time test if a field element is zero.
+   *
+   * @param x field element
+   * @return -1 if x is zero, else 0
+   */
+  static int isZero(final long[] x) {
+    return equalTo(x, ZERO);
+  }
+
+  /**
+   * Constant time conditional move of x into z.
+   *
+   * @param mask -1 to move x into z, 0 to leave z unchanged
+   * @param x the source field element
+   * @param z the destination field element
+   */
+  static void cmov(final int mask, final long[] x, final long[] z) {
+    final long m = mask;
+    for (int i = 0; i < SIZE; i++) {
+      z[i] ^= (z[i] ^ x[i]) & m;
+    }
+  }
+
+  /**
+   * The sign of a field element as defined by sgn0 for m = 1.
+   *
+   * @param x field element
+   * @param tt multiplication scratch
+   * @return 1 if the integer value of x is odd, else 0
+   */
+  static int sgn0(final long[] x, final long[] tt) {
+    // Convert out of Montgomery form in the scratch array and take the low bit
+    montgomeryMultiply(x, RAW_ONE, tt);
+    reduceOnce(tt);
+    return (int) (tt[0] & 1);
+  }
+
+  static void add(final long[] x, final long[] y, final long[] z) {
+    long carry = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long s = x[i] + carry;
+      final long c1 = carryOf(x[i], carry, s);
+      final long t = s + y[i];
+      carry = c1 | carryOf(s, y[i], t);
+      z[i] = t;
+    }
+    reduceOnce(z);
+  }
+
+  static void subtract(final long[] x, final long[] y, final long[] z) {
+    long borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long d = x[i] - y[i];
+      final long b1 = borrowOf(x[i], y[i], d);
+      final long t = d - borrow;
+      borrow = b1 | borrowOf(d, borrow, t);
+      z[i] = t;
+    }
+    // Add p back if the difference was negative
+    final long mask = -borrow;
+    long carry = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long addend = PL[i] & mask;
+      final long s = z[i] + carry;
+      final long c1 = carryOf(z[i], carry, s);
+      final long t = s + addend;
+      carry = c1 | carryOf(s, addend, t);
+      z[i] = t;
+    }
+  }
+
+  static void negate(final long[] x, final long[] z) {
+    subtract(ZERO, x, z);
+  }
+
+  /**
+   * Montgomery multiplication z = x * y.
+   *
+   * @param x field element
+   * @param y field element
+   * @param z the product, may be the same array as x or y
+   * @param tt multiplication scratch of {@link #EXT_SIZE} limbs
+   */
+  static void multiply(final long[] x, final long[] y, final long[] z, final long[] tt) {
+    montgomeryMultiply(x, y, tt);
+    reduceOnce(tt);
+    System.arraycopy(tt, 0, z, 0, SIZE);
+  }
+
+  static void square(final long[] x, final long[] z, final long[] tt) {
+    multiply(x, x, z, tt);
+  }
+
+  /**
+   * Inversion z = x^(p - 2), with the inverse of zero defined as zero as by inv0 of RFC 9380.
+   *
+   * @param x field element
+   * @param z the inverse
+   * @param table scratch table of 16 field elements
+   * @param tt multiplication scratch
+   */
+  static void inv(final long[] x, final long[] z, final long[][] table, final long[] tt) {
+    pow(x, INV_WINDOWS, z, table, tt);
+  }
+
+  /**
+   * Raises x to a public exponent with a fixed 4-bit window.
+   *
+   * @param x the base
+   * @param windows the 4-bit windows of the exponent, most significant first
+   * @param z the result, may be the same array as x
+   * @param table scratch table of 16 field elements
+   * @param tt multiplication scratch
+   */
+  static void pow(final long[] x, final int[] windows, final long[] z, final long[][] table,
+      final long[] tt) {
+    copy(ONE, table[0]);
+    for (int i = 1; i < table.length; i++) {
+      multiply(table[i - 1], x, table[i], tt);
+    }
+    copy(table[0], z);
+    for (final int window : windows) {
+      for (int j = 0; j < 4; j++) {
+        square(z, z, tt);
+      }
+      if (window != 0) {
+        multiply(z, table[window], z, tt);
+      }
+    }
+  }
+
+  /**
+   * Splits an exponent into the 4-bit windows used by
+   * {@link #pow(long[], int[], long[], long[][], long[])}.
+   *
+   * @param e the exponent
+   * @return the windows of the exponent, most significant first
+   */
+  static int[] windows(final BigInteger e) {
+    final int[] windows = new int[(e.bitLength() + 3) / 4];
+    for (int i = 0; i < windows.length; i++) {
+      windows[i] = e.shiftRight(4 * (windows.length - 1 - i)).intValue() & 0xf;
+    }
+    return windows;
+  }
+
+  static long[][] createTable() {
+    final long[][] table = new long[16][];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = create();
+    }
+    return table;
+  }
+
+  /**
+   * CIOS Montgomery multiplication, leaving x * y * 2^-384 in the low limbs of t, in the range
+   * [0, 2p).
+   */
+  private static void montgomeryMultiply(final long[] x, final long[] y, final long[] t) {
+    Arrays.fill(t, 0L);
+    for (int i = 0; i < SIZE; i++) {
+      // t += x * y[i]
+      final long yi = y[i];
+      long c = 0;
+      for (int j = 0; j < SIZE; j++) {
+        final long lo = x[j] * yi;
+        final long hi = Math.unsignedMultiplyHigh(x[j], yi);
+        final long s = t[j] + lo;
+        final long c1 = carryOf(t[j], lo, s);
+        final long r = s + c;
+        c = hi + c1 + carryOf(s, c, r);
+        t[j] = r;
+      }
+      final long s6 = t[SIZE] + c;
+      t[SIZE + 1] = carryOf(t[SIZE], c, s6);
+      t[SIZE] = s6;
+
+      // t = (t + m * p) / 2^64
+      final long m = t[0] * N0;
+      // The low limb of t + m * p is zero, so it carries exactly when t[0] is not zero
+      c = Math.unsignedMultiplyHigh(m, PL[0]) + ((t[0] | -t[0]) >>> 63);
+      for (int j = 1; j < SIZE; j++) {
+        final long lo = m * PL[j];
+        final long hi = Math.unsignedMultiplyHigh(m, PL[j]);
+        final long s = t[j] + lo;
+        final long c1 = carryOf(t[j], lo, s);
+        final long r = s + c;
+        c = hi + c1 + carryOf(s, c, r);
+        t[j - 1] = r;
+      }
+      final long r = t[SIZE] + c;
+      t[SIZE - 1] = r;
+      t[SIZE] = t[SIZE + 1] + carryOf(t[SIZE], c, r);
+    }
+  }
+
+  /**
+   * Constant time subtraction of p from a value in [0, 2p) held in the low limbs of z.
+   */
+  private static void reduceOnce(final long[] z) {
+    long borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long d = z[i] - PL[i];
+      final long t = d - borrow;
+      borrow = borrowOf(z[i], PL[i], d) | borrowOf(d, borrow, t);
+    }
+    // Subtract p unless the trial subtraction borrowed
+    final long mask = borrow - 1;
+    borrow = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long subtrahend = PL[i] & mask;
+      final long d = z[i] - subtrahend;
+      final long t = d - borrow;
+      borrow = borrowOf(z[i], subtrahend, d) | borrowOf(d, borrow, t);
+      z[i] = t;
+    }
+  }
+
+  /** The carry out of the unsigned sum s = a + b. */
+  private static long carryOf(final long a, final long b, final long s) {
+    return ((a & b) | ((a | b) & ~s)) >>> 63;
+  }
+
+  /** The borrow out of the unsigned difference d = a - b. */
+  private static long borrowOf(final long a, final long b, final long d) {
+    return ((~a & b) | (~(a ^ b) & d)) >>> 63;
+  }
+
+  private static long[] toLimbs(final BigInteger x) {
+    final long[] z = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      z[i] = x.shiftRight(64 * i).longValue();
+    }
+    return z;
+  }
+
+  /** The inverse of an odd integer modulo 2^64 by Newton iteration. */
+  private static long inverse64(final long a) {
+    long x = a;
+    for (int i = 0; i < 5; i++) {
+      x *= 2 - a * x;
+    }
+    return x;
+  }
+
+}
@@ -0,0 +1,275 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic in the quadratic extension field F_p^2 = F_p[I] / (I^2 + 1) of BLS12-381, over the
+ * base field arithmetic of {@link Bls12381Field}.
+ *
+ * <p>An element c0 + c1 * I is an array of the two base field elements {c0, c1}, in Montgomery
+ * form. The operations write to a caller supplied result and take an explicit scratch created by
+ * {@link #createScratch()}, so that the arithmetic does not allocate. The multiplication uses the
+ * Karatsuba method with three base field multiplications, and the squaring uses two. All
+ * operations except exponentiation to secret exponents run in constant time.
+ */
+final class Bls12381Fp2 {
+
+  /** The number of base field temporaries of the scratch, followed by a multiplication scratch. */
+  private static final int SCRATCH_SIZE = 4;
+  private static final long[][] ONE = one();
+
+  private Bls12381Fp2() {
+  }
+
+  static long[][] create() {
+    return new long[][] {Bls12381Field.create(), Bls12381Field.create()};
+  }
+
+  /**
+   * Creates the scratch of the multiplication, squaring and inversion: four base field
+   * temporaries and a base field multiplication scratch.
+   *
+   * @return the scratch
+   */
+  static long[][] createScratch() {
+    final long[][] tt = new long[SCRATCH_SIZE + 1][];
+    for (int i = 0; i < SCRATCH_SIZE; i++) {
+      tt[i] = Bls12381Field.create();
+    }
+    tt[SCRATCH_SIZE] = Bls12381Field.createExt();
+    return tt;
+  }
+
+  /**
+   * Creates the Montgomery form of 1.
+   *
+   * @return the field element 1
+   */
+  static long[][] one() {
+    return new long[][] {Bls12381Field.one(), Bls12381Field.create()};
+  }
+
+  /**
+   * Converts integers to the field element c0 + c1 * I, reducing them modulo p.
+   *
+   * @param c0 the integer value of the real part
+   * @param c1 the integer value of the imaginary part
+   * @return the field element
+   */
+  static long[][] fromBigInteger(final BigInteger c0, final BigInteger c1) {
+    return new long[][] {Bls12381Field.fromBigInteger(c0), Bls12381Field.fromBigInteger(c1)};
+  }
+
+  /**
+   * Converts integers to the field element c0 + c1 * I, reducing them modulo p.
+   *
+   * @param c0 the integer value of the real part
+   * @param c1 the integer value of the imaginary part
+   * @param z the field element to write
+   * @param tt base field multiplication scratch
+   */
+  static void fromBigInteger(final BigInteger c0, final BigInteger c1, final long[][] z,
+      final long[] tt) {
+    Bls12381Field.fromBigInteger(c0, z[0], tt);
+    Bls12381Field.fromBigInteger(c1, z[1], tt);
+  }
+
+  /**
+   * Converts a field element to the integer values of its parts.
+   *
+   * @param x the field element
+   * @return the integer values {c0, c1} of x = c0 + c1 * I
+   */
+  static BigInteger[] toBigInteger(final long[][] x) {
+    return new BigInteger[] {Bls12381Field.toBigInteger(x[0]), Bls12381Field.toBigInteger(x[1])};
+  }
+
+  static void copy(final long[][] x, final long[][] z) {
+    Bls12381Field.copy(x[0], z[0]);
+    Bls12381Field.copy(x[1], z[1]);
+  }
+
+  /**
+   * Constant time test if two field elements are equal.
+   *
+   * @param x field element
+   * @param y field element
+   * @return -1 if x equals y, else 0
+   */
+  static int equalTo(final long[][] x, final long[][] y) {
+    return Bls12381Field.equalTo(x[0], y[0]) & Bls12381Field.equalTo(x[1], y[1]);
+  }
+
+  /**
+   * Constant time test if a field element is zero.
+   *
+   * @param x field element
+   * @return -1 if x is zero, else 0
+   */
+  static int isZero(final long[][] x) {
+    return Bls12381Field.isZero(x[0]) & Bls12381Field.isZero(x[1]);
+  }
+
+  /**
+   * Constant time conditional move of x into z.
+   *
+   * @param mask -1 to move x into z, 0 to leave z unchanged
+   * @param x the source field element
+   * @param z the destination field element
+   */
+  static void cmov(final int mask, final long[][] x, final long[][] z) {
+    Bls12381Field.cmov(mask, x[0], z[0]);
+    Bls12381Field.cmov(mask, x[1], z[1]);
+  }
+
+  /**
+   * The sign of a field element as defined by sgn0 for m = 2: the sign of c0, or the sign of c1
+   * if c0 is zero.
+   *
+   * @param x field element
+   * @param tt base field multiplication scratch
+   * @return the sign of x, 0 or 1
+   */
+  static int sgn0(final long[][] x, final long[] tt) {
+    final int sign0 = Bls12381Field.sgn0(x[0], tt);
+    final int zero0 = Bls12381Field.isZero(x[0]);
+    final int sign1 = Bls12381Field.sgn0(x[1], tt);
+    return sign0 | (zero0 & sign1);
+  }
+
+  static void add(final long[][] x, final long[][] y, final long[][] z) {
+    Bls12381Field.add(x[0], y[0], z[0]);
+    Bls12381Field.add(x[1], y[1], z[1]);
+  }
+
+  static void subtract(final long[][] x, final long[][] y, final long[][] z) {
+    Bls12381Field.subtract(x[0], y[0], z[0]);
+    Bls12381Field.subtract(x[1], y[1], z[1]);
+  }
+
+  static void negate(final long[][] x, final long[][] z) {
+    Bls12381Field.negate(x[0], z[0]);
+    Bls12381Field.negate(x[1], z[1]);
+  }
+
+  /**
+   * The conjugate z = c0 - c1 * I of x = c0 + c1 * I, which is the Frobenius map x^p.
+   *
+   * @param x field element
+   * @param z the conjugate, may be the same array as x
+   */
+  static void conjugate(final long[][] x, final long[][] z) {
+    Bls12381Field.copy(x[0], z[0]);
+    Bls12381Field.negate(x[1], z[1]);
+  }
+
+  /**
+   * Karatsuba multiplication z = x * y.
+   *
+   * @param x field element
+   * @param y field element
+   * @param z the product, may be the same array as x or y
+   * @param tt scratch created by {@link #createScratch()}
+   */
+  static void multiply(final long[][] x, final long[][] y, final long[][] z, final long[][] tt) {
+    final long[] ext = tt[SCRATCH_SIZE];
+    Bls12381Field.multiply(x[0], y[0], tt[0], ext);
+    Bls12381Field.multiply(x[1], y[1], tt[1], ext);
+    Bls12381Field.add(x[0], x[1], tt[2]);
+    Bls12381Field.add(y[0], y[1], tt[3]);
+    // c1 = (x0 + x1) * (y0 + y1) - x0 * y0 - x1 * y1, c0 = x0 * y0 - x1 * y1
+    Bls12381Field.multiply(tt[2], tt[3], z[1], ext);
+    Bls12381Field.subtract(z[1], tt[0], z[1]);
+    Bls12381Field.subtract(z[1], tt[1], z[1]);
+    Bls12381Field.subtract(tt[0], tt[1], z[0]);
+  }
+
+  /**
+   * Squaring z = x^2 as (c0 + c1) * (c0 - c1) + 2 * c0 * c1 * I.
+   *
+   * @param x field element
+   * @param z the square, may be the same array as x
+   * @param tt scratch created by {@link #createScratch()}
+   */
+  static void square(final long[][] x, final long[][] z, final long[][] tt) {
+    final long[] ext = tt[SCRATCH_SIZE];
+    Bls12381Field.add(x[0], x[1], tt[0]);
+    Bls12381Field.subtract(x[0], x[1], tt[1]);
+    Bls12381Field.multiply(x[0], x[1], tt[2], ext);
+    Bls12381Field.multiply(tt[0], tt[1], z[0], ext);
+    Bls12381Field.add(tt[2], tt[2], z[1]);
+  }
+
+  /**
+   * Multiplication z = x * y by a base field element y.
+   *
+   * @param x field element
+   * @param y base field element
+   * @param z the product, may be the same array as x
+   * @param tt scratch created by {@link #createScratch()}
+   */
+  static void multiplyByFp(final long[][] x, final long[] y, final long[][] z,
+      final long[][] tt) {
+    Bls12381Field.multiply(x[0], y, z[0], tt[SCRATCH_SIZE]);
+    Bls12381Field.multiply(x[1], y, z[1], tt[SCRATCH_SIZE]);
+  }
+
+  /**
+   * Inversion z = conj(x) / (c0^2 + c1^2), with the inverse of zero defined as zero as by inv0 of
+   * RFC 9380. The inversion of the norm is the only base field inversion.
+   *
+   * @param x field element
+   * @param z the inverse, may be the same array as x
+   * @param table scratch table of 16 base field elements
+   * @param tt scratch created by {@link #createScratch()}
+   */
+  static void inv(final long[][] x, final long[][] z, final long[][] table, final long[][] tt) {
+    final long[] ext = tt[SCRATCH_SIZE];
+    Bls12381Field.square(x[0], tt[0], ext);
+    Bls12381Field.square(x[1], tt[1], ext);
+    Bls12381Field.add(tt[0], tt[1], tt[0]);
+    Bls12381Field.inv(tt[0], tt[0], table, ext);
+    Bls12381Field.multiply(x[0], tt[0], z[0], ext);
+    Bls12381Field.multiply(x[1], tt[0], z[1], ext);
+    Bls12381Field.negate(z[1], z[1]);
+  }
+
+  /**
+   * Raises x to a public exponent with a fixed 4-bit window.
+   *
+   * @param x the base
+   * @param windows the 4-bit windows of the exponent, as by {@link Bls12381Field#windows}
+   * @param z the result, may be the same array as x
+   * @param table scratch table of 16 field elements
+   * @param tt scratch created by {@link #createScratch()}
+   */
+  static void pow(final long[][] x, final int[] windows, final long[][] z,
+      final long[][][] table, final long[][] tt) {
+    copy(ONE, table[0]);
+    for (int i = 1; i < table.length; i++) {
+      multiply(table[i - 1], x, table[i], tt);
+    }
+    copy(table[0], z);
+    for (final int window : windows) {
+      for (int j = 0; j < 4; j++) {
+        square(z, z, tt);
+      }
+      if (window != 0) {
+        multiply(z, table[window], z, tt);
+      }
+    }
+  }
+
+  static long[][][] createTable() {
+    final long[][][] table = new long[16][][];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = create();
+    }
+    return table;
+  }
+
+}
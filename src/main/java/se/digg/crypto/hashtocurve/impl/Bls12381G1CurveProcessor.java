@@ -0,0 +1,200 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.CurveProcessor;
+
+/**
+ * Curve processor for BLS12-381 G1, clearing the cofactor by multiplication with the effective
+ * cofactor h_eff = 1 - x = 0xd201000000010001 of section 8.8.1 of RFC 9380, where x is the
+ * BLS12-381 curve parameter.
+ *
+ * <p>The result is the point in G1 defined by the suites, which differs from the multiplication by
+ * the 126-bit cofactor h. The multiplication is a fixed sequence of doublings and additions over
+ * the set bits of the 64-bit h_eff: 63 doublings with only 6 additions, in place of a generic
+ * window multiplication. It runs in Jacobian coordinates on the {@link Bls12381Field} arithmetic,
+ * with the doubling and addition formulas for a = 0. On a {@link Bls12381Curve} the result is
+ * returned in Jacobian coordinates, else it is converted to affine coordinates.
+ */
+public class Bls12381G1CurveProcessor implements CurveProcessor {
+
+  /** The effective cofactor h_eff of BLS12-381 G1. */
+  static final long H_EFF = 0xd201000000010001L;
+
+  private static final long[] ONE = Bls12381Field.one();
+
+  @Override
+  public ECPoint clearCofactor(final ECPoint ecPoint) {
+    return this.clearCofactorUnnormalized(ecPoint).normalize();
+  }
+
+  @Override
+  public ECPoint clearCofactorUnnormalized(final ECPoint ecPoint) {
+    if (ecPoint.isInfinity()) {
+      return ecPoint;
+    }
+    final ECCurve curve = ecPoint.getCurve();
+    final boolean jacobian = curve.getCoordinateSystem() == ECCurve.COORD_JACOBIAN
+        || curve.getCoordinateSystem() == ECCurve.COORD_JACOBIAN_MODIFIED;
+    final ECPoint p = jacobian ? ecPoint : ecPoint.normalize();
+    final Temporaries t = new Temporaries();
+    Bls12381Field.fromBigInteger(p.getXCoord().toBigInteger(), t.px, t.tt);
+    Bls12381Field.fromBigInteger(p.getYCoord().toBigInteger(), t.py, t.tt);
+    Bls12381Field.fromBigInteger(
+        p.isNormalized() ? BigInteger.ONE : p.getZCoord(0).toBigInteger(), t.pz, t.tt);
+
+    Bls12381Field.copy(t.px, t.ax);
+    Bls12381Field.copy(t.py, t.ay);
+    Bls12381Field.copy(t.pz, t.az);
+    int bit = 63;
+    while (bit > 0) {
+      // Double up to the next set bit of h_eff below the current one, then add the point
+      final int next = 63 - Long.numberOfLeadingZeros(H_EFF & ((1L << bit) - 1));
+      for (int i = next; i < bit; i++) {
+        twice(t);
+      }
+      add(t);
+      bit = next;
+    }
+
+    if (Bls12381Field.isZero(t.az) != 0) {
+      return curve.getInfinity();
+    }
+    if (curve instanceof Bls12381Curve bls12381Curve
+        && curve.getCoordinateSystem() == ECCurve.COORD_JACOBIAN) {
+      return bls12381Curve.createJacobianPoint(Bls12381Field.toBigInteger(t.ax),
+          Bls12381Field.toBigInteger(t.ay), Bls12381Field.toBigInteger(t.az));
+    }
+    // x = X / Z^2, y = Y / Z^3
+    Bls12381Field.inv(t.az, t.az, t.table, t.tt);
+    Bls12381Field.square(t.az, t.t1, t.tt);
+    Bls12381Field.multiply(t.ax, t.t1, t.ax, t.tt);
+    Bls12381Field.multiply(t.t1, t.az, t.t1, t.tt);
+    Bls12381Field.multiply(t.ay, t.t1, t.ay, t.tt);
+    return curve.createPoint(Bls12381Field.toBigInteger(t.ax), Bls12381Field.toBigInteger(t.ay));
+  }
+
+  /**
+   * Doubles the accumulator (ax, ay, az) with the dbl-2009-l formulas for a = 0. The curve has no
+   * points of order 2, so the doubling of a finite point is finite and the doubling of the point
+   * at infinity (az = 0) remains at infinity.
+   *
+   * @param t temporaries with the accumulator
+   */
+  private static void twice(final Temporaries t) {
+    Bls12381Field.square(t.ax, t.t1, t.tt);
+    Bls12381Field.square(t.ay, t.t2, t.tt);
+    Bls12381Field.square(t.t2, t.t3, t.tt);
+    // D = 2 * ((X + B)^2 - A - C)
+    Bls12381Field.add(t.ax, t.t2, t.t4);
+    Bls12381Field.square(t.t4, t.t4, t.tt);
+    Bls12381Field.subtract(t.t4, t.t1, t.t4);
+    Bls12381Field.subtract(t.t4, t.t3, t.t4);
+    Bls12381Field.add(t.t4, t.t4, t.t4);
+    // E = 3 * A, F = E^2
+    Bls12381Field.add(t.t1, t.t1, t.t5);
+    Bls12381Field.add(t.t5, t.t1, t.t5);
+    Bls12381Field.square(t.t5, t.t6, t.tt);
+    // Z3 = 2 * Y * Z
+    Bls12381Field.multiply(t.ay, t.az, t.az, t.tt);
+    Bls12381Field.add(t.az, t.az, t.az);
+    // X3 = F - 2 * D
+    Bls12381Field.subtract(t.t6, t.t4, t.ax);
+    Bls12381Field.subtract(t.ax, t.t4, t.ax);
+    // Y3 = E * (D - X3) - 8 * C
+    Bls12381Field.subtract(t.t4, t.ax, t.t4);
+    Bls12381Field.multiply(t.t5, t.t4, t.ay, t.tt);
+    Bls12381Field.add(t.t3, t.t3, t.t3);
+    Bls12381Field.add(t.t3, t.t3, t.t3);
+    Bls12381Field.add(t.t3, t.t3, t.t3);
+    Bls12381Field.subtract(t.ay, t.t3, t.ay);
+  }
+
+  /**
+   * Adds the input point (px, py, pz) to the accumulator (ax, ay, az) with the add-2007-bl
+   * formulas, handling the cases where the accumulator is at infinity, equal to the input point or
+   * its negation, which occur for input points of small order.
+   *
+   * @param t temporaries with the accumulator and the input point
+   */
+  private static void add(final Temporaries t) {
+    if (Bls12381Field.isZero(t.az) != 0) {
+      Bls12381Field.copy(t.px, t.ax);
+      Bls12381Field.copy(t.py, t.ay);
+      Bls12381Field.copy(t.pz, t.az);
+      return;
+    }
+    // U1 = X1 * Z2^2, U2 = X2 * Z1^2, S1 = Y1 * Z2^3, S2 = Y2 * Z1^3
+    Bls12381Field.square(t.az, t.t1, t.tt);
+    Bls12381Field.square(t.pz, t.t2, t.tt);
+    Bls12381Field.multiply(t.ax, t.t2, t.t3, t.tt);
+    Bls12381Field.multiply(t.px, t.t1, t.t4, t.tt);
+    Bls12381Field.multiply(t.ay, t.pz, t.t5, t.tt);
+    Bls12381Field.multiply(t.t5, t.t2, t.t5, t.tt);
+    Bls12381Field.multiply(t.py, t.az, t.t6, t.tt);
+    Bls12381Field.multiply(t.t6, t.t1, t.t6, t.tt);
+    // H = U2 - U1, r = 2 * (S2 - S1)
+    Bls12381Field.subtract(t.t4, t.t3, t.t4);
+    Bls12381Field.subtract(t.t6, t.t5, t.t6);
+    if (Bls12381Field.isZero(t.t4) != 0) {
+      if (Bls12381Field.isZero(t.t6) != 0) {
+        twice(t);
+      } else {
+        // The sum is the point at infinity (1, 1, 0)
+        Bls12381Field.copy(ONE, t.ax);
+        Bls12381Field.copy(ONE, t.ay);
+        Bls12381Field.subtract(t.az, t.az, t.az);
+      }
+      return;
+    }
+    Bls12381Field.add(t.t6, t.t6, t.t6);
+    // Z3 = ((Z1 + Z2)^2 - Z1^2 - Z2^2) * H
+    Bls12381Field.add(t.az, t.pz, t.az);
+    Bls12381Field.square(t.az, t.az, t.tt);
+    Bls12381Field.subtract(t.az, t.t1, t.az);
+    Bls12381Field.subtract(t.az, t.t2, t.az);
+    Bls12381Field.multiply(t.az, t.t4, t.az, t.tt);
+    // I = (2 * H)^2, J = H * I, V = U1 * I
+    Bls12381Field.add(t.t4, t.t4, t.t1);
+    Bls12381Field.square(t.t1, t.t1, t.tt);
+    Bls12381Field.multiply(t.t4, t.t1, t.t2, t.tt);
+    Bls12381Field.multiply(t.t3, t.t1, t.t3, t.tt);
+    // X3 = r^2 - J - 2 * V
+    Bls12381Field.square(t.t6, t.ax, t.tt);
+    Bls12381Field.subtract(t.ax, t.t2, t.ax);
+    Bls12381Field.subtract(t.ax, t.t3, t.ax);
+    Bls12381Field.subtract(t.ax, t.t3, t.ax);
+    // Y3 = r * (V - X3) - 2 * S1 * J
+    Bls12381Field.subtract(t.t3, t.ax, t.t3);
+    Bls12381Field.multiply(t.t6, t.t3, t.ay, t.tt);
+    Bls12381Field.multiply(t.t5, t.t2, t.t5, t.tt);
+    Bls12381Field.subtract(t.ay, t.t5, t.ay);
+    Bls12381Field.subtract(t.ay, t.t5, t.ay);
+  }
+
+  /**
+   * The input point, the accumulator and field element temporaries of one cofactor clearing.
+   */
+  private static final class Temporaries {
+    final long[] px = Bls12381Field.create();
+    final long[] py = Bls12381Field.create();
+    final long[] pz = Bls12381Field.create();
+    final long[] ax = Bls12381Field.create();
+    final long[] ay = Bls12381Field.create();
+    final long[] az = Bls12381Field.create();
+    final long[] t1 = Bls12381Field.create();
+    final long[] t2 = Bls12381Field.create();
+    final long[] t3 = Bls12381Field.create();
+    final long[] t4 = Bls12381Field.create();
+    final long[] t5 = Bls12381Field.create();
+    final long[] t6 = Bls12381Field.create();
+    final long[][] table = Bls12381Field.createTable();
+    final long[] tt = Bls12381Field.createExt();
+  }
+
+}
@@ -0,0 +1,482 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.MapToCurve;
+
+/**
+ * Implements the map to curve of the BLS12-381 G1 suites of section 8.8.1 of RFC 9380: the
+ * Shallue van de Woestijne map to the curve E' of section 8.8.1, followed by the 11-isogeny map
+ * from E' to the BLS12-381 curve E: y^2 = x^3 + 4 of appendix E.2.
+ *
+ * <p>Field elements are held in the Montgomery form of {@link Bls12381Field}. The straight-line
+ * program of section F.2 produces the x coordinate on E' as a fraction x = xn / xd, which is fed
+ * to the isogeny without a division: the four isogeny polynomials are evaluated in homogeneous
+ * (projective) form in xn and xd, with precomputed powers of xd and precomputed coefficients in
+ * Montgomery form. On a {@link Bls12381Curve} the resulting point on E is returned in Jacobian
+ * coordinates without any field inversion. On other curve instances it is converted to affine
+ * coordinates with a single field inversion, which is shared by all elements of a batch
+ * (Montgomery's batch inversion trick).
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+public class Bls12381G1MapToCurve implements MapToCurve {
+
+  /** The A' coefficient of the isogenous curve E'. */
+  private static final BigInteger A_PRIME = new BigInteger("144698a3b8e9433d693a02c96d4982b0"
+      + "ea985383ee66a8d8e8981aefd881ac98936f8da0e0f97f5cf428082d584c1d", 16);
+  /** The B' coefficient of the isogenous curve E'. */
+  private static final BigInteger B_PRIME = new BigInteger("12e2908d11688030018b12e8753eee3b"
+      + "2016c1f0f24f4070a0b9c14fcef35ef55a23215a316ceaa5d1cc48e98e172be0", 16);
+  /** The Z parameter of the BLS12-381 G1 suites. */
+  private static final BigInteger Z = BigInteger.valueOf(11);
+
+  /** Coefficients of x_num, k_(1,0) to k_(1,11), lowest degree first. */
+  private static final String[] X_NUM = {
+      "11a05f2b1e833340b809101dd99815856b303e88a2d7005ff2627b56cdb4e2c8"
+          + "5610c2d5f2e62d6eaeac1662734649b7",
+      "17294ed3e943ab2f0588bab22147a81c7c17e75b2f6a8417f565e33c70d1e86b"
+          + "4838f2a6f318c356e834eef1b3cb83bb",
+      "0d54005db97678ec1d1048c5d10a9a1bce032473295983e56878e501ec68e25c"
+          + "958c3e3d2a09729fe0179f9dac9edcb0",
+      "1778e7166fcc6db74e0609d307e55412d7f5e4656a8dbf25f1b33289f1b33083"
+          + "5336e25ce3107193c5b388641d9b6861",
+      "0e99726a3199f4436642b4b3e4118e5499db995a1257fb3f086eeb65982fac18"
+          + "985a286f301e77c451154ce9ac8895d9",
+      "1630c3250d7313ff01d1201bf7a74ab5db3cb17dd952799b9ed3ab9097e68f90"
+          + "a0870d2dcae73d19cd13c1c66f652983",
+      "0d6ed6553fe44d296a3726c38ae652bfb11586264f0f8ce19008e218f9c86b2a"
+          + "8da25128c1052ecaddd7f225a139ed84",
+      "17b81e7701abdbe2e8743884d1117e53356de5ab275b4db1a682c62ef0f27533"
+          + "39b7c8f8c8f475af9ccb5618e3f0c88e",
+      "080d3cf1f9a78fc47b90b33563be990dc43b756ce79f5574a2c596c928c5d1de"
+          + "4fa295f296b74e956d71986a8497e317",
+      "169b1f8e1bcfa7c42e0c37515d138f22dd2ecb803a0c5c99676314baf4bb1b7f"
+          + "a3190b2edc0327797f241067be390c9e",
+      "10321da079ce07e272d8ec09d2565b0dfa7dccdde6787f96d50af36003b14866"
+          + "f69b771f8c285decca67df3f1605fb7b",
+      "06e08c248e260e70bd1e962381edee3d31d79d7e22c837bc23c0bf1bc24c6b68"
+          + "c24b1b80b64d391fa9c8ba2e8ba2d229"
+  };
+
+  /** Coefficients of x_den, k_(2,0) to k_(2,10), lowest degree first. */
+  private static final String[] X_DEN = {
+      "08ca8d548cff19ae18b2e62f4bd3fa6f01d5ef4ba35b48ba9c9588617fc8ac62"
+          + "b558d681be343df8993cf9fa40d21b1c",
+      "12561a5deb559c4348b4711298e536367041e8ca0cf0800c0126c2588c48bf57"
+          + "13daa8846cb026e9e5c8276ec82b3bff",
+      "0b2962fe57a3225e8137e629bff2991f6f89416f5a718cd1fca64e00b11aceac"
+          + "d6a3d0967c94fedcfcc239ba5cb83e19",
+      "03425581a58ae2fec83aafef7c40eb545b08243f16b1655154cca8abc28d6fd0"
+          + "4976d5243eecf5c4130de8938dc62cd8",
+      "13a8e162022914a80a6f1d5f43e7a07dffdfc759a12062bb8d6b44e833b306da"
+          + "9bd29ba81f35781d539d395b3532a21e",
+      "0e7355f8e4e667b955390f7f0506c6e9395735e9ce9cad4d0a43bcef24b8982f"
+          + "7400d24bc4228f11c02df9a29f6304a5",
+      "0772caacf16936190f3e0c63e0596721570f5799af53a1894e2e073062aede9c"
+          + "ea73b3538f0de06cec2574496ee84a3a",
+      "14a7ac2a9d64a8b230b3f5b074cf01996e7f63c21bca68a81996e1cdf9822c58"
+          + "0fa5b9489d11e2d311f7d99bbdcc5a5e",
+      "0a10ecf6ada54f825e920b3dafc7a3cce07f8d1d7161366b74100da67f398835"
+          + "03826692abba43704776ec3a79a1d641",
+      "095fc13ab9e92ad4476d6e3eb3a56680f682b4ee96f7d03776df533978f31c15"
+          + "93174e4b4b7865002d6384d168ecdd0a",
+      "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000001"
+  };
+
+  /** Coefficients of y_num, k_(3,0) to k_(3,15), lowest degree first. */
+  private static final String[] Y_NUM = {
+      "090d97c81ba24ee0259d1f094980dcfa11ad138e48a869522b52af6c956543d3"
+          + "cd0c7aee9b3ba3c2be9845719707bb33",
+      "134996a104ee5811d51036d776fb46831223e96c254f383d0f906343eb67ad34"
+          + "d6c56711962fa8bfe097e75a2e41c696",
+      "00cc786baa966e66f4a384c86a3b49942552e2d658a31ce2c344be4b91400da7"
+          + "d26d521628b00523b8dfe240c72de1f6",
+      "01f86376e8981c217898751ad8746757d42aa7b90eeb791c09e4a3ec03251cf9"
+          + "de405aba9ec61deca6355c77b0e5f4cb",
+      "08cc03fdefe0ff135caf4fe2a21529c4195536fbe3ce50b879833fd221351adc"
+          + "2ee7f8dc099040a841b6daecf2e8fedb",
+      "16603fca40634b6a2211e11db8f0a6a074a7d0d4afadb7bd76505c3d3ad5544e"
+          + "203f6326c95a807299b23ab13633a5f0",
+      "04ab0b9bcfac1bbcb2c977d027796b3ce75bb8ca2be184cb5231413c4d634f37"
+          + "47a87ac2460f415ec961f8855fe9d6f2",
+      "0987c8d5333ab86fde9926bd2ca6c674170a05bfe3bdd81ffd038da6c26c8426"
+          + "42f64550fedfe935a15e4ca31870fb29",
+      "09fc4018bd96684be88c9e221e4da1bb8f3abd16679dc26c1e8b6e6a1f20cabe"
+          + "69d65201c78607a360370e577bdba587",
+      "0e1bba7a1186bdb5223abde7ada14a23c42a0ca7915af6fe06985e7ed1e4d43b"
+          + "9b3f7055dd4eba6f2bafaaebca731c30",
+      "19713e47937cd1be0dfd0b8f1d43fb93cd2fcbcb6caf493fd1183e416389e610"
+          + "31bf3a5cce3fbafce813711ad011c132",
+      "18b46a908f36f6deb918c143fed2edcc523559b8aaf0c2462e6bfe7f911f6432"
+          + "49d9cdf41b44d606ce07c8a4d0074d8e",
+      "0b182cac101b9399d155096004f53f447aa7b12a3426b08ec02710e807b4633f"
+          + "06c851c1919211f20d4c04f00b971ef8",
+      "0245a394ad1eca9b72fc00ae7be315dc757b3b080d4c158013e6632d3c40659c"
+          + "c6cf90ad1c232a6442d9d3f5db980133",
+      "05c129645e44cf1102a159f748c4a3fc5e673d81d7e86568d9ab0f5d396a7ce4"
+          + "6ba1049b6579afb7866b1e715475224b",
+      "15e6be4e990f03ce4ea50b3b42df2eb5cb181d8f84965a3957add4fa95af01b2"
+          + "b665027efec01c7704b456be69c8b604"
+  };
+
+  /** Coefficients of y_den, k_(4,0) to k_(4,15), lowest degree first. */
+  private static final String[] Y_DEN = {
+      "16112c4c3a9c98b252181140fad0eae9601a6de578980be6eec3232b5be72e7a"
+          + "07f3688ef60c206d01479253b03663c1",
+      "1962d75c2381201e1a0cbd6c43c348b885c84ff731c4d59ca4a10356f453e01f"
+          + "78a4260763529e3532f6102c2e49a03d",
+      "058df3306640da276faaae7d6e8eb15778c4855551ae7f310c35a5dd279cd2ec"
+          + "a6757cd636f96f891e2538b53dbf67f2",
+      "16b7d288798e5395f20d23bf89edb4d1d115c5dbddbcd30e123da489e726af41"
+          + "727364f2c28297ada8d26d98445f5416",
+      "0be0e079545f43e4b00cc912f8228ddcc6d19c9f0f69bbb0542eda0fc9dec916"
+          + "a20b15dc0fd2ededda39142311a5001d",
+      "08d9e5297186db2d9fb266eaac783182b70152c65550d881c5ecd87b6f0f5a64"
+          + "49f38db9dfa9cce202c6477faaf9b7ac",
+      "166007c08a99db2fc3ba8734ace9824b5eecfdfa8d0cf8ef5dd365bc400a0051"
+          + "d5fa9c01a58b1fb93d1a1399126a775c",
+      "16a3ef08be3ea7ea03bcddfabba6ff6ee5a4375efa1f4fd7feb34fd206357132"
+          + "b920f5b00801dee460ee415a15812ed9",
+      "1866c8ed336c61231a1be54fd1d74cc4f9fb0ce4c6af5920abc5750c4bf39b48"
+          + "52cfe2f7bb9248836b233d9d55535d4a",
+      "167a55cda70a6e1cea820597d94a84903216f763e13d87bb5308592e7ea7d4fb"
+          + "c7385ea3d529b35e346ef48bb8913f55",
+      "04d2f259eea405bd48f010a01ad2911d9c6dd039bb61a6290e591b36e636a5c8"
+          + "71a5c29f4f83060400f8b49cba8f6aa8",
+      "0accbb67481d033ff5852c1e48c50c477f94ff8aefce42d28c0f9a88cea79135"
+          + "16f968986f7ebbea9684b529e2561092",
+      "0ad6b9514c767fe3c3613144b45f1496543346d98adf02267d5ceef9a00d9b86"
+          + "93000763e3b90ac11e99b138573345cc",
+      "02660400eb2e4f3b628bdd0d53cd76f2bf565b94e72927c1cb748df27942480e"
+          + "420517bd8714cc80d1fadc1326ed06f7",
+      "0e0fa1d816ddc03e6b24255e0d7819c171c40f65e273b853324efcd6356caa20"
+          + "5ca2f570f13497804415473a1d634b8f",
+      "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000001"
+  };
+  private static final long[] A = Bls12381Field.fromBigInteger(A_PRIME);
+  private static final long[] B = Bls12381Field.fromBigInteger(B_PRIME);
+  private static final long[] Z_ELEMENT = Bls12381Field.fromBigInteger(Z);
+  /** sqrt(-Z) in F. */
+  private static final long[] C2 = Bls12381Field.fromBigInteger(
+      Z.negate().mod(Bls12381Field.P).modPow(
+          Bls12381Field.P.add(BigInteger.ONE).shiftRight(2), Bls12381Field.P));
+  /** The 4-bit windows of the exponent c1 = (q - 3) / 4. */
+  private static final int[] C1_WINDOWS =
+      Bls12381Field.windows(Bls12381Field.P.subtract(BigInteger.valueOf(3)).shiftRight(2));
+  private static final long[][] K1 = toElements(X_NUM);
+  private static final long[][] K2 = toElements(X_DEN);
+  private static final long[][] K3 = toElements(Y_NUM);
+  private static final long[][] K4 = toElements(Y_DEN);
+
+  private final ECCurve curve;
+  /** The curve, if it accepts points in Jacobian coordinates, else null. */
+  private final Bls12381Curve jacobianCurve;
+  private final Supplier<Temporaries> temporariesFactory;
+
+  /**
+   * Constructs the map for the BLS12-381 G1 curve.
+   *
+   * @param ecParameterSpec the parameters of the BLS12-381 curve E: y^2 = x^3 + 4
+   * @throws IllegalArgumentException if the parameters are not those of the BLS12-381 curve
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public Bls12381G1MapToCurve(final ECParameterSpec ecParameterSpec) {
+    this.curve = ecParameterSpec.getCurve();
+    if (!Bls12381Field.P.equals(this.curve.getField().getCharacteristic())
+        || !this.curve.getA().isZero()
+        || !BigInteger.valueOf(4).equals(this.curve.getB().toBigInteger())) {
+      throw new IllegalArgumentException("The curve is not the BLS12-381 curve y^2 = x^3 + 4");
+    }
+    this.jacobianCurve = this.curve instanceof Bls12381Curve bls12381Curve
+        && bls12381Curve.getCoordinateSystem() == ECCurve.COORD_JACOBIAN ? bls12381Curve : null;
+    this.temporariesFactory = Temporaries::new;
+  }
+
+  @Override
+  public ECPoint process(final BigInteger element) {
+    return this.process(new BigInteger[] {element})[0];
+  }
+
+  /**
+   * Maps a field element to a point on the curve, using field element temporaries kept in the
+   * context.
+   *
+   * @param element the input field element
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the mapped point
+   */
+  @Override
+  public ECPoint process(final BigInteger element, final HashContext ctx) {
+    final Temporaries t = ctx.getScratch(this, this.temporariesFactory);
+    Bls12381Field.fromBigInteger(element, t.u, t.tt);
+    this.map(t, t.x, t.y, t.den);
+    if (Bls12381Field.isZero(t.den) != 0) {
+      return this.curve.getInfinity();
+    }
+    if (this.jacobianCurve != null) {
+      return this.createJacobianPoint(t, t.x, t.y, t.den);
+    }
+    Bls12381Field.inv(t.den, t.den, t.table, t.tt);
+    return this.createPoint(t, t.x, t.y, t.den);
+  }
+
+  /**
+   * Maps a batch of field elements to points on the curve.
+   *
+   * @param elements the input field elements
+   * @return the mapped points, in the same order as the input elements
+   */
+  @Override
+  public ECPoint[] process(final BigInteger[] elements) {
+    final int n = elements.length;
+    final Temporaries t = new Temporaries();
+    final long[][] x = new long[n][];
+    final long[][] y = new long[n][];
+    final long[][] den = new long[n][];
+    for (int i = 0; i < n; i++) {
+      x[i] = Bls12381Field.create();
+      y[i] = Bls12381Field.create();
+      den[i] = Bls12381Field.create();
+      Bls12381Field.fromBigInteger(elements[i], t.u, t.tt);
+      this.map(t, x[i], y[i], den[i]);
+    }
+    if (this.jacobianCurve == null) {
+      this.batchInvert(den, t);
+    }
+    final ECPoint[] points = new ECPoint[n];
+    for (int i = 0; i < n; i++) {
+      if (Bls12381Field.isZero(den[i]) != 0) {
+        points[i] = this.curve.getInfinity();
+      } else if (this.jacobianCurve != null) {
+        points[i] = this.createJacobianPoint(t, x[i], y[i], den[i]);
+      } else {
+        points[i] = this.createPoint(t, x[i], y[i], den[i]);
+      }
+    }
+    return points;
+  }
+
+  /**
+   * Maps a field element to a point on E with a shared denominator. The point is
+   * (x / den, y / den), or the identity if den is zero, which happens when the point on E' is in
+   * the kernel of the isogeny.
+   *
+   * @param t temporaries, with the input element in t.u
+   * @param x the x coordinate numerator
+   * @param y the y coordinate numerator
+   * @param den the common denominator
+   */
+  private void map(final Temporaries t, final long[] x, final long[] y, final long[] den) {
+    this.mapToIsogenousCurve(t);
+    // Powers xd^1 to xd^15 of the denominator of the x coordinate on E'
+    Bls12381Field.copy(t.xd, t.xdPowers[1]);
+    for (int i = 2; i < t.xdPowers.length; i++) {
+      Bls12381Field.multiply(t.xdPowers[i - 1], t.xd, t.xdPowers[i], t.tt);
+    }
+    // x = xNum / (xDen * xd), y = y' * yNum / yDen
+    this.evaluate(K1, t, t.xNum);
+    this.evaluate(K2, t, t.xDen);
+    this.evaluate(K3, t, t.yNum);
+    this.evaluate(K4, t, t.yDen);
+    Bls12381Field.multiply(t.xDen, t.xd, t.xDen, t.tt);
+    Bls12381Field.multiply(t.xNum, t.yDen, x, t.tt);
+    Bls12381Field.multiply(t.yp, t.yNum, y, t.tt);
+    Bls12381Field.multiply(y, t.xDen, y, t.tt);
+    Bls12381Field.multiply(t.xDen, t.yDen, den, t.tt);
+  }
+
+  /**
+   * Steps 1 to 24 of the straight-line map of section F.2 on E', leaving the x coordinate as the
+   * fraction t.xn / t.xd and the y coordinate in t.yp.
+   *
+   * @param t temporaries, with the input element in t.u
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private void mapToIsogenousCurve(final Temporaries t) {
+    Bls12381Field.square(t.u, t.tv1, t.tt);
+    Bls12381Field.multiply(Z_ELEMENT, t.tv1, t.tv1, t.tt);
+    Bls12381Field.square(t.tv1, t.tv2, t.tt);
+    Bls12381Field.add(t.tv2, t.tv1, t.tv2);
+    Bls12381Field.add(t.tv2, t.one, t.tv3);
+    Bls12381Field.multiply(B, t.tv3, t.tv3, t.tt);
+    Bls12381Field.copy(Z_ELEMENT, t.xd);
+    Bls12381Field.negate(t.tv2, t.tv5);
+    Bls12381Field.cmov(~Bls12381Field.isZero(t.tv2), t.tv5, t.xd);
+    Bls12381Field.multiply(A, t.xd, t.xd, t.tt);
+    Bls12381Field.square(t.tv3, t.tv2, t.tt);
+    Bls12381Field.square(t.xd, t.tv6, t.tt);
+    Bls12381Field.multiply(A, t.tv6, t.tv5, t.tt);
+    Bls12381Field.add(t.tv2, t.tv5, t.tv2);
+    Bls12381Field.multiply(t.tv2, t.tv3, t.tv2, t.tt);
+    Bls12381Field.multiply(t.tv6, t.xd, t.tv6, t.tt);
+    Bls12381Field.multiply(B, t.tv6, t.tv5, t.tt);
+    Bls12381Field.add(t.tv2, t.tv5, t.tv2);
+    Bls12381Field.multiply(t.tv1, t.tv3, t.xn, t.tt);
+    final int isGx1Square = sqrtRatio(t, t.tv2, t.tv6, t.y1);
+    Bls12381Field.multiply(t.tv1, t.u, t.yp, t.tt);
+    Bls12381Field.multiply(t.yp, t.y1, t.yp, t.tt);
+    Bls12381Field.cmov(isGx1Square, t.tv3, t.xn);
+    Bls12381Field.cmov(isGx1Square, t.y1, t.yp);
+    final int e1 = ((Bls12381Field.sgn0(t.u, t.tt) ^ Bls12381Field.sgn0(t.yp, t.tt)) - 1) >> 31;
+    Bls12381Field.negate(t.yp, t.tv5);
+    Bls12381Field.cmov(~e1, t.tv5, t.yp);
+  }
+
+  /**
+   * Evaluates an isogeny polynomial in homogeneous form, k(xn / xd) * xd^deg, by Horner's rule.
+   *
+   * @param k the coefficients, lowest degree first
+   * @param t temporaries, with the powers of xd
+   * @param z the result
+   */
+  private void evaluate(final long[][] k, final Temporaries t, final long[] z) {
+    final int degree = k.length - 1;
+    Bls12381Field.copy(k[degree], z);
+    for (int i = degree - 1; i >= 0; i--) {
+      Bls12381Field.multiply(z, t.xn, z, t.tt);
+      Bls12381Field.multiply(k[i], t.xdPowers[degree - i], t.tv1, t.tt);
+      Bls12381Field.add(z, t.tv1, z);
+    }
+  }
+
+  /**
+   * The sqrt_ratio subroutine for q = 3 (mod 4) of section F.2.1.2 of RFC 9380.
+   *
+   * @param t temporaries
+   * @param u the u parameter
+   * @param v the v parameter, v != 0
+   * @param y the resulting square root
+   * @return -1 if u / v is square, else 0
+   */
+  private static int sqrtRatio(final Temporaries t, final long[] u, final long[] v,
+      final long[] y) {
+    Bls12381Field.square(v, t.s1, t.tt);
+    Bls12381Field.multiply(u, v, t.s2, t.tt);
+    Bls12381Field.multiply(t.s1, t.s2, t.s1, t.tt);
+    Bls12381Field.pow(t.s1, C1_WINDOWS, y, t.table, t.tt);
+    Bls12381Field.multiply(y, t.s2, y, t.tt);
+    Bls12381Field.multiply(y, C2, t.s2, t.tt);
+    Bls12381Field.square(y, t.s1, t.tt);
+    Bls12381Field.multiply(t.s1, v, t.s1, t.tt);
+    final int isQR = Bls12381Field.equalTo(t.s1, u);
+    Bls12381Field.cmov(~isQR, t.s2, y);
+    return isQR;
+  }
+
+  /**
+   * Creates the point (x / den, y / den) in Jacobian coordinates (x * den, y * den^2, den).
+   */
+  private ECPoint createJacobianPoint(final Temporaries t, final long[] x, final long[] y,
+      final long[] den) {
+    Bls12381Field.multiply(x, den, x, t.tt);
+    Bls12381Field.multiply(y, den, y, t.tt);
+    Bls12381Field.multiply(y, den, y, t.tt);
+    return this.jacobianCurve.createJacobianPoint(Bls12381Field.toBigInteger(x),
+        Bls12381Field.toBigInteger(y), Bls12381Field.toBigInteger(den));
+  }
+
+  /**
+   * Creates the affine point (x * denInv, y * denInv).
+   */
+  private ECPoint createPoint(final Temporaries t, final long[] x, final long[] y,
+      final long[] denInv) {
+    Bls12381Field.multiply(x, denInv, x, t.tt);
+    Bls12381Field.multiply(y, denInv, y, t.tt);
+    return this.curve.createPoint(Bls12381Field.toBigInteger(x), Bls12381Field.toBigInteger(y));
+  }
+
+  /**
+   * Replaces every non-zero element with its inverse using a single field inversion. Zero
+   * elements are left unchanged.
+   *
+   * @param elements field elements
+   * @param t temporaries
+   */
+  private void batchInvert(final long[][] elements, final Temporaries t) {
+    final int n = elements.length;
+    if (n == 0) {
+      return;
+    }
+    // Substitute 1 for zero elements, so that they do not zero the running product
+    final long[][] acc = new long[n][];
+    acc[0] = Bls12381Field.create();
+    Bls12381Field.copy(elements[0], acc[0]);
+    Bls12381Field.cmov(Bls12381Field.isZero(elements[0]), t.one, acc[0]);
+    for (int i = 1; i < n; i++) {
+      acc[i] = Bls12381Field.create();
+      Bls12381Field.copy(elements[i], t.tv2);
+      Bls12381Field.cmov(Bls12381Field.isZero(elements[i]), t.one, t.tv2);
+      Bls12381Field.multiply(acc[i - 1], t.tv2, acc[i], t.tt);
+    }
+    Bls12381Field.inv(acc[n - 1], t.tv1, t.table, t.tt);
+    for (int i = n - 1; i > 0; i--) {
+      final int isZero = Bls12381Field.isZero(elements[i]);
+      Bls12381Field.copy(elements[i], t.tv3);
+      Bls12381Field.cmov(isZero, t.one, t.tv3);
+      Bls12381Field.multiply(t.tv1, acc[i - 1], t.tv2, t.tt);
+      Bls12381Field.multiply(t.tv1, t.tv3, t.tv1, t.tt);
+      Bls12381Field.cmov(~isZero, t.tv2, elements[i]);
+    }
+    Bls12381Field.cmov(~Bls12381Field.isZero(elements[0]), t.tv1, elements[0]);
+  }
+
+  private static long[][] toElements(final String[] hex) {
+    final long[][] elements = new long[hex.length][];
+    for (int i = 0; i < hex.length; i++) {
+      elements[i] = Bls12381Field.fromBigInteger(new BigInteger(hex[i], 16));
+    }
+    return elements;
+  }
+
+  /**
+   * Field element temporaries shared by all elements of a batch, or kept in a {@link HashContext}
+   * for mapping single elements.
+   */
+  private static final class Temporaries {
+    final long[] u = Bls12381Field.create();
+    /** Results of mapping a single element. */
+    final long[] x = Bls12381Field.create();
+    final long[] y = Bls12381Field.create();
+    final long[] den = Bls12381Field.create();
+    /** The point on E', with x = xn / xd. */
+    final long[] xn = Bls12381Field.create();
+    final long[] xd = Bls12381Field.create();
+    final long[] yp = Bls12381Field.create();
+    final long[] one = Bls12381Field.one();
+    final long[] tv1 = Bls12381Field.create();
+    final long[] tv2 = Bls12381Field.create();
+    final long[] tv3 = Bls12381Field.create();
+    final long[] tv5 = Bls12381Field.create();
+    final long[] tv6 = Bls12381Field.create();
+    final long[] y1 = Bls12381Field.create();
+    final long[] s1 = Bls12381Field.create();
+    final long[] s2 = Bls12381Field.create();
+    final long[] xNum = Bls12381Field.create();
+    final long[] xDen = Bls12381Field.create();
+    final long[] yNum = Bls12381Field.create();
+    final long[] yDen = Bls12381Field.create();
+    /** xd^i at index i, for i from 1 to the highest isogeny polynomial degree. */
+    final long[][] xdPowers = new long[K3.length][];
+    final long[][] table = Bls12381Field.createTable();
+    final long[] tt = Bls12381Field.createExt();
+
+    Temporaries() {
+      for (int i = 1; i < this.xdPowers.length; i++) {
+        this.xdPowers[i] = Bls12381Field.create();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,250 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import se.digg.crypto.hashtocurve.data.Bls12381G2Point;
+
+/**
+ * Point arithmetic on the BLS12-381 curve E2: y^2 = x^3 + 4 * (1 + I) over F_p^2, in Jacobian
+ * coordinates on the {@link Bls12381Fp2} arithmetic.
+ *
+ * <p>A point is an array {X, Y, Z} of three field elements, representing the affine point
+ * (X / Z^2, Y / Z^3), or the point at infinity if Z is zero. The operations work in place on
+ * caller supplied points and take their temporaries from a {@link Temporaries} instance, so that
+ * they do not allocate. The doubling and addition use the dbl-2009-l and add-2007-bl formulas for
+ * a = 0.
+ */
+final class Bls12381G2Curve {
+
+  /** The coefficient b = 4 * (1 + I) of E2. */
+  static final long[][] B =
+      Bls12381Fp2.fromBigInteger(BigInteger.valueOf(4), BigInteger.valueOf(4));
+
+  private static final long[][] ONE = Bls12381Fp2.one();
+
+  private Bls12381G2Curve() {
+  }
+
+  static long[][][] create() {
+    return new long[][][] {Bls12381Fp2.create(), Bls12381Fp2.create(), Bls12381Fp2.create()};
+  }
+
+  static void copy(final long[][][] p, final long[][][] r) {
+    Bls12381Fp2.copy(p[0], r[0]);
+    Bls12381Fp2.copy(p[1], r[1]);
+    Bls12381Fp2.copy(p[2], r[2]);
+  }
+
+  static void setInfinity(final long[][][] p) {
+    Bls12381Fp2.copy(ONE, p[0]);
+    Bls12381Fp2.copy(ONE, p[1]);
+    Bls12381Fp2.subtract(p[2], p[2], p[2]);
+  }
+
+  static boolean isInfinity(final long[][][] p) {
+    return Bls12381Fp2.isZero(p[2]) != 0;
+  }
+
+  /**
+   * Sets a point from affine coordinates.
+   *
+   * @param point the affine point
+   * @param p the point to write
+   * @param t temporaries
+   */
+  static void fromAffine(final Bls12381G2Point point, final long[][][] p, final Temporaries t) {
+    if (point.isInfinity()) {
+      setInfinity(p);
+      return;
+    }
+    final BigInteger[] x = point.getX();
+    final BigInteger[] y = point.getY();
+    Bls12381Fp2.fromBigInteger(x[0], x[1], p[0], t.ext);
+    Bls12381Fp2.fromBigInteger(y[0], y[1], p[1], t.ext);
+    Bls12381Fp2.copy(ONE, p[2]);
+  }
+
+  /**
+   * Converts a point to affine coordinates with one field inversion.
+   *
+   * @param p the point, overwritten by the affine point (x, y, 1)
+   * @param t temporaries
+   * @return the affine point
+   */
+  static Bls12381G2Point toAffine(final long[][][] p, final Temporaries t) {
+    if (isInfinity(p)) {
+      return Bls12381G2Point.getInfinity();
+    }
+    // x = X / Z^2, y = Y / Z^3
+    Bls12381Fp2.inv(p[2], t.t1, t.table, t.tt);
+    Bls12381Fp2.square(t.t1, t.t2, t.tt);
+    Bls12381Fp2.multiply(p[0], t.t2, p[0], t.tt);
+    Bls12381Fp2.multiply(t.t2, t.t1, t.t2, t.tt);
+    Bls12381Fp2.multiply(p[1], t.t2, p[1], t.tt);
+    Bls12381Fp2.copy(ONE, p[2]);
+    return Bls12381G2Point.of(Bls12381Fp2.toBigInteger(p[0]), Bls12381Fp2.toBigInteger(p[1]));
+  }
+
+  /**
+   * Tests if a point is on E2.
+   *
+   * @param p the point
+   * @param t temporaries
+   * @return true if the point is the point at infinity or satisfies Y^2 = X^3 + b * Z^6
+   */
+  static boolean isOnCurve(final long[][][] p, final Temporaries t) {
+    if (isInfinity(p)) {
+      return true;
+    }
+    Bls12381Fp2.square(p[1], t.t1, t.tt);
+    Bls12381Fp2.square(p[0], t.t2, t.tt);
+    Bls12381Fp2.multiply(t.t2, p[0], t.t2, t.tt);
+    Bls12381Fp2.square(p[2], t.t3, t.tt);
+    Bls12381Fp2.multiply(t.t3, p[2], t.t3, t.tt);
+    Bls12381Fp2.square(t.t3, t.t3, t.tt);
+    Bls12381Fp2.multiply(t.t3, B, t.t3, t.tt);
+    Bls12381Fp2.add(t.t2, t.t3, t.t2);
+    return Bls12381Fp2.equalTo(t.t1, t.t2) != 0;
+  }
+
+  static void negate(final long[][][] p) {
+    Bls12381Fp2.negate(p[1], p[1]);
+  }
+
+  /**
+   * Doubles a point in place with the dbl-2009-l formulas for a = 0. The curve has no points of
+   * order 2, so the doubling of a finite point is finite and the doubling of the point at infinity
+   * (Z = 0) remains at infinity.
+   *
+   * @param p the point
+   * @param t temporaries
+   */
+  static void twice(final long[][][] p, final Temporaries t) {
+    final long[][] x = p[0];
+    final long[][] y = p[1];
+    final long[][] z = p[2];
+    Bls12381Fp2.square(x, t.t1, t.tt);
+    Bls12381Fp2.square(y, t.t2, t.tt);
+    Bls12381Fp2.square(t.t2, t.t3, t.tt);
+    // D = 2 * ((X + B)^2 - A - C)
+    Bls12381Fp2.add(x, t.t2, t.t4);
+    Bls12381Fp2.square(t.t4, t.t4, t.tt);
+    Bls12381Fp2.subtract(t.t4, t.t1, t.t4);
+    Bls12381Fp2.subtract(t.t4, t.t3, t.t4);
+    Bls12381Fp2.add(t.t4, t.t4, t.t4);
+    // E = 3 * A, F = E^2
+    Bls12381Fp2.add(t.t1, t.t1, t.t5);
+    Bls12381Fp2.add(t.t5, t.t1, t.t5);
+    Bls12381Fp2.square(t.t5, t.t6, t.tt);
+    // Z3 = 2 * Y * Z
+    Bls12381Fp2.multiply(y, z, z, t.tt);
+    Bls12381Fp2.add(z, z, z);
+    // X3 = F - 2 * D
+    Bls12381Fp2.subtract(t.t6, t.t4, x);
+    Bls12381Fp2.subtract(x, t.t4, x);
+    // Y3 = E * (D - X3) - 8 * C
+    Bls12381Fp2.subtract(t.t4, x, t.t4);
+    Bls12381Fp2.multiply(t.t5, t.t4, y, t.tt);
+    Bls12381Fp2.add(t.t3, t.t3, t.t3);
+    Bls12381Fp2.add(t.t3, t.t3, t.t3);
+    Bls12381Fp2.add(t.t3, t.t3, t.t3);
+    Bls12381Fp2.subtract(y, t.t3, y);
+  }
+
+  /**
+   * Adds the point q to the point p in place with the add-2007-bl formulas, handling the cases
+   * where either point is at infinity or the points are equal or opposite.
+   *
+   * @param p the point to add to, may not be the same array as q
+   * @param q the point to add
+   * @param t temporaries
+   */
+  static void add(final long[][][] p, final long[][][] q, final Temporaries t) {
+    if (isInfinity(q)) {
+      return;
+    }
+    if (isInfinity(p)) {
+      copy(q, p);
+      return;
+    }
+    final long[][] x = p[0];
+    final long[][] y = p[1];
+    final long[][] z = p[2];
+    // U1 = X1 * Z2^2, U2 = X2 * Z1^2, S1 = Y1 * Z2^3, S2 = Y2 * Z1^3
+    Bls12381Fp2.square(z, t.t1, t.tt);
+    Bls12381Fp2.square(q[2], t.t2, t.tt);
+    Bls12381Fp2.multiply(x, t.t2, t.t3, t.tt);
+    Bls12381Fp2.multiply(q[0], t.t1, t.t4, t.tt);
+    Bls12381Fp2.multiply(y, q[2], t.t5, t.tt);
+    Bls12381Fp2.multiply(t.t5, t.t2, t.t5, t.tt);
+    Bls12381Fp2.multiply(q[1], z, t.t6, t.tt);
+    Bls12381Fp2.multiply(t.t6, t.t1, t.t6, t.tt);
+    // H = U2 - U1, r = 2 * (S2 - S1)
+    Bls12381Fp2.subtract(t.t4, t.t3, t.t4);
+    Bls12381Fp2.subtract(t.t6, t.t5, t.t6);
+    if (Bls12381Fp2.isZero(t.t4) != 0) {
+      if (Bls12381Fp2.isZero(t.t6) != 0) {
+        twice(p, t);
+      } else {
+        setInfinity(p);
+      }
+      return;
+    }
+    Bls12381Fp2.add(t.t6, t.t6, t.t6);
+    // Z3 = ((Z1 + Z2)^2 - Z1^2 - Z2^2) * H
+    Bls12381Fp2.add(z, q[2], z);
+    Bls12381Fp2.square(z, z, t.tt);
+    Bls12381Fp2.subtract(z, t.t1, z);
+    Bls12381Fp2.subtract(z, t.t2, z);
+    Bls12381Fp2.multiply(z, t.t4, z, t.tt);
+    // I = (2 * H)^2, J = H * I, V = U1 * I
+    Bls12381Fp2.add(t.t4, t.t4, t.t1);
+    Bls12381Fp2.square(t.t1, t.t1, t.tt);
+    Bls12381Fp2.multiply(t.t4, t.t1, t.t2, t.tt);
+    Bls12381Fp2.multiply(t.t3, t.t1, t.t3, t.tt);
+    // X3 = r^2 - J - 2 * V
+    Bls12381Fp2.square(t.t6, x, t.tt);
+    Bls12381Fp2.subtract(x, t.t2, x);
+    Bls12381Fp2.subtract(x, t.t3, x);
+    Bls12381Fp2.subtract(x, t.t3, x);
+    // Y3 = r * (V - X3) - 2 * S1 * J
+    Bls12381Fp2.subtract(t.t3, x, t.t3);
+    Bls12381Fp2.multiply(t.t6, t.t3, y, t.tt);
+    Bls12381Fp2.multiply(t.t5, t.t2, t.t5, t.tt);
+    Bls12381Fp2.subtract(y, t.t5, y);
+    Bls12381Fp2.subtract(y, t.t5, y);
+  }
+
+  /**
+   * Subtracts the point q from the point p in place.
+   *
+   * @param p the point to subtract from, may not be the same array as q
+   * @param q the point to subtract
+   * @param t temporaries
+   */
+  static void subtract(final long[][][] p, final long[][][] q, final Temporaries t) {
+    copy(q, t.negated);
+    negate(t.negated);
+    add(p, t.negated, t);
+  }
+
+  /**
+   * Temporaries of the point arithmetic.
+   */
+  static final class Temporaries {
+    final long[][] t1 = Bls12381Fp2.create();
+    final long[][] t2 = Bls12381Fp2.create();
+    final long[][] t3 = Bls12381Fp2.create();
+    final long[][] t4 = Bls12381Fp2.create();
+    final long[][] t5 = Bls12381Fp2.create();
+    final long[][] t6 = Bls12381Fp2.create();
+    final long[][][] negated = create();
+    final long[][] table = Bls12381Field.createTable();
+    final long[][] tt = Bls12381Fp2.createScratch();
+    final long[] ext = Bls12381Field.createExt();
+  }
+
+}
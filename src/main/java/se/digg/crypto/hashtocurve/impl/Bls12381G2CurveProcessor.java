@@ -0,0 +1,146 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import se.digg.crypto.hashtocurve.data.Bls12381G2Point;
+
+/**
+ * Curve processor for BLS12-381 G2, clearing the cofactor with the endomorphism psi as by
+ * clear_cofactor_bls12381_g2 of appendix G.3 of RFC 9380.
+ *
+ * <p>The result equals the multiplication by the 636-bit effective cofactor h_eff of section
+ * 8.8.2, but takes two multiplications by the 64-bit BLS12-381 curve parameter x and a few
+ * applications of psi, which costs only conjugations and multiplications by constants. The
+ * endomorphism psi is the composition of the twist isomorphism to the curve over F_p^12, the
+ * Frobenius map and the inverse of the twist, psi(x, y) = (c1 * conj(x), c2 * conj(y)) with
+ * c1 = 1 / (1 + I)^((p - 1) / 3) and c2 = 1 / (1 + I)^((p - 1) / 2).
+ */
+public class Bls12381G2CurveProcessor {
+
+  /** The absolute value of the BLS12-381 curve parameter x = -0xd201000000010000. */
+  static final long X_ABS = 0xd201000000010000L;
+
+  private static final long[][] PSI_C1;
+  private static final long[][] PSI_C2;
+
+  static {
+    final long[][][] table = Bls12381Fp2.createTable();
+    final long[][] tt = Bls12381Fp2.createScratch();
+    final long[][] onePlusI = Bls12381Fp2.fromBigInteger(BigInteger.ONE, BigInteger.ONE);
+    final BigInteger pMinusOne = Bls12381Field.P.subtract(BigInteger.ONE);
+    PSI_C1 = Bls12381Fp2.create();
+    Bls12381Fp2.pow(onePlusI, Bls12381Field.windows(pMinusOne.divide(BigInteger.valueOf(3))),
+        PSI_C1, table, tt);
+    Bls12381Fp2.inv(PSI_C1, PSI_C1, Bls12381Field.createTable(), tt);
+    PSI_C2 = Bls12381Fp2.create();
+    Bls12381Fp2.pow(onePlusI, Bls12381Field.windows(pMinusOne.shiftRight(1)), PSI_C2, table, tt);
+    Bls12381Fp2.inv(PSI_C2, PSI_C2, Bls12381Field.createTable(), tt);
+  }
+
+  /**
+   * Clears the cofactor of a point on E2.
+   *
+   * @param point the point on E2
+   * @return the point h_eff * point in G2
+   */
+  public Bls12381G2Point clearCofactor(final Bls12381G2Point point) {
+    final Bls12381G2Curve.Temporaries t = new Bls12381G2Curve.Temporaries();
+    final long[][][] p = Bls12381G2Curve.create();
+    Bls12381G2Curve.fromAffine(point, p, t);
+    this.clearCofactor(p, t, new Points());
+    return Bls12381G2Curve.toAffine(p, t);
+  }
+
+  /**
+   * Clears the cofactor of a point in Jacobian coordinates in place.
+   *
+   * @param p the point, overwritten by the result
+   * @param t point arithmetic temporaries
+   * @param points point temporaries
+   */
+  void clearCofactor(final long[][][] p, final Bls12381G2Curve.Temporaries t,
+      final Points points) {
+    if (Bls12381G2Curve.isInfinity(p)) {
+      return;
+    }
+    final long[][][] t1 = points.t1;
+    final long[][][] t2 = points.t2;
+    final long[][][] t3 = points.t3;
+    // t1 = x * P, t2 = psi(P), t3 = psi^2(2 * P)
+    multiplyByX(p, t1, t);
+    Bls12381G2Curve.copy(p, t2);
+    psi(t2, t);
+    Bls12381G2Curve.copy(p, t3);
+    Bls12381G2Curve.twice(t3, t);
+    psi(t3, t);
+    psi(t3, t);
+    // t3 = t3 - t2, t2 = x * (t1 + t2)
+    Bls12381G2Curve.subtract(t3, t2, t);
+    Bls12381G2Curve.add(t2, t1, t);
+    multiplyByX(t2, points.t4, t);
+    // Q = t3 + t2 - t1 - P
+    Bls12381G2Curve.add(t3, points.t4, t);
+    Bls12381G2Curve.subtract(t3, t1, t);
+    Bls12381G2Curve.subtract(t3, p, t);
+    Bls12381G2Curve.copy(t3, p);
+  }
+
+  /**
+   * Multiplies a point by the curve parameter x, with a fixed sequence of 63 doublings and 5
+   * additions over the set bits of |x|, followed by a negation.
+   *
+   * @param p the point
+   * @param r the product x * p, may not be the same array as p
+   * @param t temporaries
+   */
+  private static void multiplyByX(final long[][][] p, final long[][][] r,
+      final Bls12381G2Curve.Temporaries t) {
+    Bls12381G2Curve.copy(p, r);
+    int bit = 63;
+    while (bit > 0) {
+      // Double up to the next set bit of |x| below the current one, then add the point
+      final int next = 63 - Long.numberOfLeadingZeros(X_ABS & ((1L << bit) - 1));
+      if (next < 0) {
+        for (int i = 0; i < bit; i++) {
+          Bls12381G2Curve.twice(r, t);
+        }
+        break;
+      }
+      for (int i = next; i < bit; i++) {
+        Bls12381G2Curve.twice(r, t);
+      }
+      Bls12381G2Curve.add(r, p, t);
+      bit = next;
+    }
+    Bls12381G2Curve.negate(r);
+  }
+
+  /**
+   * Applies the endomorphism psi in place. In Jacobian coordinates the conjugation also applies to
+   * Z, since (X / Z^2)^p = conj(X) / conj(Z)^2.
+   *
+   * @param p the point
+   * @param t temporaries
+   */
+  private static void psi(final long[][][] p, final Bls12381G2Curve.Temporaries t) {
+    Bls12381Fp2.conjugate(p[0], p[0]);
+    Bls12381Fp2.multiply(p[0], PSI_C1, p[0], t.tt);
+    Bls12381Fp2.conjugate(p[1], p[1]);
+    Bls12381Fp2.multiply(p[1], PSI_C2, p[1], t.tt);
+    Bls12381Fp2.conjugate(p[2], p[2]);
+  }
+
+  /**
+   * The intermediate points of one cofactor clearing.
+   */
+  static final class Points {
+    final long[][][] t1 = Bls12381G2Curve.create();
+    final long[][][] t2 = Bls12381G2Curve.create();
+    final long[][][] t3 = Bls12381G2Curve.create();
+    final long[][][] t4 = Bls12381G2Curve.create();
+  }
+
+}
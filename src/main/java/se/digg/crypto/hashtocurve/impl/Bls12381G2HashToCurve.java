@@ -0,0 +1,99 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.HashToField;
+import se.digg.crypto.hashtocurve.data.Bls12381G2Point;
+
+/**
+ * Hash to curve for the BLS12381G2_XMD:SHA-256_SSWU_RO_ suite of section 8.8.2 of RFC 9380.
+ *
+ * <p>The curve E2 is defined over the extension field F_p^2, which neither Bouncy Castle nor
+ * {@code HashToEllipticCurve} support, so the suite has its own entry point returning
+ * {@link Bls12381G2Point} rather than an {@code ECPoint}. The message is hashed to two elements of
+ * F_p^2 by {@link GenericHashToField} with m = 2, each element is mapped to E2 by
+ * {@link Bls12381G2MapToCurve}, and the cofactor of the sum is cleared by
+ * {@link Bls12381G2CurveProcessor}. The points stay in Jacobian coordinates on the limb
+ * arithmetic through all stages, with one field inversion for the final affine point.
+ */
+public class Bls12381G2HashToCurve {
+
+  /** The cipher suite ID of the suite. */
+  public static final String CIPHER_SUITE_ID = "BLS12381G2_XMD:SHA-256_SSWU_RO_";
+  /** The length in bytes of the uniform bytes of each field element component. */
+  private static final int L = 64;
+  /** The target security level in bits. */
+  private static final int K = 128;
+
+  private final HashToField hashToField;
+  private final Bls12381G2MapToCurve mapToCurve;
+  private final Bls12381G2CurveProcessor curveProcessor;
+  private final Supplier<Scratch> scratchFactory;
+
+  /**
+   * Creates a hash to curve instance for a domain separation tag.
+   *
+   * @param dst the domain separation tag
+   */
+  public Bls12381G2HashToCurve(final byte[] dst) {
+    this(new GenericHashToField(dst.clone(), Bls12381Field.P, 2,
+        new XmdMessageExpansion(new SHA256Digest(), K), L, 2));
+  }
+
+  /**
+   * Creates a hash to curve instance with a hash to field producing two elements of F_p^2.
+   *
+   * @param hashToField the hash to field
+   */
+  public Bls12381G2HashToCurve(final HashToField hashToField) {
+    this.hashToField = hashToField;
+    this.mapToCurve = new Bls12381G2MapToCurve();
+    this.curveProcessor = new Bls12381G2CurveProcessor();
+    this.scratchFactory = Scratch::new;
+  }
+
+  /**
+   * Hashes a message to a point in G2.
+   *
+   * @param message the message
+   * @return the point in G2
+   */
+  public Bls12381G2Point hashToCurve(final byte[] message) {
+    return this.hashToCurve(message, new HashContext());
+  }
+
+  /**
+   * Hashes a message to a point in G2, keeping the scratch state of all stages in a reusable
+   * context.
+   *
+   * @param message the message
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the point in G2
+   */
+  public Bls12381G2Point hashToCurve(final byte[] message, final HashContext ctx) {
+    final BigInteger[][] u = this.hashToField.process(message, ctx);
+    final Scratch s = ctx.getScratch(this, this.scratchFactory);
+    this.mapToCurve.map(u[0], s.q0, s.map);
+    this.mapToCurve.map(u[1], s.q1, s.map);
+    Bls12381G2Curve.add(s.q0, s.q1, s.map.curve);
+    this.curveProcessor.clearCofactor(s.q0, s.map.curve, s.points);
+    return Bls12381G2Curve.toAffine(s.q0, s.map.curve);
+  }
+
+  /**
+   * The points and temporaries of one hash to curve operation.
+   */
+  private static final class Scratch {
+    final Bls12381G2MapToCurve.Temporaries map = new Bls12381G2MapToCurve.Temporaries();
+    final Bls12381G2CurveProcessor.Points points = new Bls12381G2CurveProcessor.Points();
+    final long[][][] q0 = Bls12381G2Curve.create();
+    final long[][][] q1 = Bls12381G2Curve.create();
+  }
+
+}
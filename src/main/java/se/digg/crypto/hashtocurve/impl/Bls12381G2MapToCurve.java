@@ -0,0 +1,357 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.data.Bls12381G2Point;
+
+/**
+ * Implements the map to curve of the BLS12-381 G2 suites of section 8.8.2 of RFC 9380: the
+ * Shallue van de Woestijne map to the curve E2': y^2 = x^3 + 240 * I * x + 1012 * (1 + I) over
+ * F_p^2, followed by the 3-isogeny map from E2' to the BLS12-381 curve E2: y^2 = x^3 + 4 * (1 + I)
+ * of appendix E.3.
+ *
+ * <p>Field elements are held in the Montgomery form of {@link Bls12381Fp2}. The sqrt_ratio
+ * subroutine is the generic one of section F.2.1.1, since q = p^2 = 9 (mod 16). As for G1, the
+ * x coordinate on E2' is kept as a fraction xn / xd and the isogeny polynomials are evaluated in
+ * homogeneous form, so that the point on E2 is produced in Jacobian coordinates without a field
+ * inversion.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+public class Bls12381G2MapToCurve {
+
+  /** Coefficients of x_num, k_(1,0) to k_(1,3), lowest degree first. */
+  private static final String[][] X_NUM = {
+      {"05c759507e8e333ebb5b7a9a47d7ed8532c52d39fd3a042a88b58423c50ae15d"
+          + "5c2638e343d9c71c6238aaaaaaaa97d6",
+          "05c759507e8e333ebb5b7a9a47d7ed8532c52d39fd3a042a88b58423c50ae15d"
+          + "5c2638e343d9c71c6238aaaaaaaa97d6"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000",
+          "11560bf17baa99bc32126fced787c88f984f87adf7ae0c7f9a208c6b4f20a418"
+          + "1472aaa9cb8d555526a9ffffffffc71a"},
+      {"11560bf17baa99bc32126fced787c88f984f87adf7ae0c7f9a208c6b4f20a418"
+          + "1472aaa9cb8d555526a9ffffffffc71e",
+          "08ab05f8bdd54cde190937e76bc3e447cc27c3d6fbd7063fcd104635a790520c"
+          + "0a395554e5c6aaaa9354ffffffffe38d"},
+      {"171d6541fa38ccfaed6dea691f5fb614cb14b4e7f4e810aa22d6108f142b8575"
+          + "7098e38d0f671c7188e2aaaaaaaa5ed1",
+          "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000"}
+  };
+
+  /** Coefficients of x_den, k_(2,0) to k_(2,1) and the leading 1, lowest degree first. */
+  private static final String[][] X_DEN = {
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000",
+          "1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffaa63"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "0000000000000000000000000000000c",
+          "1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffaa9f"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000001",
+          "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000"}
+  };
+
+  /** Coefficients of y_num, k_(3,0) to k_(3,3), lowest degree first. */
+  private static final String[][] Y_NUM = {
+      {"1530477c7ab4113b59a4c18b076d11930f7da5d4a07f649bf54439d87d27e500"
+          + "fc8c25ebf8c92f6812cfc71c71c6d706",
+          "1530477c7ab4113b59a4c18b076d11930f7da5d4a07f649bf54439d87d27e500"
+          + "fc8c25ebf8c92f6812cfc71c71c6d706"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000",
+          "05c759507e8e333ebb5b7a9a47d7ed8532c52d39fd3a042a88b58423c50ae15d"
+          + "5c2638e343d9c71c6238aaaaaaaa97be"},
+      {"11560bf17baa99bc32126fced787c88f984f87adf7ae0c7f9a208c6b4f20a418"
+          + "1472aaa9cb8d555526a9ffffffffc71c",
+          "08ab05f8bdd54cde190937e76bc3e447cc27c3d6fbd7063fcd104635a790520c"
+          + "0a395554e5c6aaaa9354ffffffffe38f"},
+      {"124c9ad43b6cf79bfbf7043de3811ad0761b0f37a1e26286b0e977c69aa27452"
+          + "4e79097a56dc4bd9e1b371c71c718b10",
+          "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000"}
+  };
+
+  /** Coefficients of y_den, k_(4,0) to k_(4,2) and the leading 1, lowest degree first. */
+  private static final String[][] Y_DEN = {
+      {"1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffa8fb",
+          "1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffa8fb"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000",
+          "1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffa9d3"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000012",
+          "1a0111ea397fe69a4b1ba7b6434bacd764774b84f38512bf6730d2a0f6b0f624"
+          + "1eabfffeb153ffffb9feffffffffaa99"},
+      {"0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000001",
+          "0000000000000000000000000000000000000000000000000000000000000000"
+          + "00000000000000000000000000000000"}
+  };
+
+  private static final long[][] A = Bls12381Fp2.fromBigInteger(BigInteger.ZERO,
+      BigInteger.valueOf(240));
+  private static final long[][] B = Bls12381Fp2.fromBigInteger(BigInteger.valueOf(1012),
+      BigInteger.valueOf(1012));
+  /** The Z parameter -(2 + I) of the BLS12-381 G2 suites. */
+  private static final long[][] Z = Bls12381Fp2.fromBigInteger(BigInteger.valueOf(-2),
+      BigInteger.valueOf(-1));
+  /** c2 = (q - 1) / 2^c1 of sqrt_ratio, with c1 = 3 since q - 1 = 8 * c2 for q = p^2. */
+  private static final BigInteger SQRT_RATIO_C2 =
+      Bls12381Field.P.pow(2).subtract(BigInteger.ONE).shiftRight(3);
+  /** The 4-bit windows of the exponent c3 = (c2 - 1) / 2. */
+  private static final int[] C3_WINDOWS =
+      Bls12381Field.windows(SQRT_RATIO_C2.subtract(BigInteger.ONE).shiftRight(1));
+  /** c6 = Z^c2. */
+  private static final long[][] C6 = power(Z, SQRT_RATIO_C2);
+  /** c7 = Z^((c2 + 1) / 2). */
+  private static final long[][] C7 = power(Z, SQRT_RATIO_C2.add(BigInteger.ONE).shiftRight(1));
+  private static final long[][] ONE = Bls12381Fp2.one();
+  private static final long[][][] K1 = toElements(X_NUM);
+  private static final long[][][] K2 = toElements(X_DEN);
+  private static final long[][][] K3 = toElements(Y_NUM);
+  private static final long[][][] K4 = toElements(Y_DEN);
+
+  private final Supplier<Temporaries> temporariesFactory;
+
+  /**
+   * Constructs the map for the BLS12-381 G2 curve.
+   */
+  public Bls12381G2MapToCurve() {
+    this.temporariesFactory = Temporaries::new;
+  }
+
+  /**
+   * Maps a field element of F_p^2 to a point on E2.
+   *
+   * @param element the field element {c0, c1}, as produced by hash_to_field with m = 2
+   * @return the mapped point, not in G2 before the cofactor is cleared
+   */
+  public Bls12381G2Point process(final BigInteger[] element) {
+    return this.process(element, new HashContext());
+  }
+
+  /**
+   * Maps a field element of F_p^2 to a point on E2, keeping the field element temporaries in a
+   * reusable context.
+   *
+   * @param element the field element {c0, c1}, as produced by hash_to_field with m = 2
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the mapped point, not in G2 before the cofactor is cleared
+   */
+  public Bls12381G2Point process(final BigInteger[] element, final HashContext ctx) {
+    final Temporaries t = ctx.getScratch(this, this.temporariesFactory);
+    final long[][][] q = Bls12381G2Curve.create();
+    this.map(element, q, t);
+    return Bls12381G2Curve.toAffine(q, t.curve);
+  }
+
+  /**
+   * Maps a field element of F_p^2 to a point on E2 in Jacobian coordinates.
+   *
+   * @param element the field element {c0, c1}
+   * @param q the point to write
+   * @param t temporaries
+   */
+  void map(final BigInteger[] element, final long[][][] q, final Temporaries t) {
+    Bls12381Fp2.fromBigInteger(element[0], element[1], t.u, t.curve.ext);
+    this.mapToIsogenousCurve(t);
+    Bls12381Fp2.copy(t.xd, t.xdPowers[1]);
+    for (int i = 2; i < t.xdPowers.length; i++) {
+      Bls12381Fp2.multiply(t.xdPowers[i - 1], t.xd, t.xdPowers[i], t.tt);
+    }
+    // x = xNum / (xDen * xd), y = y' * yNum / yDen
+    this.evaluate(K1, t, t.xNum);
+    this.evaluate(K2, t, t.xDen);
+    this.evaluate(K3, t, t.yNum);
+    this.evaluate(K4, t, t.yDen);
+    Bls12381Fp2.multiply(t.xDen, t.xd, t.xDen, t.tt);
+    // The shared denominator den = xDen * xd * yDen gives the Jacobian point
+    // (x * den, y * den^2, den) with x = xNum * yDen and y = y' * yNum * xDen * xd
+    final long[][] den = q[2];
+    Bls12381Fp2.multiply(t.xDen, t.yDen, den, t.tt);
+    Bls12381Fp2.multiply(t.xNum, t.yDen, q[0], t.tt);
+    Bls12381Fp2.multiply(q[0], den, q[0], t.tt);
+    Bls12381Fp2.multiply(t.yp, t.yNum, q[1], t.tt);
+    Bls12381Fp2.multiply(q[1], t.xDen, q[1], t.tt);
+    Bls12381Fp2.square(den, t.tv1, t.tt);
+    Bls12381Fp2.multiply(q[1], t.tv1, q[1], t.tt);
+    if (Bls12381Fp2.isZero(den) != 0) {
+      // The point on E2' is in the kernel of the isogeny
+      Bls12381G2Curve.setInfinity(q);
+    }
+  }
+
+  /**
+   * Steps 1 to 24 of the straight-line map of section F.2 on E2', leaving the x coordinate as the
+   * fraction t.xn / t.xd and the y coordinate in t.yp.
+   *
+   * @param t temporaries, with the input element in t.u
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private void mapToIsogenousCurve(final Temporaries t) {
+    Bls12381Fp2.square(t.u, t.tv1, t.tt);
+    Bls12381Fp2.multiply(Z, t.tv1, t.tv1, t.tt);
+    Bls12381Fp2.square(t.tv1, t.tv2, t.tt);
+    Bls12381Fp2.add(t.tv2, t.tv1, t.tv2);
+    Bls12381Fp2.add(t.tv2, ONE, t.tv3);
+    Bls12381Fp2.multiply(B, t.tv3, t.tv3, t.tt);
+    Bls12381Fp2.copy(Z, t.xd);
+    Bls12381Fp2.negate(t.tv2, t.tv5);
+    Bls12381Fp2.cmov(~Bls12381Fp2.isZero(t.tv2), t.tv5, t.xd);
+    Bls12381Fp2.multiply(A, t.xd, t.xd, t.tt);
+    Bls12381Fp2.square(t.tv3, t.tv2, t.tt);
+    Bls12381Fp2.square(t.xd, t.tv6, t.tt);
+    Bls12381Fp2.multiply(A, t.tv6, t.tv5, t.tt);
+    Bls12381Fp2.add(t.tv2, t.tv5, t.tv2);
+    Bls12381Fp2.multiply(t.tv2, t.tv3, t.tv2, t.tt);
+    Bls12381Fp2.multiply(t.tv6, t.xd, t.tv6, t.tt);
+    Bls12381Fp2.multiply(B, t.tv6, t.tv5, t.tt);
+    Bls12381Fp2.add(t.tv2, t.tv5, t.tv2);
+    Bls12381Fp2.multiply(t.tv1, t.tv3, t.xn, t.tt);
+    final int isGx1Square = sqrtRatio(t, t.tv2, t.tv6, t.y1);
+    Bls12381Fp2.multiply(t.tv1, t.u, t.yp, t.tt);
+    Bls12381Fp2.multiply(t.yp, t.y1, t.yp, t.tt);
+    Bls12381Fp2.cmov(isGx1Square, t.tv3, t.xn);
+    Bls12381Fp2.cmov(isGx1Square, t.y1, t.yp);
+    final int e1 = ((Bls12381Fp2.sgn0(t.u, t.curve.ext)
+        ^ Bls12381Fp2.sgn0(t.yp, t.curve.ext)) - 1) >> 31;
+    Bls12381Fp2.negate(t.yp, t.tv5);
+    Bls12381Fp2.cmov(~e1, t.tv5, t.yp);
+  }
+
+  /**
+   * Evaluates an isogeny polynomial in homogeneous form, k(xn / xd) * xd^deg, by Horner's rule.
+   *
+   * @param k the coefficients, lowest degree first
+   * @param t temporaries, with the powers of xd
+   * @param z the result
+   */
+  private void evaluate(final long[][][] k, final Temporaries t, final long[][] z) {
+    final int degree = k.length - 1;
+    Bls12381Fp2.copy(k[degree], z);
+    for (int i = degree - 1; i >= 0; i--) {
+      Bls12381Fp2.multiply(z, t.xn, z, t.tt);
+      Bls12381Fp2.multiply(k[i], t.xdPowers[degree - i], t.tv1, t.tt);
+      Bls12381Fp2.add(z, t.tv1, z);
+    }
+  }
+
+  /**
+   * The generic sqrt_ratio subroutine of section F.2.1.1 of RFC 9380, for c1 = 3.
+   *
+   * @param t temporaries
+   * @param u the u parameter
+   * @param v the v parameter, v != 0
+   * @param y the resulting square root
+   * @return -1 if u / v is square, else 0
+   */
+  private static int sqrtRatio(final Temporaries t, final long[][] u, final long[][] v,
+      final long[][] y) {
+    final long[][] tv1 = t.s1;
+    final long[][] tv2 = t.s2;
+    final long[][] tv4 = t.s4;
+    final long[][] tv5 = t.s5;
+    Bls12381Fp2.copy(C6, tv1);
+    // tv2 = v^c4 = v^7, tv3 = v^15
+    Bls12381Fp2.square(v, tv2, t.tt);
+    Bls12381Fp2.multiply(tv2, v, y, t.tt);
+    Bls12381Fp2.square(tv2, tv2, t.tt);
+    Bls12381Fp2.multiply(tv2, y, tv2, t.tt);
+    Bls12381Fp2.square(tv2, y, t.tt);
+    Bls12381Fp2.multiply(y, v, y, t.tt);
+    Bls12381Fp2.multiply(u, y, tv5, t.tt);
+    Bls12381Fp2.pow(tv5, C3_WINDOWS, tv5, t.table, t.tt);
+    Bls12381Fp2.multiply(tv5, tv2, tv5, t.tt);
+    Bls12381Fp2.multiply(tv5, v, tv2, t.tt);
+    Bls12381Fp2.multiply(tv5, u, y, t.tt);
+    Bls12381Fp2.multiply(y, tv2, tv4, t.tt);
+    // tv5 = tv4^c5 = tv4^4
+    Bls12381Fp2.square(tv4, tv5, t.tt);
+    Bls12381Fp2.square(tv5, tv5, t.tt);
+    final int isQR = Bls12381Fp2.equalTo(tv5, ONE);
+    Bls12381Fp2.multiply(y, C7, tv2, t.tt);
+    Bls12381Fp2.multiply(tv4, tv1, tv5, t.tt);
+    Bls12381Fp2.cmov(~isQR, tv2, y);
+    Bls12381Fp2.cmov(~isQR, tv5, tv4);
+    for (int i = 3; i >= 2; i--) {
+      Bls12381Fp2.copy(tv4, tv5);
+      for (int j = 0; j < i - 2; j++) {
+        Bls12381Fp2.square(tv5, tv5, t.tt);
+      }
+      final int e1 = Bls12381Fp2.equalTo(tv5, ONE);
+      Bls12381Fp2.multiply(y, tv1, tv2, t.tt);
+      Bls12381Fp2.square(tv1, tv1, t.tt);
+      Bls12381Fp2.multiply(tv4, tv1, tv5, t.tt);
+      Bls12381Fp2.cmov(~e1, tv2, y);
+      Bls12381Fp2.cmov(~e1, tv5, tv4);
+    }
+    return isQR;
+  }
+
+  private static long[][] power(final long[][] x, final BigInteger e) {
+    final long[][] z = Bls12381Fp2.create();
+    Bls12381Fp2.pow(x, Bls12381Field.windows(e), z, Bls12381Fp2.createTable(),
+        Bls12381Fp2.createScratch());
+    return z;
+  }
+
+  private static long[][][] toElements(final String[][] hex) {
+    final long[][][] elements = new long[hex.length][][];
+    for (int i = 0; i < hex.length; i++) {
+      elements[i] = Bls12381Fp2.fromBigInteger(new BigInteger(hex[i][0], 16),
+          new BigInteger(hex[i][1], 16));
+    }
+    return elements;
+  }
+
+  /**
+   * Field element temporaries of the map, kept in a {@link HashContext} for mapping repeated
+   * elements.
+   */
+  static final class Temporaries {
+    final long[][] u = Bls12381Fp2.create();
+    /** The point on E2', with x = xn / xd. */
+    final long[][] xn = Bls12381Fp2.create();
+    final long[][] xd = Bls12381Fp2.create();
+    final long[][] yp = Bls12381Fp2.create();
+    final long[][] tv1 = Bls12381Fp2.create();
+    final long[][] tv2 = Bls12381Fp2.create();
+    final long[][] tv3 = Bls12381Fp2.create();
+    final long[][] tv5 = Bls12381Fp2.create();
+    final long[][] tv6 = Bls12381Fp2.create();
+    final long[][] y1 = Bls12381Fp2.create();
+    final long[][] s1 = Bls12381Fp2.create();
+    final long[][] s2 = Bls12381Fp2.create();
+    final long[][] s4 = Bls12381Fp2.create();
+    final long[][] s5 = Bls12381Fp2.create();
+    final long[][] xNum = Bls12381Fp2.create();
+    final long[][] xDen = Bls12381Fp2.create();
+    final long[][] yNum = Bls12381Fp2.create();
+    final long[][] yDen = Bls12381Fp2.create();
+    /** xd^i at index i, for i from 1 to the highest isogeny polynomial degree. */
+    final long[][][] xdPowers = new long[K3.length][][];
+    final long[][][] table = Bls12381Fp2.createTable();
+    final long[][] tt = Bls12381Fp2.createScratch();
+    /** Temporaries of the point arithmetic. */
+    final Bls12381G2Curve.Temporaries curve = new Bls12381G2Curve.Temporaries();
+
+    Temporaries() {
+      for (int i = 1; i < this.xdPowers.length; i++) {
+        this.xdPowers[i] = Bls12381Fp2.create();
+      }
+    }
+  }
+
+}
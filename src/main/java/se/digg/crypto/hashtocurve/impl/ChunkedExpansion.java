@@ -0,0 +1,117 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.MessageExpansion;
+
+/**
+ * Derives many reduced integers from one message by expanding it to N * L bytes and reducing
+ * slices of L bytes of the shared output buffer.
+ *
+ * <p>If N * L exceeds the maximum length of one expansion, the output is produced in chunks of
+ * the largest number of whole elements that fit in one expansion. The first chunk is expanded
+ * with the domain separation tag itself, so a result that fits in one expansion is identical to a
+ * single expansion of N * L bytes. Chunk j, for j &gt;= 1, is expanded with the derived tag
+ * "CHUNK-" || I2OSP(len(DST), 1) || DST || I2OSP(j, 2). The length prefix makes the derived tag
+ * an unambiguous encoding of the pair (DST, j), so the chunk of one tag never uses the tag of a
+ * chunk of another tag, as could happen with DST || I2OSP(j, 2) when one tag extends another by
+ * two bytes, and the fixed marker separates the derived tags from the usual tags of applications.
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+final class ChunkedExpansion {
+
+  /** The largest number of chunks, which is limited by the two byte chunk counter. */
+  private static final int MAX_CHUNKS = 65536;
+  /** The marker starting the derived tags of the chunks after the first. */
+  private static final byte[] CHUNK_MARKER = "CHUNK-".getBytes(StandardCharsets.US_ASCII);
+  /** The largest tag with derived chunk tags of at most 255 bytes. */
+  private static final int MAX_DST_LENGTH = 255 - CHUNK_MARKER.length - 3;
+
+  private ChunkedExpansion() {
+  }
+
+  /**
+   * Expands a message and reduces count groups of m slices of L bytes each modulo a modulus.
+   *
+   * @param messageExpansion the message expansion
+   * @param message the message
+   * @param dst the domain separation tag
+   * @param count the number of groups to derive
+   * @param m the number of elements per group
+   * @param L the length in bytes of each slice
+   * @param modulus the modulus of the reduction
+   * @return count arrays of m reduced elements
+   * @throws IllegalArgumentException if count is negative, one group does not fit in a single
+   *         expansion, the output needs more than 65536 chunks, or the tag of a chunk exceeds 255
+   *         bytes
+   */
+  static BigInteger[][] expand(final MessageExpansion messageExpansion, final byte[] message,
+      final byte[] dst, final int count, final int m, final int L, final BigInteger modulus) {
+    if (count < 0) {
+      throw new IllegalArgumentException("Count must not be negative. Current value = " + count);
+    }
+    final int groupLength = m * L;
+    final int groupsPerChunk = messageExpansion.getMaxExpansionLength() / groupLength;
+    if (groupsPerChunk == 0) {
+      throw new IllegalArgumentException(
+          "Element size exceeds the maximum expansion length. Current value = " + groupLength);
+    }
+    final int chunks = (count + groupsPerChunk - 1) / groupsPerChunk;
+    if (chunks > MAX_CHUNKS) {
+      throw new IllegalArgumentException(
+          "Number of chunks must not be greater than 65536. Current value = " + chunks);
+    }
+    final BigInteger[][] u = new BigInteger[count][m];
+    if (count == 0) {
+      return u;
+    }
+    final HashContext ctx = new HashContext();
+    final byte[] uniformBytes = new byte[Math.min(count, groupsPerChunk) * groupLength];
+    for (int chunk = 0; chunk < chunks; chunk++) {
+      final int first = chunk * groupsPerChunk;
+      final int groups = Math.min(groupsPerChunk, count - first);
+      messageExpansion.expandMessage(message, chunkDst(dst, chunk), groups * groupLength,
+          uniformBytes, ctx);
+      for (int i = 0; i < groups; i++) {
+        for (int j = 0; j < m; j++) {
+          // OS2IP of the element bytes, read in place without copying
+          u[first + i][j] =
+              new BigInteger(1, uniformBytes, L * (j + i * m), L).mod(modulus);
+        }
+      }
+    }
+    return u;
+  }
+
+  /**
+   * Get the domain separation tag of a chunk.
+   *
+   * @param dst the domain separation tag
+   * @param chunk the index of the chunk
+   * @return dst for the first chunk, otherwise "CHUNK-" || I2OSP(len(dst), 1) || dst ||
+   *         I2OSP(chunk, 2)
+   * @throws IllegalArgumentException if the tag of the chunk exceeds 255 bytes
+   */
+  private static byte[] chunkDst(final byte[] dst, final int chunk) {
+    if (chunk == 0) {
+      return dst;
+    }
+    if (dst.length > MAX_DST_LENGTH) {
+      throw new IllegalArgumentException("DST size must not be greater than " + MAX_DST_LENGTH
+          + " for chunked expansion. Current value = " + dst.length);
+    }
+    final byte[] tag = new byte[CHUNK_MARKER.length + 1 + dst.length + 2];
+    System.arraycopy(CHUNK_MARKER, 0, tag, 0, CHUNK_MARKER.length);
+    tag[CHUNK_MARKER.length] = (byte) dst.length;
+    System.arraycopy(dst, 0, tag, CHUNK_MARKER.length + 1, dst.length);
+    tag[tag.length - 2] = (byte) (chunk >>> 8);
+    tag[tag.length - 1] = (byte) chunk;
+    return tag;
+  }
+
+}
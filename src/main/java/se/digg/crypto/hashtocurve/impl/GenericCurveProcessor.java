@@ -4,6 +4,7 @@
 
 package se.digg.crypto.hashtocurve.impl;
 
+import java.math.BigInteger;
 import lombok.RequiredArgsConstructor;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 import org.bouncycastle.math.ec.ECPoint;
@@ -18,6 +19,21 @@ public class GenericCurveProcessor implements CurveProcessor {
 
   @Override
   public ECPoint clearCofactor(final ECPoint ecPoint) {
+    return this.clearCofactorUnnormalized(ecPoint).normalize();
+  }
+
+  /**
+   * Clears the cofactor without normalizing the result. For curves with cofactor 1 this returns the
+   * input point unchanged instead of running a scalar multiplication by one.
+   *
+   * @param ecPoint the elliptic curve point to process
+   * @return the elliptic curve point with the cofactor cleared, possibly not normalized
+   */
+  @Override
+  public ECPoint clearCofactorUnnormalized(final ECPoint ecPoint) {
+    if (BigInteger.ONE.equals(this.ecParameterSpec.getH())) {
+      return ecPoint;
+    }
     return ecPoint.multiply(this.ecParameterSpec.getH());
   }
 
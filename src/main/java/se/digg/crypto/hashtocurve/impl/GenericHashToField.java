@@ -5,9 +5,10 @@
 package se.digg.crypto.hashtocurve.impl;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
 import org.bouncycastle.jce.spec.ECParameterSpec;
-import org.bouncycastle.util.Arrays;
-import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
 import se.digg.crypto.hashtocurve.HashToField;
 import se.digg.crypto.hashtocurve.MessageExpansion;
 
@@ -29,6 +30,8 @@ public class GenericHashToField implements HashToField {
   protected BigInteger p;
   protected final int count;
 
+  private final Supplier<BigInteger[][]> scratchFactory;
+
   @SuppressWarnings("checkstyle:ParameterName")
   public GenericHashToField(final byte[] dst, final ECParameterSpec ecParameterSpec,
       final MessageExpansion messageExpansion, final int L) {
@@ -49,6 +52,35 @@ public class GenericHashToField implements HashToField {
     this.messageExpansion = messageExpansion;
     this.p = ecParameterSpec.getCurve().getField().getCharacteristic();
     this.m = ecParameterSpec.getCurve().getField().getDimension();
+    this.scratchFactory = () -> new BigInteger[this.count][this.m];
+  }
+
+  /**
+   * Creates a hash to field for an explicit field, for curves over extension fields that have no
+   * {@link ECParameterSpec}. The {@link #ecParameterSpec} of instances created with this
+   * constructor is null.
+   *
+   * @param dst the domain separation tag
+   * @param p the characteristic of the field
+   * @param m the extension degree of the field
+   * @param messageExpansion the message expansion
+   * @param L the length in bytes of the uniform bytes of each field element component
+   * @param count the number of field elements to produce per message
+   */
+  @SuppressWarnings("checkstyle:ParameterName")
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "EI_EXPOSE_REP2",
+      justification = "dst byte array is intentionally stored for internal use")
+  public GenericHashToField(final byte[] dst, final BigInteger p, final int m,
+      final MessageExpansion messageExpansion, final int L, final int count) {
+    this.dst = dst;
+    this.ecParameterSpec = null;
+    this.count = count;
+    this.L = L;
+    this.messageExpansion = messageExpansion;
+    this.p = p;
+    this.m = m;
+    this.scratchFactory = () -> new BigInteger[this.count][this.m];
   }
 
   @Override
@@ -56,16 +88,163 @@ public class GenericHashToField implements HashToField {
 
     final int byteLen = this.count * this.m * this.L;
     final byte[] uniformBytes = this.messageExpansion.expandMessage(message, this.dst, byteLen);
+    return this.toFieldElements(uniformBytes);
+  }
+
+  /**
+   * Processes a message held in a buffer, which the message expansion reads without copying the
+   * message.
+   *
+   * @param message the buffer holding the message to process
+   * @return the field elements of the message
+   */
+  @Override
+  public BigInteger[][] process(final ByteBuffer message) {
+    final int byteLen = this.count * this.m * this.L;
+    final byte[] uniformBytes = this.messageExpansion.expandMessage(message, this.dst, byteLen);
+    return this.toFieldElements(uniformBytes);
+  }
+
+  /**
+   * Processes a message, expanding it into the uniform bytes buffer of the context. The returned
+   * array is owned by the context and overwritten by the next call with the same context.
+   *
+   * @param message the message to process
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the field elements of the message
+   */
+  @Override
+  public BigInteger[][] process(final byte[] message, final HashContext ctx) {
+    final int byteLen = this.count * this.m * this.L;
+    final byte[] uniformBytes = ctx.getUniformBytes(byteLen);
+    this.messageExpansion.expandMessage(message, this.dst, byteLen, uniformBytes, ctx);
+    final BigInteger[][] u = ctx.getScratch(this, this.scratchFactory);
+    this.toFieldElements(uniformBytes, u);
+    return u;
+  }
+
+  /**
+   * Processes a message held in a buffer, expanding it into the uniform bytes buffer of the
+   * context. The returned array is owned by the context and overwritten by the next call with the
+   * same context.
+   *
+   * @param message the buffer holding the message to process
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the field elements of the message
+   */
+  @Override
+  public BigInteger[][] process(final ByteBuffer message, final HashContext ctx) {
+    final int byteLen = this.count * this.m * this.L;
+    final byte[] uniformBytes = ctx.getUniformBytes(byteLen);
+    this.messageExpansion.expandMessage(message, this.dst, byteLen, uniformBytes, ctx);
+    final BigInteger[][] u = ctx.getScratch(this, this.scratchFactory);
+    this.toFieldElements(uniformBytes, u);
+    return u;
+  }
+
+  /**
+   * Processes a batch of messages, expanding all of them through
+   * {@link MessageExpansion#expandMessages(byte[][], byte[], int)}.
+   *
+   * @param messages the messages to process
+   * @return the field elements of each message, in the same order as the input messages
+   */
+  @Override
+  public BigInteger[][][] process(final byte[][] messages) {
+    final int byteLen = this.count * this.m * this.L;
+    final byte[][] uniformBytes = this.messageExpansion.expandMessages(messages, this.dst, byteLen);
+    final BigInteger[][][] u = new BigInteger[messages.length][][];
+    for (int i = 0; i < messages.length; i++) {
+      u[i] = this.toFieldElements(uniformBytes[i]);
+    }
+    return u;
+  }
+
+  /**
+   * Derives any number of field elements from one message, independently of the count of this
+   * instance. The message is expanded once to count * m * L bytes and the field elements are
+   * reduced from slices of the shared output. If the output exceeds the maximum expansion length,
+   * it is expanded in chunks, where the first chunk uses the domain separation tag and chunk j
+   * uses the derived tag "CHUNK-" || I2OSP(len(DST), 1) || DST || I2OSP(j, 2), which encodes the
+   * pair (DST, j) unambiguously. Up to the maximum expansion length the result is identical to hash
+   * to field with the given count.
+   *
+   * @param message the message to process
+   * @param count the number of field elements to derive
+   * @return count field elements of extension degree m
+   * @throws IllegalArgumentException if count is negative or the chunked expansion is not possible,
+   *         including a domain separation tag longer than 246 bytes when more than one chunk is
+   *         needed
+   */
+  public BigInteger[][] process(final byte[] message, final int count) {
+    return ChunkedExpansion.expand(this.messageExpansion, message, this.dst, count, this.m, this.L,
+        this.p);
+  }
+
+  /**
+   * Processes one message under several domain separation tags through
+   * {@link MessageExpansion#expandMessageForDsts(byte[], byte[][], int)}, which absorbs the message
+   * once for all tags with an XMD expansion. The result for each tag is identical to the result of
+   * a hash to field with that tag.
+   *
+   * @param message the message to process
+   * @param dsts the domain separation tags
+   * @return the field elements of the message under each tag, in the same order as the tags
+   */
+  @Override
+  public BigInteger[][][] processForDsts(final byte[] message, final byte[][] dsts) {
+    final int byteLen = this.count * this.m * this.L;
+    final byte[][] uniformBytes =
+        this.messageExpansion.expandMessageForDsts(message, dsts, byteLen);
+    final BigInteger[][][] u = new BigInteger[dsts.length][][];
+    for (int i = 0; i < dsts.length; i++) {
+      u[i] = this.toFieldElements(uniformBytes[i]);
+    }
+    return u;
+  }
+
+  /**
+   * Creates a hash to field of messages that start with a common prefix, using
+   * {@link MessageExpansion#withPrefix(byte[])} so that an XMD expansion absorbs the prefix once.
+   *
+   * @param prefix the common prefix of the messages
+   * @return a hash to field of the messages following the prefix
+   */
+  @Override
+  public GenericHashToField withPrefix(final byte[] prefix) {
+    final MessageExpansion prefixExpansion = this.messageExpansion.withPrefix(prefix);
+    return this.ecParameterSpec != null
+        ? new GenericHashToField(this.dst, this.ecParameterSpec, prefixExpansion, this.L,
+            this.count)
+        : new GenericHashToField(this.dst, this.p, this.m, prefixExpansion, this.L, this.count);
+  }
+
+  /**
+   * Converts uniform bytes to count field elements of extension degree m.
+   *
+   * @param uniformBytes the output of the message expansion
+   * @return the field elements
+   */
+  private BigInteger[][] toFieldElements(final byte[] uniformBytes) {
     final BigInteger[][] u = new BigInteger[this.count][this.m];
+    this.toFieldElements(uniformBytes, u);
+    return u;
+  }
+
+  /**
+   * Converts uniform bytes to count field elements of extension degree m, writing them to an
+   * existing array.
+   *
+   * @param uniformBytes the output of the message expansion
+   * @param u the array of count arrays of m field elements to write
+   */
+  private void toFieldElements(final byte[] uniformBytes, final BigInteger[][] u) {
     for (int i = 0; i < this.count; i++) {
-      final BigInteger[] e = new BigInteger[this.m];
       for (int j = 0; j < this.m; j++) {
         final int elmOffset = this.L * (j + i * this.m);
-        final byte[] tv = Arrays.copyOfRange(uniformBytes, elmOffset, elmOffset + this.L);
-        e[j] = H2cUtils.os2ip(tv).mod(this.p);
+        // OS2IP of the element bytes, read in place without copying
+        u[i][j] = new BigInteger(1, uniformBytes, elmOffset, this.L).mod(this.p);
       }
-      u[i] = e;
     }
-    return u;
   }
 }
@@ -5,6 +5,7 @@
 package se.digg.crypto.hashtocurve.impl;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.jce.spec.ECParameterSpec;
 import se.digg.crypto.hashtocurve.HashToScalar;
@@ -31,9 +32,94 @@ public class GenericOPRFHashToScalar implements HashToScalar {
     this.messageExpansion = new XmdMessageExpansion(digest, k);
   }
 
+  @SuppressWarnings("checkstyle:ParameterName")
+  private GenericOPRFHashToScalar(final ECParameterSpec ecParameterSpec,
+      final MessageExpansion messageExpansion, final int L) {
+    this.ecParameterSpec = ecParameterSpec;
+    this.messageExpansion = messageExpansion;
+    this.L = L;
+  }
+
   @Override
   public BigInteger process(final byte[] input, final byte[] dst) {
     final byte[] expandMessage = this.messageExpansion.expandMessage(input, dst, this.L);
     return new BigInteger(1, expandMessage).mod(this.ecParameterSpec.getCurve().getOrder());
   }
+
+  @Override
+  public BigInteger process(final ByteBuffer input, final byte[] dst) {
+    final byte[] expandMessage = this.messageExpansion.expandMessage(input, dst, this.L);
+    return new BigInteger(1, expandMessage).mod(this.ecParameterSpec.getCurve().getOrder());
+  }
+
+  @Override
+  public BigInteger[] process(final byte[][] inputs, final byte[] dst) {
+    final byte[][] expandMessages = this.messageExpansion.expandMessages(inputs, dst, this.L);
+    final BigInteger[] scalars = new BigInteger[inputs.length];
+    for (int i = 0; i < inputs.length; i++) {
+      scalars[i] =
+          new BigInteger(1, expandMessages[i]).mod(this.ecParameterSpec.getCurve().getOrder());
+    }
+    return scalars;
+  }
+
+  /**
+   * Derives any number of scalars from one input. The input is expanded once to count * L bytes
+   * and the scalars are reduced from slices of the shared output. If the output exceeds the
+   * maximum expansion length, it is expanded in chunks, where the first chunk uses the domain
+   * separation tag and chunk j uses the derived tag "CHUNK-" || I2OSP(len(DST), 1) || DST ||
+   * I2OSP(j, 2), which encodes the pair (DST, j) unambiguously. The first scalar equals
+   * {@link #process(byte[], byte[])} only for count = 1, since the expansion length is part of
+   * the expanded message.
+   *
+   * @param input the input
+   * @param dst the domain separation tag
+   * @param count the number of scalars to derive
+   * @return count scalars
+   * @throws IllegalArgumentException if count is negative or the chunked expansion is not possible,
+   *         including a domain separation tag longer than 246 bytes when more than one chunk is
+   *         needed
+   */
+  public BigInteger[] process(final byte[] input, final byte[] dst, final int count) {
+    final BigInteger[][] u = ChunkedExpansion.expand(this.messageExpansion, input, dst, count, 1,
+        this.L, this.ecParameterSpec.getCurve().getOrder());
+    final BigInteger[] scalars = new BigInteger[count];
+    for (int i = 0; i < count; i++) {
+      scalars[i] = u[i][0];
+    }
+    return scalars;
+  }
+
+  /**
+   * Hash one input under several domain separation tags, absorbing the input once for all tags.
+   *
+   * @param input the input byte array to be processed
+   * @param dsts the domain separation tags
+   * @return the resulting scalars, in the same order as the domain separation tags
+   */
+  @Override
+  public BigInteger[] processForDsts(final byte[] input, final byte[][] dsts) {
+    final byte[][] expandMessages =
+        this.messageExpansion.expandMessageForDsts(input, dsts, this.L);
+    final BigInteger[] scalars = new BigInteger[dsts.length];
+    for (int i = 0; i < dsts.length; i++) {
+      scalars[i] =
+          new BigInteger(1, expandMessages[i]).mod(this.ecParameterSpec.getCurve().getOrder());
+    }
+    return scalars;
+  }
+
+  /**
+   * Creates a hash to scalar of inputs that start with a common prefix. The prefix is absorbed once
+   * into an immutable snapshot of the digest state, and each input only absorbs the rest of the
+   * input, l_i_b_str and DST_prime. Processing input with the returned instance gives the same
+   * scalar as processing prefix || input with this instance. The returned instance is thread safe.
+   *
+   * @param prefix the common prefix of the inputs
+   * @return a hash to scalar of the inputs following the prefix
+   */
+  public GenericOPRFHashToScalar withPrefix(final byte[] prefix) {
+    return new GenericOPRFHashToScalar(this.ecParameterSpec,
+        this.messageExpansion.withPrefix(prefix), this.L);
+  }
 }
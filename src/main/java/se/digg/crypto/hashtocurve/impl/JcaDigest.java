@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.util.Memoable;
+
+/**
+ * A Bouncy Castle {@link ExtendedDigest} backed by a JCA {@link MessageDigest}, so that the hash
+ * functions of the installed security providers, which may use hardware instructions through JVM
+ * intrinsics, can be used for message expansion. The digest state is copied by cloning the
+ * message digest, so the precomputed Z_pad state of {@link XmdMessageExpansion} is supported for
+ * providers with cloneable message digests.
+ */
+public class JcaDigest implements ExtendedDigest, Memoable {
+
+  private final String algorithm;
+  private final int byteLength;
+  private MessageDigest messageDigest;
+
+  /**
+   * Creates a digest for a JCA message digest algorithm.
+   *
+   * @param algorithm the JCA name of the message digest algorithm, such as "SHA-256"
+   * @param byteLength the input block size of the hash function in bytes
+   * @throws IllegalArgumentException if the algorithm is not available or its message digest does
+   *         not support cloning
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public JcaDigest(final String algorithm, final int byteLength) {
+    this.algorithm = algorithm;
+    this.byteLength = byteLength;
+    try {
+      this.messageDigest = MessageDigest.getInstance(algorithm);
+      this.messageDigest.clone();
+    } catch (final NoSuchAlgorithmException | CloneNotSupportedException e) {
+      throw new IllegalArgumentException("Unsupported message digest " + algorithm, e);
+    }
+  }
+
+  private JcaDigest(final JcaDigest other) {
+    this.algorithm = other.algorithm;
+    this.byteLength = other.byteLength;
+    this.messageDigest = cloneDigest(other.messageDigest);
+  }
+
+  @Override
+  public String getAlgorithmName() {
+    return this.algorithm;
+  }
+
+  @Override
+  public int getDigestSize() {
+    return this.messageDigest.getDigestLength();
+  }
+
+  @Override
+  public int getByteLength() {
+    return this.byteLength;
+  }
+
+  @Override
+  public void update(final byte in) {
+    this.messageDigest.update(in);
+  }
+
+  @Override
+  public void update(final byte[] in, final int inOff, final int len) {
+    this.messageDigest.update(in, inOff, len);
+  }
+
+  @Override
+  public int doFinal(final byte[] out, final int outOff) {
+    try {
+      return this.messageDigest.digest(out, outOff, this.messageDigest.getDigestLength());
+    } catch (final DigestException e) {
+      throw new IllegalArgumentException("Output buffer too short", e);
+    }
+  }
+
+  @Override
+  public void reset() {
+    this.messageDigest.reset();
+  }
+
+  @Override
+  public void reset(final Memoable other) {
+    this.messageDigest = cloneDigest(((JcaDigest) other).messageDigest);
+  }
+
+  @Override
+  public Memoable copy() {
+    return new JcaDigest(this);
+  }
+
+  private static MessageDigest cloneDigest(final MessageDigest messageDigest) {
+    try {
+      return (MessageDigest) messageDigest.clone();
+    } catch (final CloneNotSupportedException e) {
+      // Cloning was verified when the first instance was created
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
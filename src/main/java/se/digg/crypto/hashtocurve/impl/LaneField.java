@@ -0,0 +1,479 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Field arithmetic on the lanes of vector registers, one independent field element per lane.
+ *
+ * <p>An element array holds {@link #lanes()} field elements as {@link #getSize()} limbs of 26 bits,
+ * stored limb by limb so that limb j of all lanes is one vector at offset j * lanes. The 26-bit
+ * limbs leave room in the 64-bit lanes for a whole Montgomery multiplication without intermediate
+ * carries. Elements are kept in Montgomery form with R = 2^(26 * size) &gt; 4p, partially reduced
+ * to the range [0, 2p). The operations use lane-wise arithmetic and mask blends only, so their
+ * timing does not depend on the values of the elements. Operations take an explicit scratch array
+ * of {@link #getScratchSize()} words and do not allocate.
+ *
+ * <p>This class uses the incubating Vector API and must only be loaded after
+ * {@link VectorSupport#isEnabled()} has confirmed that the module is present.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+final class LaneField {
+
+  private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+  private static final int BITS = 26;
+  private static final long MASK = (1L << BITS) - 1;
+
+  private final BigInteger p;
+  /** The number of 26-bit limbs of a field element. */
+  private final int size;
+  private final int lanes;
+  private final long[] pLimbs;
+  private final long[] twoPLimbs;
+  /** -p^-1 mod 2^26. */
+  private final long pInv;
+  /** The windows of the exponent p - 2 of the field inversion. */
+  private final int[] invWindows;
+  /** Zero in every lane. */
+  private final long[] zero;
+  /** R^2 mod p in every lane, in plain limbs, to convert into Montgomery form. */
+  private final long[] r2Lanes;
+  /** One in every lane, in plain limbs, to convert out of Montgomery form. */
+  private final long[] plainOne;
+
+  /**
+   * Creates the lane arithmetic for a prime field.
+   *
+   * @param p the odd field prime
+   */
+  LaneField(final BigInteger p) {
+    this.p = p;
+    this.size = (p.bitLength() + 2 + BITS - 1) / BITS;
+    this.lanes = SPECIES.length();
+    this.pLimbs = toLimbs(p, this.size);
+    this.twoPLimbs = toLimbs(p.shiftLeft(1), this.size);
+    final BigInteger radix = BigInteger.ONE.shiftLeft(BITS);
+    this.pInv = p.negate().modInverse(radix).longValue();
+    this.invWindows = windows(p.subtract(BigInteger.TWO));
+    this.zero = this.create();
+    this.r2Lanes = this.broadcast(
+        toLimbs(BigInteger.ONE.shiftLeft(2 * BITS * this.size).mod(p), this.size));
+    this.plainOne = this.broadcast(toLimbs(BigInteger.ONE, this.size));
+  }
+
+  /**
+   * Get the number of field elements held by an element array.
+   *
+   * @return the number of lanes
+   */
+  int lanes() {
+    return this.lanes;
+  }
+
+  int getSize() {
+    return this.size;
+  }
+
+  int getScratchSize() {
+    return this.size * this.lanes;
+  }
+
+  long[] create() {
+    return new long[this.size * this.lanes];
+  }
+
+  /**
+   * Creates an element array holding the same constant in every lane.
+   *
+   * @param x the constant, reduced modulo p
+   * @return the element array
+   */
+  long[] constant(final BigInteger x) {
+    final long[] z = this.broadcast(toLimbs(x.mod(this.p), this.size));
+    this.toMontgomery(z, z, new long[this.getScratchSize()]);
+    return z;
+  }
+
+  /**
+   * Converts integers to field elements, one per lane, reducing them modulo p. Lanes without an
+   * input are set to zero.
+   *
+   * @param x the integers
+   * @param offset the index of the integer of the first lane
+   * @param z the element array to write
+   * @param tt scratch array
+   */
+  void fromBigIntegers(final BigInteger[] x, final int offset, final long[] z, final long[] tt) {
+    Arrays.fill(z, 0L);
+    final int count = Math.min(this.lanes, x.length - offset);
+    for (int lane = 0; lane < count; lane++) {
+      final long[] limbs = toLimbs(x[offset + lane].mod(this.p), this.size);
+      for (int j = 0; j < this.size; j++) {
+        z[j * this.lanes + lane] = limbs[j];
+      }
+    }
+    this.toMontgomery(z, z, tt);
+  }
+
+  /**
+   * Converts the lanes of an element array to fully reduced integers.
+   *
+   * @param x the element array
+   * @param z the integers to write
+   * @param offset the index of the integer of the first lane
+   * @param count the number of lanes to convert
+   * @param tt scratch array
+   */
+  void toBigIntegers(final long[] x, final BigInteger[] z, final int offset, final int count,
+      final long[] tt) {
+    final long[] plain = this.create();
+    this.fromMontgomery(x, plain, tt);
+    final long[] limbs = new long[this.size];
+    for (int lane = 0; lane < count; lane++) {
+      for (int j = 0; j < this.size; j++) {
+        limbs[j] = plain[j * this.lanes + lane];
+      }
+      z[offset + lane] = fromLimbs(limbs);
+    }
+  }
+
+  /**
+   * Montgomery multiplication z = x * y / R, with the coarsely integrated operand scanning method.
+   * The 26-bit limbs keep every column sum below 2^58, so the carries are only propagated once at
+   * the end.
+   *
+   * @param x field elements
+   * @param y field elements
+   * @param z the product, which may be x or y
+   * @param tt scratch array
+   */
+  void multiply(final long[] x, final long[] y, final long[] z, final long[] tt) {
+    final int n = this.size;
+    final int l = this.lanes;
+    Arrays.fill(tt, 0, n * l, 0L);
+    for (int i = 0; i < n; i++) {
+      final LongVector xi = LongVector.fromArray(SPECIES, x, i * l);
+      // Choose m so that the lowest column becomes divisible by 2^26, then shift down one limb
+      final LongVector low = LongVector.fromArray(SPECIES, tt, 0)
+          .add(xi.mul(LongVector.fromArray(SPECIES, y, 0)));
+      final LongVector m = low.and(MASK).mul(this.pInv).and(MASK);
+      final LongVector carry =
+          low.add(m.mul(this.pLimbs[0])).lanewise(VectorOperators.ASHR, BITS);
+      for (int j = 1; j < n; j++) {
+        final LongVector column = LongVector.fromArray(SPECIES, tt, j * l)
+            .add(xi.mul(LongVector.fromArray(SPECIES, y, j * l))).add(m.mul(this.pLimbs[j]));
+        (j == 1 ? column.add(carry) : column).intoArray(tt, (j - 1) * l);
+      }
+      LongVector.zero(SPECIES).intoArray(tt, (n - 1) * l);
+    }
+    this.carry(tt, z);
+  }
+
+  void square(final long[] x, final long[] z, final long[] tt) {
+    this.multiply(x, x, z, tt);
+  }
+
+  /**
+   * Adds two field elements.
+   *
+   * @param x field elements
+   * @param y field elements
+   * @param z the sum, which may be x or y
+   * @param tt scratch array
+   */
+  void add(final long[] x, final long[] y, final long[] z, final long[] tt) {
+    LongVector carry = LongVector.zero(SPECIES);
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      final LongVector s = LongVector.fromArray(SPECIES, x, index)
+          .add(LongVector.fromArray(SPECIES, y, index)).add(carry);
+      carry = s.lanewise(VectorOperators.ASHR, BITS);
+      s.and(MASK).intoArray(z, index);
+    }
+    this.reduce(z, this.twoPLimbs, tt);
+  }
+
+  /**
+   * Subtracts two field elements, computing x - y + 2p before the reduction so that all limbs of
+   * the result are non-negative.
+   *
+   * @param x field elements
+   * @param y field elements
+   * @param z the difference, which may be x or y
+   * @param tt scratch array
+   */
+  void subtract(final long[] x, final long[] y, final long[] z, final long[] tt) {
+    LongVector carry = LongVector.zero(SPECIES);
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      final LongVector s = LongVector.fromArray(SPECIES, x, index)
+          .sub(LongVector.fromArray(SPECIES, y, index)).add(this.twoPLimbs[j]).add(carry);
+      carry = s.lanewise(VectorOperators.ASHR, BITS);
+      s.and(MASK).intoArray(z, index);
+    }
+    this.reduce(z, this.twoPLimbs, tt);
+  }
+
+  void negate(final long[] x, final long[] z, final long[] tt) {
+    this.subtract(this.zero, x, z, tt);
+  }
+
+  /**
+   * Raises field elements to a public exponent with a fixed 4-bit window.
+   *
+   * @param x the base
+   * @param windows the 4-bit windows of the exponent, most significant first
+   * @param table a table of 16 element arrays
+   * @param z the result, which must not be x
+   * @param tt scratch array
+   */
+  void pow(final long[] x, final int[] windows, final long[][] table, final long[] z,
+      final long[] tt) {
+    this.one(table[0], tt);
+    for (int i = 1; i < table.length; i++) {
+      this.multiply(table[i - 1], x, table[i], tt);
+    }
+    this.copy(table[0], z);
+    for (final int window : windows) {
+      for (int j = 0; j < 4; j++) {
+        this.square(z, z, tt);
+      }
+      if (window != 0) {
+        this.multiply(z, table[window], z, tt);
+      }
+    }
+  }
+
+  /**
+   * Inverts non-zero field elements as x^(p - 2).
+   *
+   * @param x the elements to invert
+   * @param table a table of 16 element arrays
+   * @param z the inverses, which must not be x
+   * @param tt scratch array
+   */
+  void inv(final long[] x, final long[][] table, final long[] z, final long[] tt) {
+    this.pow(x, this.invWindows, table, z, tt);
+  }
+
+  /**
+   * Sets every lane to one, which is R mod p in Montgomery form.
+   *
+   * @param z the element array to write
+   * @param tt scratch array
+   */
+  void one(final long[] z, final long[] tt) {
+    this.toMontgomery(this.plainOne, z, tt);
+  }
+
+  /**
+   * Lane-wise test if field elements are zero.
+   *
+   * @param x field elements
+   * @param tmp temporary element array
+   * @param tt scratch array
+   * @return the mask of the lanes holding zero
+   */
+  VectorMask<Long> isZero(final long[] x, final long[] tmp, final long[] tt) {
+    this.copy(x, tmp);
+    return this.isZeroInPlace(tmp, tt);
+  }
+
+  /**
+   * Lane-wise test if field elements are equal.
+   *
+   * @param x field elements
+   * @param y field elements
+   * @param tmp temporary element array
+   * @param tt scratch array
+   * @return the mask of the lanes where x equals y
+   */
+  VectorMask<Long> equalTo(final long[] x, final long[] y, final long[] tmp, final long[] tt) {
+    this.subtract(x, y, tmp, tt);
+    return this.isZeroInPlace(tmp, tt);
+  }
+
+  /**
+   * Lane-wise sign of field elements as defined by sgn0 for m = 1.
+   *
+   * @param x field elements
+   * @param tmp temporary element array
+   * @param tt scratch array
+   * @return the mask of the lanes holding an odd element
+   */
+  VectorMask<Long> sgn0(final long[] x, final long[] tmp, final long[] tt) {
+    this.fromMontgomery(x, tmp, tt);
+    return LongVector.fromArray(SPECIES, tmp, 0).and(1L).compare(VectorOperators.EQ, 1L);
+  }
+
+  /**
+   * Lane-wise conditional move of x into z.
+   *
+   * @param mask the lanes to move
+   * @param x the source field elements
+   * @param z the destination field elements
+   */
+  void cmov(final VectorMask<Long> mask, final long[] x, final long[] z) {
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      LongVector.fromArray(SPECIES, z, index)
+          .blend(LongVector.fromArray(SPECIES, x, index), mask).intoArray(z, index);
+    }
+  }
+
+  void copy(final long[] x, final long[] z) {
+    System.arraycopy(x, 0, z, 0, this.size * this.lanes);
+  }
+
+  /**
+   * Get the 4-bit windows of an exponent, most significant first.
+   *
+   * @param e the exponent
+   * @return the windows
+   */
+  static int[] windows(final BigInteger e) {
+    final int[] windows = new int[(e.bitLength() + 3) / 4];
+    for (int i = 0; i < windows.length; i++) {
+      windows[i] = e.shiftRight(4 * (windows.length - 1 - i)).intValue() & 0xf;
+    }
+    return windows;
+  }
+
+  /**
+   * Tests if field elements are zero, reducing them in place to the range [0, p).
+   *
+   * @param x field elements, overwritten
+   * @param tt scratch array
+   * @return the mask of the lanes holding zero
+   */
+  private VectorMask<Long> isZeroInPlace(final long[] x, final long[] tt) {
+    this.reduce(x, this.pLimbs, tt);
+    LongVector bits = LongVector.zero(SPECIES);
+    for (int j = 0; j < this.size; j++) {
+      bits = bits.or(LongVector.fromArray(SPECIES, x, j * this.lanes));
+    }
+    return bits.compare(VectorOperators.EQ, 0L);
+  }
+
+  /**
+   * Creates an element array holding the same limbs in every lane.
+   *
+   * @param limbs the limbs
+   * @return the element array
+   */
+  private long[] broadcast(final long[] limbs) {
+    final long[] z = this.create();
+    for (int j = 0; j < this.size; j++) {
+      Arrays.fill(z, j * this.lanes, (j + 1) * this.lanes, limbs[j]);
+    }
+    return z;
+  }
+
+  private void toMontgomery(final long[] x, final long[] z, final long[] tt) {
+    this.multiply(x, this.r2Lanes, z, tt);
+  }
+
+  /**
+   * Converts out of Montgomery form to the fully reduced plain value. The product x * 1 / R is at
+   * most p, and equals p only for an element congruent to zero, which the final reduction maps to
+   * zero.
+   *
+   * @param x field elements in Montgomery form
+   * @param z the plain field elements
+   * @param tt scratch array
+   */
+  private void fromMontgomery(final long[] x, final long[] z, final long[] tt) {
+    this.multiply(x, this.plainOne, z, tt);
+    this.reduce(z, this.pLimbs, tt);
+  }
+
+  /**
+   * Propagates the carries of the column sums of a product into normalized limbs.
+   *
+   * @param tt the column sums
+   * @param z the normalized element array
+   */
+  private void carry(final long[] tt, final long[] z) {
+    LongVector carry = LongVector.zero(SPECIES);
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      final LongVector t = LongVector.fromArray(SPECIES, tt, index).add(carry);
+      carry = t.lanewise(VectorOperators.ASHR, BITS);
+      (j == this.size - 1 ? t : t.and(MASK)).intoArray(z, index);
+    }
+  }
+
+  /**
+   * Subtracts a modulus from the lanes that are not less than it. The difference is computed for
+   * all lanes and the final borrow selects between the difference and the input.
+   *
+   * @param z normalized field elements, reduced in place
+   * @param modulus the limbs of p or 2p
+   * @param tt scratch array
+   */
+  private void reduce(final long[] z, final long[] modulus, final long[] tt) {
+    LongVector borrow = LongVector.zero(SPECIES);
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      final LongVector d = LongVector.fromArray(SPECIES, z, index).sub(modulus[j]).add(borrow);
+      borrow = d.lanewise(VectorOperators.ASHR, BITS);
+      d.and(MASK).intoArray(tt, index);
+    }
+    final VectorMask<Long> noBorrow = borrow.compare(VectorOperators.EQ, 0L);
+    for (int j = 0; j < this.size; j++) {
+      final int index = j * this.lanes;
+      LongVector.fromArray(SPECIES, z, index)
+          .blend(LongVector.fromArray(SPECIES, tt, index), noBorrow).intoArray(z, index);
+    }
+  }
+
+  private static long[] toLimbs(final BigInteger x, final int size) {
+    final long[] limbs = new long[size];
+    final byte[] bytes = x.toByteArray();
+    long acc = 0;
+    int accBits = 0;
+    int j = 0;
+    for (int i = bytes.length - 1; i >= 0 && j < size; i--) {
+      acc |= (bytes[i] & 0xffL) << accBits;
+      accBits += 8;
+      if (accBits >= BITS) {
+        limbs[j++] = acc & MASK;
+        acc >>>= BITS;
+        accBits -= BITS;
+      }
+    }
+    if (j < size) {
+      limbs[j] = acc;
+    }
+    return limbs;
+  }
+
+  private static BigInteger fromLimbs(final long[] limbs) {
+    final byte[] bytes = new byte[(limbs.length * BITS + 7) / 8 + 1];
+    long acc = 0;
+    int accBits = 0;
+    int i = bytes.length - 1;
+    for (final long limb : limbs) {
+      acc |= limb << accBits;
+      accBits += BITS;
+      while (accBits >= 8) {
+        bytes[i--] = (byte) acc;
+        acc >>>= 8;
+        accBits -= 8;
+      }
+    }
+    if (i >= 0) {
+      bytes[i] = (byte) acc;
+    }
+    return new BigInteger(1, bytes);
+  }
+
+}
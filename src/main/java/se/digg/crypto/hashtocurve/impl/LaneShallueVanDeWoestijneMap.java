@@ -0,0 +1,233 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import jdk.incubator.vector.VectorMask;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+
+/**
+ * The straight-line Shallue van de Woestijne map of {@link BatchShallueVanDeWoestijneMapToCurve}
+ * evaluated on {@link LaneField} element arrays, mapping one field element per vector lane.
+ *
+ * <p>Every step of the map is the same lane-wise operation for all elements of a batch, and the
+ * branches of the straight-line program are already mask selections, which become per-lane mask
+ * blends. The final divisions of all lane groups share one field inversion, as in the scalar batch
+ * map. The resulting points are identical to those of the scalar map.
+ *
+ * <p>This class uses the incubating Vector API and must only be loaded after
+ * {@link VectorSupport#isEnabled()} has confirmed that the module is present.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+final class LaneShallueVanDeWoestijneMap {
+
+  private final ECCurve curve;
+  private final LaneField field;
+  private final long[] a;
+  private final long[] b;
+  private final long[] z;
+  private final long[] one;
+  /** sqrt(-Z) in F. */
+  private final long[] c2;
+  /** The 4-bit windows of the exponent c1 = (q - 3) / 4, most significant first. */
+  private final int[] c1Windows;
+
+  /**
+   * Constructs the lane map for a curve over a field with q = 3 (mod 4).
+   *
+   * @param curve the curve
+   * @param z the Z parameter of the suite
+   */
+  LaneShallueVanDeWoestijneMap(final ECCurve curve, final BigInteger z) {
+    this.curve = curve;
+    final BigInteger p = curve.getField().getCharacteristic();
+    this.field = new LaneField(p);
+    this.a = this.field.constant(curve.getA().toBigInteger());
+    this.b = this.field.constant(curve.getB().toBigInteger());
+    this.z = this.field.constant(z);
+    this.one = this.field.constant(BigInteger.ONE);
+    this.c2 = this.field.constant(
+        z.negate().mod(p).modPow(p.add(BigInteger.ONE).shiftRight(2), p));
+    this.c1Windows = LaneField.windows(p.subtract(BigInteger.valueOf(3)).shiftRight(2));
+  }
+
+  /**
+   * Get the number of field elements mapped side by side.
+   *
+   * @return the number of vector lanes
+   */
+  int lanes() {
+    return this.field.lanes();
+  }
+
+  /**
+   * Maps a batch of field elements to points on the curve. The last lane group is padded with
+   * zero elements, whose results are discarded.
+   *
+   * @param elements the input field elements
+   * @return the mapped points, in the same order as the input elements
+   */
+  ECPoint[] process(final BigInteger[] elements) {
+    final LaneField f = this.field;
+    final int lanes = f.lanes();
+    final int groups = (elements.length + lanes - 1) / lanes;
+    final Temporaries t = new Temporaries(f);
+    final long[][] x = new long[groups][];
+    final long[][] y = new long[groups][];
+    final long[][] tv4 = new long[groups][];
+    for (int g = 0; g < groups; g++) {
+      x[g] = f.create();
+      y[g] = f.create();
+      tv4[g] = f.create();
+      f.fromBigIntegers(elements, g * lanes, t.u, t.tt);
+      this.map(t, x[g], y[g], tv4[g]);
+    }
+    this.batchInvert(tv4, t);
+    final BigInteger[] xs = new BigInteger[elements.length];
+    final BigInteger[] ys = new BigInteger[elements.length];
+    for (int g = 0; g < groups; g++) {
+      final int count = Math.min(lanes, elements.length - g * lanes);
+      f.multiply(x[g], tv4[g], x[g], t.tt);
+      f.toBigIntegers(x[g], xs, g * lanes, count, t.tt);
+      f.toBigIntegers(y[g], ys, g * lanes, count, t.tt);
+    }
+    final ECPoint[] points = new ECPoint[elements.length];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = this.curve.createPoint(xs[i], ys[i]);
+    }
+    return points;
+  }
+
+  /**
+   * Steps 1 to 24 of the straight-line map of section F.2 on all lanes. The returned x coordinate
+   * is the numerator of the fraction x / tv4.
+   *
+   * @param t temporaries, with the input elements in t.u
+   * @param x the x coordinate numerators
+   * @param y the y coordinates
+   * @param tv4 the x coordinate denominators
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private void map(final Temporaries t, final long[] x, final long[] y, final long[] tv4) {
+    final LaneField f = this.field;
+    f.square(t.u, t.tv1, t.tt);
+    f.multiply(this.z, t.tv1, t.tv1, t.tt);
+    f.square(t.tv1, t.tv2, t.tt);
+    f.add(t.tv2, t.tv1, t.tv2, t.tt);
+    f.add(t.tv2, this.one, t.tv3, t.tt);
+    f.multiply(this.b, t.tv3, t.tv3, t.tt);
+    f.copy(this.z, tv4);
+    f.negate(t.tv2, t.tv5, t.tt);
+    f.cmov(f.isZero(t.tv2, t.tmp, t.tt).not(), t.tv5, tv4);
+    f.multiply(this.a, tv4, tv4, t.tt);
+    f.square(t.tv3, t.tv2, t.tt);
+    f.square(tv4, t.tv6, t.tt);
+    f.multiply(this.a, t.tv6, t.tv5, t.tt);
+    f.add(t.tv2, t.tv5, t.tv2, t.tt);
+    f.multiply(t.tv2, t.tv3, t.tv2, t.tt);
+    f.multiply(t.tv6, tv4, t.tv6, t.tt);
+    f.multiply(this.b, t.tv6, t.tv5, t.tt);
+    f.add(t.tv2, t.tv5, t.tv2, t.tt);
+    f.multiply(t.tv1, t.tv3, x, t.tt);
+    final VectorMask<Long> isGx1Square = this.sqrtRatio(t, t.tv2, t.tv6, t.y1);
+    f.multiply(t.tv1, t.u, y, t.tt);
+    f.multiply(y, t.y1, y, t.tt);
+    f.cmov(isGx1Square, t.tv3, x);
+    f.cmov(isGx1Square, t.y1, y);
+    final VectorMask<Long> e1 = f.sgn0(t.u, t.tmp, t.tt).eq(f.sgn0(y, t.tmp, t.tt));
+    f.negate(y, t.tv5, t.tt);
+    f.cmov(e1.not(), t.tv5, y);
+  }
+
+  /**
+   * The sqrt_ratio subroutine for q = 3 (mod 4) of section F.2.1.2 of RFC 9380 on all lanes.
+   *
+   * @param t temporaries
+   * @param u the u parameters
+   * @param v the v parameters, non-zero
+   * @param y the resulting square roots
+   * @return the mask of the lanes where u / v is square
+   */
+  private VectorMask<Long> sqrtRatio(final Temporaries t, final long[] u, final long[] v,
+      final long[] y) {
+    final LaneField f = this.field;
+    f.square(v, t.s1, t.tt);
+    f.multiply(u, v, t.s2, t.tt);
+    f.multiply(t.s1, t.s2, t.s1, t.tt);
+    f.pow(t.s1, this.c1Windows, t.table, y, t.tt);
+    f.multiply(y, t.s2, y, t.tt);
+    f.multiply(y, this.c2, t.s2, t.tt);
+    f.square(y, t.s1, t.tt);
+    f.multiply(t.s1, v, t.s1, t.tt);
+    final VectorMask<Long> isQR = f.equalTo(t.s1, u, t.tmp, t.tt);
+    f.cmov(isQR.not(), t.s2, y);
+    return isQR;
+  }
+
+  /**
+   * Replaces every element with its inverse using a single lane-wise field inversion.
+   *
+   * @param elements element arrays of non-zero field elements
+   * @param t temporaries
+   */
+  private void batchInvert(final long[][] elements, final Temporaries t) {
+    final int n = elements.length;
+    if (n == 0) {
+      return;
+    }
+    final LaneField f = this.field;
+    final long[][] acc = new long[n][];
+    acc[0] = elements[0].clone();
+    for (int i = 1; i < n; i++) {
+      acc[i] = f.create();
+      f.multiply(acc[i - 1], elements[i], acc[i], t.tt);
+    }
+    f.inv(acc[n - 1], t.table, t.tv1, t.tt);
+    for (int i = n - 1; i > 0; i--) {
+      f.multiply(t.tv1, acc[i - 1], t.tv2, t.tt);
+      f.multiply(t.tv1, elements[i], t.tv1, t.tt);
+      f.copy(t.tv2, elements[i]);
+    }
+    f.copy(t.tv1, elements[0]);
+  }
+
+  /**
+   * Element array temporaries shared by all lane groups of a batch.
+   */
+  private static final class Temporaries {
+    final long[] u;
+    final long[] tv1;
+    final long[] tv2;
+    final long[] tv3;
+    final long[] tv5;
+    final long[] tv6;
+    final long[] y1;
+    final long[] s1;
+    final long[] s2;
+    final long[] tmp;
+    final long[][] table;
+    final long[] tt;
+
+    Temporaries(final LaneField field) {
+      this.u = field.create();
+      this.tv1 = field.create();
+      this.tv2 = field.create();
+      this.tv3 = field.create();
+      this.tv5 = field.create();
+      this.tv6 = field.create();
+      this.y1 = field.create();
+      this.s1 = field.create();
+      this.s2 = field.create();
+      this.tmp = field.create();
+      this.table = new long[16][];
+      for (int i = 0; i < this.table.length; i++) {
+        this.table[i] = field.create();
+      }
+      this.tt = new long[field.getScratchSize()];
+    }
+  }
+
+}
@@ -0,0 +1,294 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1Curve;
+import org.bouncycastle.math.ec.custom.sec.SecP256R1Field;
+import org.bouncycastle.math.ec.custom.sec.SecP384R1Curve;
+import org.bouncycastle.math.ec.custom.sec.SecP384R1Field;
+import org.bouncycastle.math.ec.custom.sec.SecP521R1Curve;
+import org.bouncycastle.math.ec.custom.sec.SecP521R1Field;
+import org.bouncycastle.math.raw.Nat;
+
+/**
+ * Field arithmetic on fixed-size arrays of 32-bit limbs for the NIST prime fields, backed by the
+ * Bouncy Castle custom curve field implementations.
+ *
+ * <p>All elements are fully reduced little-endian limb arrays of {@link #getSize()} words.
+ * Multiplications take an explicit scratch array of {@link #getExtSize()} words, so that the
+ * arithmetic does not allocate. For P-384 and P-521 the products are computed with the schoolbook
+ * multiplication of {@link Nat}, since the Karatsuba multiplication behind the Bouncy Castle field
+ * classes allocates temporaries on every call.
+ */
+@SuppressWarnings("checkstyle:MemberName")
+enum LimbField {
+
+  P256(8, 16, SecP256R1Curve.q) {
+    @Override
+    void add(final int[] x, final int[] y, final int[] z) {
+      SecP256R1Field.add(x, y, z);
+    }
+
+    @Override
+    void subtract(final int[] x, final int[] y, final int[] z) {
+      SecP256R1Field.subtract(x, y, z);
+    }
+
+    @Override
+    void multiply(final int[] x, final int[] y, final int[] z, final int[] tt) {
+      SecP256R1Field.multiply(x, y, z, tt);
+    }
+
+    @Override
+    void square(final int[] x, final int[] z, final int[] tt) {
+      SecP256R1Field.square(x, z, tt);
+    }
+
+    @Override
+    void negate(final int[] x, final int[] z) {
+      SecP256R1Field.negate(x, z);
+    }
+
+    @Override
+    void inv(final int[] x, final int[] z) {
+      SecP256R1Field.inv(x, z);
+    }
+
+    @Override
+    void reduce(final int[] xx, final int[] z) {
+      SecP256R1Field.reduce(xx, z);
+    }
+  },
+
+  P384(12, 24, SecP384R1Curve.q) {
+    @Override
+    void add(final int[] x, final int[] y, final int[] z) {
+      SecP384R1Field.add(x, y, z);
+    }
+
+    @Override
+    void subtract(final int[] x, final int[] y, final int[] z) {
+      SecP384R1Field.subtract(x, y, z);
+    }
+
+    @Override
+    void multiply(final int[] x, final int[] y, final int[] z, final int[] tt) {
+      Nat.mul(12, x, y, tt);
+      SecP384R1Field.reduce(tt, z);
+    }
+
+    @Override
+    void square(final int[] x, final int[] z, final int[] tt) {
+      Nat.square(12, x, tt);
+      SecP384R1Field.reduce(tt, z);
+    }
+
+    @Override
+    void negate(final int[] x, final int[] z) {
+      SecP384R1Field.negate(x, z);
+    }
+
+    @Override
+    void inv(final int[] x, final int[] z) {
+      SecP384R1Field.inv(x, z);
+    }
+
+    @Override
+    void reduce(final int[] xx, final int[] z) {
+      SecP384R1Field.reduce(xx, z);
+    }
+  },
+
+  P521(17, 34, SecP521R1Curve.q) {
+    @Override
+    void add(final int[] x, final int[] y, final int[] z) {
+      SecP521R1Field.add(x, y, z);
+    }
+
+    @Override
+    void subtract(final int[] x, final int[] y, final int[] z) {
+      SecP521R1Field.subtract(x, y, z);
+    }
+
+    @Override
+    void multiply(final int[] x, final int[] y, final int[] z, final int[] tt) {
+      Nat.mul(17, x, y, tt);
+      SecP521R1Field.reduce(tt, z);
+    }
+
+    @Override
+    void square(final int[] x, final int[] z, final int[] tt) {
+      Nat.square(17, x, tt);
+      SecP521R1Field.reduce(tt, z);
+    }
+
+    @Override
+    void negate(final int[] x, final int[] z) {
+      SecP521R1Field.negate(x, z);
+    }
+
+    @Override
+    void inv(final int[] x, final int[] z) {
+      SecP521R1Field.inv(x, z);
+    }
+
+    @Override
+    void reduce(final int[] xx, final int[] z) {
+      SecP521R1Field.reduce(xx, z);
+    }
+  };
+
+  /** The number of 32-bit limbs of a field element. */
+  private final int size;
+  /** The number of 32-bit limbs of a double width product. */
+  private final int extSize;
+  /** The field prime. */
+  private final BigInteger p;
+
+  LimbField(final int size, final int extSize, final BigInteger p) {
+    this.size = size;
+    this.extSize = extSize;
+    this.p = p;
+  }
+
+  /**
+   * Get the limb field for a curve.
+   *
+   * @param curve the curve
+   * @return the limb field of the curve
+   * @throws IllegalArgumentException if the curve has no limb field implementation
+   */
+  static LimbField forCurve(final ECCurve curve) {
+    final BigInteger q = curve.getField().getCharacteristic();
+    for (final LimbField limbField : values()) {
+      if (limbField.p.equals(q)) {
+        return limbField;
+      }
+    }
+    throw new IllegalArgumentException("No limb field implementation for curve field " + q);
+  }
+
+  int getSize() {
+    return this.size;
+  }
+
+  int getExtSize() {
+    return this.extSize;
+  }
+
+  BigInteger getP() {
+    return this.p;
+  }
+
+  int[] create() {
+    return new int[this.size];
+  }
+
+  int[] createExt() {
+    return new int[this.extSize];
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @return the field element
+   */
+  int[] fromBigInteger(final BigInteger x) {
+    final int[] z = this.create();
+    this.fromBigInteger(x, z);
+    return z;
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @param z the field element to write
+   */
+  void fromBigInteger(final BigInteger x, final int[] z) {
+    final BigInteger reduced = x.signum() < 0 || x.compareTo(this.p) >= 0 ? x.mod(this.p) : x;
+    // Decode the big-endian two's complement bytes, skipping a leading sign byte
+    final byte[] bytes = reduced.toByteArray();
+    Arrays.fill(z, 0, this.size, 0);
+    for (int i = 0; i < bytes.length && i < 4 * this.size; i++) {
+      z[i >>> 2] |= (bytes[bytes.length - 1 - i] & 0xff) << ((i & 3) << 3);
+    }
+  }
+
+  BigInteger toBigInteger(final int[] x) {
+    return Nat.toBigInteger(this.size, x);
+  }
+
+  /**
+   * Constant time test if two field elements are equal.
+   *
+   * @param x field element
+   * @param y field element
+   * @return -1 if x equals y, else 0
+   */
+  int equalTo(final int[] x, final int[] y) {
+    return Nat.equalTo(this.size, x, y);
+  }
+
+  /**
+   * Constant time test if a field element is zero.
+   *
+   * @param x field element
+   * @return -1 if x is zero, else 0
+   */
+  int isZero(final int[] x) {
+    return Nat.equalToZero(this.size, x);
+  }
+
+  /**
+   * Constant time conditional move of x into z.
+   *
+   * @param mask -1 to move x into z, 0 to leave z unchanged
+   * @param x the source field element
+   * @param z the destination field element
+   */
+  void cmov(final int mask, final int[] x, final int[] z) {
+    Nat.cmov(this.size, mask, x, 0, z, 0);
+  }
+
+  void copy(final int[] x, final int[] z) {
+    System.arraycopy(x, 0, z, 0, this.size);
+  }
+
+  /**
+   * The sign of a fully reduced field element as defined by sgn0 for m = 1.
+   *
+   * @param x field element
+   * @return 1 if x is odd, else 0
+   */
+  int sgn0(final int[] x) {
+    return x[0] & 1;
+  }
+
+  abstract void add(int[] x, int[] y, int[] z);
+
+  abstract void subtract(int[] x, int[] y, int[] z);
+
+  abstract void multiply(int[] x, int[] y, int[] z, int[] tt);
+
+  abstract void square(int[] x, int[] z, int[] tt);
+
+  abstract void negate(int[] x, int[] z);
+
+  abstract void inv(int[] x, int[] z);
+
+  /**
+   * Reduces a double width value of {@link #getExtSize()} limbs modulo p.
+   *
+   * @param xx the double width value
+   * @param z the reduced field element
+   */
+  abstract void reduce(int[] xx, int[] z);
+
+}
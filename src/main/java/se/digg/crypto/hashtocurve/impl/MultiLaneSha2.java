@@ -0,0 +1,358 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.bouncycastle.util.Pack;
+
+/**
+ * SHA-256, SHA-384 and SHA-512 over many independent messages at once, one message per lane of a
+ * vector register.
+ *
+ * <p>The compression function only uses additions, rotations and bitwise operations on 32-bit or
+ * 64-bit words, so one vector instruction performs the same step for every lane. With the
+ * preferred species of the platform, a 512-bit vector unit hashes 16 messages with SHA-256 or 8
+ * messages with SHA-384 and SHA-512 per compression. Messages of different lengths are padded
+ * individually, and the lanes of messages that have run out of blocks keep their state through a
+ * lane mask. The output is bit-identical to the scalar digests.
+ *
+ * <p>This class uses the incubating Vector API and must only be loaded after
+ * {@link VectorSupport#isEnabled()} has confirmed that the module is present.
+ */
+@SuppressWarnings("checkstyle:AbbreviationAsWordInName")
+final class MultiLaneSha2 {
+
+  private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+  private static final int[] K256 = {
+      0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5,
+      0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
+      0xd807aa98, 0x12835b01, 0x243185be, 0x550c7dc3,
+      0x72be5d74, 0x80deb1fe, 0x9bdc06a7, 0xc19bf174,
+      0xe49b69c1, 0xefbe4786, 0x0fc19dc6, 0x240ca1cc,
+      0x2de92c6f, 0x4a7484aa, 0x5cb0a9dc, 0x76f988da,
+      0x983e5152, 0xa831c66d, 0xb00327c8, 0xbf597fc7,
+      0xc6e00bf3, 0xd5a79147, 0x06ca6351, 0x14292967,
+      0x27b70a85, 0x2e1b2138, 0x4d2c6dfc, 0x53380d13,
+      0x650a7354, 0x766a0abb, 0x81c2c92e, 0x92722c85,
+      0xa2bfe8a1, 0xa81a664b, 0xc24b8b70, 0xc76c51a3,
+      0xd192e819, 0xd6990624, 0xf40e3585, 0x106aa070,
+      0x19a4c116, 0x1e376c08, 0x2748774c, 0x34b0bcb5,
+      0x391c0cb3, 0x4ed8aa4a, 0x5b9cca4f, 0x682e6ff3,
+      0x748f82ee, 0x78a5636f, 0x84c87814, 0x8cc70208,
+      0x90befffa, 0xa4506ceb, 0xbef9a3f7, 0xc67178f2};
+
+  private static final long[] K512 = {
+      0x428a2f98d728ae22L, 0x7137449123ef65cdL, 0xb5c0fbcfec4d3b2fL, 0xe9b5dba58189dbbcL,
+      0x3956c25bf348b538L, 0x59f111f1b605d019L, 0x923f82a4af194f9bL, 0xab1c5ed5da6d8118L,
+      0xd807aa98a3030242L, 0x12835b0145706fbeL, 0x243185be4ee4b28cL, 0x550c7dc3d5ffb4e2L,
+      0x72be5d74f27b896fL, 0x80deb1fe3b1696b1L, 0x9bdc06a725c71235L, 0xc19bf174cf692694L,
+      0xe49b69c19ef14ad2L, 0xefbe4786384f25e3L, 0x0fc19dc68b8cd5b5L, 0x240ca1cc77ac9c65L,
+      0x2de92c6f592b0275L, 0x4a7484aa6ea6e483L, 0x5cb0a9dcbd41fbd4L, 0x76f988da831153b5L,
+      0x983e5152ee66dfabL, 0xa831c66d2db43210L, 0xb00327c898fb213fL, 0xbf597fc7beef0ee4L,
+      0xc6e00bf33da88fc2L, 0xd5a79147930aa725L, 0x06ca6351e003826fL, 0x142929670a0e6e70L,
+      0x27b70a8546d22ffcL, 0x2e1b21385c26c926L, 0x4d2c6dfc5ac42aedL, 0x53380d139d95b3dfL,
+      0x650a73548baf63deL, 0x766a0abb3c77b2a8L, 0x81c2c92e47edaee6L, 0x92722c851482353bL,
+      0xa2bfe8a14cf10364L, 0xa81a664bbc423001L, 0xc24b8b70d0f89791L, 0xc76c51a30654be30L,
+      0xd192e819d6ef5218L, 0xd69906245565a910L, 0xf40e35855771202aL, 0x106aa07032bbd1b8L,
+      0x19a4c116b8d2d0c8L, 0x1e376c085141ab53L, 0x2748774cdf8eeb99L, 0x34b0bcb5e19b48a8L,
+      0x391c0cb3c5c95a63L, 0x4ed8aa4ae3418acbL, 0x5b9cca4f7763e373L, 0x682e6ff3d6b2b8a3L,
+      0x748f82ee5defb2fcL, 0x78a5636f43172f60L, 0x84c87814a1f0ab72L, 0x8cc702081a6439ecL,
+      0x90befffa23631e28L, 0xa4506cebde82bde9L, 0xbef9a3f7b2c67915L, 0xc67178f2e372532bL,
+      0xca273eceea26619cL, 0xd186b8c721c0c207L, 0xeada7dd6cde0eb1eL, 0xf57d4f7fee6ed178L,
+      0x06f067aa72176fbaL, 0x0a637dc5a2c898a6L, 0x113f9804bef90daeL, 0x1b710b35131c471bL,
+      0x28db77f523047d84L, 0x32caab7b40c72493L, 0x3c9ebe0a15c9bebcL, 0x431d67c49c100d4cL,
+      0x4cc5d4becb3e42b6L, 0x597f299cfc657e2aL, 0x5fcb6fab3ad6faecL, 0x6c44198c4a475817L};
+
+  private static final int[] IV256 = {
+      0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+      0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19};
+
+  private static final long[] IV384 = {
+      0xcbbb9d5dc1059ed8L, 0x629a292a367cd507L, 0x9159015a3070dd17L, 0x152fecd8f70e5939L,
+      0x67332667ffc00b31L, 0x8eb44a8768581511L, 0xdb0c2e0d64f98fa7L, 0x47b5481dbefa4fa4L};
+
+  private static final long[] IV512 = {
+      0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL, 0xa54ff53a5f1d36f1L,
+      0x510e527fade682d1L, 0x9b05688c2b3e6c1fL, 0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L};
+
+  private MultiLaneSha2() {
+  }
+
+  /**
+   * Tells whether an algorithm is supported.
+   *
+   * @param algorithm the algorithm name of a digest
+   * @return true if the algorithm is SHA-256, SHA-384 or SHA-512
+   */
+  static boolean isSupported(final String algorithm) {
+    return "SHA-256".equals(algorithm) || "SHA-384".equals(algorithm)
+        || "SHA-512".equals(algorithm);
+  }
+
+  /**
+   * Hashes head || tail for each tail. The complete blocks of the common head are compressed once
+   * and the resulting state is shared by all lanes.
+   *
+   * @param algorithm the algorithm name, SHA-256, SHA-384 or SHA-512
+   * @param head the common start of all messages
+   * @param tails the rest of each message
+   * @return the digest of each message, in the same order as the tails
+   * @throws IllegalArgumentException if the algorithm is not supported
+   */
+  static byte[][] digest(final String algorithm, final byte[] head, final byte[][] tails) {
+    return switch (algorithm) {
+      case "SHA-256" -> digest256(head, tails);
+      case "SHA-384" -> digest512(IV384, 48, head, tails);
+      case "SHA-512" -> digest512(IV512, 64, head, tails);
+      default -> throw new IllegalArgumentException("Unsupported digest algorithm " + algorithm);
+    };
+  }
+
+  private static byte[][] digest256(final byte[] head, final byte[][] tails) {
+    final int lanes = INTS.length();
+    final int headBlocks = head.length / 64;
+    final IntVector[] w = new IntVector[64];
+    final IntVector[] midstate = new IntVector[8];
+    for (int i = 0; i < 8; i++) {
+      midstate[i] = IntVector.broadcast(INTS, IV256[i]);
+    }
+    for (int block = 0; block < headBlocks; block++) {
+      for (int t = 0; t < 16; t++) {
+        w[t] = IntVector.broadcast(INTS, Pack.bigEndianToInt(head, block * 64 + t * 4));
+      }
+      compress256(midstate, w, INTS.maskAll(true));
+    }
+
+    final byte[][] digests = new byte[tails.length][];
+    final byte[][] padded = new byte[lanes][];
+    final int[] words = new int[lanes];
+    final boolean[] active = new boolean[lanes];
+    final IntVector[] state = new IntVector[8];
+    for (int first = 0; first < tails.length; first += lanes) {
+      final int count = Math.min(lanes, tails.length - first);
+      int blocks = 0;
+      for (int lane = 0; lane < count; lane++) {
+        padded[lane] = pad(head, headBlocks * 64, tails[first + lane], 64, 8);
+        blocks = Math.max(blocks, padded[lane].length / 64);
+      }
+      System.arraycopy(midstate, 0, state, 0, 8);
+      for (int block = 0; block < blocks; block++) {
+        for (int lane = 0; lane < lanes; lane++) {
+          active[lane] = lane < count && block * 64 < padded[lane].length;
+        }
+        for (int t = 0; t < 16; t++) {
+          for (int lane = 0; lane < lanes; lane++) {
+            words[lane] = active[lane] ? Pack.bigEndianToInt(padded[lane], block * 64 + t * 4) : 0;
+          }
+          w[t] = IntVector.fromArray(INTS, words, 0);
+        }
+        compress256(state, w, VectorMask.fromArray(INTS, active, 0));
+      }
+      for (int lane = 0; lane < count; lane++) {
+        final byte[] digest = new byte[32];
+        for (int i = 0; i < 8; i++) {
+          Pack.intToBigEndian(state[i].lane(lane), digest, i * 4);
+        }
+        digests[first + lane] = digest;
+      }
+    }
+    return digests;
+  }
+
+  /**
+   * Compresses one block per lane into the state of the lanes set in the mask.
+   *
+   * @param state the chaining values, updated in place
+   * @param w the message schedule, of which the first 16 words hold the block
+   * @param active the lanes to update
+   */
+  private static void compress256(final IntVector[] state, final IntVector[] w,
+      final VectorMask<Integer> active) {
+    for (int t = 16; t < 64; t++) {
+      final IntVector s0 = w[t - 15].lanewise(VectorOperators.ROR, 7)
+          .lanewise(VectorOperators.XOR, w[t - 15].lanewise(VectorOperators.ROR, 18))
+          .lanewise(VectorOperators.XOR, w[t - 15].lanewise(VectorOperators.LSHR, 3));
+      final IntVector s1 = w[t - 2].lanewise(VectorOperators.ROR, 17)
+          .lanewise(VectorOperators.XOR, w[t - 2].lanewise(VectorOperators.ROR, 19))
+          .lanewise(VectorOperators.XOR, w[t - 2].lanewise(VectorOperators.LSHR, 10));
+      w[t] = w[t - 16].add(s0).add(w[t - 7]).add(s1);
+    }
+    IntVector a = state[0];
+    IntVector b = state[1];
+    IntVector c = state[2];
+    IntVector d = state[3];
+    IntVector e = state[4];
+    IntVector f = state[5];
+    IntVector g = state[6];
+    IntVector h = state[7];
+    for (int t = 0; t < 64; t++) {
+      final IntVector sigma1 = e.lanewise(VectorOperators.ROR, 6)
+          .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 11))
+          .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 25));
+      final IntVector ch = e.and(f).or(e.not().and(g));
+      final IntVector t1 = h.add(sigma1).add(ch).add(K256[t]).add(w[t]);
+      final IntVector sigma0 = a.lanewise(VectorOperators.ROR, 2)
+          .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 13))
+          .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 22));
+      final IntVector maj = a.and(b).or(a.and(c)).or(b.and(c));
+      h = g;
+      g = f;
+      f = e;
+      e = d.add(t1);
+      d = c;
+      c = b;
+      b = a;
+      a = t1.add(sigma0).add(maj);
+    }
+    state[0] = state[0].add(a, active);
+    state[1] = state[1].add(b, active);
+    state[2] = state[2].add(c, active);
+    state[3] = state[3].add(d, active);
+    state[4] = state[4].add(e, active);
+    state[5] = state[5].add(f, active);
+    state[6] = state[6].add(g, active);
+    state[7] = state[7].add(h, active);
+  }
+
+  private static byte[][] digest512(final long[] iv, final int digestSize, final byte[] head,
+      final byte[][] tails) {
+    final int lanes = LONGS.length();
+    final int headBlocks = head.length / 128;
+    final LongVector[] w = new LongVector[80];
+    final LongVector[] midstate = new LongVector[8];
+    for (int i = 0; i < 8; i++) {
+      midstate[i] = LongVector.broadcast(LONGS, iv[i]);
+    }
+    for (int block = 0; block < headBlocks; block++) {
+      for (int t = 0; t < 16; t++) {
+        w[t] = LongVector.broadcast(LONGS, Pack.bigEndianToLong(head, block * 128 + t * 8));
+      }
+      compress512(midstate, w, LONGS.maskAll(true));
+    }
+
+    final byte[][] digests = new byte[tails.length][];
+    final byte[][] padded = new byte[lanes][];
+    final long[] words = new long[lanes];
+    final boolean[] active = new boolean[lanes];
+    final LongVector[] state = new LongVector[8];
+    final byte[] full = new byte[64];
+    for (int first = 0; first < tails.length; first += lanes) {
+      final int count = Math.min(lanes, tails.length - first);
+      int blocks = 0;
+      for (int lane = 0; lane < count; lane++) {
+        padded[lane] = pad(head, headBlocks * 128, tails[first + lane], 128, 16);
+        blocks = Math.max(blocks, padded[lane].length / 128);
+      }
+      System.arraycopy(midstate, 0, state, 0, 8);
+      for (int block = 0; block < blocks; block++) {
+        for (int lane = 0; lane < lanes; lane++) {
+          active[lane] = lane < count && block * 128 < padded[lane].length;
+        }
+        for (int t = 0; t < 16; t++) {
+          for (int lane = 0; lane < lanes; lane++) {
+            words[lane] =
+                active[lane] ? Pack.bigEndianToLong(padded[lane], block * 128 + t * 8) : 0;
+          }
+          w[t] = LongVector.fromArray(LONGS, words, 0);
+        }
+        compress512(state, w, VectorMask.fromArray(LONGS, active, 0));
+      }
+      for (int lane = 0; lane < count; lane++) {
+        for (int i = 0; i < 8; i++) {
+          Pack.longToBigEndian(state[i].lane(lane), full, i * 8);
+        }
+        final byte[] digest = new byte[digestSize];
+        System.arraycopy(full, 0, digest, 0, digestSize);
+        digests[first + lane] = digest;
+      }
+    }
+    return digests;
+  }
+
+  /**
+   * Compresses one block per lane into the state of the lanes set in the mask.
+   *
+   * @param state the chaining values, updated in place
+   * @param w the message schedule, of which the first 16 words hold the block
+   * @param active the lanes to update
+   */
+  private static void compress512(final LongVector[] state, final LongVector[] w,
+      final VectorMask<Long> active) {
+    for (int t = 16; t < 80; t++) {
+      final LongVector s0 = w[t - 15].lanewise(VectorOperators.ROR, 1)
+          .lanewise(VectorOperators.XOR, w[t - 15].lanewise(VectorOperators.ROR, 8))
+          .lanewise(VectorOperators.XOR, w[t - 15].lanewise(VectorOperators.LSHR, 7));
+      final LongVector s1 = w[t - 2].lanewise(VectorOperators.ROR, 19)
+          .lanewise(VectorOperators.XOR, w[t - 2].lanewise(VectorOperators.ROR, 61))
+          .lanewise(VectorOperators.XOR, w[t - 2].lanewise(VectorOperators.LSHR, 6));
+      w[t] = w[t - 16].add(s0).add(w[t - 7]).add(s1);
+    }
+    LongVector a = state[0];
+    LongVector b = state[1];
+    LongVector c = state[2];
+    LongVector d = state[3];
+    LongVector e = state[4];
+    LongVector f = state[5];
+    LongVector g = state[6];
+    LongVector h = state[7];
+    for (int t = 0; t < 80; t++) {
+      final LongVector sigma1 = e.lanewise(VectorOperators.ROR, 14)
+          .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 18))
+          .lanewise(VectorOperators.XOR, e.lanewise(VectorOperators.ROR, 41));
+      final LongVector ch = e.and(f).or(e.not().and(g));
+      final LongVector t1 = h.add(sigma1).add(ch).add(K512[t]).add(w[t]);
+      final LongVector sigma0 = a.lanewise(VectorOperators.ROR, 28)
+          .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 34))
+          .lanewise(VectorOperators.XOR, a.lanewise(VectorOperators.ROR, 39));
+      final LongVector maj = a.and(b).or(a.and(c)).or(b.and(c));
+      h = g;
+      g = f;
+      f = e;
+      e = d.add(t1);
+      d = c;
+      c = b;
+      b = a;
+      a = t1.add(sigma0).add(maj);
+    }
+    state[0] = state[0].add(a, active);
+    state[1] = state[1].add(b, active);
+    state[2] = state[2].add(c, active);
+    state[3] = state[3].add(d, active);
+    state[4] = state[4].add(e, active);
+    state[5] = state[5].add(f, active);
+    state[6] = state[6].add(g, active);
+    state[7] = state[7].add(h, active);
+  }
+
+  /**
+   * Pads the part of head || tail that follows the already compressed blocks of the head.
+   *
+   * @param head the common start of the messages
+   * @param offset the number of head bytes already compressed, a multiple of the block size
+   * @param tail the rest of the message
+   * @param blockBytes the block size in bytes
+   * @param lengthBytes the size in bytes of the message length field
+   * @return the remaining bytes of the message followed by the padding, a multiple of the block
+   *         size
+   */
+  private static byte[] pad(final byte[] head, final int offset, final byte[] tail,
+      final int blockBytes, final int lengthBytes) {
+    final int rest = head.length - offset + tail.length;
+    final int paddedLength = (rest + lengthBytes + blockBytes) / blockBytes * blockBytes;
+    final byte[] padded = new byte[paddedLength];
+    System.arraycopy(head, offset, padded, 0, head.length - offset);
+    System.arraycopy(tail, 0, padded, head.length - offset, tail.length);
+    padded[rest] = (byte) 0x80;
+    Pack.longToBigEndian(((long) head.length + tail.length) << 3, padded, paddedLength - 8);
+    return padded;
+  }
+
+}
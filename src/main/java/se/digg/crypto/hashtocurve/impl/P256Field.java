@@ -0,0 +1,537 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Montgomery arithmetic on four 64-bit limbs for the base field of P-256, with
+ * p = 2^256 - 2^224 + 2^192 + 2^96 - 1.
+ *
+ * <p>Field elements are little-endian arrays of {@link #SIZE} limbs holding the Montgomery form
+ * x * 2^256 mod p, fully reduced, so that equality and zero tests compare limbs directly. The
+ * multiplication is the coarsely integrated operand scanning (CIOS) Montgomery multiplication on
+ * {@link Math#unsignedMultiplyHigh(long, long)}, unrolled over the limbs of y, and the squaring
+ * forms only the ten distinct limb products before reducing. The reduction steps exploit the
+ * special form of p in the manner of Solinas: the low limb of p is 2^64 - 1, so -p^-1 = 1
+ * (mod 2^64) and the Montgomery quotient digit is the low limb itself, and the products of the
+ * quotient digit with the limbs 2^64 - 1, 2^32 - 1, 0 and 2^64 - 2^32 + 1 of p are formed with
+ * shifts and subtractions instead of multiplications. p has no spare bits in the top limb, so sums
+ * carry into a fifth limb before the final conditional subtraction. The arithmetic keeps its
+ * intermediate values in local variables and does not allocate, and all operations run in
+ * constant time: carries and selections are computed with masks, and the exponentiations for
+ * inversion and square roots use fixed addition chains for their public exponents.
+ */
+final class P256Field {
+
+  /** The number of 64-bit limbs of a field element. */
+  static final int SIZE = 4;
+
+  /** The field prime. */
+  static final BigInteger P = new BigInteger(
+      "ffffffff00000001000000000000000000000000ffffffffffffffffffffffff", 16);
+
+  private static final long P0 = 0xffffffffffffffffL;
+  private static final long P1 = 0x00000000ffffffffL;
+  private static final long P3 = 0xffffffff00000001L;
+  /** 2^512 mod p, converts to Montgomery form. */
+  private static final long[] R2 = toLimbs(BigInteger.ONE.shiftLeft(512).mod(P));
+  private static final long[] ZERO = new long[SIZE];
+  /** The Montgomery form of 1, 2^256 mod p. */
+  private static final long[] ONE = toLimbs(BigInteger.ONE.shiftLeft(256).mod(P));
+  /** The integer 1, converts from Montgomery form. */
+  private static final long[] RAW_ONE = {1, 0, 0, 0};
+
+  /** The number of field elements of the exponentiation scratch table. */
+  static final int TABLE_SIZE = 6;
+
+  private P256Field() {
+  }
+
+  static long[] create() {
+    return new long[SIZE];
+  }
+
+  /**
+   * Creates the Montgomery form of 1.
+   *
+   * @return the field element 1
+   */
+  static long[] one() {
+    return ONE.clone();
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @return the field element
+   */
+  static long[] fromBigInteger(final BigInteger x) {
+    final long[] z = create();
+    fromBigInteger(x, z);
+    return z;
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @param z the field element to write
+   */
+  static void fromBigInteger(final BigInteger x, final long[] z) {
+    final BigInteger reduced = x.signum() < 0 || x.compareTo(P) >= 0 ? x.mod(P) : x;
+    // Decode the big-endian two's complement bytes, skipping a leading sign byte
+    final byte[] bytes = reduced.toByteArray();
+    Arrays.fill(z, 0, SIZE, 0L);
+    for (int i = 0; i < bytes.length && i < 8 * SIZE; i++) {
+      z[i >>> 3] |= (bytes[bytes.length - 1 - i] & 0xffL) << ((i & 7) << 3);
+    }
+    multiply(z, R2, z);
+  }
+
+  /**
+   * Converts a field element to its integer value.
+   *
+   * @param x the field element
+   * @return the integer value of x, in the range [0, p)
+   */
+  static BigInteger toBigInteger(final long[] x) {
+    final long[] raw = create();
+    multiply(x, RAW_ONE, raw);
+    final byte[] bytes = new byte[8 * SIZE];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[bytes.length - 1 - i] = (byte) (raw[i >>> 3] >>> ((i & 7) << 3));
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  static void copy(final long[] x, final long[] z) {
+    System.arraycopy(x, 0, z, 0, SIZE);
+  }
+
+  /**
+   * Constant time test if two field elements are equal.
+   *
+   * @param x field element
+   * @param y field element
+   * @return -1 if x equals y, else 0
+   */
+  static int equalTo(final long[] x, final long[] y) {
+    final long d = (x[0] ^ y[0]) | (x[1] ^ y[1]) | (x[2] ^ y[2]) | (x[3] ^ y[3]);
+    return (int) ((d | -d) >> 63) ^ -1;
+  }
+
+  /**
+   * Constant time test if a field element is zero.
+   *
+   * @param x field element
+   * @return -1 if x is zero, else 0
+   */
+  static int isZero(final long[] x) {
+    return equalTo(x, ZERO);
+  }
+
+  /**
+   * Constant time conditional move of x into z.
+   *
+   * @param mask -1 to move x into z, 0 to leave z unchanged
+   * @param x the source field element
+   * @param z the destination field element
+   */
+  static void cmov(final int mask, final long[] x, final long[] z) {
+    final long m = mask;
+    z[0] ^= (z[0] ^ x[0]) & m;
+    z[1] ^= (z[1] ^ x[1]) & m;
+    z[2] ^= (z[2] ^ x[2]) & m;
+    z[3] ^= (z[3] ^ x[3]) & m;
+  }
+
+  /**
+   * The sign of a field element as defined by sgn0 for m = 1.
+   *
+   * @param x field element
+   * @param tt scratch field element
+   * @return 1 if the integer value of x is odd, else 0
+   */
+  static int sgn0(final long[] x, final long[] tt) {
+    // Convert out of Montgomery form in the scratch element and take the low bit
+    multiply(x, RAW_ONE, tt);
+    return (int) (tt[0] & 1);
+  }
+
+  static void add(final long[] x, final long[] y, final long[] z) {
+    final long s0 = x[0] + y[0];
+    long c = carryOf(x[0], y[0], s0);
+    long s = x[1] + y[1];
+    long c1 = carryOf(x[1], y[1], s);
+    final long s1 = s + c;
+    c = c1 | carryOf(s, c, s1);
+    s = x[2] + y[2];
+    c1 = carryOf(x[2], y[2], s);
+    final long s2 = s + c;
+    c = c1 | carryOf(s, c, s2);
+    s = x[3] + y[3];
+    c1 = carryOf(x[3], y[3], s);
+    final long s3 = s + c;
+    c = c1 | carryOf(s, c, s3);
+    reduceOnce(s0, s1, s2, s3, c, z);
+  }
+
+  static void subtract(final long[] x, final long[] y, final long[] z) {
+    final long d0 = x[0] - y[0];
+    long b = borrowOf(x[0], y[0], d0);
+    long d = x[1] - y[1];
+    long b1 = borrowOf(x[1], y[1], d);
+    final long d1 = d - b;
+    b = b1 | borrowOf(d, b, d1);
+    d = x[2] - y[2];
+    b1 = borrowOf(x[2], y[2], d);
+    final long d2 = d - b;
+    b = b1 | borrowOf(d, b, d2);
+    d = x[3] - y[3];
+    b1 = borrowOf(x[3], y[3], d);
+    final long d3 = d - b;
+    b = b1 | borrowOf(d, b, d3);
+
+    // Add p back if the difference was negative
+    final long mask = -b;
+    final long a0 = P0 & mask;
+    final long a1 = P1 & mask;
+    final long a3 = P3 & mask;
+    final long z0 = d0 + a0;
+    long c = carryOf(d0, a0, z0);
+    long s = d1 + a1;
+    long c1 = carryOf(d1, a1, s);
+    final long z1 = s + c;
+    c = c1 | carryOf(s, c, z1);
+    final long z2 = d2 + c;
+    c = carryOf(d2, c, z2);
+    s = d3 + a3;
+    final long z3 = s + c;
+    z[0] = z0;
+    z[1] = z1;
+    z[2] = z2;
+    z[3] = z3;
+  }
+
+  static void negate(final long[] x, final long[] z) {
+    subtract(ZERO, x, z);
+  }
+
+  /**
+   * Montgomery multiplication z = x * y.
+   *
+   * @param x field element
+   * @param y field element
+   * @param z the product, may be the same array as x or y
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  static void multiply(final long[] x, final long[] y, final long[] z) {
+    final long y0 = y[0];
+    final long y1 = y[1];
+    final long y2 = y[2];
+    final long y3 = y[3];
+    long t0 = 0;
+    long t1 = 0;
+    long t2 = 0;
+    long t3 = 0;
+    long t4 = 0;
+    for (int i = 0; i < SIZE; i++) {
+      // t += x[i] * y
+      final long xi = x[i];
+      long lo = xi * y0;
+      long hi = Math.unsignedMultiplyHigh(xi, y0);
+      long s = t0 + lo;
+      long c = hi + carryOf(t0, lo, s);
+      t0 = s;
+      lo = xi * y1;
+      hi = Math.unsignedMultiplyHigh(xi, y1);
+      s = t1 + lo;
+      hi += carryOf(t1, lo, s);
+      t1 = s + c;
+      c = hi + carryOf(s, c, t1);
+      lo = xi * y2;
+      hi = Math.unsignedMultiplyHigh(xi, y2);
+      s = t2 + lo;
+      hi += carryOf(t2, lo, s);
+      t2 = s + c;
+      c = hi + carryOf(s, c, t2);
+      lo = xi * y3;
+      hi = Math.unsignedMultiplyHigh(xi, y3);
+      s = t3 + lo;
+      hi += carryOf(t3, lo, s);
+      t3 = s + c;
+      c = hi + carryOf(s, c, t3);
+      s = t4 + c;
+      final long t5 = carryOf(t4, c, s);
+      t4 = s;
+
+      // t = (t + m * p) / 2^64 with the quotient digit m = t0, since -p^-1 = 1 (mod 2^64).
+      // t0 + m * (2^64 - 1) = t0 * 2^64, so the low limb vanishes and carries m, which adds
+      // to m * (2^32 - 1) in the next limb to give m * 2^32.
+      final long m = t0;
+      final long ml = m << 32;
+      final long mh = m >>> 32;
+      // m * (2^64 - 2^32 + 1) = h3 * 2^64 + l3
+      final long l3 = m - ml;
+      final long h3 = m - mh - borrowOf(m, ml, l3);
+      t0 = t1 + ml;
+      c = mh + carryOf(t1, ml, t0);
+      t1 = t2 + c;
+      c = carryOf(t2, c, t1);
+      s = t3 + l3;
+      hi = h3 + carryOf(t3, l3, s);
+      t2 = s + c;
+      c = hi + carryOf(s, c, t2);
+      t3 = t4 + c;
+      t4 = t5 + carryOf(t4, c, t3);
+    }
+    reduceOnce(t0, t1, t2, t3, t4, z);
+  }
+
+  /**
+   * Montgomery squaring z = x^2. The ten distinct limb products of the square are formed once,
+   * doubled and reduced by the same quotient digit steps as {@link #multiply(long[], long[],
+   * long[])}, separated from the product rather than interleaved with it.
+   *
+   * @param x field element
+   * @param z the square, may be the same array as x
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  static void square(final long[] x, final long[] z) {
+    final long x0 = x[0];
+    final long x1 = x[1];
+    final long x2 = x[2];
+    final long x3 = x[3];
+
+    // Products x[i] * x[j] for i < j in t1 to t6
+    long t1 = x0 * x1;
+    long t2 = Math.unsignedMultiplyHigh(x0, x1);
+    long lo = x0 * x2;
+    long hi = Math.unsignedMultiplyHigh(x0, x2);
+    long s = t2 + lo;
+    long c = hi + carryOf(t2, lo, s);
+    t2 = s;
+    lo = x0 * x3;
+    hi = Math.unsignedMultiplyHigh(x0, x3);
+    long t3 = lo + c;
+    long t4 = hi + carryOf(lo, c, t3);
+    lo = x1 * x2;
+    hi = Math.unsignedMultiplyHigh(x1, x2);
+    s = t3 + lo;
+    c = hi + carryOf(t3, lo, s);
+    t3 = s;
+    lo = x1 * x3;
+    hi = Math.unsignedMultiplyHigh(x1, x3);
+    s = t4 + lo;
+    hi += carryOf(t4, lo, s);
+    t4 = s + c;
+    long t5 = hi + carryOf(s, c, t4);
+    lo = x2 * x3;
+    hi = Math.unsignedMultiplyHigh(x2, x3);
+    s = t5 + lo;
+    long t6 = hi + carryOf(t5, lo, s);
+    t5 = s;
+
+    // Double, then add the squares x[i]^2
+    long t7 = t6 >>> 63;
+    t6 = (t6 << 1) | (t5 >>> 63);
+    t5 = (t5 << 1) | (t4 >>> 63);
+    t4 = (t4 << 1) | (t3 >>> 63);
+    t3 = (t3 << 1) | (t2 >>> 63);
+    t2 = (t2 << 1) | (t1 >>> 63);
+    t1 <<= 1;
+    long t0 = x0 * x0;
+    hi = Math.unsignedMultiplyHigh(x0, x0);
+    s = t1 + hi;
+    c = carryOf(t1, hi, s);
+    t1 = s;
+    lo = x1 * x1;
+    hi = Math.unsignedMultiplyHigh(x1, x1);
+    s = t2 + lo;
+    long c1 = carryOf(t2, lo, s);
+    t2 = s + c;
+    c = c1 | carryOf(s, c, t2);
+    s = t3 + hi;
+    c1 = carryOf(t3, hi, s);
+    t3 = s + c;
+    c = c1 | carryOf(s, c, t3);
+    lo = x2 * x2;
+    hi = Math.unsignedMultiplyHigh(x2, x2);
+    s = t4 + lo;
+    c1 = carryOf(t4, lo, s);
+    t4 = s + c;
+    c = c1 | carryOf(s, c, t4);
+    s = t5 + hi;
+    c1 = carryOf(t5, hi, s);
+    t5 = s + c;
+    c = c1 | carryOf(s, c, t5);
+    lo = x3 * x3;
+    hi = Math.unsignedMultiplyHigh(x3, x3);
+    s = t6 + lo;
+    c1 = carryOf(t6, lo, s);
+    t6 = s + c;
+    c = c1 | carryOf(s, c, t6);
+    t7 += hi + c;
+
+    // Four reduction steps, each clearing the low limb and shifting the window of limbs down.
+    // The carry out of the window top is added to the next limb by the following step.
+    long top = 0;
+    for (int i = 0; i < SIZE; i++) {
+      final long m = t0;
+      final long ml = m << 32;
+      final long mh = m >>> 32;
+      final long l3 = m - ml;
+      final long h3 = m - mh - borrowOf(m, ml, l3);
+      t0 = t1 + ml;
+      c = mh + carryOf(t1, ml, t0);
+      t1 = t2 + c;
+      c = carryOf(t2, c, t1);
+      s = t3 + l3;
+      hi = h3 + carryOf(t3, l3, s);
+      t2 = s + c;
+      c = hi + carryOf(s, c, t2);
+      s = t4 + c;
+      c1 = carryOf(t4, c, s);
+      t3 = s + top;
+      top = c1 | carryOf(s, top, t3);
+      t4 = t5;
+      t5 = t6;
+      t6 = t7;
+      t7 = 0;
+    }
+    reduceOnce(t0, t1, t2, t3, top, z);
+  }
+
+  /**
+   * Inversion z = x^(p - 2), with the inverse of zero defined as zero as by inv0 of RFC 9380.
+   *
+   * <p>p - 2 = 2^256 - 2^224 + 2^192 + 2^96 - 3 consists of a run of 32 ones, a single one and a
+   * run of 94 ones followed by the bits 01, which the addition chain of
+   * {@link #powC1(long[], long[], long[][])} covers with 255 squarings and 13 multiplications.
+   *
+   * @param x field element
+   * @param z the inverse, may be the same array as x
+   * @param table scratch table of {@link #TABLE_SIZE} field elements
+   */
+  static void inv(final long[] x, final long[] z, final long[][] table) {
+    powers(x, table);
+    // Bits 255 to 224, then bit 192
+    squareMultiply(table[5], 32, table[0], z);
+    // Bits 95 to 2, after 96 zero bits, then bit 0
+    onesTail(z, 96, table);
+    squareMultiply(z, 2, table[0], z);
+  }
+
+  /**
+   * Raises x to the exponent c1 = (p - 3) / 4 of the sqrt_ratio subroutine for q = 3 (mod 4).
+   *
+   * <p>c1 = 2^254 - 2^222 + 2^190 + 2^94 - 1 consists of a run of 32 ones, a single one and a
+   * run of 94 ones, so an addition chain over x^(2^k - 1) for k = 2, 4, 8, 16 and 32 takes 253
+   * squarings and 12 multiplications, where a 4-bit window takes 256 squarings and about 48
+   * multiplications.
+   *
+   * @param x the base
+   * @param z the result, may be the same array as x
+   * @param table scratch table of {@link #TABLE_SIZE} field elements
+   */
+  static void powC1(final long[] x, final long[] z, final long[][] table) {
+    powers(x, table);
+    // Bits 253 to 222, then bit 190
+    squareMultiply(table[5], 32, table[0], z);
+    // Bits 93 to 0, after 96 zero bits
+    onesTail(z, 96, table);
+  }
+
+  static long[][] createTable() {
+    final long[][] table = new long[TABLE_SIZE][];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = create();
+    }
+    return table;
+  }
+
+  /**
+   * Writes x^(2^k - 1) for k = 1, 2, 4, 8, 16 and 32 to the table.
+   */
+  private static void powers(final long[] x, final long[][] table) {
+    copy(x, table[0]);
+    for (int i = 1; i < TABLE_SIZE; i++) {
+      squareMultiply(table[i - 1], 1 << (i - 1), table[i - 1], table[i]);
+    }
+  }
+
+  /**
+   * Appends a number of zero bits and then a run of 94 one bits to the exponent of z, computing
+   * z^(2^(zeros + 94)) x^(2^94 - 1) from the table of {@link #powers(long[], long[][])}.
+   */
+  private static void onesTail(final long[] z, final int zeros, final long[][] table) {
+    squareMultiply(z, zeros + 32, table[5], z);
+    squareMultiply(z, 32, table[5], z);
+    squareMultiply(z, 16, table[4], z);
+    squareMultiply(z, 8, table[3], z);
+    squareMultiply(z, 4, table[2], z);
+    squareMultiply(z, 2, table[1], z);
+  }
+
+  /**
+   * Computes z = x^(2^n) * y.
+   */
+  private static void squareMultiply(final long[] x, final int n, final long[] y,
+      final long[] z) {
+    square(x, z);
+    for (int i = 1; i < n; i++) {
+      square(z, z);
+    }
+    multiply(z, y, z);
+  }
+
+  /**
+   * Constant time subtraction of p from a value in [0, 2p) given as four limbs and a carry limb.
+   */
+  private static void reduceOnce(final long t0, final long t1, final long t2, final long t3,
+      final long t4, final long[] z) {
+    final long d0 = t0 - P0;
+    long b = borrowOf(t0, P0, d0);
+    long d = t1 - P1;
+    long b1 = borrowOf(t1, P1, d);
+    final long d1 = d - b;
+    b = b1 | borrowOf(d, b, d1);
+    // The limb p2 is zero
+    final long d2 = t2 - b;
+    b = borrowOf(t2, b, d2);
+    d = t3 - P3;
+    b1 = borrowOf(t3, P3, d);
+    final long d3 = d - b;
+    b = b1 | borrowOf(d, b, d3);
+    // Keep t if the trial subtraction borrowed beyond the carry limb
+    final long mask = -(b & ~t4 & 1);
+    z[0] = d0 ^ ((d0 ^ t0) & mask);
+    z[1] = d1 ^ ((d1 ^ t1) & mask);
+    z[2] = d2 ^ ((d2 ^ t2) & mask);
+    z[3] = d3 ^ ((d3 ^ t3) & mask);
+  }
+
+  /** The carry out of the unsigned sum s = a + b. */
+  private static long carryOf(final long a, final long b, final long s) {
+    return ((a & b) | ((a | b) & ~s)) >>> 63;
+  }
+
+  /** The borrow out of the unsigned difference d = a - b. */
+  private static long borrowOf(final long a, final long b, final long d) {
+    return ((~a & b) | (~(a ^ b) & d)) >>> 63;
+  }
+
+  private static long[] toLimbs(final BigInteger x) {
+    final long[] z = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      z[i] = x.shiftRight(64 * i).longValue();
+    }
+    return z;
+  }
+
+}
@@ -0,0 +1,30 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import se.digg.crypto.hashtocurve.SqrtRatioCalculator;
+import se.digg.crypto.hashtocurve.data.SqrtRatio;
+
+/**
+ * The sqrt_ratio subroutine for q = 3 (mod 4) of section F.2.1.2 of RFC 9380 for the base field
+ * of P-256 with Z = -10, on the 64-bit limb arithmetic of {@link P256Field}. This is the kernel
+ * used by {@link P256MapToCurve}, for use with {@link ShallueVanDeWoestijneMapToCurve} and other
+ * callers of the {@link SqrtRatioCalculator} interface. The returned square root may differ in
+ * sign from that of {@link GenericSqrtRatioCalculator}, which is permitted by the specification.
+ */
+@SuppressWarnings("checkstyle:AbbreviationAsWordInName")
+public class P256SqrtRatioCalculator implements SqrtRatioCalculator {
+
+  @Override
+  public SqrtRatio sqrtRatio(final BigInteger u, final BigInteger v) {
+    final P256MapToCurve.Temporaries t = new P256MapToCurve.Temporaries();
+    P256Field.fromBigInteger(u, t.tv1);
+    P256Field.fromBigInteger(v, t.tv2);
+    final int isQR = P256MapToCurve.sqrtRatio(t, t.tv1, t.tv2, t.y1);
+    return new SqrtRatio(isQR != 0, P256Field.toBigInteger(t.y1));
+  }
+
+}
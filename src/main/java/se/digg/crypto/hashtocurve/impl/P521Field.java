@@ -0,0 +1,377 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Arithmetic on nine 58-bit limbs for the base field of P-521, with the Mersenne prime
+ * p = 2^521 - 1.
+ *
+ * <p>Field elements are little-endian arrays of {@link #SIZE} unsaturated limbs in radix 2^58,
+ * weakly reduced: the limbs hold at most 58 bits, the top limb at most 57 bits, except for a carry
+ * of one that may remain in the second limb, so values lie in [0, 2p) and have more than one
+ * representation. Equality, zero and sign tests first reduce to the canonical representation in
+ * [0, p). A limb product of at most 116 bits is split at bit 58 into two parts that are summed
+ * into the columns of the schoolbook product, using {@link Math#multiplyHigh(long, long)} for the
+ * high bits. The spare bits of the 64-bit limbs hold the column sums, so no carries are
+ * propagated until the product is complete. Since 2^522 = 2 (mod p), the columns of weight 2^522
+ * and above are folded onto the low columns with a shift, and the bits above 2^521 of the top limb
+ * are added to the lowest limb. Multiplications take an explicit scratch array of
+ * {@link #EXT_SIZE} limbs, so that the arithmetic does not allocate. All operations run in
+ * constant time: there are no data dependent branches, and the exponentiations for inversion and
+ * square roots use fixed addition chains for their public exponents.
+ */
+final class P521Field {
+
+  /** The number of 58-bit limbs of a field element. */
+  static final int SIZE = 9;
+  /** The number of limbs of the multiplication scratch array. */
+  static final int EXT_SIZE = 2 * SIZE;
+  /** The number of field elements of the exponentiation scratch table. */
+  static final int TABLE_SIZE = 4;
+
+  /** The field prime. */
+  static final BigInteger P = BigInteger.ONE.shiftLeft(521).subtract(BigInteger.ONE);
+
+  private static final int BITS = 58;
+  private static final long MASK = (1L << BITS) - 1;
+  /** The top limb holds the 57 bits 464 to 520. */
+  private static final int TOP_BITS = 521 - BITS * (SIZE - 1);
+  private static final long TOP_MASK = (1L << TOP_BITS) - 1;
+  /** The limbs of 4p, which exceed the limbs of any weakly reduced element. */
+  private static final long FOUR_P = 4 * MASK;
+  private static final long FOUR_P_TOP = 4 * TOP_MASK;
+  private static final long[] ZERO = new long[SIZE];
+
+  private P521Field() {
+  }
+
+  static long[] create() {
+    return new long[SIZE];
+  }
+
+  static long[] createExt() {
+    return new long[EXT_SIZE];
+  }
+
+  /**
+   * Creates the field element 1.
+   *
+   * @return the field element 1
+   */
+  static long[] one() {
+    final long[] z = create();
+    z[0] = 1;
+    return z;
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @return the field element
+   */
+  static long[] fromBigInteger(final BigInteger x) {
+    final long[] z = create();
+    fromBigInteger(x, z);
+    return z;
+  }
+
+  /**
+   * Converts an integer to a field element, reducing it modulo p.
+   *
+   * @param x the integer
+   * @param z the field element to write
+   */
+  static void fromBigInteger(final BigInteger x, final long[] z) {
+    final BigInteger reduced = x.signum() < 0 || x.compareTo(P) >= 0 ? x.mod(P) : x;
+    // Decode the big-endian two's complement bytes, skipping a leading sign byte
+    final byte[] bytes = reduced.toByteArray();
+    Arrays.fill(z, 0, SIZE, 0L);
+    for (int i = 0; i < bytes.length && i < 66; i++) {
+      final long value = bytes[bytes.length - 1 - i] & 0xffL;
+      final int k = 8 * i / BITS;
+      final int shift = 8 * i % BITS;
+      z[k] |= (value << shift) & MASK;
+      if (shift > BITS - 8 && k + 1 < SIZE) {
+        // The byte straddles two limbs
+        z[k + 1] |= value >>> (BITS - shift);
+      }
+    }
+  }
+
+  /**
+   * Converts a field element to its integer value.
+   *
+   * @param x the field element
+   * @return the integer value of x, in the range [0, p)
+   */
+  static BigInteger toBigInteger(final long[] x) {
+    final long[] canonical = create();
+    canonicalize(x, canonical);
+    final byte[] bytes = new byte[66];
+    for (int i = 0; i < 521; i += 8) {
+      final int k = i / BITS;
+      final int shift = i % BITS;
+      long value = canonical[k] >>> shift;
+      if (shift > BITS - 8 && k + 1 < SIZE) {
+        value |= canonical[k + 1] << (BITS - shift);
+      }
+      bytes[bytes.length - 1 - (i >>> 3)] = (byte) value;
+    }
+    return new BigInteger(1, bytes);
+  }
+
+  static void copy(final long[] x, final long[] z) {
+    System.arraycopy(x, 0, z, 0, SIZE);
+  }
+
+  /**
+   * Constant time test if two field elements are equal.
+   *
+   * @param x field element
+   * @param y field element
+   * @param tt scratch field element
+   * @return -1 if x equals y, else 0
+   */
+  static int equalTo(final long[] x, final long[] y, final long[] tt) {
+    subtract(x, y, tt);
+    return isZero(tt, tt);
+  }
+
+  /**
+   * Constant time test if a field element is zero.
+   *
+   * @param x field element
+   * @param tt scratch field element, may be the same array as x
+   * @return -1 if x is zero, else 0
+   */
+  static int isZero(final long[] x, final long[] tt) {
+    canonicalize(x, tt);
+    long d = 0;
+    for (int i = 0; i < SIZE; i++) {
+      d |= tt[i];
+    }
+    return (int) ((d | -d) >> 63) ^ -1;
+  }
+
+  /**
+   * Constant time conditional move of x into z.
+   *
+   * @param mask -1 to move x into z, 0 to leave z unchanged
+   * @param x the source field element
+   * @param z the destination field element
+   */
+  static void cmov(final int mask, final long[] x, final long[] z) {
+    final long m = mask;
+    for (int i = 0; i < SIZE; i++) {
+      z[i] ^= (z[i] ^ x[i]) & m;
+    }
+  }
+
+  /**
+   * The sign of a field element as defined by sgn0 for m = 1.
+   *
+   * @param x field element
+   * @param tt scratch field element
+   * @return 1 if the integer value of x is odd, else 0
+   */
+  static int sgn0(final long[] x, final long[] tt) {
+    canonicalize(x, tt);
+    return (int) (tt[0] & 1);
+  }
+
+  static void add(final long[] x, final long[] y, final long[] z) {
+    for (int i = 0; i < SIZE; i++) {
+      z[i] = x[i] + y[i];
+    }
+    carry(z);
+  }
+
+  static void subtract(final long[] x, final long[] y, final long[] z) {
+    // Add 4p so that every limb stays non-negative
+    for (int i = 0; i < SIZE - 1; i++) {
+      z[i] = x[i] - y[i] + FOUR_P;
+    }
+    z[SIZE - 1] = x[SIZE - 1] - y[SIZE - 1] + FOUR_P_TOP;
+    carry(z);
+  }
+
+  static void negate(final long[] x, final long[] z) {
+    subtract(ZERO, x, z);
+  }
+
+  /**
+   * Multiplication z = x * y.
+   *
+   * @param x field element
+   * @param y field element
+   * @param z the product, may be the same array as x or y
+   * @param tt multiplication scratch of {@link #EXT_SIZE} limbs
+   */
+  static void multiply(final long[] x, final long[] y, final long[] z, final long[] tt) {
+    for (int k = 0; k < EXT_SIZE; k++) {
+      tt[k] = 0;
+    }
+    for (int i = 0; i < SIZE; i++) {
+      final long xi = x[i];
+      for (int j = 0; j < SIZE; j++) {
+        final long lo = xi * y[j];
+        tt[i + j] += lo & MASK;
+        tt[i + j + 1] += (Math.multiplyHigh(xi, y[j]) << (64 - BITS)) | (lo >>> BITS);
+      }
+    }
+    fold(tt, z);
+  }
+
+  /**
+   * Squaring z = x^2, forming each product of two distinct limbs once and doubling it.
+   *
+   * @param x field element
+   * @param z the square, may be the same array as x
+   * @param tt multiplication scratch of {@link #EXT_SIZE} limbs
+   */
+  static void square(final long[] x, final long[] z, final long[] tt) {
+    for (int k = 0; k < EXT_SIZE; k++) {
+      tt[k] = 0;
+    }
+    for (int i = 0; i < SIZE; i++) {
+      final long xi = x[i];
+      long lo = xi * xi;
+      tt[2 * i] += lo & MASK;
+      tt[2 * i + 1] += (Math.multiplyHigh(xi, xi) << (64 - BITS)) | (lo >>> BITS);
+      final long xi2 = xi << 1;
+      for (int j = i + 1; j < SIZE; j++) {
+        lo = xi2 * x[j];
+        tt[i + j] += lo & MASK;
+        tt[i + j + 1] += (Math.multiplyHigh(xi2, x[j]) << (64 - BITS)) | (lo >>> BITS);
+      }
+    }
+    fold(tt, z);
+  }
+
+  /**
+   * Inversion z = x^(p - 2), with the inverse of zero defined as zero as by inv0 of RFC 9380.
+   *
+   * <p>p - 2 = 2^521 - 3 is the exponent (2^519 - 1) * 4 + 1 of {@link #powC1(long[], long[],
+   * long[][], long[])} followed by the bits 01, which takes 520 squarings and 13 multiplications.
+   *
+   * @param x field element
+   * @param z the inverse, may be the same array as x
+   * @param table scratch table of {@link #TABLE_SIZE} field elements
+   * @param tt multiplication scratch
+   */
+  static void inv(final long[] x, final long[] z, final long[][] table, final long[] tt) {
+    powC1(x, z, table, tt);
+    squareMultiply(z, 2, table[0], z, tt);
+  }
+
+  /**
+   * Raises x to the exponent c1 = (p - 3) / 4 = 2^519 - 1 of the sqrt_ratio subroutine for
+   * q = 3 (mod 4).
+   *
+   * <p>The addition chain doubles the run of ones of x^(2^k - 1) up to k = 512 and appends the
+   * runs of 4, 2 and 1 ones, which takes 518 squarings and 12 multiplications.
+   *
+   * @param x the base
+   * @param z the result, may be the same array as x
+   * @param table scratch table of {@link #TABLE_SIZE} field elements, which holds x^(2^k - 1)
+   *        for k = 1, 2 and 4 on return
+   * @param tt multiplication scratch
+   */
+  static void powC1(final long[] x, final long[] z, final long[][] table, final long[] tt) {
+    final long[] x1 = table[0];
+    final long[] x2 = table[1];
+    final long[] x4 = table[2];
+    final long[] run = table[3];
+    copy(x, x1);
+    squareMultiply(x1, 1, x1, x2, tt);
+    squareMultiply(x2, 2, x2, x4, tt);
+    squareMultiply(x4, 4, x4, z, tt);
+    for (int k = 8; k < 512; k <<= 1) {
+      copy(z, run);
+      squareMultiply(run, k, run, z, tt);
+    }
+    squareMultiply(z, 4, x4, z, tt);
+    squareMultiply(z, 2, x2, z, tt);
+    squareMultiply(z, 1, x1, z, tt);
+  }
+
+  static long[][] createTable() {
+    final long[][] table = new long[TABLE_SIZE][];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = create();
+    }
+    return table;
+  }
+
+  /**
+   * Computes z = x^(2^n) * y.
+   */
+  private static void squareMultiply(final long[] x, final int n, final long[] y, final long[] z,
+      final long[] tt) {
+    square(x, z, tt);
+    for (int i = 1; i < n; i++) {
+      square(z, z, tt);
+    }
+    multiply(z, y, z, tt);
+  }
+
+  /**
+   * Reduces the column sums of a product: the columns of weight 2^522 and above are doubled onto
+   * the low columns, since 2^522 = 2 (mod p), and the carries are propagated.
+   */
+  private static void fold(final long[] tt, final long[] z) {
+    // The column sums are below 2^63, so the folded sums are below 2^64 as unsigned values
+    for (int k = 0; k < SIZE; k++) {
+      z[k] = tt[k] + (tt[k + SIZE] << 1);
+    }
+    carry(z);
+  }
+
+  /**
+   * Propagates the carries of limbs holding unsigned values, folding the bits of weight 2^521 and
+   * above of the top limb onto the lowest limb.
+   */
+  private static void carry(final long[] z) {
+    for (int k = 0; k < SIZE - 1; k++) {
+      z[k + 1] += z[k] >>> BITS;
+      z[k] &= MASK;
+    }
+    z[0] += z[SIZE - 1] >>> TOP_BITS;
+    z[SIZE - 1] &= TOP_MASK;
+    z[1] += z[0] >>> BITS;
+    z[0] &= MASK;
+  }
+
+  /**
+   * Reduces a weakly reduced element to the canonical representation in [0, p).
+   */
+  private static void canonicalize(final long[] x, final long[] z) {
+    copy(x, z);
+    // Fully propagate the carry that may remain in the second limb
+    for (int k = 1; k < SIZE - 1; k++) {
+      z[k + 1] += z[k] >>> BITS;
+      z[k] &= MASK;
+    }
+    z[0] += z[SIZE - 1] >>> TOP_BITS;
+    z[SIZE - 1] &= TOP_MASK;
+    // x >= p if and only if x + 1 carries into bit 521, and then x - p = x + 1 - 2^521
+    long c = 1;
+    for (int k = 0; k < SIZE; k++) {
+      c = (z[k] + c) >>> (k == SIZE - 1 ? TOP_BITS : BITS);
+    }
+    c &= 1;
+    for (int k = 0; k < SIZE; k++) {
+      final long t = z[k] + c;
+      final int bits = k == SIZE - 1 ? TOP_BITS : BITS;
+      c = t >>> bits;
+      z[k] = t & ((1L << bits) - 1);
+    }
+  }
+
+}
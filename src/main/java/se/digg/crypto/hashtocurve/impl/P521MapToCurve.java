@@ -0,0 +1,233 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import java.util.function.Supplier;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.MapToCurve;
+
+/**
+ * Implements the Shallue van de Woestijne Map to curve of section 6.6.2 of RFC 9380 for the
+ * P-521 suites of section 8.4, on the 58-bit limb arithmetic of {@link P521Field}.
+ *
+ * <p>The straight-line program of section F.2 and the sqrt_ratio subroutine for q = 3 (mod 4) of
+ * section F.2.1.2 are fused into a single branchless kernel, with the exponentiation of sqrt_ratio
+ * evaluated by the addition chain of
+ * {@link P521Field#powC1(long[], long[], long[][], long[])}. All temporaries are preallocated
+ * {@code long[]} field elements, which are kept in a {@link HashContext} for single elements and
+ * shared by all elements of a batch. The final
+ * division x / tv4 of all elements in a batch shares a single field inversion (Montgomery's batch
+ * inversion trick). The resulting points are identical to those of
+ * {@link ShallueVanDeWoestijneMapToCurve} and {@link BatchShallueVanDeWoestijneMapToCurve}.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+public class P521MapToCurve implements MapToCurve {
+
+  /** The Z parameter of the P-521 suites. */
+  static final BigInteger Z = BigInteger.valueOf(-4);
+
+  private static final BigInteger A_VALUE = P521Field.P.subtract(BigInteger.valueOf(3));
+  private static final BigInteger B_VALUE = new BigInteger(
+      "51953eb9618e1c9a1f929a21a0b68540eea2da725b99b315f3b8b489918ef109e156193951ec7e937b1652c0bd"
+      + "3bb1bf073573df883d2c34f1ef451fd46b503f00", 16);
+  private static final long[] A = P521Field.fromBigInteger(A_VALUE);
+  private static final long[] B = P521Field.fromBigInteger(B_VALUE);
+  private static final long[] Z_ELEMENT = P521Field.fromBigInteger(Z);
+  /** sqrt(-Z) in F. */
+  private static final long[] C2 = P521Field.fromBigInteger(Z.negate().modPow(
+      P521Field.P.add(BigInteger.ONE).shiftRight(2), P521Field.P));
+
+  private final ECCurve curve;
+  private final Supplier<Temporaries> temporariesFactory;
+
+  /**
+   * Constructs the map for the P-521 curve.
+   *
+   * @param ecParameterSpec the parameters of the P-521 curve
+   * @throws IllegalArgumentException if the parameters are not those of the P-521 curve
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public P521MapToCurve(final ECParameterSpec ecParameterSpec) {
+    this.curve = ecParameterSpec.getCurve();
+    if (!P521Field.P.equals(this.curve.getField().getCharacteristic())
+        || !A_VALUE.equals(this.curve.getA().toBigInteger())
+        || !B_VALUE.equals(this.curve.getB().toBigInteger())) {
+      throw new IllegalArgumentException("The curve is not the P-521 curve");
+    }
+    this.temporariesFactory = Temporaries::new;
+  }
+
+  @Override
+  public ECPoint process(final BigInteger element) {
+    return this.process(new BigInteger[] {element})[0];
+  }
+
+  /**
+   * Maps a field element to a point on the curve, using field element temporaries kept in the
+   * context.
+   *
+   * @param element the input field element
+   * @param ctx the reusable scratch context of the calling thread
+   * @return the mapped point
+   */
+  @Override
+  public ECPoint process(final BigInteger element, final HashContext ctx) {
+    final Temporaries t = ctx.getScratch(this, this.temporariesFactory);
+    P521Field.fromBigInteger(element, t.u);
+    map(t, t.x, t.y, t.tv4);
+    P521Field.inv(t.tv4, t.tv4, t.table, t.tt);
+    P521Field.multiply(t.x, t.tv4, t.x, t.tt);
+    return this.curve.createPoint(P521Field.toBigInteger(t.x), P521Field.toBigInteger(t.y));
+  }
+
+  /**
+   * Maps a batch of field elements to points on the curve.
+   *
+   * @param elements the input field elements
+   * @return the mapped points, in the same order as the input elements
+   */
+  @Override
+  public ECPoint[] process(final BigInteger[] elements) {
+    final int n = elements.length;
+    final Temporaries t = new Temporaries();
+    final long[][] x = new long[n][];
+    final long[][] y = new long[n][];
+    final long[][] tv4 = new long[n][];
+    for (int i = 0; i < n; i++) {
+      x[i] = P521Field.create();
+      y[i] = P521Field.create();
+      tv4[i] = P521Field.create();
+      P521Field.fromBigInteger(elements[i], t.u);
+      map(t, x[i], y[i], tv4[i]);
+    }
+    batchInvert(tv4, t);
+    final ECPoint[] points = new ECPoint[n];
+    for (int i = 0; i < n; i++) {
+      P521Field.multiply(x[i], tv4[i], x[i], t.tt);
+      points[i] = this.curve.createPoint(P521Field.toBigInteger(x[i]),
+          P521Field.toBigInteger(y[i]));
+    }
+    return points;
+  }
+
+  /**
+   * Steps 1 to 24 of the straight-line map of section F.2. The returned x coordinate is the
+   * numerator of the fraction x / tv4.
+   *
+   * @param t temporaries, with the input element in t.u
+   * @param x the x coordinate numerator
+   * @param y the y coordinate
+   * @param tv4 the x coordinate denominator
+   */
+  @SuppressWarnings("checkstyle:VariableDeclarationUsageDistance")
+  private static void map(final Temporaries t, final long[] x, final long[] y, final long[] tv4) {
+    P521Field.square(t.u, t.tv1, t.tt);
+    P521Field.multiply(Z_ELEMENT, t.tv1, t.tv1, t.tt);
+    P521Field.square(t.tv1, t.tv2, t.tt);
+    P521Field.add(t.tv2, t.tv1, t.tv2);
+    P521Field.add(t.tv2, t.one, t.tv3);
+    P521Field.multiply(B, t.tv3, t.tv3, t.tt);
+    P521Field.copy(Z_ELEMENT, tv4);
+    P521Field.negate(t.tv2, t.tv5);
+    P521Field.cmov(~P521Field.isZero(t.tv2, t.s1), t.tv5, tv4);
+    P521Field.multiply(A, tv4, tv4, t.tt);
+    P521Field.square(t.tv3, t.tv2, t.tt);
+    P521Field.square(tv4, t.tv6, t.tt);
+    P521Field.multiply(A, t.tv6, t.tv5, t.tt);
+    P521Field.add(t.tv2, t.tv5, t.tv2);
+    P521Field.multiply(t.tv2, t.tv3, t.tv2, t.tt);
+    P521Field.multiply(t.tv6, tv4, t.tv6, t.tt);
+    P521Field.multiply(B, t.tv6, t.tv5, t.tt);
+    P521Field.add(t.tv2, t.tv5, t.tv2);
+    P521Field.multiply(t.tv1, t.tv3, x, t.tt);
+    final int isGx1Square = sqrtRatio(t, t.tv2, t.tv6, t.y1);
+    P521Field.multiply(t.tv1, t.u, y, t.tt);
+    P521Field.multiply(y, t.y1, y, t.tt);
+    P521Field.cmov(isGx1Square, t.tv3, x);
+    P521Field.cmov(isGx1Square, t.y1, y);
+    final int e1 = ((P521Field.sgn0(t.u, t.s1) ^ P521Field.sgn0(y, t.s1)) - 1) >> 31;
+    P521Field.negate(y, t.tv5);
+    P521Field.cmov(~e1, t.tv5, y);
+  }
+
+  /**
+   * The sqrt_ratio subroutine for q = 3 (mod 4) of section F.2.1.2 of RFC 9380.
+   *
+   * @param t temporaries
+   * @param u the u parameter
+   * @param v the v parameter
+   * @param y the resulting square root
+   * @return -1 if u / v is square, else 0
+   */
+  static int sqrtRatio(final Temporaries t, final long[] u, final long[] v, final long[] y) {
+    P521Field.square(v, t.s1, t.tt);
+    P521Field.multiply(u, v, t.s2, t.tt);
+    P521Field.multiply(t.s1, t.s2, t.s1, t.tt);
+    P521Field.powC1(t.s1, y, t.table, t.tt);
+    P521Field.multiply(y, t.s2, y, t.tt);
+    P521Field.multiply(y, C2, t.s2, t.tt);
+    P521Field.square(y, t.s1, t.tt);
+    P521Field.multiply(t.s1, v, t.s1, t.tt);
+    final int isQR = P521Field.equalTo(t.s1, u, t.s1);
+    P521Field.cmov(~isQR, t.s2, y);
+    return isQR;
+  }
+
+  /**
+   * Replaces every element with its inverse using a single field inversion.
+   *
+   * @param elements non-zero field elements
+   * @param t temporaries
+   */
+  private static void batchInvert(final long[][] elements, final Temporaries t) {
+    final int n = elements.length;
+    if (n == 0) {
+      return;
+    }
+    final long[][] acc = new long[n][];
+    acc[0] = elements[0].clone();
+    for (int i = 1; i < n; i++) {
+      acc[i] = P521Field.create();
+      P521Field.multiply(acc[i - 1], elements[i], acc[i], t.tt);
+    }
+    P521Field.inv(acc[n - 1], t.tv1, t.table, t.tt);
+    for (int i = n - 1; i > 0; i--) {
+      P521Field.multiply(t.tv1, acc[i - 1], t.tv2, t.tt);
+      P521Field.multiply(t.tv1, elements[i], t.tv1, t.tt);
+      P521Field.copy(t.tv2, elements[i]);
+    }
+    P521Field.copy(t.tv1, elements[0]);
+  }
+
+  /**
+   * Field element temporaries shared by all elements of a batch, or kept in a {@link HashContext}
+   * for mapping single elements.
+   */
+  static final class Temporaries {
+    final long[] u = P521Field.create();
+    /** Results of mapping a single element. */
+    final long[] x = P521Field.create();
+    final long[] y = P521Field.create();
+    final long[] tv4 = P521Field.create();
+    final long[] one = P521Field.one();
+    final long[] tv1 = P521Field.create();
+    final long[] tv2 = P521Field.create();
+    final long[] tv3 = P521Field.create();
+    final long[] tv5 = P521Field.create();
+    final long[] tv6 = P521Field.create();
+    final long[] y1 = P521Field.create();
+    final long[] s1 = P521Field.create();
+    final long[] s2 = P521Field.create();
+    final long[][] table = P521Field.createTable();
+    final long[] tt = P521Field.createExt();
+  }
+
+}
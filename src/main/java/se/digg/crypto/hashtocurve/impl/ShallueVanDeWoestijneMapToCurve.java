@@ -26,9 +26,22 @@ public class ShallueVanDeWoestijneMapToCurve implements MapToCurve {
 
   public ShallueVanDeWoestijneMapToCurve(final ECParameterSpec ecParameterSpec,
       final BigInteger z) {
+    this(ecParameterSpec, z, new GenericSqrtRatioCalculator(ecParameterSpec, z));
+  }
+
+  /**
+   * Constructs the map with a specific sqrt_ratio implementation, such as
+   * {@link P256SqrtRatioCalculator} for P-256.
+   *
+   * @param ecParameterSpec the curve parameters
+   * @param z the Z parameter of the suite
+   * @param sqrtRatioCalculator the sqrt_ratio implementation for the base field and Z
+   */
+  public ShallueVanDeWoestijneMapToCurve(final ECParameterSpec ecParameterSpec,
+      final BigInteger z, final SqrtRatioCalculator sqrtRatioCalculator) {
     this.ecParameterSpec = ecParameterSpec;
     this.z = z;
-    this.sqrtRatioCalculator = new GenericSqrtRatioCalculator(ecParameterSpec, z);
+    this.sqrtRatioCalculator = sqrtRatioCalculator;
   }
 
   /**
@@ -77,7 +90,7 @@ public class ShallueVanDeWoestijneMapToCurve implements MapToCurve {
     final boolean e1 =
         H2cUtils.sgn0(u, this.ecParameterSpec) == H2cUtils.sgn0(y, this.ecParameterSpec);
     y = H2cUtils.cmov(y.negate(), y, e1).mod(p);
-    x = x.multiply(tv4.modPow(BigInteger.ONE.negate(), p)).mod(p);
+    x = x.multiply(H2cUtils.inv0(tv4, p)).mod(p);
     return this.ecParameterSpec.getCurve().createPoint(x, y);
   }
 
@@ -0,0 +1,96 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.math.BigInteger;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import se.digg.crypto.hashtocurve.FieldContext;
+import se.digg.crypto.hashtocurve.MapToCurve;
+
+/**
+ * Implements the Simplified Shallue-van de Woestijne-Ulas map of section 6.6.2 of RFC 9380 in
+ * variable time, for public inputs only.
+ *
+ * <p>This follows the description of section 6.6.2 rather than the straight-line program of
+ * section F.2: the inversion uses {@link BigInteger#modInverse(BigInteger)}, the squareness of
+ * g(x1) is decided by the Jacobi symbol, only the square root of the square candidate g(x1) or
+ * g(x2) is computed, and g(x2) is only computed when g(x1) is not square. The execution time
+ * depends on the input, so the map must not be used on secret inputs. The resulting points are
+ * identical to those of {@link ShallueVanDeWoestijneMapToCurve}.
+ */
+@SuppressWarnings({"checkstyle:MemberName", "checkstyle:AbbreviationAsWordInName"})
+public class VariableTimeShallueVanDeWoestijneMapToCurve implements MapToCurve {
+
+  private final ECCurve curve;
+  private final FieldContext field;
+  private final BigInteger p;
+  private final BigInteger a;
+  private final BigInteger b;
+  private final BigInteger z;
+  /** -B / A. */
+  private final BigInteger minusBOverA;
+  /** B / (Z * A). */
+  private final BigInteger bOverZa;
+
+  /**
+   * Constructs the map for a curve y^2 = x^3 + A * x + B with A != 0 and B != 0.
+   *
+   * @param ecParameterSpec the curve parameters
+   * @param z the Z parameter of the suite
+   * @throws IllegalArgumentException if A or B is zero
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "CT_CONSTRUCTOR_THROW",
+      justification = "Constructor validation throws IllegalArgumentException by design")
+  public VariableTimeShallueVanDeWoestijneMapToCurve(final ECParameterSpec ecParameterSpec,
+      final BigInteger z) {
+    this.curve = ecParameterSpec.getCurve();
+    this.p = this.curve.getField().getCharacteristic();
+    this.field = FieldContext.getInstance(this.p);
+    this.a = this.curve.getA().toBigInteger();
+    this.b = this.curve.getB().toBigInteger();
+    if (this.a.signum() == 0 || this.b.signum() == 0) {
+      throw new IllegalArgumentException("The map requires a curve with A != 0 and B != 0");
+    }
+    this.z = z.mod(this.p);
+    this.minusBOverA = this.b.negate().multiply(this.a.modInverse(this.p)).mod(this.p);
+    this.bOverZa = this.b.multiply(this.z.multiply(this.a).modInverse(this.p)).mod(this.p);
+  }
+
+  @Override
+  public ECPoint process(final BigInteger element) {
+    final BigInteger u = element.mod(this.p);
+    // tv1 = inv0(Z^2 * u^4 + Z * u^2)
+    final BigInteger zu2 = this.z.multiply(u).multiply(u).mod(this.p);
+    final BigInteger tv1 = this.field.inv0VariableTime(zu2.multiply(zu2).add(zu2));
+    final BigInteger x1 = tv1.signum() == 0
+        ? this.bOverZa
+        : this.minusBOverA.multiply(BigInteger.ONE.add(tv1)).mod(this.p);
+    BigInteger x = x1;
+    BigInteger gx = this.curveEquation(x1);
+    if (!this.field.isSquare(gx)) {
+      x = zu2.multiply(x1).mod(this.p);
+      gx = this.curveEquation(x);
+    }
+    BigInteger y = this.field.sqrtVariableTime(gx);
+    if (u.testBit(0) != y.testBit(0)) {
+      y = y.negate().mod(this.p);
+    }
+    return this.curve.createPoint(x, y);
+  }
+
+  /**
+   * Evaluates the curve equation g(x) = x^3 + A * x + B.
+   *
+   * @param x the x coordinate
+   * @return g(x)
+   */
+  private BigInteger curveEquation(final BigInteger x) {
+    return x.multiply(x).add(this.a).multiply(x).add(this.b).mod(this.p);
+  }
+
+}
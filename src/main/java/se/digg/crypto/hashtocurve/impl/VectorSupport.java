@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+/**
+ * Runtime guard of the lane-parallel code paths that use the incubating Vector API.
+ *
+ * <p>The Vector API lives in the module jdk.incubator.vector, which the JVM only resolves when it
+ * is started with {@code --add-modules jdk.incubator.vector}. The classes using the Vector API are
+ * only loaded after this guard reports the module as present, so the library runs unchanged on the
+ * scalar code paths when the module is absent. Operators can turn the vector paths off with the
+ * system property {@value #VECTOR_PROPERTY} set to false, which is read on every call.
+ */
+final class VectorSupport {
+
+  /** System property that turns the vector paths off when set to false. */
+  static final String VECTOR_PROPERTY = "se.digg.crypto.hashtocurve.vector";
+
+  /** Whether the Vector API module is resolved in the boot layer. */
+  private static final boolean MODULE_PRESENT =
+      ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+  private VectorSupport() {
+  }
+
+  /**
+   * Tells whether the vector paths may be used.
+   *
+   * @return true if the Vector API module is present and the vector paths are not turned off
+   */
+  static boolean isEnabled() {
+    return MODULE_PRESENT && !"false".equalsIgnoreCase(System.getProperty(VECTOR_PROPERTY));
+  }
+
+}
@@ -4,14 +4,17 @@
 
 package se.digg.crypto.hashtocurve.impl;
 
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
 import org.bouncycastle.crypto.Digest;
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.crypto.digests.SHA384Digest;
 import org.bouncycastle.crypto.digests.SHA3Digest;
 import org.bouncycastle.crypto.digests.SHA512Digest;
 import org.bouncycastle.crypto.util.DigestFactory;
-import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.Memoable;
 import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
 import se.digg.crypto.hashtocurve.MessageExpansion;
 
 /**
@@ -29,6 +32,17 @@ public class XmdMessageExpansion implements MessageExpansion {
 
   private final int hashOutputBytes;
 
+  /** The message prefix absorbed by every expansion, empty unless created by withPrefix. */
+  private final byte[] prefix;
+
+  /**
+   * Digest state after absorbing Z_pad and the message prefix, or null if the digest does not
+   * support state copies. The state is never modified after construction.
+   */
+  private final Memoable zeroPadState;
+
+  private final Supplier<Scratch> scratchFactory;
+
   @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
       value = "CT_CONSTRUCTOR_THROW",
       justification = "Constructor validation throws IllegalArgumentException by design")
@@ -40,6 +54,32 @@ public class XmdMessageExpansion implements MessageExpansion {
       throw new IllegalArgumentException(
           "Hash output size is too small for the security level of the curve");
     }
+    this.prefix = new byte[0];
+    this.zeroPadState = createZeroPadState(digest, s);
+    this.scratchFactory = () -> new Scratch(this.createZeroPadDigest(), s / 8);
+  }
+
+  /**
+   * Creates an expansion that absorbs a prefix before each message.
+   *
+   * @param parent the expansion of the messages without the prefix
+   * @param prefix the prefix to append to the prefix of the parent
+   */
+  private XmdMessageExpansion(final XmdMessageExpansion parent, final byte[] prefix) {
+    this.digest = parent.digest;
+    this.s = parent.s;
+    this.hashOutputBytes = parent.hashOutputBytes;
+    this.prefix = new byte[parent.prefix.length + prefix.length];
+    System.arraycopy(parent.prefix, 0, this.prefix, 0, parent.prefix.length);
+    System.arraycopy(prefix, 0, this.prefix, parent.prefix.length, prefix.length);
+    if (parent.zeroPadState == null) {
+      this.zeroPadState = null;
+    } else {
+      final Digest prefixDigest = (Digest) parent.zeroPadState.copy();
+      prefixDigest.update(prefix, 0, prefix.length);
+      this.zeroPadState = (Memoable) prefixDigest;
+    }
+    this.scratchFactory = () -> new Scratch(this.createZeroPadDigest(), this.s / 8);
   }
 
   /**
@@ -56,6 +96,23 @@ public class XmdMessageExpansion implements MessageExpansion {
     this(digest, k, getInputBlockSize(digest));
   }
 
+  /**
+   * Precomputes the digest state after absorbing Z_pad. Since Z_pad is a full input block of zero
+   * bytes, this state is the same for every expansion and saves one compression per message.
+   *
+   * @param digest the cryptographic digest algorithm
+   * @param s the input block size in bits
+   * @return the digest state after absorbing Z_pad, or null if the digest is not {@link Memoable}
+   */
+  private static Memoable createZeroPadState(final Digest digest, final int s) {
+    if (!(digest instanceof Memoable)) {
+      return null;
+    }
+    final Digest zeroPadDigest = newDigest(digest);
+    zeroPadDigest.update(new byte[s / 8], 0, s / 8);
+    return (Memoable) zeroPadDigest;
+  }
+
   /**
    * Determines the input block size for a given cryptographic digest algorithm.
    *
@@ -83,9 +140,27 @@ public class XmdMessageExpansion implements MessageExpansion {
         default -> throw new IllegalArgumentException("Illegal SHA3 digest size");
       };
     }
+    if (digest instanceof final JcaDigest jcaDigest) {
+      return jcaDigest.getByteLength() * 8;
+    }
     throw new IllegalArgumentException("Unsupported digest algorithm");
   }
 
+  /**
+   * Creates a new instance of a digest algorithm in its initial state.
+   *
+   * @param digest the cryptographic digest algorithm
+   * @return a new digest instance
+   */
+  private static Digest newDigest(final Digest digest) {
+    if (digest instanceof final JcaDigest jcaDigest) {
+      final Digest digestInstance = (Digest) jcaDigest.copy();
+      digestInstance.reset();
+      return digestInstance;
+    }
+    return DigestFactory.cloneDigest(digest);
+  }
+
   /**
    * Expands a given input message to a fixed-length output, using a cryptographic digest and
    * additional parameters such as domain separation tag (DST) and desired output length. This
@@ -101,6 +176,262 @@ public class XmdMessageExpansion implements MessageExpansion {
    */
   @Override
   public byte[] expandMessage(final byte[] msg, final byte[] dst, final int lenInBytes) {
+    final int ell = this.checkParameters(dst, lenInBytes);
+    final byte[] uniformBytes = new byte[lenInBytes];
+    this.expand(this.createZeroPadDigest(), msg, dst, lenInBytes, ell,
+        new byte[this.hashOutputBytes], new byte[this.hashOutputBytes], uniformBytes);
+    return uniformBytes;
+  }
+
+  /**
+   * Expands a message into a caller provided buffer. The digest instance and the intermediate hash
+   * buffers are kept in the context and reused by later calls, so that a steady-state expansion
+   * does not allocate. The output is identical to {@link #expandMessage(byte[], byte[], int)}.
+   *
+   * @param msg the input message to be expanded
+   * @param dst the domain separation tag used to isolate cryptographic domains
+   * @param lenInBytes the desired byte-length of the output message
+   * @param out the buffer to write the expanded message to, of at least lenInBytes bytes
+   * @param ctx the reusable scratch context of the calling thread
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or dst length is
+   *         greater than 255
+   */
+  @Override
+  public void expandMessage(final byte[] msg, final byte[] dst, final int lenInBytes,
+      final byte[] out, final HashContext ctx) {
+    final int ell = this.checkParameters(dst, lenInBytes);
+    final Scratch scratch = ctx.getScratch(this, this.scratchFactory);
+    this.expand(scratch.digest, msg, dst, lenInBytes, ell, scratch.b0, scratch.bi, out);
+  }
+
+  /**
+   * Expands a message held in a buffer. The bytes of a heap buffer are fed to the digest in place,
+   * and the bytes of a direct buffer through a chunk of one digest input block, so the message is
+   * never copied as a whole. The output is identical to
+   * {@link #expandMessage(byte[], byte[], int)} on the bytes between the position and the limit of
+   * the buffer, which are not modified.
+   *
+   * @param msg the buffer holding the input message to be expanded
+   * @param dst the domain separation tag used to isolate cryptographic domains
+   * @param lenInBytes the desired byte-length of the output message
+   * @return the byte array resulting from the message expansion process
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or dst length is
+   *         greater than 255
+   */
+  @Override
+  public byte[] expandMessage(final ByteBuffer msg, final byte[] dst, final int lenInBytes) {
+    final int ell = this.checkParameters(dst, lenInBytes);
+    final byte[] uniformBytes = new byte[lenInBytes];
+    final Digest zeroPadDigest = this.createZeroPadDigest();
+    this.resetToZeroPad(zeroPadDigest);
+    H2cUtils.update(zeroPadDigest, msg, new byte[this.s / 8]);
+    this.expandAbsorbed(zeroPadDigest, dst, lenInBytes, ell, new byte[this.hashOutputBytes],
+        new byte[this.hashOutputBytes], uniformBytes);
+    return uniformBytes;
+  }
+
+  /**
+   * Expands a message held in a buffer into a caller provided buffer, reusing the digest instance,
+   * the intermediate hash buffers and the chunk buffer kept in the context. The output is
+   * identical to {@link #expandMessage(ByteBuffer, byte[], int)}.
+   *
+   * @param msg the buffer holding the input message to be expanded
+   * @param dst the domain separation tag used to isolate cryptographic domains
+   * @param lenInBytes the desired byte-length of the output message
+   * @param out the buffer to write the expanded message to, of at least lenInBytes bytes
+   * @param ctx the reusable scratch context of the calling thread
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or dst length is
+   *         greater than 255
+   */
+  @Override
+  public void expandMessage(final ByteBuffer msg, final byte[] dst, final int lenInBytes,
+      final byte[] out, final HashContext ctx) {
+    final int ell = this.checkParameters(dst, lenInBytes);
+    final Scratch scratch = ctx.getScratch(this, this.scratchFactory);
+    this.resetToZeroPad(scratch.digest);
+    H2cUtils.update(scratch.digest, msg, scratch.chunk);
+    this.expandAbsorbed(scratch.digest, dst, lenInBytes, ell, scratch.b0, scratch.bi, out);
+  }
+
+  /**
+   * Expands a batch of messages under the same domain separation tag. The digest instance and the
+   * intermediate hash buffers are set up once and shared by all messages in the batch, and the
+   * digest state after absorbing Z_pad is restored rather than recomputed. The output for each
+   * message is identical to {@link #expandMessage(byte[], byte[], int)}.
+   *
+   * <p>For SHA-256, SHA-384 and SHA-512, when the Vector API module is present, the messages are
+   * hashed side by side in the lanes of vector registers by {@link MultiLaneSha2}, with one lane
+   * per message for b_0 and for each of the blocks b_1 to b_ell.
+   *
+   * @param msgs the input messages to be expanded
+   * @param dst the domain separation tag used to isolate cryptographic domains
+   * @param lenInBytes the desired byte-length of each output message
+   * @return the expanded messages, in the same order as the input messages
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or dst length is
+   *         greater than 255
+   */
+  @Override
+  public byte[][] expandMessages(final byte[][] msgs, final byte[] dst, final int lenInBytes) {
+    final int ell = this.checkParameters(dst, lenInBytes);
+    if (msgs.length > 1 && this.isMultiLaneDigest() && VectorSupport.isEnabled()) {
+      return this.expandLanes(msgs, dst, lenInBytes, ell);
+    }
+    final Digest zeroPadDigest = this.createZeroPadDigest();
+    final byte[] b0 = new byte[this.hashOutputBytes];
+    final byte[] bi = new byte[this.hashOutputBytes];
+    final byte[][] expanded = new byte[msgs.length][];
+    for (int i = 0; i < msgs.length; i++) {
+      expanded[i] = new byte[lenInBytes];
+      this.expand(zeroPadDigest, msgs[i], dst, lenInBytes, ell, b0, bi, expanded[i]);
+    }
+    return expanded;
+  }
+
+  /**
+   * Tells whether the digest has a multi-lane implementation. Only the Bouncy Castle classes
+   * themselves qualify, since a subclass may change the digest.
+   *
+   * @return true for the SHA-256, SHA-384 and SHA-512 digests
+   */
+  private boolean isMultiLaneDigest() {
+    final Class<?> type = this.digest.getClass();
+    return type == SHA256Digest.class || type == SHA384Digest.class
+        || type == SHA512Digest.class;
+  }
+
+  /**
+   * Performs expand_message_xmd on all messages with the multi-lane digest. The input of each hash
+   * call is built per message, and the hash calls of all messages for b_0, b_1 and so on run
+   * together.
+   *
+   * @param msgs the input messages to be expanded
+   * @param dst the domain separation tag
+   * @param lenInBytes the desired byte-length of each output message
+   * @param ell the number of hash blocks
+   * @return the expanded messages, in the same order as the input messages
+   */
+  private byte[][] expandLanes(final byte[][] msgs, final byte[] dst, final int lenInBytes,
+      final int ell) {
+    final String algorithm = this.digest.getAlgorithmName();
+    final int blockBytes = this.s / 8;
+    final byte[] head = new byte[blockBytes + this.prefix.length];
+    System.arraycopy(this.prefix, 0, head, blockBytes, this.prefix.length);
+    final byte[][] inputs = new byte[msgs.length][];
+    for (int i = 0; i < msgs.length; i++) {
+      final byte[] input = new byte[msgs[i].length + 3 + dst.length + 1];
+      System.arraycopy(msgs[i], 0, input, 0, msgs[i].length);
+      input[msgs[i].length] = (byte) (lenInBytes >>> 8);
+      input[msgs[i].length + 1] = (byte) lenInBytes;
+      System.arraycopy(dst, 0, input, msgs[i].length + 3, dst.length);
+      input[input.length - 1] = (byte) dst.length;
+      inputs[i] = input;
+    }
+    final byte[][] b0 = MultiLaneSha2.digest(algorithm, head, inputs);
+
+    final byte[][] expanded = new byte[msgs.length][lenInBytes];
+    final byte[] empty = new byte[0];
+    byte[][] bi = null;
+    for (int block = 1; block <= ell; block++) {
+      for (int i = 0; i < msgs.length; i++) {
+        final byte[] input = new byte[this.hashOutputBytes + 1 + dst.length + 1];
+        for (int j = 0; j < this.hashOutputBytes; j++) {
+          input[j] = block == 1 ? b0[i][j] : (byte) (b0[i][j] ^ bi[i][j]);
+        }
+        input[this.hashOutputBytes] = (byte) block;
+        System.arraycopy(dst, 0, input, this.hashOutputBytes + 1, dst.length);
+        input[input.length - 1] = (byte) dst.length;
+        inputs[i] = input;
+      }
+      bi = MultiLaneSha2.digest(algorithm, empty, inputs);
+      final int offset = (block - 1) * this.hashOutputBytes;
+      for (int i = 0; i < msgs.length; i++) {
+        System.arraycopy(bi[i], 0, expanded[i], offset,
+            Math.min(this.hashOutputBytes, lenInBytes - offset));
+      }
+    }
+    return expanded;
+  }
+
+  /**
+   * Expands one message under several domain separation tags. The digest state after absorbing
+   * Z_pad || msg || l_i_b_str || I2OSP(0, 1) does not depend on the tag, so the message is absorbed
+   * once and the saved state is restored for each tag, which then only hashes DST_prime and the
+   * blocks b_1 to b_ell. For a large message the cost is one pass over the message plus a small
+   * constant per tag. Digests that do not support state copies expand the message once per tag.
+   * The output for each tag is identical to {@link #expandMessage(byte[], byte[], int)}.
+   *
+   * @param msg the input message to be expanded
+   * @param dsts the domain separation tags
+   * @param lenInBytes the desired byte-length of each output message
+   * @return the expanded messages, in the same order as the domain separation tags
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or the length
+   *         of a domain separation tag is greater than 255
+   */
+  @Override
+  public byte[][] expandMessageForDsts(final byte[] msg, final byte[][] dsts,
+      final int lenInBytes) {
+    int ell = 0;
+    for (final byte[] dst : dsts) {
+      ell = this.checkParameters(dst, lenInBytes);
+    }
+    final byte[][] expanded = new byte[dsts.length][];
+    if (this.zeroPadState == null || dsts.length == 0) {
+      for (int i = 0; i < dsts.length; i++) {
+        expanded[i] = this.expandMessage(msg, dsts[i], lenInBytes);
+      }
+      return expanded;
+    }
+    final Digest messageDigest = this.createZeroPadDigest();
+    messageDigest.update(msg, 0, msg.length);
+    updateLengthPrefix(messageDigest, lenInBytes);
+    final Memoable messageState = ((Memoable) messageDigest).copy();
+    final byte[] b0 = new byte[this.hashOutputBytes];
+    final byte[] bi = new byte[this.hashOutputBytes];
+    for (int i = 0; i < dsts.length; i++) {
+      ((Memoable) messageDigest).reset(messageState);
+      expanded[i] = new byte[lenInBytes];
+      this.expandFromMessageState(messageDigest, dsts[i], lenInBytes, ell, b0, bi, expanded[i]);
+    }
+    return expanded;
+  }
+
+  /**
+   * Creates an expansion of messages that start with a common prefix. The prefix is absorbed once
+   * into a snapshot of the digest state, after Z_pad, and each expansion copies that snapshot and
+   * only absorbs the rest of the message, l_i_b_str and DST_prime. The snapshot is never modified,
+   * so the returned instance is safe to share across threads like this one. Expanding msg with the
+   * returned instance gives the same output as expanding prefix || msg with this instance. Digests
+   * that do not support state copies absorb the prefix for every message instead.
+   *
+   * @param prefix the common prefix of the messages
+   * @return an expansion of the messages following the prefix
+   */
+  @Override
+  public XmdMessageExpansion withPrefix(final byte[] prefix) {
+    return new XmdMessageExpansion(this, prefix);
+  }
+
+  /**
+   * Get the largest length in bytes of a single expansion, which is bounded both by the 65535 byte
+   * limit and by the limit of 255 hash blocks.
+   *
+   * @return the maximum value of lenInBytes
+   */
+  @Override
+  public int getMaxExpansionLength() {
+    return Math.min(65535, 255 * this.hashOutputBytes);
+  }
+
+  /**
+   * Validates the expansion parameters and returns the number of hash blocks required.
+   *
+   * @param dst the domain separation tag
+   * @param lenInBytes the desired byte-length of the output message
+   * @return the ell parameter
+   * @throws IllegalArgumentException if ell exceeds 255, lenInBytes exceeds 65535, or dst length is
+   *         greater than 255
+   */
+  private int checkParameters(final byte[] dst, final int lenInBytes) {
     final int ell = (int) Math.ceil((double) lenInBytes / this.hashOutputBytes);
     if (ell > 255) {
       throw new IllegalArgumentException(
@@ -114,23 +445,139 @@ public class XmdMessageExpansion implements MessageExpansion {
       throw new IllegalArgumentException(
           "DST size must not be greater than 255. Current value = " + dst.length);
     }
-    final byte[] dstPrime = Arrays.concatenate(dst, H2cUtils.i2osp(dst.length, 1));
-    final byte[] zPad = H2cUtils.i2osp(0, this.s / 8);
-    final byte[] libStr = H2cUtils.i2osp(lenInBytes, 2);
-    final byte[] msgPrime =
-        Arrays.concatenate(new byte[][] {zPad, msg, libStr, H2cUtils.i2osp(0, 1), dstPrime});
-    final byte[][] b = new byte[ell + 1][this.hashOutputBytes];
-    b[0] = this.hash(msgPrime);
-    b[1] = this.hash(Arrays.concatenate(b[0], H2cUtils.i2osp(1, 1), dstPrime));
-    byte[] uniformBytes = Arrays.clone(b[1]);
+    return ell;
+  }
+
+  /**
+   * Creates a digest instance that has absorbed Z_pad and the message prefix. If the digest
+   * supports state copies, the state is copied from a precomputed state instead of hashing a full
+   * zero block and the prefix.
+   *
+   * @return a digest instance in the state after absorbing Z_pad and the message prefix
+   */
+  private Digest createZeroPadDigest() {
+    if (this.zeroPadState != null) {
+      return (Digest) this.zeroPadState.copy();
+    }
+    final Digest digestInstance = newDigest(this.digest);
+    digestInstance.update(new byte[this.s / 8], 0, this.s / 8);
+    digestInstance.update(this.prefix, 0, this.prefix.length);
+    return digestInstance;
+  }
+
+  /**
+   * Restores a digest instance to the state after absorbing Z_pad and the message prefix.
+   *
+   * @param zeroPadDigest a digest instance created by {@link #createZeroPadDigest()}
+   */
+  private void resetToZeroPad(final Digest zeroPadDigest) {
+    if (this.zeroPadState != null) {
+      ((Memoable) zeroPadDigest).reset(this.zeroPadState);
+      return;
+    }
+    zeroPadDigest.reset();
+    for (int i = 0; i < this.s / 8; i++) {
+      zeroPadDigest.update((byte) 0);
+    }
+    zeroPadDigest.update(this.prefix, 0, this.prefix.length);
+  }
+
+  /**
+   * Performs expand_message_xmd, writing uniform_bytes to the output buffer.
+   *
+   * <p>The msg_prime and b_i inputs, including DST_prime = DST || I2OSP(len(DST), 1), are fed to
+   * the digest piece by piece instead of being concatenated first. The b0 and bi buffers are
+   * scratch space of the digest output size.
+   *
+   * @param zeroPadDigest digest instance created by {@link #createZeroPadDigest()}
+   * @param msg the input message
+   * @param dst the domain separation tag
+   * @param lenInBytes the desired byte-length of the output message
+   * @param ell the number of hash blocks
+   * @param b0 scratch buffer holding b_0
+   * @param bi scratch buffer holding b_i
+   * @param out output buffer of at least lenInBytes bytes
+   */
+  private void expand(final Digest zeroPadDigest, final byte[] msg, final byte[] dst,
+      final int lenInBytes, final int ell, final byte[] b0, final byte[] bi, final byte[] out) {
+    this.resetToZeroPad(zeroPadDigest);
+    zeroPadDigest.update(msg, 0, msg.length);
+    this.expandAbsorbed(zeroPadDigest, dst, lenInBytes, ell, b0, bi, out);
+  }
+
+  /**
+   * Completes expand_message_xmd on a digest that has absorbed Z_pad and the message.
+   *
+   * @param zeroPadDigest digest instance that has absorbed Z_pad || msg
+   * @param dst the domain separation tag
+   * @param lenInBytes the desired byte-length of the output message
+   * @param ell the number of hash blocks
+   * @param b0 scratch buffer holding b_0
+   * @param bi scratch buffer holding b_i
+   * @param out output buffer of at least lenInBytes bytes
+   */
+  private void expandAbsorbed(final Digest zeroPadDigest, final byte[] dst, final int lenInBytes,
+      final int ell, final byte[] b0, final byte[] bi, final byte[] out) {
+    updateLengthPrefix(zeroPadDigest, lenInBytes);
+    this.expandFromMessageState(zeroPadDigest, dst, lenInBytes, ell, b0, bi, out);
+  }
+
+  /**
+   * Completes expand_message_xmd on a digest that has absorbed Z_pad || msg || l_i_b_str ||
+   * I2OSP(0, 1), which is the part of msg_prime before DST_prime.
+   *
+   * @param zeroPadDigest digest instance in the state before DST_prime
+   * @param dst the domain separation tag
+   * @param lenInBytes the desired byte-length of the output message
+   * @param ell the number of hash blocks
+   * @param b0 scratch buffer holding b_0
+   * @param bi scratch buffer holding b_i
+   * @param out output buffer of at least lenInBytes bytes
+   */
+  private void expandFromMessageState(final Digest zeroPadDigest, final byte[] dst,
+      final int lenInBytes, final int ell, final byte[] b0, final byte[] bi, final byte[] out) {
+    updateDstPrime(zeroPadDigest, dst);
+    zeroPadDigest.doFinal(b0, 0);
+
+    zeroPadDigest.update(b0, 0, this.hashOutputBytes);
+    zeroPadDigest.update((byte) 1);
+    updateDstPrime(zeroPadDigest, dst);
+    zeroPadDigest.doFinal(bi, 0);
+    System.arraycopy(bi, 0, out, 0, Math.min(this.hashOutputBytes, lenInBytes));
     for (int i = 2; i <= ell; i++) {
-      b[i] = this.hash(Arrays.concatenate(
-          H2cUtils.xor(b[0], b[i - 1]),
-          H2cUtils.i2osp(i, 1),
-          dstPrime));
-      uniformBytes = Arrays.concatenate(uniformBytes, b[i]);
+      for (int j = 0; j < this.hashOutputBytes; j++) {
+        bi[j] ^= b0[j];
+      }
+      zeroPadDigest.update(bi, 0, this.hashOutputBytes);
+      zeroPadDigest.update((byte) i);
+      updateDstPrime(zeroPadDigest, dst);
+      zeroPadDigest.doFinal(bi, 0);
+      final int offset = (i - 1) * this.hashOutputBytes;
+      System.arraycopy(bi, 0, out, offset, Math.min(this.hashOutputBytes, lenInBytes - offset));
     }
-    return Arrays.copyOfRange(uniformBytes, 0, lenInBytes);
+  }
+
+  /**
+   * Feeds l_i_b_str = I2OSP(len_in_bytes, 2) and I2OSP(0, 1) to a digest.
+   *
+   * @param digestInstance the digest
+   * @param lenInBytes the desired byte-length of the output message
+   */
+  private static void updateLengthPrefix(final Digest digestInstance, final int lenInBytes) {
+    digestInstance.update((byte) (lenInBytes >>> 8));
+    digestInstance.update((byte) lenInBytes);
+    digestInstance.update((byte) 0);
+  }
+
+  /**
+   * Feeds DST_prime = DST || I2OSP(len(DST), 1) to a digest.
+   *
+   * @param digestInstance the digest
+   * @param dst the domain separation tag
+   */
+  private static void updateDstPrime(final Digest digestInstance, final byte[] dst) {
+    digestInstance.update(dst, 0, dst.length);
+    digestInstance.update((byte) dst.length);
   }
 
   /**
@@ -140,10 +587,28 @@ public class XmdMessageExpansion implements MessageExpansion {
    * @return hash value
    */
   public byte[] hash(final byte[] message) {
-    final Digest digestInstance = DigestFactory.cloneDigest(this.digest);
+    final Digest digestInstance = newDigest(this.digest);
     digestInstance.update(message, 0, message.length);
     final byte[] hashResult = new byte[this.digest.getDigestSize()];
     digestInstance.doFinal(hashResult, 0);
     return hashResult;
   }
+
+  /**
+   * Expansion scratch state kept in a {@link HashContext}.
+   */
+  private static final class Scratch {
+    final Digest digest;
+    final byte[] b0;
+    final byte[] bi;
+    final byte[] chunk;
+
+    Scratch(final Digest digest, final int blockBytes) {
+      this.digest = digest;
+      this.b0 = new byte[digest.getDigestSize()];
+      this.bi = new byte[digest.getDigestSize()];
+      this.chunk = new byte[blockBytes];
+    }
+  }
+
 }
@@ -0,0 +1,293 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Throughput, latency and error counters of one hash to curve profile.
+ *
+ * <p>There is one instance per profile, obtained with {@link #getInstance(HashToCurveProfile)} and
+ * shared by all metered suites of the profile. Counters are updated without locks: totals are
+ * striped {@link LongAdder} instances and recent latencies are kept in a {@link LatencyWindow}.
+ * Metrics are opt-in. They are only recorded for calls made through a metered suite, such as
+ * {@code MeteredHashToEllipticCurve}, and are only visible over JMX after
+ * {@link #register(HashToCurveProfile)}, which registers the instance with the platform MBean
+ * server under the name {@value #DOMAIN}:type=HashToCurveMetrics,profile=&lt;profile name&gt;.
+ */
+@Slf4j
+public final class HashToCurveMetrics implements HashToCurveMetricsMXBean {
+
+  /** The domain of the object names of the registered MBeans. */
+  public static final String DOMAIN = "se.digg.crypto.hashtocurve";
+
+  /** The number of recent latencies kept per stripe of the latency window. */
+  private static final int LATENCY_WINDOW_STRIPE_SIZE = 512;
+
+  /** Exclusive upper bounds of the input size buckets, a last bucket holds larger messages. */
+  private static final int[] INPUT_SIZE_BOUNDS = {16, 64, 256, 1024, 4096, 16384, 65536};
+  private static final String[] INPUT_SIZE_BUCKETS = createBucketLabels();
+
+  private static final Map<HashToCurveProfile, HashToCurveMetrics> INSTANCES =
+      new ConcurrentHashMap<>();
+
+  /** The stages of hash to curve with separately measured times. */
+  public enum Stage {
+    /** hash_to_field, including message expansion. */
+    HASH_TO_FIELD,
+    /** map_to_curve. */
+    MAP_TO_CURVE,
+    /** clear_cofactor. */
+    CLEAR_COFACTOR
+  }
+
+  private final HashToCurveProfile profile;
+  private final LongAdder operationCount = new LongAdder();
+  private final LongAdder rejectedInputCount = new LongAdder();
+  private final LongAdder errorCount = new LongAdder();
+  private final LongAdder inputBytes = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAdder[] stageNanos = createAdders(Stage.values().length);
+  private final LongAdder[] inputSizeCounts = createAdders(INPUT_SIZE_BOUNDS.length + 1);
+  private final LatencyWindow latencies = new LatencyWindow(LATENCY_WINDOW_STRIPE_SIZE);
+
+  private HashToCurveMetrics(final HashToCurveProfile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Get the metrics of a profile.
+   *
+   * @param profile the hash to curve profile
+   * @return the metrics of the profile
+   */
+  public static HashToCurveMetrics getInstance(final HashToCurveProfile profile) {
+    return INSTANCES.computeIfAbsent(profile, HashToCurveMetrics::new);
+  }
+
+  /**
+   * Registers the metrics of a profile with the platform MBean server. Registering a profile that
+   * is already registered has no effect.
+   *
+   * @param profile the hash to curve profile
+   * @return the metrics of the profile
+   * @throws IllegalStateException if the MBean server rejects the registration
+   */
+  public static HashToCurveMetrics register(final HashToCurveProfile profile) {
+    final HashToCurveMetrics metrics = getInstance(profile);
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(metrics, getObjectName(profile));
+      log.debug("Registered metrics MBean of {}", profile.getCipherSuiteID());
+    } catch (final InstanceAlreadyExistsException e) {
+      log.trace("Metrics MBean of {} is already registered", profile.getCipherSuiteID());
+    } catch (final JMException e) {
+      throw new IllegalStateException("Failed to register the metrics MBean", e);
+    }
+    return metrics;
+  }
+
+  /**
+   * Unregisters the metrics of a profile from the platform MBean server. The metrics are still
+   * recorded by metered suites. Unregistering a profile that is not registered has no effect.
+   *
+   * @param profile the hash to curve profile
+   * @throws IllegalStateException if the MBean server rejects the request
+   */
+  public static void unregister(final HashToCurveProfile profile) {
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(getObjectName(profile));
+    } catch (final InstanceNotFoundException e) {
+      log.trace("Metrics MBean of {} is not registered", profile.getCipherSuiteID());
+    } catch (final JMException e) {
+      throw new IllegalStateException("Failed to unregister the metrics MBean", e);
+    }
+  }
+
+  /**
+   * Get the object name of the MBean of a profile.
+   *
+   * @param profile the hash to curve profile
+   * @return the object name
+   */
+  public static ObjectName getObjectName(final HashToCurveProfile profile) {
+    try {
+      return new ObjectName(DOMAIN + ":type=HashToCurveMetrics,profile=" + profile.name());
+    } catch (final MalformedObjectNameException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Records a completed operation.
+   *
+   * @param messageLength the length of the hashed message in bytes
+   * @param nanos the time of the operation in nanoseconds
+   */
+  public void recordOperation(final int messageLength, final long nanos) {
+    this.operationCount.increment();
+    this.inputBytes.add(messageLength);
+    this.totalNanos.add(nanos);
+    this.inputSizeCounts[getInputSizeBucket(messageLength)].increment();
+    this.latencies.record(nanos);
+  }
+
+  /**
+   * Records the time of a stage.
+   *
+   * @param stage the stage
+   * @param nanos the time of the stage in nanoseconds
+   */
+  public void recordStage(final Stage stage, final long nanos) {
+    this.stageNanos[stage.ordinal()].add(nanos);
+  }
+
+  /**
+   * Records an operation rejected for invalid input.
+   */
+  public void recordRejectedInput() {
+    this.rejectedInputCount.increment();
+  }
+
+  /**
+   * Records an operation that failed for other reasons than invalid input.
+   */
+  public void recordError() {
+    this.errorCount.increment();
+  }
+
+  @Override
+  public String getProfile() {
+    return this.profile.getCipherSuiteID();
+  }
+
+  @Override
+  public long getOperationCount() {
+    return this.operationCount.sum();
+  }
+
+  @Override
+  public long getRejectedInputCount() {
+    return this.rejectedInputCount.sum();
+  }
+
+  @Override
+  public long getErrorCount() {
+    return this.errorCount.sum();
+  }
+
+  @Override
+  public long getInputBytes() {
+    return this.inputBytes.sum();
+  }
+
+  @Override
+  public long getTotalNanos() {
+    return this.totalNanos.sum();
+  }
+
+  @Override
+  public long getHashToFieldNanos() {
+    return this.stageNanos[Stage.HASH_TO_FIELD.ordinal()].sum();
+  }
+
+  @Override
+  public long getMapToCurveNanos() {
+    return this.stageNanos[Stage.MAP_TO_CURVE.ordinal()].sum();
+  }
+
+  @Override
+  public long getClearCofactorNanos() {
+    return this.stageNanos[Stage.CLEAR_COFACTOR.ordinal()].sum();
+  }
+
+  @Override
+  public long getLatencyP50Nanos() {
+    return this.latencies.percentiles(0.5)[0];
+  }
+
+  @Override
+  public long getLatencyP90Nanos() {
+    return this.latencies.percentiles(0.9)[0];
+  }
+
+  @Override
+  public long getLatencyP99Nanos() {
+    return this.latencies.percentiles(0.99)[0];
+  }
+
+  @Override
+  public long getLatencyMaxNanos() {
+    return this.latencies.percentiles(1.0)[0];
+  }
+
+  @Override
+  public String[] getInputSizeBuckets() {
+    return INPUT_SIZE_BUCKETS.clone();
+  }
+
+  @Override
+  public long[] getInputSizeCounts() {
+    final long[] counts = new long[this.inputSizeCounts.length];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = this.inputSizeCounts[i].sum();
+    }
+    return counts;
+  }
+
+  @Override
+  public void reset() {
+    this.operationCount.reset();
+    this.rejectedInputCount.reset();
+    this.errorCount.reset();
+    this.inputBytes.reset();
+    this.totalNanos.reset();
+    for (final LongAdder adder : this.stageNanos) {
+      adder.reset();
+    }
+    for (final LongAdder adder : this.inputSizeCounts) {
+      adder.reset();
+    }
+    this.latencies.reset();
+  }
+
+  private static int getInputSizeBucket(final int messageLength) {
+    for (int i = 0; i < INPUT_SIZE_BOUNDS.length; i++) {
+      if (messageLength < INPUT_SIZE_BOUNDS[i]) {
+        return i;
+      }
+    }
+    return INPUT_SIZE_BOUNDS.length;
+  }
+
+  private static String[] createBucketLabels() {
+    final String[] labels = new String[INPUT_SIZE_BOUNDS.length + 1];
+    for (int i = 0; i < INPUT_SIZE_BOUNDS.length; i++) {
+      labels[i] = "<" + INPUT_SIZE_BOUNDS[i];
+    }
+    labels[INPUT_SIZE_BOUNDS.length] = ">=" + INPUT_SIZE_BOUNDS[INPUT_SIZE_BOUNDS.length - 1];
+    return labels;
+  }
+
+  private static LongAdder[] createAdders(final int count) {
+    final LongAdder[] adders = new LongAdder[count];
+    for (int i = 0; i < count; i++) {
+      adders[i] = new LongAdder();
+    }
+    return adders;
+  }
+
+}
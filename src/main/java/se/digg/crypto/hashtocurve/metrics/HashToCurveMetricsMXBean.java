@@ -0,0 +1,126 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.metrics;
+
+/**
+ * Management interface of the metrics of one hash to curve profile. Latencies are in nanoseconds
+ * and the latency percentiles are computed over the most recent operations.
+ */
+@SuppressWarnings("checkstyle:AbbreviationAsWordInName")
+public interface HashToCurveMetricsMXBean {
+
+  /**
+   * Get the cipher suite ID of the profile.
+   *
+   * @return the cipher suite ID
+   */
+  String getProfile();
+
+  /**
+   * Get the number of hashed messages, including rejected and failed messages.
+   *
+   * @return the number of operations
+   */
+  long getOperationCount();
+
+  /**
+   * Get the number of messages rejected for invalid input, such as a domain separation tag longer
+   * than 255 bytes or an expansion length greater than 65535 bytes.
+   *
+   * @return the number of rejected inputs
+   */
+  long getRejectedInputCount();
+
+  /**
+   * Get the number of messages that failed for other reasons than invalid input.
+   *
+   * @return the number of errors
+   */
+  long getErrorCount();
+
+  /**
+   * Get the total number of message bytes hashed.
+   *
+   * @return the number of input bytes
+   */
+  long getInputBytes();
+
+  /**
+   * Get the total time of all operations.
+   *
+   * @return the total time in nanoseconds
+   */
+  long getTotalNanos();
+
+  /**
+   * Get the total time of hash to field, including message expansion.
+   *
+   * @return the total time in nanoseconds
+   */
+  long getHashToFieldNanos();
+
+  /**
+   * Get the total time of map to curve.
+   *
+   * @return the total time in nanoseconds
+   */
+  long getMapToCurveNanos();
+
+  /**
+   * Get the total time of cofactor clearing.
+   *
+   * @return the total time in nanoseconds
+   */
+  long getClearCofactorNanos();
+
+  /**
+   * Get the median latency of the recent operations.
+   *
+   * @return the latency in nanoseconds, or 0 if there are no recorded operations
+   */
+  long getLatencyP50Nanos();
+
+  /**
+   * Get the 90th percentile latency of the recent operations.
+   *
+   * @return the latency in nanoseconds, or 0 if there are no recorded operations
+   */
+  long getLatencyP90Nanos();
+
+  /**
+   * Get the 99th percentile latency of the recent operations.
+   *
+   * @return the latency in nanoseconds, or 0 if there are no recorded operations
+   */
+  long getLatencyP99Nanos();
+
+  /**
+   * Get the maximum latency of the recent operations.
+   *
+   * @return the latency in nanoseconds, or 0 if there are no recorded operations
+   */
+  long getLatencyMaxNanos();
+
+  /**
+   * Get the upper bounds of the input size buckets, such as "&lt;64" for messages shorter than 64
+   * bytes, in the order of {@link #getInputSizeCounts()}.
+   *
+   * @return the labels of the input size buckets
+   */
+  String[] getInputSizeBuckets();
+
+  /**
+   * Get the number of messages per input size bucket.
+   *
+   * @return the message counts, in the order of {@link #getInputSizeBuckets()}
+   */
+  long[] getInputSizeCounts();
+
+  /**
+   * Resets all counters and the recent latencies.
+   */
+  void reset();
+
+}
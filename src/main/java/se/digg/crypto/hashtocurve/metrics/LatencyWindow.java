@@ -0,0 +1,103 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free window of the most recent latency samples.
+ *
+ * <p>Samples are written to ring buffers, striped by thread so that concurrent writers rarely
+ * share a cursor. A writer claims a slot with an atomic increment of the cursor of its stripe and
+ * overwrites the oldest sample there. Percentiles are computed by readers from a copy of all
+ * stripes, so recording never waits for a reader. A copy taken during concurrent writes may mix
+ * samples of slightly different windows, which is acceptable for monitoring.
+ */
+final class LatencyWindow {
+
+  private static final int STRIPES = 8;
+
+  private final int mask;
+  private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<>(STRIPES);
+
+  /**
+   * Creates a latency window.
+   *
+   * @param stripeSize the number of samples kept per stripe, a power of two
+   */
+  LatencyWindow(final int stripeSize) {
+    this.mask = stripeSize - 1;
+    for (int i = 0; i < STRIPES; i++) {
+      this.stripes.set(i, new Stripe(stripeSize));
+    }
+  }
+
+  /**
+   * Records a latency sample.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  void record(final long nanos) {
+    final Stripe stripe =
+        this.stripes.get((int) Thread.currentThread().threadId() & (STRIPES - 1));
+    final long index = stripe.cursor.getAndIncrement();
+    stripe.samples.lazySet((int) index & this.mask, nanos);
+  }
+
+  /**
+   * Get percentiles of the samples in the window.
+   *
+   * @param quantiles the quantiles in the range [0, 1]
+   * @return the sample at each quantile, or 0 for all quantiles if the window is empty
+   */
+  long[] percentiles(final double... quantiles) {
+    long[] copy = new long[STRIPES * (this.mask + 1)];
+    int count = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      final Stripe stripe = this.stripes.get(i);
+      final int filled = (int) Math.min(stripe.cursor.get(), this.mask + 1);
+      for (int j = 0; j < filled; j++) {
+        copy[count++] = stripe.samples.get(j);
+      }
+    }
+    final long[] result = new long[quantiles.length];
+    if (count == 0) {
+      return result;
+    }
+    copy = Arrays.copyOf(copy, count);
+    Arrays.sort(copy);
+    for (int i = 0; i < quantiles.length; i++) {
+      // Nearest rank
+      final int rank = (int) Math.ceil(quantiles[i] * count);
+      result[i] = copy[Math.max(0, Math.min(count, rank) - 1)];
+    }
+    return result;
+  }
+
+  /**
+   * Discards all samples. Samples recorded concurrently with the reset may be kept.
+   */
+  void reset() {
+    for (int i = 0; i < STRIPES; i++) {
+      this.stripes.set(i, new Stripe(this.mask + 1));
+    }
+  }
+
+  /**
+   * One ring buffer of samples.
+   */
+  private static final class Stripe {
+    final AtomicLong cursor = new AtomicLong();
+    final AtomicLongArray samples;
+
+    Stripe(final int size) {
+      this.samples = new AtomicLongArray(size);
+    }
+  }
+
+}
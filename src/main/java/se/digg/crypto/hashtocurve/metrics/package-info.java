@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+/**
+ * Opt-in metrics of hash to curve, exposed over JMX.
+ */
+package se.digg.crypto.hashtocurve.metrics;
@@ -0,0 +1,581 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.tool;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.BigIntegers;
+import org.bouncycastle.util.encoders.DecoderException;
+import org.bouncycastle.util.encoders.Hex;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashToEllipticCurve;
+import se.digg.crypto.hashtocurve.HashToScalar;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+
+/**
+ * Command line tool hashing all records of an input file to fixed-width encoded points or scalars.
+ *
+ * <p>The input file holds newline-delimited or length-prefixed records, see {@link RecordFormat}.
+ * Record i is hashed to the record at offset i * width of the output file, where the width is the
+ * length of a compressed or uncompressed SEC1 point encoding, or the byte length of the curve order
+ * for scalars. The point at infinity is written as zero bytes, as by
+ * {@link HashToEllipticCurve#hashToEncodedPoints(byte[][], boolean, byte[], int)}.
+ *
+ * <p>Both files are memory-mapped. The input is split into chunks of whole records, which are
+ * hashed in parallel. Each chunk maps its own region of the input and output files, and hashes its
+ * records in batches through the batch API of {@link HashToEllipticCurve}, or reads each record in
+ * place through {@link HashToScalar#process(ByteBuffer, byte[])} for scalars.
+ *
+ * <p>Progress is reported at a fixed interval. After the output of a chunk and all chunks before
+ * it is written to storage, the input offset of the next chunk is saved in a checkpoint file next
+ * to the output file. A run started with {@code --resume} continues from the saved offset, and a
+ * run started with {@code --start-offset} from an explicit input offset, which must be the start
+ * of a record. The checkpoint file is removed when all records are hashed.
+ */
+public final class BulkHasher {
+
+  /** Default target size in bytes of the input of a chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+  /** Largest accepted chunk size, leaving room for the record that ends a chunk. */
+  public static final int MAX_CHUNK_SIZE = 1 << 30;
+
+  /** Size of the windows of the input file mapped when splitting it into chunks. */
+  private static final int SCAN_WINDOW = 1 << 28;
+  /** Largest output region of a chunk. */
+  private static final long MAX_OUTPUT_REGION = 1L << 30;
+  /** Number of records hashed together. */
+  private static final int BATCH_SIZE = 256;
+
+  private static final String USAGE = String.join(System.lineSeparator(),
+      "Usage: BulkHasher --input <file> --output <file> --profile <profile> "
+          + "(--dst <text> | --dst-hex <hex>) [options]",
+      "  --format lines|length-prefixed         input record format (default lines)",
+      "  --encoding compressed|uncompressed|scalar  output encoding (default compressed)",
+      "  --threads <n>                          worker threads (default available processors)",
+      "  --chunk-size <bytes>                   input bytes per chunk (default 262144)",
+      "  --progress-interval <seconds>          progress report interval (default 10)",
+      "  --resume                               continue from the checkpoint file",
+      "  --start-offset <bytes>                 continue from an input offset");
+
+  private final Options options;
+  private final PrintStream log;
+  private final Encoder encoder;
+  private final Path checkpointFile;
+
+  private final AtomicLong hashed = new AtomicLong();
+  private List<Chunk> chunks;
+  private boolean[] completed;
+  private int watermark;
+
+  /**
+   * Creates a bulk hasher.
+   *
+   * @param options the options of the run
+   * @param log receives the progress reports
+   * @throws IllegalArgumentException if the profile does not support the encoding
+   */
+  public BulkHasher(final Options options, final PrintStream log) {
+    this.options = options;
+    this.log = log;
+    this.encoder = createEncoder(options);
+    this.checkpointFile = checkpointFile(options.output());
+  }
+
+  /**
+   * Runs the tool.
+   *
+   * @param args the command line arguments
+   */
+  @edu.umd.cs.findbugs.annotations.SuppressFBWarnings(
+      value = "DM_EXIT",
+      justification = "The exit status of the command line tool reports the outcome of the run")
+  public static void main(final String[] args) {
+    System.exit(run(args, System.err));
+  }
+
+  /**
+   * Runs the tool and returns its exit status: 0 on success, 1 if the run failed, and 2 if the
+   * arguments are invalid.
+   *
+   * @param args the command line arguments
+   * @param log receives the progress reports and errors
+   * @return the exit status
+   */
+  static int run(final String[] args, final PrintStream log) {
+    final BulkHasher hasher;
+    try {
+      hasher = new BulkHasher(Options.parse(args), log);
+    } catch (final IllegalArgumentException e) {
+      log.println(e.getMessage());
+      log.println(USAGE);
+      return 2;
+    }
+    try {
+      hasher.run();
+      return 0;
+    } catch (final IOException | IllegalArgumentException e) {
+      log.println("Hashing failed: " + e.getMessage());
+      return 1;
+    }
+  }
+
+  /**
+   * Hashes the records of the input file from the start offset or checkpoint to the end of the
+   * file.
+   *
+   * @return the number of records hashed by this run
+   * @throws IOException if reading or writing a file fails, or a worker fails
+   * @throws IllegalArgumentException if the input is not well-formed, or the start offset is not
+   *         the start of a record
+   */
+  public long run() throws IOException {
+    final long start = System.nanoTime();
+    final long startOffset =
+        this.options.resume() ? readCheckpoint(this.checkpointFile) : this.options.startOffset();
+    try (FileChannel in = FileChannel.open(this.options.input(), StandardOpenOption.READ);
+        FileChannel out = FileChannel.open(this.options.output(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      final long total = this.split(in, startOffset);
+      final long outputSize = total * this.encoder.width();
+      if (startOffset == 0 || out.size() > outputSize) {
+        out.truncate(startOffset == 0 ? 0 : outputSize);
+      }
+      final long first = this.chunks.isEmpty() ? total : this.chunks.get(0).firstRecord();
+      this.log.printf(Locale.ROOT, "Hashing %d of %d records in %d chunks with %s%n",
+          total - first, total, this.chunks.size(), this.options.profile().getCipherSuiteID());
+      this.hashChunks(in, out, total - first, start);
+    }
+    Files.deleteIfExists(this.checkpointFile);
+    this.log.printf(Locale.ROOT, "Hashed %d records in %.1f s%n", this.hashed.get(),
+        (System.nanoTime() - start) / 1e9);
+    return this.hashed.get();
+  }
+
+  /**
+   * Splits the input from an offset into chunks of whole records.
+   *
+   * @param in the input file
+   * @param startOffset the offset of the first record to hash
+   * @return the total number of records of the input file
+   * @throws IOException if reading the file fails
+   */
+  private long split(final FileChannel in, final long startOffset) throws IOException {
+    final long size = in.size();
+    if (startOffset < 0 || startOffset > size) {
+      throw new IllegalArgumentException("Start offset is outside the input file");
+    }
+    final int[] payload = new int[2];
+    final long maxChunkRecords = Math.max(1, MAX_OUTPUT_REGION / this.encoder.width());
+    this.chunks = new ArrayList<>();
+    long records = 0;
+    long chunkStart = startOffset;
+    long chunkFirst = -1;
+    long windowStart = 0;
+    while (windowStart < size) {
+      final int windowLength = (int) Math.min(SCAN_WINDOW, size - windowStart);
+      final boolean endOfInput = windowStart + windowLength == size;
+      final MappedByteBuffer window =
+          in.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+      int position = 0;
+      while (position < windowLength) {
+        final long offset = windowStart + position;
+        if (offset == startOffset) {
+          chunkFirst = records;
+        } else if (chunkFirst < 0 && offset > startOffset) {
+          throw new IllegalArgumentException("Start offset is not the start of a record");
+        }
+        final int next = this.options.format().next(window, position, endOfInput, payload);
+        if (next < 0) {
+          break;
+        }
+        records++;
+        position = next;
+        final long end = windowStart + next;
+        if (chunkFirst >= 0
+            && (end - chunkStart >= this.options.chunkSize()
+                || records - chunkFirst >= maxChunkRecords)) {
+          this.chunks.add(new Chunk(chunkStart, end, chunkFirst, records - chunkFirst));
+          chunkStart = end;
+          chunkFirst = records;
+        }
+      }
+      if (position == 0) {
+        throw new IllegalArgumentException("Record at offset " + windowStart
+            + " is larger than " + SCAN_WINDOW + " bytes");
+      }
+      windowStart += position;
+    }
+    if (chunkFirst >= 0 && records > chunkFirst) {
+      this.chunks.add(new Chunk(chunkStart, size, chunkFirst, records - chunkFirst));
+    }
+    this.completed = new boolean[this.chunks.size()];
+    this.watermark = 0;
+    return records;
+  }
+
+  private void hashChunks(final FileChannel in, final FileChannel out, final long count,
+      final long start) throws IOException {
+    final ExecutorService workers = Executors.newFixedThreadPool(this.options.threads());
+    final ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+    final long interval = this.options.progressInterval().toMillis();
+    reporter.scheduleAtFixedRate(() -> this.reportProgress(count, start), interval, interval,
+        TimeUnit.MILLISECONDS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < this.chunks.size(); i++) {
+        final int index = i;
+        futures.add(workers.submit(() -> {
+          this.hashChunk(in, out, this.chunks.get(index));
+          this.completeChunk(index);
+          return null;
+        }));
+      }
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while hashing", e);
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof final IOException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof final RuntimeException cause) {
+        throw cause;
+      }
+      throw new IOException("Hashing failed", e.getCause());
+    } finally {
+      workers.shutdownNow();
+      reporter.shutdownNow();
+    }
+  }
+
+  /**
+   * Hashes the records of a chunk and writes the output region of the chunk to storage.
+   *
+   * @param in the input file
+   * @param out the output file
+   * @param chunk the chunk
+   * @throws IOException if mapping or writing a file fails
+   */
+  private void hashChunk(final FileChannel in, final FileChannel out, final Chunk chunk)
+      throws IOException {
+    final int width = this.encoder.width();
+    final MappedByteBuffer input =
+        in.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+    final MappedByteBuffer output = out.map(FileChannel.MapMode.READ_WRITE,
+        chunk.firstRecord() * width, chunk.recordCount() * width);
+    final ByteBuffer[] batch = new ByteBuffer[BATCH_SIZE];
+    final byte[] encoded = new byte[BATCH_SIZE * width];
+    final int[] payload = new int[2];
+    int position = 0;
+    int count = 0;
+    int outputPosition = 0;
+    while (position < input.limit()) {
+      position = this.options.format().next(input, position, true, payload);
+      batch[count++] = input.slice(payload[0], payload[1] - payload[0]);
+      if (count == BATCH_SIZE || position == input.limit()) {
+        this.encoder.encode(batch, count, encoded);
+        output.put(outputPosition, encoded, 0, count * width);
+        outputPosition += count * width;
+        this.hashed.addAndGet(count);
+        count = 0;
+      }
+    }
+    output.force();
+  }
+
+  /**
+   * Marks a chunk as completed, and saves the checkpoint if all chunks before it are completed.
+   *
+   * @param index the index of the chunk
+   * @throws IOException if writing the checkpoint fails
+   */
+  private synchronized void completeChunk(final int index) throws IOException {
+    this.completed[index] = true;
+    final int previous = this.watermark;
+    while (this.watermark < this.completed.length && this.completed[this.watermark]) {
+      this.watermark++;
+    }
+    if (this.watermark > previous && this.watermark < this.completed.length) {
+      writeCheckpoint(this.checkpointFile, this.chunks.get(this.watermark).start());
+    }
+  }
+
+  private void reportProgress(final long count, final long start) {
+    final long done = this.hashed.get();
+    final double seconds = (System.nanoTime() - start) / 1e9;
+    final double rate = done / Math.max(seconds, 1e-9);
+    final long checkpoint;
+    synchronized (this) {
+      checkpoint = this.watermark < this.chunks.size()
+          ? this.chunks.get(this.watermark).start()
+          : -1;
+    }
+    this.log.printf(Locale.ROOT,
+        "Hashed %d of %d records (%.1f%%), %.0f records/s, %.0f s remaining, checkpoint %d%n",
+        done, count, count == 0 ? 100.0 : 100.0 * done / count, rate,
+        rate > 0 ? (count - done) / rate : 0.0, checkpoint);
+  }
+
+  /**
+   * Get the path of the checkpoint file of an output file.
+   *
+   * @param output the output file
+   * @return the checkpoint file
+   */
+  static Path checkpointFile(final Path output) {
+    return output.resolveSibling(output.getFileName() + ".checkpoint");
+  }
+
+  private static long readCheckpoint(final Path file) throws IOException {
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    final String content = Files.readString(file, StandardCharsets.US_ASCII).trim();
+    try {
+      return Long.parseLong(content);
+    } catch (final NumberFormatException e) {
+      throw new IOException("Invalid checkpoint file " + file, e);
+    }
+  }
+
+  private static void writeCheckpoint(final Path file, final long offset) throws IOException {
+    final Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    Files.writeString(temporary, Long.toString(offset), StandardCharsets.US_ASCII);
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static Encoder createEncoder(final Options options) {
+    final HashToCurveProfile profile = options.profile();
+    final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+    final byte[] dst = options.dst();
+    if (options.encoding() == Encoding.SCALAR) {
+      final HashToScalar hashToScalar =
+          new GenericOPRFHashToScalar(spec, H2cUtils.createDigest(profile), profile.getK());
+      final int width = BigIntegers.getUnsignedByteLength(spec.getN());
+      return new Encoder(width, (records, count, out) -> {
+        for (int i = 0; i < count; i++) {
+          final BigInteger scalar = hashToScalar.process(records[i], dst);
+          BigIntegers.asUnsignedByteArray(scalar, out, i * width, width);
+        }
+      });
+    }
+    final HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile, dst);
+    final boolean compressed = options.encoding() == Encoding.COMPRESSED;
+    final int width = spec.getCurve().getAffinePointEncodingLength(compressed);
+    if (profile.isRandomOracle()) {
+      return new Encoder(width, (records, count, out) -> {
+        final byte[][] messages = new byte[count][];
+        for (int i = 0; i < count; i++) {
+          messages[i] = H2cUtils.toByteArray(records[i]);
+        }
+        h2c.hashToEncodedPoints(messages, compressed, out, 0);
+      });
+    }
+    return new Encoder(width, (records, count, out) -> {
+      for (int i = 0; i < count; i++) {
+        final ECPoint point = h2c.encodeToEllipticCurve(H2cUtils.toByteArray(records[i]));
+        if (point.isInfinity()) {
+          Arrays.fill(out, i * width, (i + 1) * width, (byte) 0x00);
+        } else {
+          point.encodeTo(compressed, out, i * width);
+        }
+      }
+    });
+  }
+
+  /**
+   * Output encodings.
+   */
+  public enum Encoding {
+    /** Compressed SEC1 point encoding. */
+    COMPRESSED,
+    /** Uncompressed SEC1 point encoding. */
+    UNCOMPRESSED,
+    /** Big-endian scalar of the byte length of the curve order, from hash to scalar. */
+    SCALAR
+  }
+
+  /**
+   * Options of a bulk hashing run.
+   *
+   * @param input the input file
+   * @param output the output file
+   * @param profile the hash to curve profile
+   * @param dst the domain separation tag
+   * @param format the record format of the input file
+   * @param encoding the output encoding
+   * @param threads the number of worker threads
+   * @param chunkSize the target size in bytes of the input of a chunk
+   * @param progressInterval the interval of the progress reports
+   * @param resume true to continue from the checkpoint file
+   * @param startOffset the input offset to start from if not resuming
+   */
+  public record Options(
+      Path input,
+      Path output,
+      HashToCurveProfile profile,
+      byte[] dst,
+      RecordFormat format,
+      Encoding encoding,
+      int threads,
+      int chunkSize,
+      Duration progressInterval,
+      boolean resume,
+      long startOffset) {
+
+    /**
+     * Creates options with a copy of the domain separation tag.
+     *
+     * @throws IllegalArgumentException if a value is out of range
+     */
+    public Options {
+      if (threads <= 0 || chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+        throw new IllegalArgumentException("Invalid thread count or chunk size");
+      }
+      if (progressInterval.isNegative() || progressInterval.isZero()) {
+        throw new IllegalArgumentException("Progress interval must be positive");
+      }
+      if (resume && startOffset != 0) {
+        throw new IllegalArgumentException("Use either --resume or --start-offset");
+      }
+      dst = dst.clone();
+    }
+
+    @Override
+    public byte[] dst() {
+      return this.dst.clone();
+    }
+
+    /**
+     * Parses command line arguments.
+     *
+     * @param args the command line arguments
+     * @return the options
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    public static Options parse(final String[] args) {
+      Path input = null;
+      Path output = null;
+      HashToCurveProfile profile = null;
+      byte[] dst = null;
+      RecordFormat format = RecordFormat.LINES;
+      Encoding encoding = Encoding.COMPRESSED;
+      int threads = Runtime.getRuntime().availableProcessors();
+      int chunkSize = DEFAULT_CHUNK_SIZE;
+      Duration progressInterval = Duration.ofSeconds(10);
+      boolean resume = false;
+      long startOffset = 0;
+      for (int i = 0; i < args.length; i++) {
+        final String name = args[i];
+        if ("--resume".equals(name)) {
+          resume = true;
+          continue;
+        }
+        if (i + 1 == args.length) {
+          throw new IllegalArgumentException("Missing value of " + name);
+        }
+        final String value = args[++i];
+        try {
+          switch (name) {
+            case "--input" -> input = Path.of(value);
+            case "--output" -> output = Path.of(value);
+            case "--profile" -> profile = parseProfile(value);
+            case "--dst" -> dst = value.getBytes(StandardCharsets.UTF_8);
+            case "--dst-hex" -> dst = Hex.decode(value);
+            case "--format" -> format = RecordFormat.valueOf(toConstant(value));
+            case "--encoding" -> encoding = Encoding.valueOf(toConstant(value));
+            case "--threads" -> threads = Integer.parseInt(value);
+            case "--chunk-size" -> chunkSize = Integer.parseInt(value);
+            case "--progress-interval" -> progressInterval =
+                Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+            case "--start-offset" -> startOffset = Long.parseLong(value);
+            default -> throw new IllegalArgumentException("Unknown option " + name);
+          }
+        } catch (final DecoderException e) {
+          throw new IllegalArgumentException("Invalid value of " + name + ": " + value, e);
+        }
+      }
+      if (input == null || output == null || profile == null || dst == null) {
+        throw new IllegalArgumentException("The input, output, profile and DST are required");
+      }
+      return new Options(input, output, profile, dst, format, encoding, threads, chunkSize,
+          progressInterval, resume, startOffset);
+    }
+
+    private static HashToCurveProfile parseProfile(final String value) {
+      for (final HashToCurveProfile profile : HashToCurveProfile.values()) {
+        if (profile.name().equals(value) || profile.getCipherSuiteID().equals(value)) {
+          return profile;
+        }
+      }
+      throw new IllegalArgumentException("Unknown profile " + value);
+    }
+
+    private static String toConstant(final String value) {
+      return value.toUpperCase(Locale.ROOT).replace('-', '_');
+    }
+  }
+
+  /**
+   * A range of whole records of the input file.
+   *
+   * @param start the input offset of the first record
+   * @param end the input offset after the last record
+   * @param firstRecord the index of the first record in the input file
+   * @param recordCount the number of records
+   */
+  private record Chunk(long start, long end, long firstRecord, long recordCount) {
+  }
+
+  /**
+   * Encodes batches of records to fixed-width output records.
+   *
+   * @param width the width in bytes of an output record
+   * @param operation hashes and encodes a batch
+   */
+  private record Encoder(int width, BatchOperation operation) {
+
+    void encode(final ByteBuffer[] records, final int count, final byte[] out) {
+      this.operation.encode(records, count, out);
+    }
+  }
+
+  /**
+   * Hashes and encodes a batch of records.
+   */
+  @FunctionalInterface
+  private interface BatchOperation {
+
+    void encode(ByteBuffer[] records, int count, byte[] out);
+  }
+
+}
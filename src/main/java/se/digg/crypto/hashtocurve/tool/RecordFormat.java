@@ -0,0 +1,74 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.tool;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Record formats of the input files of the {@link BulkHasher}.
+ */
+public enum RecordFormat {
+
+  /**
+   * Records separated by newline characters. A carriage return before the newline is not part of
+   * the record, so files with CRLF line endings hash the same as files with LF line endings. The
+   * last record does not need a trailing newline.
+   */
+  LINES,
+
+  /**
+   * Records prefixed by their length in bytes as a 4 byte big-endian unsigned integer.
+   */
+  LENGTH_PREFIXED;
+
+  /** Size of the length prefix of {@link #LENGTH_PREFIXED} records. */
+  private static final int PREFIX_LENGTH = 4;
+
+  /**
+   * Reads the record starting at a position of a buffer.
+   *
+   * @param buffer the buffer holding the records
+   * @param position the position of the first byte of the record
+   * @param endOfInput true if the limit of the buffer is the end of the input, false if the input
+   *        continues beyond the limit
+   * @param payload receives the positions of the first byte and the byte after the last byte of
+   *        the record content
+   * @return the position of the next record, or -1 if the record does not end before the limit of
+   *         a buffer that is not at the end of the input
+   * @throws IllegalArgumentException if the input ends within a length-prefixed record
+   */
+  int next(final ByteBuffer buffer, final int position, final boolean endOfInput,
+      final int[] payload) {
+    final int limit = buffer.limit();
+    if (this == LINES) {
+      for (int i = position; i < limit; i++) {
+        if (buffer.get(i) == '\n') {
+          payload[0] = position;
+          payload[1] = i > position && buffer.get(i - 1) == '\r' ? i - 1 : i;
+          return i + 1;
+        }
+      }
+      if (!endOfInput) {
+        return -1;
+      }
+      payload[0] = position;
+      payload[1] = limit > position && buffer.get(limit - 1) == '\r' ? limit - 1 : limit;
+      return limit;
+    }
+    if (limit - position >= PREFIX_LENGTH) {
+      final long length = buffer.getInt(position) & 0xffffffffL;
+      if (length <= limit - position - PREFIX_LENGTH) {
+        payload[0] = position + PREFIX_LENGTH;
+        payload[1] = payload[0] + (int) length;
+        return payload[1];
+      }
+    }
+    if (endOfInput) {
+      throw new IllegalArgumentException("Input ends within a length-prefixed record");
+    }
+    return -1;
+  }
+
+}
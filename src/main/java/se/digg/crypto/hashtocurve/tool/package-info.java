@@ -0,0 +1,8 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+/**
+ * Command line tools for bulk hashing.
+ */
+package se.digg.crypto.hashtocurve.tool;
@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.BatchShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.GenericCurveProcessor;
+import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.GenericSqrtRatioCalculator;
+import se.digg.crypto.hashtocurve.impl.ShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
+
+/**
+ * Allocation regression tests. Measures the bytes allocated per operation by each pipeline stage
+ * after warm-up and checks them against recorded budgets, so that a change or library upgrade that
+ * noticeably increases the garbage per call fails the build.
+ *
+ * <p>The budgets are roughly twice the values measured on JDK 21 with Bouncy Castle 1.83, leaving
+ * room for JIT and JDK differences while still catching regressions. When an intended change
+ * lowers the allocation of a stage, lower its budget accordingly.
+ */
+@Slf4j
+class AllocationBudgetTest {
+
+  private static final int WARM_UP_ITERATIONS = 2000;
+  private static final int MEASURED_ITERATIONS = 200;
+
+  /** Budgets in bytes per operation, by stage and profile (P-256, P-384, P-521). */
+  private static final Map<String, long[]> BUDGETS = Map.ofEntries(
+      Map.entry("expandMessage", new long[] {1_200, 1_500, 1_500}),
+      Map.entry("expandMessage(ctx)", new long[] {64, 64, 64}),
+      Map.entry("hashToField", new long[] {3_200, 4_600, 5_200}),
+      Map.entry("hashToField(ctx)", new long[] {2_000, 2_400, 2_800}),
+      Map.entry("sqrtRatio", new long[] {15_000, 19_000, 26_000}),
+      Map.entry("mapToCurve", new long[] {44_000, 55_000, 77_000}),
+      Map.entry("mapToCurve(ctx)", new long[] {4_000, 6_000, 9_000}),
+      Map.entry("hashToEllipticCurve", new long[] {95_000, 123_000, 170_000}),
+      Map.entry("hashToEllipticCurve(ctx)", new long[] {14_000, 23_000, 31_000}));
+
+  private static final List<HashToCurveProfile> PROFILES = List.of(
+      HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+      HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+      HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_);
+
+  private static final byte[] DST = "QUUX-V01-CS02-with-allocation-budget"
+      .getBytes(StandardCharsets.UTF_8);
+  private static final byte[] MESSAGE = "abcdef0123456789".getBytes(StandardCharsets.UTF_8);
+
+  private static com.sun.management.ThreadMXBean threadMxBean;
+
+  @BeforeAll
+  static void init() {
+    Assumptions.assumeTrue(
+        ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+        "Thread allocation counters are not supported by this JVM");
+    threadMxBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    Assumptions.assumeTrue(threadMxBean.isThreadAllocatedMemorySupported(),
+        "Thread allocation counters are not supported by this JVM");
+    threadMxBean.setThreadAllocatedMemoryEnabled(true);
+  }
+
+  @Test
+  void messageExpansionBudget() {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      final HashToCurveProfile profile = PROFILES.get(i);
+      final XmdMessageExpansion expansion = new XmdMessageExpansion(
+          HashToEllipticCurveTest.getDigest(profile), profile.getK());
+      final int len = 2 * profile.getL();
+      final HashContext ctx = new HashContext();
+      final byte[] out = new byte[len];
+      check("expandMessage", i, profile, () -> expansion.expandMessage(MESSAGE, DST, len));
+      check("expandMessage(ctx)", i, profile,
+          () -> expansion.expandMessage(MESSAGE, DST, len, out, ctx));
+    }
+  }
+
+  @Test
+  void hashToFieldBudget() {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      final HashToCurveProfile profile = PROFILES.get(i);
+      final HashToField hashToField = createHashToField(profile);
+      final HashContext ctx = new HashContext();
+      check("hashToField", i, profile, () -> hashToField.process(MESSAGE));
+      check("hashToField(ctx)", i, profile, () -> hashToField.process(MESSAGE, ctx));
+    }
+  }
+
+  @Test
+  void sqrtRatioBudget() {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      final HashToCurveProfile profile = PROFILES.get(i);
+      final GenericSqrtRatioCalculator calculator = new GenericSqrtRatioCalculator(
+          HashToEllipticCurveTest.getSpec(profile), profile.getZ());
+      final BigInteger[][] u = createHashToField(profile).process(MESSAGE);
+      check("sqrtRatio", i, profile, () -> calculator.sqrtRatio(u[0][0], u[1][0]));
+    }
+  }
+
+  @Test
+  void mapToCurveBudget() {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      final HashToCurveProfile profile = PROFILES.get(i);
+      final ECParameterSpec spec = HashToEllipticCurveTest.getSpec(profile);
+      final MapToCurve mapToCurve = new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      final MapToCurve batchMapToCurve =
+          new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      final BigInteger u = createHashToField(profile).process(MESSAGE)[0][0];
+      final HashContext ctx = new HashContext();
+      check("mapToCurve", i, profile, () -> mapToCurve.process(u));
+      check("mapToCurve(ctx)", i, profile, () -> batchMapToCurve.process(u, ctx));
+    }
+  }
+
+  @Test
+  void hashToEllipticCurveBudget() {
+    for (int i = 0; i < PROFILES.size(); i++) {
+      final HashToCurveProfile profile = PROFILES.get(i);
+      final ECParameterSpec spec = HashToEllipticCurveTest.getSpec(profile);
+      final HashToEllipticCurve h2c = new HashToEllipticCurve(createHashToField(profile),
+          new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new GenericCurveProcessor(spec));
+      final HashToEllipticCurve contextH2c = new HashToEllipticCurve(createHashToField(profile),
+          new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new GenericCurveProcessor(spec));
+      final HashContext ctx = new HashContext();
+      check("hashToEllipticCurve", i, profile, () -> h2c.hashToEllipticCurve(MESSAGE));
+      check("hashToEllipticCurve(ctx)", i, profile,
+          () -> contextH2c.hashToEllipticCurve(MESSAGE, ctx));
+    }
+  }
+
+  private static HashToField createHashToField(final HashToCurveProfile profile) {
+    return new GenericHashToField(DST, HashToEllipticCurveTest.getSpec(profile),
+        new XmdMessageExpansion(HashToEllipticCurveTest.getDigest(profile), profile.getK()),
+        profile.getL());
+  }
+
+  private static void check(final String stage, final int profileIndex,
+      final HashToCurveProfile profile, final Runnable operation) {
+    final long allocated = measure(operation);
+    final long budget = BUDGETS.get(stage)[profileIndex];
+    log.info("{} {}: {} bytes per operation (budget {})", profile.getCipherSuiteID(), stage,
+        allocated, budget);
+    assertTrue(allocated <= budget, String.format("%s %s allocated %d bytes per operation, "
+        + "exceeding the budget of %d bytes", profile.getCipherSuiteID(), stage, allocated, budget));
+  }
+
+  private static long measure(final Runnable operation) {
+    for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+      operation.run();
+    }
+    final long threadId = Thread.currentThread().threadId();
+    final long start = threadMxBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+      operation.run();
+    }
+    return (threadMxBean.getThreadAllocatedBytes(threadId) - start) / MEASURED_ITERATIONS;
+  }
+
+}
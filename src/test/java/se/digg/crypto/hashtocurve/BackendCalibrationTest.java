@@ -0,0 +1,174 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.BackendSelection;
+import se.digg.crypto.hashtocurve.data.CalibrationReport;
+import se.digg.crypto.hashtocurve.data.DigestBackend;
+import se.digg.crypto.hashtocurve.data.FieldBackend;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.PipelineSettings;
+import se.digg.crypto.hashtocurve.impl.JcaDigest;
+
+/**
+ * Testing the backend selection and calibration
+ */
+@Slf4j
+class BackendCalibrationTest {
+
+  @AfterEach
+  void cleanup() {
+    System.clearProperty(BackendCalibration.DIGEST_PROPERTY);
+    System.clearProperty(BackendCalibration.FIELD_PROPERTY);
+    System.clearProperty(BackendCalibration.BATCH_SIZE_PROPERTY);
+    System.clearProperty(BackendCalibration.FIELD_PROPERTY + "."
+        + HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_.name());
+    BackendCalibration.clear();
+  }
+
+  @Test
+  void defaultSelectionTest() throws Exception {
+    assertEquals(new BackendSelection(DigestBackend.BOUNCY_CASTLE, FieldBackend.BC_CUSTOM_FIELD,
+        64), BackendCalibration.getSelection(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_));
+    assertEquals(FieldBackend.LIMB,
+        BackendCalibration.getSelection(HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_).field());
+    assertEquals(FieldBackend.LIMB, BackendCalibration.getSelection(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_).field());
+    assertThrows(IllegalArgumentException.class,
+        () -> new BackendSelection(DigestBackend.JCA, FieldBackend.LIMB, 0));
+  }
+
+  @Test
+  void selectionVectorTest() throws Exception {
+    // Every combination of backends agrees with the test vectors
+    for (final HashToCurveProfile profile : HashToCurveProfile.values()) {
+      if (profile == HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_) {
+        continue;
+      }
+      final TestVectorData tvd = TestVectors.getTestVectors(profile);
+      for (final DigestBackend digest : DigestBackend.values()) {
+        for (final FieldBackend field : FieldBackend.values()) {
+          final BackendSelection selection = new BackendSelection(digest, field, 16);
+          final byte[] dst = tvd.getDst().getBytes(StandardCharsets.UTF_8);
+          if (!BackendCalibration.getSupportedFields(profile).contains(field)) {
+            assertThrows(IllegalArgumentException.class,
+                () -> HashToEllipticCurve.getInstance(profile, dst, selection));
+            continue;
+          }
+          final HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile, dst, selection);
+          for (final TestVectorData.Vector vector : tvd.getVectors()) {
+            final byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+            final ECPoint point = profile.isRandomOracle()
+                ? h2c.hashToEllipticCurve(message)
+                : h2c.encodeToEllipticCurve(message);
+            assertEquals(new BigInteger(vector.getP().get("x").substring(2), 16),
+                point.getAffineXCoord().toBigInteger());
+            assertEquals(new BigInteger(vector.getP().get("y").substring(2), 16),
+                point.getAffineYCoord().toBigInteger());
+          }
+        }
+      }
+      log.info("All backends match the test vectors of {}", profile.getCipherSuiteID());
+    }
+  }
+
+  @Test
+  void pinTest() throws Exception {
+    System.setProperty(BackendCalibration.DIGEST_PROPERTY, "JCA");
+    System.setProperty(BackendCalibration.BATCH_SIZE_PROPERTY, "16");
+    System.setProperty(BackendCalibration.FIELD_PROPERTY + "."
+        + HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_.name(), "BIG_INTEGER");
+    assertEquals(new BackendSelection(DigestBackend.JCA, FieldBackend.BIG_INTEGER, 16),
+        BackendCalibration.getSelection(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_));
+    assertEquals(new BackendSelection(DigestBackend.JCA, FieldBackend.LIMB, 16),
+        BackendCalibration.getSelection(HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_));
+    assertTrue(H2cUtils.createDigest(HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_)
+        instanceof JcaDigest);
+
+    // A pinned field arithmetic that is not available for a profile is ignored
+    System.setProperty(BackendCalibration.FIELD_PROPERTY, "BC_CUSTOM_FIELD");
+    assertEquals(FieldBackend.LIMB, BackendCalibration.getSelection(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_).field());
+
+    // The selected batch size is the maximum batch size of the pipeline settings
+    PipelineSettings settings =
+        BackendCalibration.getPipelineSettings(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    assertEquals(16, settings.maxBatchSize());
+    assertEquals(PipelineSettings.DEFAULT_BUFFER_SIZE, settings.bufferSize());
+    System.setProperty(BackendCalibration.BATCH_SIZE_PROPERTY, "4096");
+    settings =
+        BackendCalibration.getPipelineSettings(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    assertEquals(4096, settings.maxBatchSize());
+    assertEquals(4096, settings.bufferSize());
+
+    System.setProperty(BackendCalibration.DIGEST_PROPERTY, "SHA3");
+    assertThrows(IllegalArgumentException.class,
+        () -> BackendCalibration.getSelection(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_));
+    System.setProperty(BackendCalibration.DIGEST_PROPERTY, "jca");
+    System.setProperty(BackendCalibration.BATCH_SIZE_PROPERTY, "many");
+    assertThrows(IllegalArgumentException.class,
+        () -> BackendCalibration.getSelection(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_));
+  }
+
+  @Test
+  void calibrateTest() throws Exception {
+    final EnumSet<HashToCurveProfile> profiles = EnumSet.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_,
+        HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_);
+    final CalibrationReport report = BackendCalibration.calibrate(profiles, Duration.ofMillis(4));
+    log.info("Calibration report: {}", report);
+    assertEquals(profiles.size(), report.profiles().size());
+    for (final CalibrationReport.ProfileCalibration calibration : report.profiles()) {
+      final HashToCurveProfile profile = calibration.profile();
+      assertTrue(profiles.contains(profile));
+      assertEquals(calibration.selection(), BackendCalibration.getSelection(profile));
+      assertTrue(calibration.digestTimings().containsKey(calibration.selection().digest()));
+      if (profile != HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_) {
+        final Set<FieldBackend> supported = BackendCalibration.getSupportedFields(profile);
+        assertTrue(supported.contains(calibration.selection().field()));
+        // A single candidate is selected without measurement
+        assertEquals(supported.size() > 1,
+            calibration.fieldTimings().containsKey(calibration.selection().field()));
+        assertTrue(calibration.batchTimings().containsKey(calibration.selection().batchSize()));
+      }
+    }
+
+    // Suites created after the calibration still match the test vectors
+    final TestVectorData tvd =
+        TestVectors.getTestVectors(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    final TestVectorData.Vector vector = tvd.getVectors().get(0);
+    final ECPoint point = HashToEllipticCurve.getInstance(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        tvd.getDst().getBytes(StandardCharsets.UTF_8))
+        .hashToEllipticCurve(vector.getMsg().getBytes(StandardCharsets.UTF_8));
+    assertEquals(new BigInteger(vector.getP().get("x").substring(2), 16),
+        point.getAffineXCoord().toBigInteger());
+
+    // Pinned choices are not measured
+    System.setProperty(BackendCalibration.DIGEST_PROPERTY, "BOUNCY_CASTLE");
+    final CalibrationReport pinned = BackendCalibration.calibrate(
+        EnumSet.of(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_), Duration.ofMillis(2));
+    assertTrue(pinned.profiles().get(0).digestTimings().isEmpty());
+    assertEquals(DigestBackend.BOUNCY_CASTLE, pinned.profiles().get(0).selection().digest());
+    BackendCalibration.clear();
+    assertEquals(64, BackendCalibration.getSelection(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_).batchSize());
+  }
+
+}
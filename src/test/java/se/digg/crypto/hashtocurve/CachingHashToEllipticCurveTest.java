@@ -0,0 +1,151 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.Arrays;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.CacheStatistics;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.GenericCurveProcessor;
+import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+import se.digg.crypto.hashtocurve.impl.ShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
+
+/**
+ * Test the caching decorators.
+ */
+class CachingHashToEllipticCurveTest {
+
+  static final byte[] DST =
+      "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void testCachedPointsMatch() {
+    HashToCurveProfile profile = HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_;
+    ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("P-256");
+    HashToEllipticCurve h2c = new HashToEllipticCurve(
+        new GenericHashToField(DST, spec, new XmdMessageExpansion(new SHA256Digest(), 128),
+            profile.getL()),
+        new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+        new GenericCurveProcessor(spec));
+    CachingHashToEllipticCurve cached = new CachingHashToEllipticCurve(h2c, 100, 1_000_000);
+
+    byte[][] messages = new byte[][] {"".getBytes(), "abc".getBytes(), "abc".getBytes()};
+    for (byte[] message : messages) {
+      ECPoint expected = h2c.hashToEllipticCurve(message);
+      assertEquals(expected, cached.hashToEllipticCurve(message));
+      byte[] out = new byte[33];
+      cached.hashToEncodedPoint(message, true, out, 0);
+      assertArrayEquals(expected.getEncoded(true), out);
+    }
+    byte[] batch = new byte[65 * messages.length];
+    cached.hashToEncodedPoints(messages, false, batch, 0);
+    byte[] expectedBatch = new byte[65 * messages.length];
+    h2c.hashToEncodedPoints(messages, false, expectedBatch, 0);
+    assertArrayEquals(expectedBatch, batch);
+
+    // Buffers share the cache entries of the arrays holding the same bytes
+    assertEquals(h2c.hashToEllipticCurve(messages[1]),
+        cached.hashToEllipticCurve(ByteBuffer.allocateDirect(3).put(messages[1]).flip()));
+
+    CacheStatistics statistics = cached.getCacheStatistics();
+    assertEquals(2, statistics.missCount());
+    assertEquals(8, statistics.hitCount());
+  }
+
+  @Test
+  void testDecoratedOperations() {
+    HashToEllipticCurve h2c = MeteredHashToEllipticCurveTest.createSuite(DST);
+    CachingHashToEllipticCurve cached = new CachingHashToEllipticCurve(h2c, 100, 1_000_000);
+    byte[] message = "abc".getBytes();
+    BigInteger[] scalars = new BigInteger[] {BigInteger.TWO, BigInteger.valueOf(12345)};
+
+    // The fused multiplication takes the hashed point from the cache
+    assertEquals(h2c.hashAndMultiply(message, scalars[1]),
+        cached.hashAndMultiply(message, scalars[1]));
+    assertArrayEquals(h2c.hashAndMultiply(message, scalars),
+        cached.hashAndMultiply(message, scalars));
+    assertEquals(1, cached.getCacheStatistics().missCount());
+    assertEquals(1, cached.getCacheStatistics().hitCount());
+
+    // encode_to_curve is cached under its own keys
+    ECPoint encoded = h2c.encodeToEllipticCurve(message);
+    assertEquals(encoded, cached.encodeToEllipticCurve(message));
+    assertEquals(encoded, cached.encodeToEllipticCurve(message));
+    assertEquals(2, cached.getCacheStatistics().missCount());
+    assertEquals(2, cached.getCacheStatistics().hitCount());
+    assertEquals(h2c.hashToEllipticCurve(message), cached.hashToEllipticCurve(message));
+
+    // A prefixed instance shares the cache under keys that include the prefix
+    byte[] prefix = "context".getBytes();
+    HashToEllipticCurve prefixed = cached.withPrefix(prefix);
+    assertTrue(prefixed instanceof CachingHashToEllipticCurve);
+    ECPoint expected = h2c.hashToEllipticCurve(Arrays.concatenate(prefix, message));
+    assertEquals(expected, prefixed.hashToEllipticCurve(message));
+    assertEquals(expected, prefixed.hashToEllipticCurve(message));
+    assertEquals(expected, prefixed.withPrefix(new byte[0]).hashToEllipticCurve(message));
+    assertEquals(expected, cached.withPrefix("con".getBytes()).withPrefix("text".getBytes())
+        .hashToEllipticCurve(message));
+    assertEquals(3, cached.getCacheStatistics().missCount());
+    assertEquals(6, cached.getCacheStatistics().hitCount());
+
+    // Derived generators are hashed through the cache
+    byte[] label = "pedersen".getBytes();
+    DerivedGenerators generators = cached.deriveGenerators(label, 0, 3);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(h2c.hashToEllipticCurve(DerivedGenerators.message(label, i)),
+          generators.getGenerator(i));
+    }
+    assertEquals(6, cached.getCacheStatistics().missCount());
+    cached.deriveGenerators(label, 1, 3);
+    assertEquals(6, cached.getCacheStatistics().missCount());
+    assertEquals(8, cached.getCacheStatistics().hitCount());
+
+    // The points of other tags are cached per tag
+    byte[][] dsts = new byte[][] {"TENANT-A".getBytes(), "TENANT-B".getBytes()};
+    ECPoint[] forDsts = h2c.hashToEllipticCurveForDsts(message, dsts);
+    assertArrayEquals(forDsts, cached.hashToEllipticCurveForDsts(message, dsts));
+    assertEquals(8, cached.getCacheStatistics().missCount());
+    byte[][] reordered = new byte[][] {dsts[1], "TENANT-C".getBytes(), dsts[0]};
+    assertArrayEquals(h2c.hashToEllipticCurveForDsts(message, reordered),
+        cached.hashToEllipticCurveForDsts(message, reordered));
+    assertEquals(9, cached.getCacheStatistics().missCount());
+    assertEquals(10, cached.getCacheStatistics().hitCount());
+    assertEquals(forDsts[1], cached.withPrefix(new byte[0])
+        .hashToEllipticCurveForDsts(message, new byte[][] {dsts[1]})[0]);
+    assertEquals(11, cached.getCacheStatistics().hitCount());
+  }
+
+  @Test
+  void testCachedScalarsMatch() {
+    ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("P-256");
+    HashToScalar hashToScalar = new GenericOPRFHashToScalar(spec, new SHA256Digest(), 128);
+    CachingHashToScalar cached = new CachingHashToScalar(hashToScalar, 100, 1_000_000);
+
+    BigInteger expected = hashToScalar.process("Hej".getBytes(), "DST".getBytes());
+    assertEquals(expected, cached.process("Hej".getBytes(), "DST".getBytes()));
+    assertEquals(expected, cached.process("Hej".getBytes(), "DST".getBytes()));
+    assertEquals(hashToScalar.process("Hej".getBytes(), "DST2".getBytes()),
+        cached.process("Hej".getBytes(), "DST2".getBytes()));
+    assertEquals(expected,
+        hashToScalar.process(ByteBuffer.wrap("Hej".getBytes()), "DST".getBytes()));
+    assertEquals(expected, cached.process(ByteBuffer.wrap("Hej".getBytes()), "DST".getBytes()));
+    assertEquals(2, cached.getCacheStatistics().hitCount());
+    assertEquals(2, cached.getCacheStatistics().missCount());
+  }
+
+}
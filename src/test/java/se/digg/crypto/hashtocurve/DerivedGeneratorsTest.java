@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.bouncycastle.math.ec.ECCurve;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.math.ec.FixedPointUtil;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Test the derivation and storage of generators.
+ */
+class DerivedGeneratorsTest {
+
+  static final byte[] DST =
+      "GENERATORS-V01-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+  static final byte[] LABEL = "pedersen".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void deriveTest() throws Exception {
+    HashToEllipticCurve h2c =
+        HashToEllipticCurve.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_, DST);
+    DerivedGenerators generators = h2c.deriveGenerators(LABEL, 3, 9);
+    assertEquals(3, generators.getFrom());
+    assertEquals(6, generators.size());
+    assertArrayEquals(LABEL, generators.getLabel());
+
+    BigInteger order = generators.getGenerator(3).getCurve().getOrder();
+    BigInteger[] scalars = new BigInteger[] {BigInteger.ONE, BigInteger.valueOf(12345),
+        order.subtract(BigInteger.ONE), order.add(BigInteger.TEN), BigInteger.valueOf(-7)};
+    for (int i = 3; i < 9; i++) {
+      ECPoint generator = generators.getGenerator(i);
+      assertEquals(h2c.hashToEllipticCurve(DerivedGenerators.message(LABEL, i)), generator);
+      for (BigInteger k : scalars) {
+        assertEquals(generator.multiply(k.mod(order)).normalize(),
+            generators.multiply(i, k).normalize());
+      }
+    }
+    assertEquals(0, h2c.deriveGenerators(LABEL, 5, 5).size());
+    assertThrows(IndexOutOfBoundsException.class, () -> generators.getGenerator(2));
+    assertThrows(IndexOutOfBoundsException.class, () -> generators.multiply(9, BigInteger.ONE));
+    assertThrows(IllegalArgumentException.class, () -> h2c.deriveGenerators(LABEL, 4, 3));
+  }
+
+  @Test
+  void storeTest() throws Exception {
+    HashToEllipticCurve h2c =
+        HashToEllipticCurve.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_, DST);
+    DerivedGenerators generators = h2c.deriveGenerators(LABEL, 0, 4);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    generators.write(out);
+
+    ECCurve curve = generators.getGenerator(0).getCurve();
+    DerivedGenerators loaded =
+        DerivedGenerators.read(new ByteArrayInputStream(out.toByteArray()), curve);
+    assertEquals(0, loaded.getFrom());
+    assertEquals(4, loaded.size());
+    assertArrayEquals(LABEL, loaded.getLabel());
+    BigInteger k =
+        new BigInteger("7f3a9c0b1d2e4f60718293a4b5c6d7e8f9a0b1c2d3e4f5061728394a5b6c7d8e", 16);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(generators.getGenerator(i), loaded.getGenerator(i));
+      // The loaded table is attached to the generator, not recomputed
+      assertNotNull(curve.precompute(loaded.getGenerator(i), FixedPointUtil.PRECOMP_NAME,
+          existing -> existing));
+      assertEquals(generators.multiply(i, k).normalize(), loaded.multiply(i, k).normalize());
+    }
+
+    byte[] corrupted = out.toByteArray();
+    corrupted[0] ^= 1;
+    assertThrows(IOException.class,
+        () -> DerivedGenerators.read(new ByteArrayInputStream(corrupted), curve));
+    byte[] invalidPoint = out.toByteArray();
+    invalidPoint[invalidPoint.length - 1] ^= 1;
+    assertThrows(IOException.class,
+        () -> DerivedGenerators.read(new ByteArrayInputStream(invalidPoint), curve));
+
+    // A count beyond the stream fails at the end of the stream
+    byte[] hugeCount = out.toByteArray();
+    int countOffset = 16 + LABEL.length;
+    assertEquals(4, hugeCount[countOffset + 3]);
+    hugeCount[countOffset] = 0x7f;
+    assertThrows(IOException.class,
+        () -> DerivedGenerators.read(new ByteArrayInputStream(hugeCount), curve));
+
+    // A table entry replaced by another valid point does not match the generator
+    byte[] mismatched = out.toByteArray();
+    byte[] entry = FixedPointUtil.precompute(generators.getGenerator(0)).getLookupTable()
+        .lookupVar(5).getEncoded(false);
+    byte[] other = generators.getGenerator(1).getEncoded(false);
+    int entryOffset = indexOf(mismatched, entry);
+    System.arraycopy(other, 0, mismatched, entryOffset, other.length);
+    assertThrows(IOException.class,
+        () -> DerivedGenerators.read(new ByteArrayInputStream(mismatched), curve));
+  }
+
+  private static int indexOf(final byte[] data, final byte[] pattern) {
+    for (int i = 0; i <= data.length - pattern.length; i++) {
+      if (Arrays.equals(data, i, i + pattern.length, pattern, 0, pattern.length)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Pattern not found");
+  }
+
+}
@@ -0,0 +1,101 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Testing the field context against Euler's criterion
+ */
+@Slf4j
+class FieldContextTest {
+
+  @Test
+  void jacobiTest() throws Exception {
+    final Random random = new Random(1);
+    for (final String curveName : new String[] {"P-256", "P-384", "P-521", "curve25519"}) {
+      final BigInteger p =
+          ECNamedCurveTable.getParameterSpec(curveName).getCurve().getField().getCharacteristic();
+      final FieldContext context = FieldContext.getInstance(p);
+      for (int i = 0; i < 200; i++) {
+        final BigInteger val = new BigInteger(p.bitLength() + 8, random);
+        final BigInteger euler = val.modPow(p.subtract(BigInteger.ONE).shiftRight(1), p);
+        final int expected = euler.signum() == 0 ? 0 : euler.equals(BigInteger.ONE) ? 1 : -1;
+        assertEquals(expected, FieldContext.jacobi(val, p));
+        assertEquals(expected >= 0, context.isSquare(val));
+      }
+      assertTrue(context.isSquare(BigInteger.ZERO));
+      assertTrue(context.isSquare(p));
+      // -1 is square exactly when p = 1 (mod 4)
+      assertEquals(p.testBit(1) ? -1 : 1, FieldContext.jacobi(BigInteger.ONE.negate(), p));
+    }
+    // Composite moduli
+    assertEquals(-1, FieldContext.jacobi(BigInteger.valueOf(1001), BigInteger.valueOf(9907)));
+    assertEquals(1, FieldContext.jacobi(BigInteger.valueOf(19), BigInteger.valueOf(45)));
+    assertEquals(0, FieldContext.jacobi(BigInteger.valueOf(30), BigInteger.valueOf(45)));
+  }
+
+  @Test
+  void sqrtTest() throws Exception {
+    final Random random = new Random(2);
+    for (final String curveName : new String[] {"P-256", "P-521", "curve25519"}) {
+      final BigInteger p =
+          ECNamedCurveTable.getParameterSpec(curveName).getCurve().getField().getCharacteristic();
+      final FieldContext context = FieldContext.getInstance(p);
+      for (int i = 0; i < 50; i++) {
+        final BigInteger val = new BigInteger(p.bitLength() - 1, random);
+        final BigInteger square = val.multiply(val).mod(p);
+        final BigInteger sqrt = context.sqrt(square);
+        assertEquals(square, sqrt.multiply(sqrt).mod(p));
+      }
+    }
+    log.info("Square roots verified");
+  }
+
+  @Test
+  void variableTimeTest() throws Exception {
+    final Random random = new Random(3);
+    for (final String curveName : new String[] {"P-256", "P-384", "P-521", "curve25519"}) {
+      final BigInteger p =
+          ECNamedCurveTable.getParameterSpec(curveName).getCurve().getField().getCharacteristic();
+      final FieldContext context = FieldContext.getInstance(p);
+      for (int i = 0; i < 50; i++) {
+        final BigInteger val = new BigInteger(p.bitLength() - 1, random);
+        final BigInteger square = val.multiply(val).mod(p);
+        final BigInteger sqrt = context.sqrtVariableTime(square);
+        assertEquals(square, sqrt.multiply(sqrt).mod(p));
+        assertEquals(context.inv0(val), context.inv0VariableTime(val));
+      }
+      assertEquals(BigInteger.ZERO, context.sqrtVariableTime(p));
+      assertEquals(BigInteger.ZERO, context.inv0VariableTime(p));
+      // The first non-square of the field is at most 1000
+      BigInteger nonSquare = BigInteger.TWO;
+      while (context.isSquare(nonSquare)) {
+        nonSquare = nonSquare.add(BigInteger.ONE);
+      }
+      final BigInteger finalNonSquare = nonSquare;
+      assertThrows(ArithmeticException.class, () -> context.sqrtVariableTime(finalNonSquare));
+    }
+  }
+
+  @Test
+  void instanceTest() throws Exception {
+    final BigInteger order = ECNamedCurveTable.getParameterSpec("P-256").getN();
+    assertSame(FieldContext.getInstance(order), FieldContext.getInstance(order));
+    assertThrows(IllegalArgumentException.class,
+        () -> FieldContext.getInstance(BigInteger.valueOf(16)));
+    assertThrows(IllegalArgumentException.class, () -> FieldContext.getInstance(BigInteger.TWO));
+  }
+
+}
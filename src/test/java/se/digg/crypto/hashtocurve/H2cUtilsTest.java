@@ -75,4 +75,13 @@ class H2cUtilsTest {
 
   }
 
+  @Test
+  void sgn0ExtensionFieldTest() {
+    assertEquals(0, H2cUtils.sgn0(new BigInteger[] {BigInteger.ZERO, BigInteger.ZERO}));
+    assertEquals(1, H2cUtils.sgn0(new BigInteger[] {BigInteger.ONE, BigInteger.TWO}));
+    assertEquals(0, H2cUtils.sgn0(new BigInteger[] {BigInteger.TWO, BigInteger.ONE}));
+    assertEquals(1, H2cUtils.sgn0(new BigInteger[] {BigInteger.ZERO, BigInteger.ONE}));
+    assertEquals(0, H2cUtils.sgn0(new BigInteger[] {BigInteger.ZERO, BigInteger.TWO}));
+  }
+
 }
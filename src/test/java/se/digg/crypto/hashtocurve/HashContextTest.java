@@ -0,0 +1,55 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Test the scratch state of hash contexts.
+ */
+class HashContextTest {
+
+  static final byte[] DST =
+      "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void scratchTest() {
+    HashContext ctx = new HashContext();
+    Object owner = new Object();
+    Object scratch = ctx.getScratch(owner, Object::new);
+    assertSame(scratch, ctx.getScratch(owner, Object::new));
+    assertEquals(1, ctx.size());
+  }
+
+  @Test
+  void boundTest() throws Exception {
+    HashToEllipticCurve h2c =
+        HashToEllipticCurve.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_, DST);
+    HashContext ctx = new HashContext();
+    byte[] message = "message".getBytes(StandardCharsets.UTF_8);
+    // Every prefix instance is a new stage, which must not grow the context without bound
+    for (int i = 0; i < 10 * HashContext.MAX_STAGES; i++) {
+      byte[] prefix = new byte[] {(byte) i, (byte) (i >>> 8)};
+      ECPoint point = h2c.withPrefix(prefix).hashToEllipticCurve(message, ctx);
+      assertEquals(h2c.hashToEllipticCurve(concat(prefix, message)), point);
+      assertTrue(ctx.size() <= HashContext.MAX_STAGES);
+    }
+  }
+
+  private static byte[] concat(byte[] prefix, byte[] message) {
+    byte[] result = new byte[prefix.length + message.length];
+    System.arraycopy(prefix, 0, result, 0, prefix.length);
+    System.arraycopy(message, 0, result, prefix.length, message.length);
+    return result;
+  }
+
+}
@@ -4,12 +4,20 @@
 
 package se.digg.crypto.hashtocurve;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.Security;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.crypto.Digest;
@@ -23,10 +31,18 @@ import org.bouncycastle.math.ec.ECPoint;
 import org.bouncycastle.util.encoders.Hex;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.ExecutionMode;
+import se.digg.crypto.hashtocurve.data.FieldBackend;
 import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.WarmUpReport;
+import se.digg.crypto.hashtocurve.impl.BatchShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.Bls12381G1MapToCurve;
 import se.digg.crypto.hashtocurve.impl.GenericCurveProcessor;
 import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.P256MapToCurve;
+import se.digg.crypto.hashtocurve.impl.P521MapToCurve;
 import se.digg.crypto.hashtocurve.impl.ShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.VariableTimeShallueVanDeWoestijneMapToCurve;
 import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
 
 /**
@@ -59,6 +75,349 @@ public class HashToEllipticCurveTest {
     }
   }
 
+  @Test
+  public void testBatchTestVectors() throws Exception {
+    List<HashToCurveProfile> profileList = List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_);
+
+    for (HashToCurveProfile profile : profileList) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      ECParameterSpec spec = getSpec(profile);
+      HashToEllipticCurve h2c = new HashToEllipticCurve(
+          new GenericHashToField(tvd.getDst().getBytes(StandardCharsets.UTF_8), spec,
+              new XmdMessageExpansion(getDigest(profile), profile.getK()), profile.getL()),
+          new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new GenericCurveProcessor(spec));
+
+      List<TestVectorData.Vector> vectors = tvd.getVectors();
+      byte[][] messages = new byte[vectors.size()][];
+      for (int i = 0; i < messages.length; i++) {
+        messages[i] = vectors.get(i).getMsg().getBytes(StandardCharsets.UTF_8);
+      }
+      ECPoint[] points = h2c.hashToEllipticCurve(messages);
+      for (int i = 0; i < messages.length; i++) {
+        compare(vectors.get(i).getP().get("x"), vectors.get(i).getP().get("y"), points[i]);
+      }
+      log.info("Batch test vectors match for {}", profile.getCipherSuiteID());
+    }
+  }
+
+  @Test
+  public void testContextTestVectors() throws Exception {
+    // One context shared by all instances, as when held per thread
+    HashContext ctx = new HashContext();
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      ECParameterSpec spec = getSpec(profile);
+      for (MapToCurve mapToCurve : List.of(
+          new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ()))) {
+        HashToEllipticCurve h2c = new HashToEllipticCurve(
+            new GenericHashToField(tvd.getDst().getBytes(StandardCharsets.UTF_8), spec,
+                new XmdMessageExpansion(getDigest(profile), profile.getK()), profile.getL()),
+            mapToCurve, new GenericCurveProcessor(spec));
+        // Repeat to exercise reuse of the scratch state
+        for (int round = 0; round < 2; round++) {
+          for (TestVectorData.Vector vector : tvd.getVectors()) {
+            byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+            ECPoint point = h2c.hashToEllipticCurve(message, ctx);
+            compare(vector.getP().get("x"), vector.getP().get("y"), point);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(message.length).put(message).flip();
+            compare(vector.getP().get("x"), vector.getP().get("y"),
+                h2c.hashToEllipticCurve(direct, ctx));
+            compare(vector.getP().get("x"), vector.getP().get("y"),
+                h2c.hashToEllipticCurve(direct));
+          }
+        }
+      }
+      log.info("Context test vectors match for {}", profile.getCipherSuiteID());
+    }
+  }
+
+  @Test
+  public void testEncodedPoints() throws Exception {
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      ECParameterSpec spec = getSpec(profile);
+      HashToEllipticCurve h2c = new HashToEllipticCurve(
+          new GenericHashToField(tvd.getDst().getBytes(StandardCharsets.UTF_8), spec,
+              new XmdMessageExpansion(getDigest(profile), profile.getK()), profile.getL()),
+          new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+          new GenericCurveProcessor(spec));
+
+      List<TestVectorData.Vector> vectors = tvd.getVectors();
+      byte[][] messages = new byte[vectors.size()][];
+      for (int i = 0; i < messages.length; i++) {
+        messages[i] = vectors.get(i).getMsg().getBytes(StandardCharsets.UTF_8);
+      }
+      for (boolean compressed : new boolean[] {true, false}) {
+        int length = spec.getCurve().getAffinePointEncodingLength(compressed);
+        byte[] batch = new byte[3 + length * messages.length];
+        assertEquals(length * messages.length,
+            h2c.hashToEncodedPoints(messages, compressed, batch, 3));
+        for (int i = 0; i < messages.length; i++) {
+          byte[] expected = h2c.hashToEllipticCurve(messages[i]).getEncoded(compressed);
+          byte[] out = new byte[length + 1];
+          assertEquals(length, h2c.hashToEncodedPoint(messages[i], compressed, out, 1));
+          assertArrayEquals(expected, Arrays.copyOfRange(out, 1, out.length));
+          assertArrayEquals(expected,
+              Arrays.copyOfRange(batch, 3 + i * length, 3 + (i + 1) * length));
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> h2c.hashToEncodedPoint(messages[0], compressed, new byte[length], 1));
+      }
+    }
+  }
+
+  @Test
+  public void testProfileInstance() throws Exception {
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile,
+          tvd.getDst().getBytes(StandardCharsets.UTF_8));
+      for (TestVectorData.Vector vector : tvd.getVectors()) {
+        ECPoint point = h2c.hashToEllipticCurve(vector.getMsg().getBytes(StandardCharsets.UTF_8));
+        compare(vector.getP().get("x"), vector.getP().get("y"), point);
+      }
+    }
+    assertThrows(IllegalArgumentException.class, () -> HashToEllipticCurve.getInstance(
+        HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_, new byte[1]));
+  }
+
+  @Test
+  public void testExecutionModes() throws Exception {
+    // A BigInteger map selected for the suites must not be used for secret inputs
+    System.setProperty(BackendCalibration.FIELD_PROPERTY, FieldBackend.BIG_INTEGER.name());
+    try {
+      for (HashToCurveProfile profile : EnumSet.complementOf(
+          EnumSet.of(HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_))) {
+        TestVectorData tvd = TestVectors.getTestVectors(profile);
+        byte[] dst = tvd.getDst().getBytes(StandardCharsets.UTF_8);
+        HashToEllipticCurve publicInput =
+            HashToEllipticCurve.getInstance(profile, dst, ExecutionMode.PUBLIC_INPUT);
+        HashToEllipticCurve secretInput =
+            HashToEllipticCurve.getInstance(profile, dst, ExecutionMode.SECRET_INPUT);
+        for (TestVectorData.Vector vector : tvd.getVectors()) {
+          byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+          for (HashToEllipticCurve h2c : List.of(publicInput, secretInput)) {
+            compare(vector.getP().get("x"), vector.getP().get("y"), profile.isRandomOracle()
+                ? h2c.hashToEllipticCurve(message)
+                : h2c.encodeToEllipticCurve(message));
+          }
+        }
+
+        // The modes differ in map to curve only
+        assertEquals(publicInput.hashToField.getClass(), secretInput.hashToField.getClass());
+        assertEquals(publicInput.curveProcessor.getClass(),
+            secretInput.curveProcessor.getClass());
+        boolean bls = profile == HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_
+            || profile == HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_;
+        assertEquals(bls ? Bls12381G1MapToCurve.class
+            : VariableTimeShallueVanDeWoestijneMapToCurve.class, publicInput.mapToCurve.getClass());
+        assertTrue(Set.of(BatchShallueVanDeWoestijneMapToCurve.class, P256MapToCurve.class,
+            P521MapToCurve.class, Bls12381G1MapToCurve.class)
+            .contains(secretInput.mapToCurve.getClass()));
+      }
+    } finally {
+      System.clearProperty(BackendCalibration.FIELD_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testHashAndMultiply() throws Exception {
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile,
+          tvd.getDst().getBytes(StandardCharsets.UTF_8));
+      for (TestVectorData.Vector vector : tvd.getVectors()) {
+        byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+        ECPoint point = h2c.hashToEllipticCurve(message);
+        BigInteger order = point.getCurve().getOrder();
+        BigInteger[] scalars = new BigInteger[] {BigInteger.ONE, BigInteger.valueOf(0x1234567),
+            order.subtract(BigInteger.TWO), order};
+        ECPoint[] products = h2c.hashAndMultiply(message, scalars);
+        assertEquals(scalars.length, products.length);
+        for (int i = 0; i < scalars.length; i++) {
+          ECPoint expected = point.multiply(scalars[i]).normalize();
+          assertEquals(expected, h2c.hashAndMultiply(message, scalars[i]));
+          assertEquals(expected, products[i]);
+          assertTrue(products[i].isInfinity() || products[i].isNormalized());
+        }
+        assertTrue(products[3].isInfinity());
+      }
+    }
+  }
+
+  @Test
+  public void testPrefix() throws Exception {
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile,
+          tvd.getDst().getBytes(StandardCharsets.UTF_8));
+      // The vector messages "abc", "abcdef0123456789" and "q128_qqq..." share prefixes
+      HashToEllipticCurve prefixed = h2c.withPrefix("a".getBytes(StandardCharsets.UTF_8));
+      for (TestVectorData.Vector vector : tvd.getVectors()) {
+        if (vector.getMsg().startsWith("a")) {
+          byte[] suffix = vector.getMsg().substring(1).getBytes(StandardCharsets.UTF_8);
+          compare(vector.getP().get("x"), vector.getP().get("y"),
+              prefixed.hashToEllipticCurve(suffix));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMultipleDsts() throws Exception {
+    for (HashToCurveProfile profile : List.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_)) {
+      TestVectorData tvd = TestVectors.getTestVectors(profile);
+      byte[][] dsts = new byte[][] {tvd.getDst().getBytes(StandardCharsets.UTF_8),
+          "TENANT-1".getBytes(StandardCharsets.UTF_8), "TENANT-2".getBytes(StandardCharsets.UTF_8)};
+      HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile, dsts[0]);
+      for (TestVectorData.Vector vector : tvd.getVectors()) {
+        byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+        ECPoint[] points = h2c.hashToEllipticCurveForDsts(message, dsts);
+        compare(vector.getP().get("x"), vector.getP().get("y"), points[0]);
+        for (int i = 1; i < dsts.length; i++) {
+          assertEquals(HashToEllipticCurve.getInstance(profile, dsts[i])
+              .hashToEllipticCurve(message), points[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testBls12381G1TestVectors() throws Exception {
+    TestVectorData tvd = TestVectors.getTestVectors(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_);
+    HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_,
+        tvd.getDst().getBytes(StandardCharsets.UTF_8));
+    HashContext ctx = new HashContext();
+    List<TestVectorData.Vector> vectors = tvd.getVectors();
+    byte[][] messages = new byte[vectors.size()][];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = vectors.get(i).getMsg().getBytes(StandardCharsets.UTF_8);
+    }
+    ECPoint[] points = h2c.hashToEllipticCurve(messages);
+    for (int i = 0; i < messages.length; i++) {
+      TestVectorData.Vector vector = vectors.get(i);
+      compare(vector.getP().get("x"), vector.getP().get("y"), points[i]);
+      compare(vector.getP().get("x"), vector.getP().get("y"),
+          h2c.hashToEllipticCurve(messages[i]));
+      compare(vector.getP().get("x"), vector.getP().get("y"),
+          h2c.hashToEllipticCurve(messages[i], ctx));
+    }
+
+    TestVectorData nuTvd = TestVectors.getTestVectors(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_);
+    HashToEllipticCurve encoder = HashToEllipticCurve.getInstance(
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_,
+        nuTvd.getDst().getBytes(StandardCharsets.UTF_8));
+    for (TestVectorData.Vector vector : nuTvd.getVectors()) {
+      compare(vector.getP().get("x"), vector.getP().get("y"),
+          encoder.encodeToEllipticCurve(vector.getMsg().getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Test
+  public void testNonuniformEntryPoints() throws Exception {
+    TestVectorData tvd =
+        TestVectors.getTestVectors(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_);
+    byte[] dst = tvd.getDst().getBytes(StandardCharsets.UTF_8);
+    HashToEllipticCurve h2c =
+        HashToEllipticCurve.getInstance(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_, dst);
+    List<TestVectorData.Vector> vectors = tvd.getVectors();
+    byte[][] messages = new byte[vectors.size()][];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = vectors.get(i).getMsg().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Every hashing method of an _NU_ instance computes encode_to_curve
+    ECPoint[] batch = h2c.hashToEllipticCurve(messages);
+    byte[] records = new byte[messages.length * 49];
+    h2c.hashToEncodedPoints(messages, true, records, 0);
+    HashContext ctx = new HashContext();
+    BigInteger k = BigInteger.valueOf(12345);
+    for (int i = 0; i < messages.length; i++) {
+      ECPoint expected = h2c.encodeToEllipticCurve(messages[i]);
+      compare(vectors.get(i).getP().get("x"), vectors.get(i).getP().get("y"), expected);
+      assertEquals(expected, h2c.hashToEllipticCurve(messages[i]));
+      assertEquals(expected, h2c.hashToEllipticCurve(messages[i], ctx));
+      assertEquals(expected, h2c.hashToEllipticCurve(ByteBuffer.wrap(messages[i])));
+      assertEquals(expected, h2c.hashToEllipticCurve(ByteBuffer.wrap(messages[i]), ctx));
+      assertEquals(expected, batch[i]);
+      byte[] out = new byte[49];
+      h2c.hashToEncodedPoint(messages[i], true, out, 0);
+      assertArrayEquals(expected.getEncoded(true), out);
+      assertArrayEquals(expected.getEncoded(true), Arrays.copyOfRange(records, 49 * i, 49 * i + 49));
+      assertEquals(expected.multiply(k).normalize(), h2c.hashAndMultiply(messages[i], k));
+      assertEquals(expected,
+          h2c.hashToEllipticCurveForDsts(messages[i], new byte[][] {dst})[0]);
+    }
+    assertEquals(h2c.encodeToEllipticCurve(DerivedGenerators.message(messages[0], 7)),
+        h2c.deriveGenerators(messages[0], 7, 8).getGenerator(7));
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    WarmUpReport report = HashToEllipticCurve.warmUp(EnumSet.of(
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_), 50);
+    log.info("Warm-up report: {}", report);
+    assertEquals(3, report.profiles().size());
+    assertTrue(report.profiles().get(2).hashToCurveSupported());
+    WarmUpReport.ProfileTiming p256 = report.profiles().get(0);
+    assertEquals(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_, p256.profile());
+    assertTrue(p256.hashToCurveSupported());
+    assertEquals(50, p256.iterations());
+    assertFalse(report.profiles().get(1).hashToCurveSupported());
+    assertTrue(report.total().compareTo(p256.initialization().plus(p256.training())) >= 0);
+    assertTrue(HashToEllipticCurve.warmUp(Set.of()).profiles().isEmpty());
+  }
+
+  static ECParameterSpec getSpec(HashToCurveProfile profile) {
+    return switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-256");
+      case P384_XMD_SHA_384_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-384");
+      case P521_XMD_SHA_512_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-521");
+      case curve25519_XMD_SHA_512_ELL2_RO_ -> ECNamedCurveTable.getParameterSpec("curve25519");
+      case BLS12381G1_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_NU_ ->
+          H2cUtils.getParameterSpec(profile);
+    };
+  }
+
+  static Digest getDigest(HashToCurveProfile profile) {
+    return switch (profile) {
+      case P256_XMD_SHA_256_SSWU_RO_ -> new SHA256Digest();
+      case P384_XMD_SHA_384_SSWU_RO_ -> new SHA384Digest();
+      case P521_XMD_SHA_512_SSWU_RO_ -> new SHA512Digest();
+      case curve25519_XMD_SHA_512_ELL2_RO_ -> new SHA512Digest();
+      case BLS12381G1_XMD_SHA_256_SSWU_RO_, BLS12381G1_XMD_SHA_256_SSWU_NU_ -> new SHA256Digest();
+    };
+  }
+
   public void performTestOnSpecificCurveProfile(HashToCurveProfile profile, boolean useTestVectorU)
       throws Exception {
     TestVectorData tvd = TestVectors.getTestVectors(profile);
@@ -75,18 +434,8 @@ public class HashToEllipticCurveTest {
         + "   Field p: {}\n", tvd.getCurve(), tvd.getHash(), tvd.getDst(), L, Z,
         tvd.getField().getM(), tvd.getField().getP());
 
-    ECParameterSpec spec = switch (profile) {
-      case P256_XMD_SHA_256_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-256");
-      case P384_XMD_SHA_384_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-384");
-      case P521_XMD_SHA_512_SSWU_RO_ -> ECNamedCurveTable.getParameterSpec("P-521");
-      case curve25519_XMD_SHA_512_ELL2_RO_ -> ECNamedCurveTable.getParameterSpec("curve25519");
-    };
-    Digest digest = switch (profile) {
-      case P256_XMD_SHA_256_SSWU_RO_ -> new SHA256Digest();
-      case P384_XMD_SHA_384_SSWU_RO_ -> new SHA384Digest();
-      case P521_XMD_SHA_512_SSWU_RO_ -> new SHA512Digest();
-      case curve25519_XMD_SHA_512_ELL2_RO_ -> new SHA512Digest();
-    };
+    ECParameterSpec spec = getSpec(profile);
+    Digest digest = getDigest(profile);
 
     CurveProcessor curveProcessor = new GenericCurveProcessor(spec);
     MessageExpansion messExp = new XmdMessageExpansion(digest, profile.getK());
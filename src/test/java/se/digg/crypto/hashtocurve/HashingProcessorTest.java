@@ -0,0 +1,258 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.PipelineSettings;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+
+/**
+ * Test the reactive hashing pipeline.
+ */
+public class HashingProcessorTest {
+
+  private static final byte[] DST = "QUUX-V01-CS02-with-pipeline".getBytes(StandardCharsets.UTF_8);
+  private static final PipelineSettings SETTINGS = new PipelineSettings(8, 32, 2, 3, 2);
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setup() {
+    this.executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    this.executor.shutdownNow();
+  }
+
+  @Test
+  public void testPointsInOrder() throws Exception {
+    for (HashToCurveProfile profile : List.of(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_)) {
+      HashToEllipticCurve h2c = HashToEllipticCurve.getInstance(profile, DST);
+      HashingProcessor<ECPoint> processor = HashingProcessor.ofPoints(h2c, SETTINGS, this.executor);
+      CollectingSubscriber<ECPoint> subscriber = new CollectingSubscriber<>(7);
+      processor.subscribe(subscriber);
+      List<byte[]> messages = publish(processor, 100);
+      assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+      assertNull(subscriber.error);
+      assertEquals(messages.size(), subscriber.items.size());
+      for (int i = 0; i < messages.size(); i++) {
+        ECPoint expected = profile.isRandomOracle()
+            ? h2c.hashToEllipticCurve(messages.get(i))
+            : h2c.encodeToEllipticCurve(messages.get(i));
+        assertEquals(expected.normalize(), subscriber.items.get(i));
+        assertTrue(subscriber.items.get(i).isNormalized());
+      }
+    }
+  }
+
+  @Test
+  public void testScalars() throws Exception {
+    HashToScalar hashToScalar = new GenericOPRFHashToScalar(
+        H2cUtils.getParameterSpec(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_),
+        new SHA256Digest(), 128);
+    HashingProcessor<BigInteger> processor =
+        HashingProcessor.ofScalars(hashToScalar, DST, SETTINGS, this.executor);
+    CollectingSubscriber<BigInteger> subscriber = new CollectingSubscriber<>(Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    List<byte[]> messages = publish(processor, 50);
+    assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+    assertEquals(messages.size(), subscriber.items.size());
+    for (int i = 0; i < messages.size(); i++) {
+      assertEquals(hashToScalar.process(messages.get(i), DST), subscriber.items.get(i));
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    HashingProcessor<ECPoint> processor = HashingProcessor.ofPoints(
+        HashToEllipticCurve.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_, DST),
+        SETTINGS, this.executor);
+    CountingPublisher publisher = new CountingPublisher();
+    CollectingSubscriber<ECPoint> subscriber = new CollectingSubscriber<>(0);
+    processor.subscribe(subscriber);
+    publisher.subscribe(processor);
+
+    // Without demand, only the buffer size of messages is requested from upstream
+    subscriber.subscription.request(5);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (subscriber.items.size() < 5 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(200);
+    assertEquals(5, subscriber.items.size());
+    assertEquals(SETTINGS.bufferSize(), publisher.requested.get());
+
+    // Delivering half of the buffer downstream replenishes the upstream demand
+    subscriber.subscription.request(11);
+    deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (publisher.requested.get() == SETTINGS.bufferSize() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(SETTINGS.bufferSize() + SETTINGS.bufferSize() / 2, publisher.requested.get());
+
+    subscriber.subscription.cancel();
+    deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+    while (!publisher.cancelled.get() && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertTrue(publisher.cancelled.get());
+  }
+
+  @Test
+  public void testStageError() throws Exception {
+    HashToScalar failing = (input, dst) -> {
+      if (input.length == 3) {
+        throw new IllegalStateException("Failing stage");
+      }
+      return BigInteger.valueOf(input.length);
+    };
+    HashingProcessor<BigInteger> processor =
+        HashingProcessor.ofScalars(failing, DST, SETTINGS, this.executor);
+    CollectingSubscriber<BigInteger> subscriber = new CollectingSubscriber<>(Long.MAX_VALUE);
+    processor.subscribe(subscriber);
+    publish(processor, 10);
+    assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, subscriber.error);
+  }
+
+  @Test
+  public void testSubscriptionRules() throws Exception {
+    HashingProcessor<BigInteger> processor = HashingProcessor.ofScalars(
+        (input, dst) -> BigInteger.ONE, DST, SETTINGS, this.executor);
+    CollectingSubscriber<BigInteger> subscriber = new CollectingSubscriber<>(0);
+    processor.subscribe(subscriber);
+    subscriber.subscription.request(0);
+    assertTrue(subscriber.done.await(30, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+
+    CollectingSubscriber<BigInteger> second = new CollectingSubscriber<>(1);
+    processor.subscribe(second);
+    assertTrue(second.done.await(30, TimeUnit.SECONDS));
+    assertInstanceOf(IllegalStateException.class, second.error);
+
+    assertThrows(IllegalArgumentException.class, () -> new PipelineSettings(64, 32, 1, 1, 1));
+    assertThrows(IllegalArgumentException.class, () -> new PipelineSettings(8, 32, 1, 0, 1));
+  }
+
+  private static List<byte[]> publish(final Flow.Subscriber<byte[]> processor, final int count) {
+    List<byte[]> messages = new ArrayList<>();
+    try (SubmissionPublisher<byte[]> publisher = new SubmissionPublisher<>()) {
+      publisher.subscribe(processor);
+      for (int i = 0; i < count; i++) {
+        byte[] message = ("message " + i).getBytes(StandardCharsets.UTF_8);
+        if (i == 3) {
+          message = new byte[3];
+        }
+        messages.add(message);
+        publisher.submit(message);
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Collects the results, requesting a fixed number of items at a time.
+   */
+  private static final class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+
+    private final long chunk;
+    private final List<T> items = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Flow.Subscription subscription;
+    private volatile Throwable error;
+    private long remaining;
+
+    CollectingSubscriber(final long chunk) {
+      this.chunk = chunk;
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (this.chunk > 0) {
+        this.remaining = this.chunk;
+        subscription.request(this.chunk);
+      }
+    }
+
+    @Override
+    public void onNext(final T item) {
+      this.items.add(item);
+      if (this.chunk > 0 && this.chunk != Long.MAX_VALUE && --this.remaining == 0) {
+        this.remaining = this.chunk;
+        this.subscription.request(this.chunk);
+      }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+      this.error = throwable;
+      this.done.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      this.done.countDown();
+    }
+  }
+
+  /**
+   * Publishes an unbounded stream of messages, counting the requested items.
+   */
+  private static final class CountingPublisher implements Flow.Publisher<byte[]> {
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    @Override
+    public void subscribe(final Flow.Subscriber<? super byte[]> subscriber) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        private long sent;
+
+        @Override
+        public synchronized void request(final long n) {
+          CountingPublisher.this.requested.addAndGet(n);
+          for (long i = 0; i < n && !CountingPublisher.this.cancelled.get(); i++) {
+            subscriber.onNext(("message " + this.sent++).getBytes(StandardCharsets.UTF_8));
+          }
+        }
+
+        @Override
+        public void cancel() {
+          CountingPublisher.this.cancelled.set(true);
+        }
+      });
+    }
+  }
+
+}
@@ -0,0 +1,143 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.bouncycastle.util.Arrays;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.GenericCurveProcessor;
+import se.digg.crypto.hashtocurve.impl.GenericHashToField;
+import se.digg.crypto.hashtocurve.impl.ShallueVanDeWoestijneMapToCurve;
+import se.digg.crypto.hashtocurve.impl.XmdMessageExpansion;
+import se.digg.crypto.hashtocurve.metrics.HashToCurveMetrics;
+
+/**
+ * Test the metering decorator.
+ */
+class MeteredHashToEllipticCurveTest {
+
+  static final byte[] DST =
+      "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+
+  static HashToEllipticCurve createSuite(byte[] dst) {
+    HashToCurveProfile profile = HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_;
+    ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("P-256");
+    return new HashToEllipticCurve(
+        new GenericHashToField(dst, spec, new XmdMessageExpansion(new SHA256Digest(), 128),
+            profile.getL()),
+        new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ()),
+        new GenericCurveProcessor(spec));
+  }
+
+  @Test
+  void testMeteredPointsMatch() {
+    HashToEllipticCurve h2c = createSuite(DST);
+    HashToCurveMetrics metrics =
+        HashToCurveMetrics.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    metrics.reset();
+    MeteredHashToEllipticCurve metered = new MeteredHashToEllipticCurve(h2c, metrics);
+
+    byte[][] messages = new byte[][] {"".getBytes(), "abc".getBytes(), new byte[100]};
+    for (byte[] message : messages) {
+      ECPoint expected = h2c.hashToEllipticCurve(message);
+      assertEquals(expected, metered.hashToEllipticCurve(message));
+      assertEquals(expected, metered.hashToEllipticCurve(message, new HashContext()));
+      assertEquals(expected, metered.hashToEllipticCurve(ByteBuffer.wrap(message)));
+      byte[] out = new byte[33];
+      metered.hashToEncodedPoint(message, true, out, 0);
+      assertArrayEquals(expected.getEncoded(true), out);
+    }
+    assertArrayEquals(h2c.hashToEllipticCurve(messages), metered.hashToEllipticCurve(messages));
+
+    assertEquals(4 * messages.length + messages.length, metrics.getOperationCount());
+    assertEquals(5 * 103, metrics.getInputBytes());
+    assertEquals(0, metrics.getRejectedInputCount());
+    assertTrue(metrics.getHashToFieldNanos() > 0);
+    assertTrue(metrics.getMapToCurveNanos() > 0);
+    assertTrue(metrics.getClearCofactorNanos() > 0);
+    assertTrue(metrics.getTotalNanos() >= metrics.getHashToFieldNanos()
+        + metrics.getMapToCurveNanos() + metrics.getClearCofactorNanos());
+    assertTrue(metrics.getLatencyP50Nanos() > 0);
+    assertTrue(metrics.getLatencyP50Nanos() <= metrics.getLatencyMaxNanos());
+    assertArrayEquals(new long[] {10, 0, 5, 0, 0, 0, 0, 0}, metrics.getInputSizeCounts());
+    metrics.reset();
+  }
+
+  @Test
+  void testDecoratedOperations() {
+    HashToEllipticCurve h2c = createSuite(DST);
+    HashToCurveMetrics metrics =
+        HashToCurveMetrics.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    metrics.reset();
+    MeteredHashToEllipticCurve metered = new MeteredHashToEllipticCurve(h2c, metrics);
+    byte[] message = "abc".getBytes();
+    BigInteger[] scalars = new BigInteger[] {BigInteger.TWO, BigInteger.valueOf(12345)};
+
+    assertEquals(h2c.hashAndMultiply(message, scalars[1]),
+        metered.hashAndMultiply(message, scalars[1]));
+    assertArrayEquals(h2c.hashAndMultiply(message, scalars),
+        metered.hashAndMultiply(message, scalars));
+    assertEquals(h2c.encodeToEllipticCurve(message), metered.encodeToEllipticCurve(message));
+    assertEquals(3, metrics.getOperationCount());
+    assertEquals(3 * message.length, metrics.getInputBytes());
+
+    // A prefixed instance records to the same metrics
+    byte[] prefix = "context".getBytes();
+    HashToEllipticCurve prefixed = metered.withPrefix(prefix);
+    assertTrue(prefixed instanceof MeteredHashToEllipticCurve);
+    long hashToFieldNanos = metrics.getHashToFieldNanos();
+    assertEquals(h2c.hashToEllipticCurve(Arrays.concatenate(prefix, message)),
+        prefixed.hashToEllipticCurve(message));
+    assertEquals(4, metrics.getOperationCount());
+    assertTrue(metrics.getHashToFieldNanos() > hashToFieldNanos);
+
+    // Derived generators are recorded as a batch of messages
+    byte[] label = "pedersen".getBytes();
+    DerivedGenerators generators = metered.deriveGenerators(label, 0, 3);
+    assertEquals(h2c.hashToEllipticCurve(DerivedGenerators.message(label, 2)),
+        generators.getGenerator(2));
+    assertEquals(7, metrics.getOperationCount());
+    metrics.reset();
+  }
+
+  @Test
+  void testRejectedInputs() {
+    HashToCurveMetrics metrics =
+        HashToCurveMetrics.getInstance(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    metrics.reset();
+
+    // The message expansion rejects a DST longer than 255 bytes
+    MeteredHashToEllipticCurve metered =
+        new MeteredHashToEllipticCurve(createSuite(new byte[256]), metrics);
+    assertThrows(IllegalArgumentException.class, () -> metered.hashToEllipticCurve(new byte[1]));
+    assertThrows(IllegalArgumentException.class,
+        () -> metered.hashToEncodedPoints(new byte[][] {new byte[1], new byte[2]}, true,
+            new byte[66], 0));
+
+    MeteredHashToEllipticCurve valid = new MeteredHashToEllipticCurve(createSuite(DST), metrics);
+    assertThrows(IllegalArgumentException.class,
+        () -> valid.hashToEncodedPoint(new byte[0], true, new byte[10], 0));
+    assertThrows(NullPointerException.class,
+        () -> valid.hashToEllipticCurve(new byte[0], null));
+
+    assertEquals(5, metrics.getOperationCount());
+    assertEquals(3, metrics.getRejectedInputCount());
+    assertEquals(1, metrics.getErrorCount());
+    metrics.reset();
+  }
+
+}
@@ -0,0 +1,92 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Micro benchmark of the safegcd field inversion against the inversion by modular exponentiation
+ * used by the map to curve and the variable time {@link BigInteger#modInverse(BigInteger)}, for
+ * the field prime of every profile. Each operation is run for a number of warm-up rounds before
+ * the measured rounds, and the best mean time per inversion is reported.
+ *
+ * <p>Run with the test classpath, for example:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     se.digg.crypto.hashtocurve.SafeGcdInverterBenchmark 20000
+ * </pre>
+ */
+public final class SafeGcdInverterBenchmark {
+
+  private static final int ROUNDS = 5;
+
+  private SafeGcdInverterBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark and prints the results to standard output.
+   *
+   * @param args the number of inversions per round, 10000 if absent
+   */
+  public static void main(final String[] args) {
+    run(args.length > 0 ? Integer.parseInt(args[0]) : 10_000, System.out);
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param count the number of inversions per round
+   * @param out the stream to print the results to
+   */
+  static void run(final int count, final PrintStream out) {
+    // The BLS12-381 G1 profiles share a prime
+    final Set<HashToCurveProfile> profiles = EnumSet.allOf(HashToCurveProfile.class);
+    profiles.remove(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_);
+    for (final HashToCurveProfile profile : profiles) {
+      final BigInteger p =
+          H2cUtils.getParameterSpec(profile).getCurve().getField().getCharacteristic();
+      final BigInteger exponent = p.subtract(BigInteger.TWO);
+      final Random random = new Random(1);
+      final BigInteger[] x = new BigInteger[count];
+      for (int i = 0; i < count; i++) {
+        x[i] = new BigInteger(p.bitLength(), random).mod(p.subtract(BigInteger.ONE))
+            .add(BigInteger.ONE);
+      }
+      final SafeGcdInverter inverter = new SafeGcdInverter(p);
+
+      out.printf(Locale.ROOT, "%s, %d-bit prime, %d inversions per round%n",
+          profile.getCipherSuiteID(), p.bitLength(), count);
+      measure(out, "modPow(-1)", count, i -> x[i].modPow(BigInteger.ONE.negate(), p));
+      measure(out, "modPow(p - 2)", count, i -> x[i].modPow(exponent, p));
+      measure(out, "modInverse", count, i -> x[i].modInverse(p));
+      measure(out, "safegcd", count, i -> inverter.inverse(x[i]));
+    }
+  }
+
+  private static void measure(final PrintStream out, final String name, final int count,
+      final IntConsumer operation) {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < 2 * ROUNDS; round++) {
+      final long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        operation.accept(i);
+      }
+      // The first half of the rounds warm up the JIT compiler
+      if (round >= ROUNDS) {
+        best = Math.min(best, (double) (System.nanoTime() - start) / count);
+      }
+    }
+    out.printf(Locale.ROOT, "  %-16s %10.0f ns/inversion%n", name, best);
+  }
+
+}
@@ -0,0 +1,88 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Testing the safegcd inversion against BigInteger inversion
+ */
+class SafeGcdInverterTest {
+
+  @Test
+  void inverseTest() throws Exception {
+    final Random random = new Random(62);
+    for (final HashToCurveProfile profile : HashToCurveProfile.values()) {
+      final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+      for (final BigInteger m : new BigInteger[] {
+          spec.getCurve().getField().getCharacteristic(), spec.getN()}) {
+        final SafeGcdInverter inverter = new SafeGcdInverter(m);
+        final BigInteger[] special = {BigInteger.ONE, BigInteger.TWO, m.subtract(BigInteger.ONE),
+            m.subtract(BigInteger.TWO), m.shiftRight(1), BigInteger.ONE.shiftLeft(
+                m.bitLength() - 1), BigInteger.ONE.shiftLeft(m.bitLength() - 1).subtract(
+                BigInteger.ONE)};
+        for (final BigInteger val : special) {
+          assertEquals(val.modInverse(m), inverter.inverse(val));
+        }
+        for (int i = 0; i < 200; i++) {
+          final BigInteger val = new BigInteger(m.bitLength(), random).mod(m);
+          if (val.signum() != 0) {
+            assertEquals(val.modInverse(m), inverter.inverse(val));
+          }
+        }
+        assertEquals(BigInteger.ZERO, inverter.inverse(BigInteger.ZERO));
+        assertEquals(BigInteger.ZERO, inverter.inverse(m));
+        // Inputs are reduced modulo m
+        assertEquals(BigInteger.TEN.modInverse(m), inverter.inverse(m.add(BigInteger.TEN)));
+        assertEquals(BigInteger.TEN.negate().modInverse(m),
+            inverter.inverse(BigInteger.TEN.negate()));
+        // Inputs far above the modulus are converted at the same fixed length
+        BigInteger large = m.shiftLeft(m.bitLength()).add(BigInteger.TEN);
+        assertEquals(BigInteger.TEN.modInverse(m), inverter.inverse(large));
+        assertEquals(BigInteger.ONE.negate().mod(m), inverter.inverse(m.subtract(BigInteger.ONE)));
+      }
+    }
+  }
+
+  @Test
+  void smallModulusTest() throws Exception {
+    for (final int m : new int[] {3, 5, 7, 9907, 65537, (1 << 31) - 1}) {
+      final BigInteger modulus = BigInteger.valueOf(m);
+      final SafeGcdInverter inverter = new SafeGcdInverter(modulus);
+      for (int val = 1; val < Math.min(m, 1000); val++) {
+        final BigInteger value = BigInteger.valueOf(val);
+        assertEquals(value.modInverse(modulus), inverter.inverse(value));
+      }
+    }
+  }
+
+  @Test
+  void nonInvertibleTest() throws Exception {
+    final SafeGcdInverter inverter = new SafeGcdInverter(BigInteger.valueOf(45));
+    assertEquals(BigInteger.valueOf(11), inverter.inverse(BigInteger.valueOf(41)));
+    assertThrows(ArithmeticException.class, () -> inverter.inverse(BigInteger.valueOf(30)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new SafeGcdInverter(BigInteger.valueOf(16)));
+    assertThrows(IllegalArgumentException.class, () -> new SafeGcdInverter(BigInteger.ONE));
+  }
+
+  @Test
+  void inv0Test() throws Exception {
+    final BigInteger p = H2cUtils.getParameterSpec(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_)
+        .getCurve().getField().getCharacteristic();
+    assertEquals(BigInteger.ZERO, H2cUtils.inv0(BigInteger.ZERO, p));
+    assertEquals(BigInteger.valueOf(3).modInverse(p), H2cUtils.inv0(BigInteger.valueOf(3), p));
+    assertEquals(BigInteger.valueOf(3).modInverse(p),
+        FieldContext.getInstance(p).inv0(BigInteger.valueOf(3)));
+  }
+
+}
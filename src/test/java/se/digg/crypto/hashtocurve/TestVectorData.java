@@ -78,6 +78,9 @@ public class TestVectorData {
     @JsonProperty("P")
     private Map<String, String> P;
 
+    @JsonProperty("Q")
+    private Map<String, String> Q;
+
     @JsonProperty("Q0")
     private Map<String, String> Q0;
 
@@ -22,9 +22,13 @@ public class TestVectors {
   }
 
   public static TestVectorData getTestVectors(HashToCurveProfile profile) {
+    return getTestVectors(profile.getCipherSuiteID());
+  }
+
+  public static TestVectorData getTestVectors(String cipherSuiteId) {
     try {
       return OBJECT_MAPPER.readValue(
-          TestVectors.class.getResourceAsStream("/" + profile.getCipherSuiteID() + ".json"),
+          TestVectors.class.getResourceAsStream("/" + cipherSuiteId + ".json"),
           TestVectorData.class);
     } catch (IOException e) {
       throw new RuntimeException(e);
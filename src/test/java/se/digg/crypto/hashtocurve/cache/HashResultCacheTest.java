@@ -0,0 +1,151 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.CacheStatistics;
+
+/**
+ * Test the hash result cache.
+ */
+class HashResultCacheTest {
+
+  static final byte[] DST = "DST".getBytes(StandardCharsets.UTF_8);
+
+  static CacheKey key(int i) {
+    return CacheKey.of(DST, String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testKeysSeparateDstAndMessage() {
+    assertEquals(CacheKey.of(DST, new byte[] {1}), CacheKey.of(DST, new byte[] {1}));
+    assertNotEquals(CacheKey.of(new byte[] {1, 2}, new byte[] {3}),
+        CacheKey.of(new byte[] {1}, new byte[] {2, 3}));
+  }
+
+  @Test
+  void testHitsAndMisses() {
+    HashResultCache<String> cache = new HashResultCache<>(100, 1_000_000, s -> s.length());
+    AtomicInteger loads = new AtomicInteger();
+    for (int i = 0; i < 3; i++) {
+      assertEquals("value", cache.get(key(1), () -> {
+        loads.incrementAndGet();
+        return "value";
+      }));
+    }
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(1, loads.get());
+    assertEquals(1, statistics.missCount());
+    assertEquals(2, statistics.hitCount());
+    assertEquals(1, statistics.size());
+  }
+
+  @Test
+  void testSizeBound() {
+    HashResultCache<Integer> cache = new HashResultCache<>(50, Long.MAX_VALUE, v -> 0);
+    for (int i = 0; i < 1000; i++) {
+      final int value = i;
+      cache.get(key(i), () -> value);
+    }
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(50, statistics.size());
+    assertEquals(950, statistics.evictionCount());
+  }
+
+  @Test
+  void testWeightBound() {
+    long entryWeight = HashResultCache.ENTRY_OVERHEAD + 100;
+    HashResultCache<Integer> cache = new HashResultCache<>(1000, 10 * entryWeight, v -> 100);
+    for (int i = 0; i < 100; i++) {
+      final int value = i;
+      cache.get(key(i), () -> value);
+    }
+    CacheStatistics statistics = cache.getStatistics();
+    assertEquals(10, statistics.size());
+    assertEquals(10 * entryWeight, statistics.weight());
+  }
+
+  @Test
+  void testFrequentEntriesSurviveScan() {
+    HashResultCache<Integer> cache = new HashResultCache<>(100, Long.MAX_VALUE, v -> 0);
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 50; i++) {
+        final int value = i;
+        cache.get(key(i), () -> value);
+      }
+    }
+    // A scan of one-off keys must not flush the popular entries
+    for (int i = 1000; i < 1500; i++) {
+      final int value = i;
+      cache.get(key(i), () -> value);
+    }
+    long hitsBefore = cache.getStatistics().hitCount();
+    for (int i = 0; i < 50; i++) {
+      cache.get(key(i), () -> -1);
+    }
+    assertEquals(50, cache.getStatistics().hitCount() - hitsBefore);
+  }
+
+  @Test
+  void testSingleFlight() throws Exception {
+    HashResultCache<String> cache = new HashResultCache<>(100, 1_000_000, s -> s.length());
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        results.add(executor.submit(() -> cache.get(key(7), () -> {
+          loads.incrementAndGet();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return "shared";
+        })));
+      }
+      while (cache.getStatistics().sharedLoadCount() + cache.getStatistics().hitCount()
+          < threads - 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+      for (Future<String> result : results) {
+        assertEquals("shared", result.get(10, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(1, loads.get());
+    assertEquals(1, cache.getStatistics().missCount());
+  }
+
+  @Test
+  void testLoaderFailureIsNotCached() {
+    HashResultCache<String> cache = new HashResultCache<>(100, 1_000_000, s -> s.length());
+    assertThrows(IllegalArgumentException.class, () -> cache.get(key(1), () -> {
+      throw new IllegalArgumentException("fail");
+    }));
+    assertEquals("ok", cache.get(key(1), () -> "ok"));
+    assertEquals(0, cache.getStatistics().hitCount());
+    assertTrue(cache.getStatistics().size() == 1);
+  }
+
+}
@@ -0,0 +1,110 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Test the batch SSWU map against the BigInteger implementation.
+ */
+@Slf4j
+public class BatchShallueVanDeWoestijneMapToCurveTest {
+
+  @Test
+  public void testMatchesScalarMap() {
+    testCurve("P-256", HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_);
+    testCurve("P-384", HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_);
+    testCurve("P-521", HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_);
+  }
+
+  @Test
+  public void testLaneMap() {
+    // The test JVM resolves the Vector API module, so batches take the lane-parallel path
+    assertTrue(VectorSupport.isEnabled());
+    String[] curveNames = new String[] {"P-256", "P-384", "P-521"};
+    HashToCurveProfile[] profiles = new HashToCurveProfile[] {
+        HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_};
+    for (int c = 0; c < curveNames.length; c++) {
+      String curveName = curveNames[c];
+      ECParameterSpec spec = ECNamedCurveTable.getParameterSpec(curveName);
+      BigInteger p = spec.getCurve().getField().getCharacteristic();
+      BigInteger z = profiles[c].getZ();
+      BatchShallueVanDeWoestijneMapToCurve batchMap =
+          new BatchShallueVanDeWoestijneMapToCurve(spec, z);
+      LaneShallueVanDeWoestijneMap laneMap = new LaneShallueVanDeWoestijneMap(spec.getCurve(), z);
+      Random random = new Random(curveName.hashCode());
+      int lanes = laneMap.lanes();
+      for (int n : new int[] {1, lanes - 1, lanes, lanes + 1, 3 * lanes + 2}) {
+        BigInteger[] u = new BigInteger[n];
+        for (int i = 0; i < n; i++) {
+          u[i] = new BigInteger(p.bitLength(), random).mod(p);
+        }
+        u[0] = BigInteger.ZERO;
+        u[n - 1] = p.subtract(BigInteger.ONE);
+        ECPoint[] points = laneMap.process(u);
+        ECPoint[] batchPoints = batchMap.process(u);
+        System.setProperty(VectorSupport.VECTOR_PROPERTY, "false");
+        try {
+          ECPoint[] scalarPoints = batchMap.process(u);
+          for (int i = 0; i < n; i++) {
+            assertEquals(scalarPoints[i], points[i]);
+            assertEquals(scalarPoints[i], batchPoints[i]);
+          }
+        } finally {
+          System.clearProperty(VectorSupport.VECTOR_PROPERTY);
+        }
+      }
+      log.info("Lane map with {} lanes matches scalar map for {}", lanes, curveName);
+    }
+  }
+
+  @Test
+  public void testUnsupportedCurve() {
+    ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("curve25519");
+    assertThrows(IllegalArgumentException.class,
+        () -> new BatchShallueVanDeWoestijneMapToCurve(spec, BigInteger.TWO));
+  }
+
+  void testCurve(String curveName, HashToCurveProfile profile) {
+    ECParameterSpec spec = ECNamedCurveTable.getParameterSpec(curveName);
+    BigInteger p = spec.getCurve().getField().getCharacteristic();
+    ShallueVanDeWoestijneMapToCurve scalarMap =
+        new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+    BatchShallueVanDeWoestijneMapToCurve batchMap =
+        new BatchShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+
+    Random random = new Random(curveName.hashCode());
+    BigInteger[] u = new BigInteger[50];
+    u[0] = BigInteger.ZERO;
+    u[1] = BigInteger.ONE;
+    u[2] = p.subtract(BigInteger.ONE);
+    for (int i = 3; i < u.length; i++) {
+      u[i] = new BigInteger(p.bitLength(), random).mod(p);
+    }
+
+    ECPoint[] points = batchMap.process(u);
+    for (int i = 0; i < u.length; i++) {
+      ECPoint expected = scalarMap.process(u[i]);
+      assertEquals(expected, points[i]);
+      assertEquals(expected, batchMap.process(u[i]));
+    }
+    assertEquals(0, batchMap.process(new BigInteger[0]).length);
+    log.info("Batch map matches scalar map for {}", curveName);
+  }
+
+}
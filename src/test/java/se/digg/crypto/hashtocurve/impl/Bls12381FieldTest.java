@@ -0,0 +1,71 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the BLS12-381 Montgomery field arithmetic against BigInteger arithmetic.
+ */
+public class Bls12381FieldTest {
+
+  private static final BigInteger P = Bls12381Field.P;
+
+  @Test
+  public void testArithmetic() {
+    Random random = new Random(381);
+    long[] tt = Bls12381Field.createExt();
+    long[][] table = Bls12381Field.createTable();
+    long[] z = Bls12381Field.create();
+    BigInteger[] special = {BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO,
+        P.subtract(BigInteger.ONE), P.subtract(BigInteger.TWO), P.shiftRight(1)};
+    for (int i = 0; i < 500; i++) {
+      BigInteger a = i < special.length ? special[i] : new BigInteger(P.bitLength(), random).mod(P);
+      BigInteger b = i < special.length
+          ? special[special.length - 1 - i]
+          : new BigInteger(P.bitLength(), random).mod(P);
+      long[] x = Bls12381Field.fromBigInteger(a);
+      long[] y = Bls12381Field.fromBigInteger(b);
+      assertEquals(a, Bls12381Field.toBigInteger(x));
+
+      Bls12381Field.add(x, y, z);
+      assertEquals(a.add(b).mod(P), Bls12381Field.toBigInteger(z));
+      Bls12381Field.subtract(x, y, z);
+      assertEquals(a.subtract(b).mod(P), Bls12381Field.toBigInteger(z));
+      Bls12381Field.negate(x, z);
+      assertEquals(a.negate().mod(P), Bls12381Field.toBigInteger(z));
+      Bls12381Field.multiply(x, y, z, tt);
+      assertEquals(a.multiply(b).mod(P), Bls12381Field.toBigInteger(z));
+      Bls12381Field.square(x, z, tt);
+      assertEquals(a.multiply(a).mod(P), Bls12381Field.toBigInteger(z));
+      Bls12381Field.inv(x, z, table, tt);
+      assertEquals(a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P),
+          Bls12381Field.toBigInteger(z));
+      assertEquals(a.testBit(0) ? 1 : 0, Bls12381Field.sgn0(x, tt));
+      assertEquals(a.equals(b) ? -1 : 0, Bls12381Field.equalTo(x, y));
+      assertEquals(a.signum() == 0 ? -1 : 0, Bls12381Field.isZero(x));
+
+      Bls12381Field.copy(x, z);
+      Bls12381Field.cmov(0, y, z);
+      assertEquals(a, Bls12381Field.toBigInteger(z));
+      Bls12381Field.cmov(-1, y, z);
+      assertEquals(b, Bls12381Field.toBigInteger(z));
+    }
+  }
+
+  @Test
+  public void testReduction() {
+    assertEquals(BigInteger.TEN, Bls12381Field.toBigInteger(
+        Bls12381Field.fromBigInteger(P.multiply(BigInteger.valueOf(3)).add(BigInteger.TEN))));
+    assertEquals(P.subtract(BigInteger.ONE),
+        Bls12381Field.toBigInteger(Bls12381Field.fromBigInteger(BigInteger.ONE.negate())));
+    assertEquals(BigInteger.ONE, Bls12381Field.toBigInteger(Bls12381Field.one()));
+  }
+
+}
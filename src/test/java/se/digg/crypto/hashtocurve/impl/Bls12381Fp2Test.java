@@ -0,0 +1,110 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+
+/**
+ * Test the BLS12-381 F_p^2 arithmetic against BigInteger arithmetic.
+ */
+public class Bls12381Fp2Test {
+
+  private static final BigInteger P = Bls12381Field.P;
+
+  @Test
+  public void testArithmetic() {
+    Random random = new Random(382);
+    long[][] tt = Bls12381Fp2.createScratch();
+    long[][] table = Bls12381Field.createTable();
+    long[][] z = Bls12381Fp2.create();
+    for (int i = 0; i < 200; i++) {
+      BigInteger[] a = i == 0 ? new BigInteger[] {BigInteger.ZERO, BigInteger.ZERO}
+          : i == 1 ? new BigInteger[] {BigInteger.ZERO, P.subtract(BigInteger.ONE)}
+          : random(random);
+      BigInteger[] b = random(random);
+      long[][] x = Bls12381Fp2.fromBigInteger(a[0], a[1]);
+      long[][] y = Bls12381Fp2.fromBigInteger(b[0], b[1]);
+      assertArrayEquals(a, Bls12381Fp2.toBigInteger(x));
+
+      Bls12381Fp2.add(x, y, z);
+      assertArrayEquals(new BigInteger[] {a[0].add(b[0]).mod(P), a[1].add(b[1]).mod(P)},
+          Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.subtract(x, y, z);
+      assertArrayEquals(new BigInteger[] {a[0].subtract(b[0]).mod(P), a[1].subtract(b[1]).mod(P)},
+          Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.conjugate(x, z);
+      assertArrayEquals(new BigInteger[] {a[0], a[1].negate().mod(P)},
+          Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.multiply(x, y, z, tt);
+      assertArrayEquals(multiply(a, b), Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.square(x, z, tt);
+      assertArrayEquals(multiply(a, a), Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.copy(x, z);
+      Bls12381Fp2.multiply(z, z, z, tt);
+      assertArrayEquals(multiply(a, a), Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.multiplyByFp(x, y[0], z, tt);
+      assertArrayEquals(new BigInteger[] {a[0].multiply(b[0]).mod(P), a[1].multiply(b[0]).mod(P)},
+          Bls12381Fp2.toBigInteger(z));
+
+      Bls12381Fp2.inv(x, z, table, tt);
+      if (Bls12381Fp2.isZero(x) != 0) {
+        assertEquals(-1, Bls12381Fp2.isZero(z));
+      } else {
+        Bls12381Fp2.multiply(x, z, z, tt);
+        assertArrayEquals(new BigInteger[] {BigInteger.ONE, BigInteger.ZERO},
+            Bls12381Fp2.toBigInteger(z));
+      }
+      assertEquals(H2cUtils.sgn0(a), Bls12381Fp2.sgn0(x, Bls12381Field.createExt()));
+      assertEquals(0, Bls12381Fp2.equalTo(x, y));
+      assertEquals(-1, Bls12381Fp2.equalTo(x, x));
+
+      Bls12381Fp2.copy(x, z);
+      Bls12381Fp2.cmov(0, y, z);
+      assertArrayEquals(a, Bls12381Fp2.toBigInteger(z));
+      Bls12381Fp2.cmov(-1, y, z);
+      assertArrayEquals(b, Bls12381Fp2.toBigInteger(z));
+    }
+  }
+
+  @Test
+  public void testPow() {
+    Random random = new Random(383);
+    long[][] tt = Bls12381Fp2.createScratch();
+    long[][][] table = Bls12381Fp2.createTable();
+    long[][] z = Bls12381Fp2.create();
+    for (int i = 0; i < 20; i++) {
+      BigInteger[] a = random(random);
+      BigInteger e = new BigInteger(100, random);
+      BigInteger[] expected = {BigInteger.ONE, BigInteger.ZERO};
+      for (int bit = e.bitLength() - 1; bit >= 0; bit--) {
+        expected = multiply(expected, expected);
+        if (e.testBit(bit)) {
+          expected = multiply(expected, a);
+        }
+      }
+      Bls12381Fp2.pow(Bls12381Fp2.fromBigInteger(a[0], a[1]), Bls12381Field.windows(e), z, table,
+          tt);
+      assertArrayEquals(expected, Bls12381Fp2.toBigInteger(z));
+    }
+  }
+
+  private static BigInteger[] random(final Random random) {
+    return new BigInteger[] {new BigInteger(P.bitLength(), random).mod(P),
+        new BigInteger(P.bitLength(), random).mod(P)};
+  }
+
+  /** (a0 + a1 * I) * (b0 + b1 * I) with I^2 = -1. */
+  private static BigInteger[] multiply(final BigInteger[] a, final BigInteger[] b) {
+    return new BigInteger[] {a[0].multiply(b[0]).subtract(a[1].multiply(b[1])).mod(P),
+        a[0].multiply(b[1]).add(a[1].multiply(b[0])).mod(P)};
+  }
+
+}
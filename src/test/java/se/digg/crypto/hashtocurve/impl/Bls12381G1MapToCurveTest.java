@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.TestVectorData;
+import se.digg.crypto.hashtocurve.TestVectors;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Test the BLS12-381 G1 map to curve against the Q points of the RFC 9380 test vectors.
+ */
+@Slf4j
+public class Bls12381G1MapToCurveTest {
+
+  private static final ECParameterSpec SPEC =
+      H2cUtils.getParameterSpec(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_);
+
+  @Test
+  public void testRandomOracleVectors() {
+    Bls12381G1MapToCurve map = new Bls12381G1MapToCurve(SPEC);
+    HashContext ctx = new HashContext();
+    TestVectorData tvd =
+        TestVectors.getTestVectors(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_);
+    for (TestVectorData.Vector vector : tvd.getVectors()) {
+      BigInteger[] u = {h2bi(vector.getU().get(0)), h2bi(vector.getU().get(1))};
+      ECPoint[] points = map.process(u);
+      assertPoint(vector.getQ0(), points[0]);
+      assertPoint(vector.getQ1(), points[1]);
+      assertPoint(vector.getQ0(), map.process(u[0]));
+      assertPoint(vector.getQ1(), map.process(u[1], ctx));
+    }
+  }
+
+  @Test
+  public void testNonUniformVectors() {
+    Bls12381G1MapToCurve map = new Bls12381G1MapToCurve(SPEC);
+    TestVectorData tvd =
+        TestVectors.getTestVectors(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_);
+    for (TestVectorData.Vector vector : tvd.getVectors()) {
+      assertPoint(vector.getQ(), map.process(h2bi(vector.getU().get(0))));
+    }
+  }
+
+  @Test
+  public void testPointsOnCurve() {
+    Bls12381G1MapToCurve map = new Bls12381G1MapToCurve(SPEC);
+    BigInteger p = SPEC.getCurve().getField().getCharacteristic();
+    Random random = new Random(11);
+    BigInteger[] u = new BigInteger[40];
+    u[0] = BigInteger.ZERO;
+    u[1] = BigInteger.ONE;
+    u[2] = p.subtract(BigInteger.ONE);
+    for (int i = 3; i < u.length; i++) {
+      u[i] = new BigInteger(p.bitLength(), random).mod(p);
+    }
+    ECPoint[] points = map.process(u);
+    for (int i = 0; i < u.length; i++) {
+      // The mapped points are on E, but not in G1 before the cofactor is cleared
+      ECPoint point = points[i].normalize();
+      BigInteger x = point.getAffineXCoord().toBigInteger();
+      BigInteger y = point.getAffineYCoord().toBigInteger();
+      assertEquals(y.pow(2).mod(p), x.pow(3).add(BigInteger.valueOf(4)).mod(p));
+      assertEquals(points[i], map.process(u[i]));
+    }
+    assertEquals(0, map.process(new BigInteger[0]).length);
+  }
+
+  @Test
+  public void testCofactorClearing() {
+    Bls12381G1CurveProcessor processor = new Bls12381G1CurveProcessor();
+    Bls12381G1MapToCurve map = new Bls12381G1MapToCurve(SPEC);
+    ECPoint point = map.process(BigInteger.valueOf(42));
+    ECPoint cleared = processor.clearCofactor(point);
+    assertEquals(point.multiply(new BigInteger("d201000000010001", 16)).normalize(), cleared);
+    assertTrue(cleared.multiply(SPEC.getN()).isInfinity());
+    assertTrue(SPEC.getG().multiply(SPEC.getN()).isInfinity());
+    assertTrue(processor.clearCofactor(SPEC.getCurve().getInfinity()).isInfinity());
+  }
+
+  @Test
+  public void testUnsupportedCurve() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new Bls12381G1MapToCurve(ECNamedCurveTable.getParameterSpec("P-384")));
+  }
+
+  private static void assertPoint(Map<String, String> expected, ECPoint point) {
+    ECPoint normalized = point.normalize();
+    assertEquals(h2bi(expected.get("x")), normalized.getAffineXCoord().toBigInteger());
+    assertEquals(h2bi(expected.get("y")), normalized.getAffineYCoord().toBigInteger());
+  }
+
+  private static BigInteger h2bi(String hex) {
+    return new BigInteger(hex.substring(2), 16);
+  }
+
+}
@@ -0,0 +1,133 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.TestVectorData;
+import se.digg.crypto.hashtocurve.TestVectors;
+import se.digg.crypto.hashtocurve.data.Bls12381G2Point;
+
+/**
+ * Test the BLS12-381 G2 hash to curve against the RFC 9380 test vectors.
+ */
+@Slf4j
+public class Bls12381G2HashToCurveTest {
+
+  private static final TestVectorData TEST_VECTORS =
+      TestVectors.getTestVectors(Bls12381G2HashToCurve.CIPHER_SUITE_ID);
+
+  @Test
+  public void testHashToCurve() {
+    Bls12381G2HashToCurve hashToCurve =
+        new Bls12381G2HashToCurve(TEST_VECTORS.getDst().getBytes(StandardCharsets.UTF_8));
+    HashContext ctx = new HashContext();
+    for (TestVectorData.Vector vector : TEST_VECTORS.getVectors()) {
+      byte[] message = vector.getMsg().getBytes(StandardCharsets.UTF_8);
+      Bls12381G2Point point = hashToCurve.hashToCurve(message);
+      log.info("Hash to G2 of \"{}\": {}", vector.getMsg(), point);
+      assertPoint(vector.getP(), point);
+      assertPoint(vector.getP(), hashToCurve.hashToCurve(message, ctx));
+    }
+  }
+
+  @Test
+  public void testHashToField() {
+    GenericHashToField hashToField =
+        new GenericHashToField(TEST_VECTORS.getDst().getBytes(StandardCharsets.UTF_8),
+            Bls12381Field.P, 2, new XmdMessageExpansion(new SHA256Digest(), 128), 64, 2);
+    for (TestVectorData.Vector vector : TEST_VECTORS.getVectors()) {
+      BigInteger[][] u = hashToField.process(vector.getMsg().getBytes(StandardCharsets.UTF_8));
+      assertArrayEquals(h2fp2(vector.getU().get(0)), u[0]);
+      assertArrayEquals(h2fp2(vector.getU().get(1)), u[1]);
+    }
+  }
+
+  @Test
+  public void testMapToCurve() {
+    Bls12381G2MapToCurve map = new Bls12381G2MapToCurve();
+    HashContext ctx = new HashContext();
+    for (TestVectorData.Vector vector : TEST_VECTORS.getVectors()) {
+      assertPoint(vector.getQ0(), map.process(h2fp2(vector.getU().get(0))));
+      assertPoint(vector.getQ1(), map.process(h2fp2(vector.getU().get(1)), ctx));
+    }
+  }
+
+  @Test
+  public void testPointsOnCurve() {
+    Bls12381G2MapToCurve map = new Bls12381G2MapToCurve();
+    Bls12381G2Curve.Temporaries t = new Bls12381G2Curve.Temporaries();
+    long[][][] p = Bls12381G2Curve.create();
+    Random random = new Random(12);
+    BigInteger pMinusOne = Bls12381Field.P.subtract(BigInteger.ONE);
+    BigInteger[][] u = new BigInteger[30][];
+    u[0] = new BigInteger[] {BigInteger.ZERO, BigInteger.ZERO};
+    u[1] = new BigInteger[] {BigInteger.ONE, BigInteger.ZERO};
+    u[2] = new BigInteger[] {BigInteger.ZERO, pMinusOne};
+    for (int i = 3; i < u.length; i++) {
+      u[i] = new BigInteger[] {new BigInteger(380, random), new BigInteger(380, random)};
+    }
+    for (BigInteger[] element : u) {
+      Bls12381G2Curve.fromAffine(map.process(element), p, t);
+      assertTrue(Bls12381G2Curve.isOnCurve(p, t));
+    }
+  }
+
+  @Test
+  public void testCofactorClearing() {
+    Bls12381G2MapToCurve map = new Bls12381G2MapToCurve();
+    Bls12381G2CurveProcessor processor = new Bls12381G2CurveProcessor();
+    Bls12381G2Curve.Temporaries t = new Bls12381G2Curve.Temporaries();
+    long[][][] p = Bls12381G2Curve.create();
+    Bls12381G2Point point = map.process(new BigInteger[] {BigInteger.valueOf(42), BigInteger.ONE});
+    Bls12381G2Point cleared = processor.clearCofactor(point);
+    Bls12381G2Curve.fromAffine(cleared, p, t);
+    assertTrue(Bls12381G2Curve.isOnCurve(p, t));
+    assertTrue(Bls12381G2Curve.isInfinity(multiply(p, Bls12381Curve.R, t)));
+
+    // The mapped point is not in G2 before the cofactor is cleared
+    Bls12381G2Curve.fromAffine(point, p, t);
+    assertTrue(!Bls12381G2Curve.isInfinity(multiply(p, Bls12381Curve.R, t)));
+    assertEquals(Bls12381G2Point.getInfinity(),
+        processor.clearCofactor(Bls12381G2Point.getInfinity()));
+  }
+
+  private static long[][][] multiply(final long[][][] p, final BigInteger k,
+      final Bls12381G2Curve.Temporaries t) {
+    long[][][] r = Bls12381G2Curve.create();
+    Bls12381G2Curve.setInfinity(r);
+    for (int bit = k.bitLength() - 1; bit >= 0; bit--) {
+      Bls12381G2Curve.twice(r, t);
+      if (k.testBit(bit)) {
+        Bls12381G2Curve.add(r, p, t);
+      }
+    }
+    return r;
+  }
+
+  private static void assertPoint(final Map<String, String> expected,
+      final Bls12381G2Point point) {
+    assertArrayEquals(h2fp2(expected.get("x")), point.getX());
+    assertArrayEquals(h2fp2(expected.get("y")), point.getY());
+  }
+
+  /** Parses an element of F_p^2 in the test vector format "0x[c0],0x[c1]". */
+  private static BigInteger[] h2fp2(final String value) {
+    String[] parts = value.split(",");
+    return new BigInteger[] {new BigInteger(parts[0].substring(2), 16),
+        new BigInteger(parts[1].substring(2), 16)};
+  }
+
+}
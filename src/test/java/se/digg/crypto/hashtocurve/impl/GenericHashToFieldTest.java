@@ -4,9 +4,14 @@
 
 package se.digg.crypto.hashtocurve.impl;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.Security;
+import java.util.Arrays;
 
 import org.bouncycastle.crypto.digests.SHA256Digest;
 import org.bouncycastle.jce.ECNamedCurveTable;
@@ -46,4 +51,46 @@ public class GenericHashToFieldTest {
     log.info("U1 : {}", Hex.toHexString(result[1][0].toByteArray()));
 
   }
+
+  @Test
+  public void testManyFieldElements() {
+    byte[] message = "abc".getBytes(StandardCharsets.UTF_8);
+    byte[] dst = "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+    GenericHashToField testInstance =
+        new GenericHashToField(dst, ecParameterSpec, messageExpansion, 48);
+
+    // Within one expansion the result equals hash to field with the same count
+    assertArrayEquals(testInstance.process(message), testInstance.process(message, 2));
+    assertArrayEquals(
+        new GenericHashToField(dst, ecParameterSpec, messageExpansion, 48, 100).process(message),
+        testInstance.process(message, 100));
+    assertEquals(0, testInstance.process(message, 0).length);
+
+    // 255 SHA-256 blocks hold 170 elements of 48 bytes, so 400 elements take three chunks
+    assertEquals(8160, messageExpansion.getMaxExpansionLength());
+    BigInteger[][] chunked = testInstance.process(message, 400);
+    assertEquals(400, chunked.length);
+    assertArrayEquals(
+        new GenericHashToField(dst, ecParameterSpec, messageExpansion, 48, 170).process(message),
+        Arrays.copyOfRange(chunked, 0, 170));
+    // Chunk 2 uses "CHUNK-" || I2OSP(len(DST), 1) || DST || I2OSP(2, 2)
+    byte[] chunkDst = new byte[9 + dst.length];
+    System.arraycopy("CHUNK-".getBytes(StandardCharsets.US_ASCII), 0, chunkDst, 0, 6);
+    chunkDst[6] = (byte) dst.length;
+    System.arraycopy(dst, 0, chunkDst, 7, dst.length);
+    chunkDst[chunkDst.length - 1] = 2;
+    assertArrayEquals(
+        new GenericHashToField(chunkDst, ecParameterSpec, messageExpansion, 48, 60)
+            .process(message),
+        Arrays.copyOfRange(chunked, 340, 400));
+
+    assertEquals(171,
+        new GenericHashToField(new byte[246], ecParameterSpec, messageExpansion, 48)
+            .process(message, 171).length);
+    GenericHashToField longDst =
+        new GenericHashToField(new byte[247], ecParameterSpec, messageExpansion, 48);
+    assertEquals(170, longDst.process(message, 170).length);
+    assertThrows(IllegalArgumentException.class, () -> longDst.process(message, 171));
+    assertThrows(IllegalArgumentException.class, () -> testInstance.process(message, -1));
+  }
 }
@@ -4,6 +4,9 @@
 
 package se.digg.crypto.hashtocurve.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
 import java.math.BigInteger;
 import java.security.Security;
 import lombok.extern.slf4j.Slf4j;
@@ -55,6 +58,51 @@ class GenericOPRFHashToScalarTest {
 
   }
 
+  @Test
+  public void testManyScalars() {
+    byte[] input = "Hej".getBytes();
+    byte[] dst = "DST".getBytes();
+    BigInteger order = p256Spec.getCurve().getOrder();
+
+    assertEquals(hashToScalar.process(input, dst), hashToScalar.process(input, dst, 1)[0]);
+
+    // One expansion of 10 * 48 bytes, reduced slice by slice
+    BigInteger[] scalars = hashToScalar.process(input, dst, 10);
+    byte[] expanded = new XmdMessageExpansion(new SHA256Digest(), 128)
+        .expandMessage(input, dst, 10 * 48);
+    for (int i = 0; i < scalars.length; i++) {
+      assertEquals(new BigInteger(1, expanded, 48 * i, 48).mod(order), scalars[i]);
+    }
+
+    // 170 scalars fit in one expansion, the next chunk uses a separate tag
+    BigInteger[] chunked = hashToScalar.process(input, dst, 171);
+    assertEquals(171, chunked.length);
+    assertEquals(hashToScalar.process(input,
+        new byte[] {'C', 'H', 'U', 'N', 'K', '-', 3, 'D', 'S', 'T', 0, 1}), chunked[170]);
+    assertNotEquals(chunked[0], chunked[170]);
+    // The chunk tag is not the tag of another DST extended by two bytes
+    assertNotEquals(hashToScalar.process(input, new byte[] {'D', 'S', 'T', 0, 1}), chunked[170]);
+  }
+
+  @Test
+  public void testPrefix() {
+    byte[] prefix = "OPRFV1-context-string-shared-by-all-inputs".getBytes();
+    GenericOPRFHashToScalar prefixed = hashToScalar.withPrefix(prefix);
+    for (String suffix : new String[] {"", "alice", "bob"}) {
+      byte[] input = suffix.getBytes();
+      assertEquals(hashToScalar.process(org.bouncycastle.util.Arrays.concatenate(prefix, input),
+          "DST".getBytes()), prefixed.process(input, "DST".getBytes()));
+    }
+  }
 
+  @Test
+  public void testMultipleDsts() {
+    byte[] input = "Hej".getBytes();
+    byte[][] dsts = new byte[][] {"DST".getBytes(), "TENANT-1".getBytes(), "TENANT-2".getBytes()};
+    BigInteger[] scalars = hashToScalar.processForDsts(input, dsts);
+    for (int i = 0; i < dsts.length; i++) {
+      assertEquals(hashToScalar.process(input, dsts[i]), scalars[i]);
+    }
+  }
 
 }
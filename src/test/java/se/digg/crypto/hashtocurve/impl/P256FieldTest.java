@@ -0,0 +1,108 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the P-256 Montgomery field arithmetic against BigInteger arithmetic.
+ */
+public class P256FieldTest {
+
+  private static final BigInteger P = P256Field.P;
+
+  @Test
+  public void testArithmetic() {
+    Random random = new Random(256);
+    long[][] table = P256Field.createTable();
+    long[] tt = P256Field.create();
+    long[] z = P256Field.create();
+    BigInteger[] special = {BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO,
+        P.subtract(BigInteger.ONE), P.subtract(BigInteger.TWO), P.shiftRight(1),
+        BigInteger.ONE.shiftLeft(255), BigInteger.ONE.shiftLeft(224).subtract(BigInteger.ONE),
+        BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE), BigInteger.ONE.shiftLeft(192)};
+    BigInteger c1 = P.subtract(BigInteger.valueOf(3)).shiftRight(2);
+    for (int i = 0; i < 2000; i++) {
+      BigInteger a = i < special.length ? special[i] : random(random, i);
+      BigInteger b = i < special.length ? special[special.length - 1 - i] : random(random, i + 1);
+      long[] x = P256Field.fromBigInteger(a);
+      long[] y = P256Field.fromBigInteger(b);
+      assertEquals(a, P256Field.toBigInteger(x));
+
+      P256Field.add(x, y, z);
+      assertEquals(a.add(b).mod(P), P256Field.toBigInteger(z));
+      P256Field.subtract(x, y, z);
+      assertEquals(a.subtract(b).mod(P), P256Field.toBigInteger(z));
+      P256Field.negate(x, z);
+      assertEquals(a.negate().mod(P), P256Field.toBigInteger(z));
+      P256Field.multiply(x, y, z);
+      assertEquals(a.multiply(b).mod(P), P256Field.toBigInteger(z));
+      P256Field.square(x, z);
+      assertEquals(a.multiply(a).mod(P), P256Field.toBigInteger(z));
+      assertEquals(a.testBit(0) ? 1 : 0, P256Field.sgn0(x, tt));
+      assertEquals(a.equals(b) ? -1 : 0, P256Field.equalTo(x, y));
+      assertEquals(a.signum() == 0 ? -1 : 0, P256Field.isZero(x));
+      if (i < 200) {
+        P256Field.inv(x, z, table);
+        assertEquals(a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P),
+            P256Field.toBigInteger(z));
+        P256Field.powC1(x, z, table);
+        assertEquals(a.modPow(c1, P), P256Field.toBigInteger(z));
+      }
+
+      P256Field.copy(x, z);
+      P256Field.cmov(0, y, z);
+      assertEquals(a, P256Field.toBigInteger(z));
+      P256Field.cmov(-1, y, z);
+      assertEquals(b, P256Field.toBigInteger(z));
+    }
+  }
+
+  @Test
+  public void testAliasing() {
+    BigInteger a = new BigInteger(
+        "6b17d1f2e12c4247f8bce6e563a440f277037d812deb33a0f4a13945d898c296", 16);
+    long[] x = P256Field.fromBigInteger(a);
+    P256Field.multiply(x, x, x);
+    assertEquals(a.multiply(a).mod(P), P256Field.toBigInteger(x));
+    P256Field.powC1(x, x, P256Field.createTable());
+    assertEquals(a.multiply(a).modPow(P.subtract(BigInteger.valueOf(3)).shiftRight(2), P),
+        P256Field.toBigInteger(x));
+  }
+
+  @Test
+  public void testReduction() {
+    assertEquals(BigInteger.TEN, P256Field.toBigInteger(
+        P256Field.fromBigInteger(P.multiply(BigInteger.valueOf(3)).add(BigInteger.TEN))));
+    assertEquals(P.subtract(BigInteger.ONE),
+        P256Field.toBigInteger(P256Field.fromBigInteger(BigInteger.ONE.negate())));
+    assertEquals(BigInteger.ONE, P256Field.toBigInteger(P256Field.one()));
+  }
+
+  /**
+   * Random field elements, with every other element biased towards limbs of all ones or all
+   * zeros to exercise the carry chains.
+   */
+  private static BigInteger random(final Random random, final int i) {
+    if (i % 2 == 0) {
+      return new BigInteger(P.bitLength(), random).mod(P);
+    }
+    BigInteger value = BigInteger.ZERO;
+    for (int limb = 0; limb < 4; limb++) {
+      long bits = switch (random.nextInt(3)) {
+        case 0 -> -1L;
+        case 1 -> 0L;
+        default -> random.nextLong();
+      };
+      value = value.or(new BigInteger(Long.toUnsignedString(bits)).shiftLeft(64 * limb));
+    }
+    return value.mod(P);
+  }
+
+}
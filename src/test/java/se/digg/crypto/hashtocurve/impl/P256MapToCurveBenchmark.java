@@ -0,0 +1,108 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.SqrtRatioCalculator;
+
+/**
+ * Micro benchmark of the P-256 map to curve and sqrt_ratio on 64-bit limbs against the BigInteger
+ * implementations and the 32-bit limb batch map. Each operation is run for a number of warm-up
+ * rounds before the measured rounds, and the mean time per field element is reported.
+ *
+ * <p>Run with the test classpath, for example:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     se.digg.crypto.hashtocurve.impl.P256MapToCurveBenchmark 20000
+ * </pre>
+ */
+public final class P256MapToCurveBenchmark {
+
+  private static final int BATCH_SIZE = 64;
+  private static final int ROUNDS = 5;
+
+  private P256MapToCurveBenchmark() {
+  }
+
+  /**
+   * Runs the benchmark and prints the results to standard output.
+   *
+   * @param args the number of field elements per round, 10000 if absent
+   */
+  public static void main(final String[] args) {
+    run(args.length > 0 ? Integer.parseInt(args[0]) : 10_000, System.out);
+  }
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param count the number of field elements per round
+   * @param out the stream to print the results to
+   */
+  static void run(final int count, final PrintStream out) {
+    final ECParameterSpec spec = ECNamedCurveTable.getParameterSpec("P-256");
+    final BigInteger p = spec.getCurve().getField().getCharacteristic();
+    final Random random = new Random(1);
+    final BigInteger[] u = new BigInteger[count];
+    final BigInteger[] v = new BigInteger[count];
+    for (int i = 0; i < count; i++) {
+      u[i] = new BigInteger(p.bitLength(), random).mod(p);
+      v[i] = new BigInteger(p.bitLength(), random).mod(p.subtract(BigInteger.ONE))
+          .add(BigInteger.ONE);
+    }
+    final BigInteger[][] batches = new BigInteger[(count + BATCH_SIZE - 1) / BATCH_SIZE][];
+    for (int i = 0; i < batches.length; i++) {
+      final int from = i * BATCH_SIZE;
+      batches[i] = new BigInteger[Math.min(BATCH_SIZE, count - from)];
+      System.arraycopy(u, from, batches[i], 0, batches[i].length);
+    }
+
+    final ShallueVanDeWoestijneMapToCurve bigIntegerMap =
+        new ShallueVanDeWoestijneMapToCurve(spec, P256MapToCurve.Z);
+    final BatchShallueVanDeWoestijneMapToCurve limbMap =
+        new BatchShallueVanDeWoestijneMapToCurve(spec, P256MapToCurve.Z);
+    final P256MapToCurve map = new P256MapToCurve(spec);
+    final SqrtRatioCalculator bigIntegerSqrtRatio =
+        new GenericSqrtRatioCalculator(spec, P256MapToCurve.Z);
+    final SqrtRatioCalculator sqrtRatio = new P256SqrtRatioCalculator();
+    final HashContext ctx = new HashContext();
+
+    out.printf(Locale.ROOT, "P-256 map to curve, %d field elements per round%n", count);
+    measure(out, "sqrt_ratio BigInteger", count, count,
+        i -> bigIntegerSqrtRatio.sqrtRatio(u[i], v[i]));
+    measure(out, "sqrt_ratio 64-bit limbs", count, count, i -> sqrtRatio.sqrtRatio(u[i], v[i]));
+    measure(out, "map BigInteger", count, count, i -> bigIntegerMap.process(u[i]));
+    measure(out, "map 32-bit limbs", count, count, i -> limbMap.process(u[i], ctx));
+    measure(out, "map 64-bit limbs", count, count, i -> map.process(u[i], ctx));
+    measure(out, "map batch 32-bit limbs", count, batches.length,
+        i -> limbMap.process(batches[i]));
+    measure(out, "map batch 64-bit limbs", count, batches.length, i -> map.process(batches[i]));
+  }
+
+  private static void measure(final PrintStream out, final String name, final int elements,
+      final int operations, final IntConsumer operation) {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < 2 * ROUNDS; round++) {
+      final long start = System.nanoTime();
+      for (int i = 0; i < operations; i++) {
+        operation.accept(i);
+      }
+      // The first half of the rounds warm up the JIT compiler
+      if (round >= ROUNDS) {
+        best = Math.min(best, (double) (System.nanoTime() - start) / elements);
+      }
+    }
+    out.printf(Locale.ROOT, "%-26s %10.0f ns/element%n", name, best);
+  }
+
+}
@@ -0,0 +1,103 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.HashToEllipticCurve;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.SqrtRatio;
+
+/**
+ * Test the P-256 map to curve and sqrt_ratio on 64-bit limbs against the BigInteger
+ * implementations.
+ */
+public class P256MapToCurveTest {
+
+  private static final ECParameterSpec SPEC = ECNamedCurveTable.getParameterSpec("P-256");
+  private static final BigInteger P = SPEC.getCurve().getField().getCharacteristic();
+
+  @Test
+  public void testMatchesScalarMap() {
+    ShallueVanDeWoestijneMapToCurve scalarMap =
+        new ShallueVanDeWoestijneMapToCurve(SPEC, P256MapToCurve.Z);
+    ShallueVanDeWoestijneMapToCurve pluggedMap = new ShallueVanDeWoestijneMapToCurve(SPEC,
+        P256MapToCurve.Z, new P256SqrtRatioCalculator());
+    P256MapToCurve map = new P256MapToCurve(SPEC);
+    HashContext ctx = new HashContext();
+
+    Random random = new Random(256);
+    BigInteger[] u = new BigInteger[100];
+    u[0] = BigInteger.ZERO;
+    u[1] = BigInteger.ONE;
+    u[2] = P.subtract(BigInteger.ONE);
+    for (int i = 3; i < u.length; i++) {
+      u[i] = new BigInteger(P.bitLength(), random).mod(P);
+    }
+
+    ECPoint[] points = map.process(u);
+    for (int i = 0; i < u.length; i++) {
+      ECPoint expected = scalarMap.process(u[i]);
+      assertEquals(expected, points[i]);
+      assertEquals(expected, map.process(u[i]));
+      assertEquals(expected, map.process(u[i], ctx));
+      assertEquals(expected, pluggedMap.process(u[i]));
+    }
+    assertEquals(0, map.process(new BigInteger[0]).length);
+  }
+
+  @Test
+  public void testSqrtRatio() {
+    P256SqrtRatioCalculator calculator = new P256SqrtRatioCalculator();
+    GenericSqrtRatioCalculator generic = new GenericSqrtRatioCalculator(SPEC, P256MapToCurve.Z);
+    Random random = new Random(3);
+    for (int i = 0; i < 200; i++) {
+      BigInteger u = new BigInteger(P.bitLength(), random).mod(P);
+      BigInteger v = new BigInteger(P.bitLength(), random).mod(P.subtract(BigInteger.ONE))
+          .add(BigInteger.ONE);
+      SqrtRatio sqrtRatio = calculator.sqrtRatio(u, v);
+      assertEquals(generic.sqrtRatio(u, v).isQR(), sqrtRatio.isQR());
+      // y^2 * v = u if u / v is square, else y^2 * v = Z * u
+      BigInteger expected = sqrtRatio.isQR() ? u : P256MapToCurve.Z.multiply(u).mod(P);
+      assertEquals(expected, sqrtRatio.ratio().pow(2).multiply(v).mod(P));
+    }
+  }
+
+  @Test
+  public void testHashToCurve() {
+    HashToCurveProfile profile = HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_;
+    byte[] dst = "QUUX-V01-CS02-with-P256_XMD:SHA-256_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+    HashToEllipticCurve h2c = new HashToEllipticCurve(
+        new GenericHashToField(dst, SPEC,
+            new XmdMessageExpansion(H2cUtils.createDigest(profile), profile.getK()),
+            profile.getL()),
+        new P256MapToCurve(SPEC), new GenericCurveProcessor(SPEC));
+    ECPoint point = h2c.hashToEllipticCurve("abc".getBytes(StandardCharsets.UTF_8)).normalize();
+    // Test vector of section J.1.1 of RFC 9380
+    assertEquals(new BigInteger(
+        "0bb8b87485551aa43ed54f009230450b492fead5f1cc91658775dac4a3388a0f", 16),
+        point.getAffineXCoord().toBigInteger());
+    assertEquals(new BigInteger(
+        "5c41b3d0731a27a7b14bc0bf0ccded2d8751f83493404c84a88e71ffd424212e", 16),
+        point.getAffineYCoord().toBigInteger());
+  }
+
+  @Test
+  public void testUnsupportedCurve() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new P256MapToCurve(ECNamedCurveTable.getParameterSpec("P-384")));
+  }
+
+}
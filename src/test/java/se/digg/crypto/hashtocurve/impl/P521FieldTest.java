@@ -0,0 +1,138 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test the P-256 Montgomery field arithmetic against BigInteger arithmetic.
+ */
+public class P521FieldTest {
+
+  private static final BigInteger P = P521Field.P;
+
+  @Test
+  public void testArithmetic() {
+    Random random = new Random(521);
+    long[][] table = P521Field.createTable();
+    long[] tt = P521Field.create();
+    long[] z = P521Field.create();
+    long[] ext = P521Field.createExt();
+    BigInteger[] special = {BigInteger.ZERO, BigInteger.ONE, BigInteger.TWO,
+        P.subtract(BigInteger.ONE), P.subtract(BigInteger.TWO), P.shiftRight(1),
+        BigInteger.ONE.shiftLeft(520), BigInteger.ONE.shiftLeft(464).subtract(BigInteger.ONE),
+        BigInteger.ONE.shiftLeft(58).subtract(BigInteger.ONE), BigInteger.ONE.shiftLeft(464)};
+    BigInteger c1 = P.subtract(BigInteger.valueOf(3)).shiftRight(2);
+    for (int i = 0; i < 2000; i++) {
+      BigInteger a = i < special.length ? special[i] : random(random, i);
+      BigInteger b = i < special.length ? special[special.length - 1 - i] : random(random, i + 1);
+      long[] x = P521Field.fromBigInteger(a);
+      long[] y = P521Field.fromBigInteger(b);
+      assertEquals(a, P521Field.toBigInteger(x));
+
+      P521Field.add(x, y, z);
+      assertEquals(a.add(b).mod(P), P521Field.toBigInteger(z));
+      P521Field.subtract(x, y, z);
+      assertEquals(a.subtract(b).mod(P), P521Field.toBigInteger(z));
+      P521Field.negate(x, z);
+      assertEquals(a.negate().mod(P), P521Field.toBigInteger(z));
+      P521Field.multiply(x, y, z, ext);
+      assertEquals(a.multiply(b).mod(P), P521Field.toBigInteger(z));
+      P521Field.square(x, z, ext);
+      assertEquals(a.multiply(a).mod(P), P521Field.toBigInteger(z));
+      assertEquals(a.testBit(0) ? 1 : 0, P521Field.sgn0(x, tt));
+      assertEquals(a.equals(b) ? -1 : 0, P521Field.equalTo(x, y, tt));
+      assertEquals(a.signum() == 0 ? -1 : 0, P521Field.isZero(x, tt));
+      if (i < 200) {
+        P521Field.inv(x, z, table, ext);
+        assertEquals(a.signum() == 0 ? BigInteger.ZERO : a.modInverse(P),
+            P521Field.toBigInteger(z));
+        P521Field.powC1(x, z, table, ext);
+        assertEquals(a.modPow(c1, P), P521Field.toBigInteger(z));
+      }
+
+      P521Field.copy(x, z);
+      P521Field.cmov(0, y, z);
+      assertEquals(a, P521Field.toBigInteger(z));
+      P521Field.cmov(-1, y, z);
+      assertEquals(b, P521Field.toBigInteger(z));
+    }
+  }
+
+  @Test
+  public void testAliasing() {
+    BigInteger a = new BigInteger(
+        "c6858e06b70404e9cd9e3ecb662395b4429c648139053fb521f828af606b4d3dbaa14b5e77efe75928fe1dc1"
+        + "27a2ffa8de3348b3c1856a429bf97e7e31c2e5bd66", 16);
+    long[] x = P521Field.fromBigInteger(a);
+    P521Field.multiply(x, x, x, P521Field.createExt());
+    assertEquals(a.multiply(a).mod(P), P521Field.toBigInteger(x));
+    P521Field.powC1(x, x, P521Field.createTable(), P521Field.createExt());
+    assertEquals(a.multiply(a).modPow(P.subtract(BigInteger.valueOf(3)).shiftRight(2), P),
+        P521Field.toBigInteger(x));
+  }
+
+  @Test
+  public void testWeaklyReduced() {
+    // Feed the weakly reduced results of each operation into the next
+    Random random = new Random(58);
+    long[] ext = P521Field.createExt();
+    long[] acc = P521Field.one();
+    long[] x = P521Field.create();
+    BigInteger expected = BigInteger.ONE;
+    for (int i = 0; i < 1000; i++) {
+      BigInteger a = random(random, i);
+      P521Field.fromBigInteger(a, x);
+      switch (i % 4) {
+        case 0 -> P521Field.multiply(acc, x, acc, ext);
+        case 1 -> P521Field.add(acc, acc, acc);
+        case 2 -> P521Field.subtract(acc, x, acc);
+        default -> P521Field.square(acc, acc, ext);
+      }
+      expected = switch (i % 4) {
+        case 0 -> expected.multiply(a);
+        case 1 -> expected.shiftLeft(1);
+        case 2 -> expected.subtract(a);
+        default -> expected.multiply(expected);
+      };
+      expected = expected.mod(P);
+      assertEquals(expected, P521Field.toBigInteger(acc));
+    }
+  }
+
+  @Test
+  public void testReduction() {
+    assertEquals(BigInteger.TEN, P521Field.toBigInteger(
+        P521Field.fromBigInteger(P.multiply(BigInteger.valueOf(3)).add(BigInteger.TEN))));
+    assertEquals(P.subtract(BigInteger.ONE),
+        P521Field.toBigInteger(P521Field.fromBigInteger(BigInteger.ONE.negate())));
+    assertEquals(BigInteger.ONE, P521Field.toBigInteger(P521Field.one()));
+  }
+
+  /**
+   * Random field elements, with every other element biased towards 58-bit limbs of all ones or
+   * all zeros to exercise the carry chains.
+   */
+  private static BigInteger random(final Random random, final int i) {
+    if (i % 2 == 0) {
+      return new BigInteger(P.bitLength(), random).mod(P);
+    }
+    BigInteger value = BigInteger.ZERO;
+    for (int limb = 0; limb < 9; limb++) {
+      long bits = switch (random.nextInt(3)) {
+        case 0 -> -1L;
+        case 1 -> 0L;
+        default -> random.nextLong();
+      };
+      value = value.or(BigInteger.valueOf(bits & ((1L << 58) - 1)).shiftLeft(58 * limb));
+    }
+    return value.mod(P);
+  }
+
+}
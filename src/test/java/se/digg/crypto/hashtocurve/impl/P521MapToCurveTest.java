@@ -0,0 +1,105 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.math.ec.ECPoint;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.HashToEllipticCurve;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.data.SqrtRatio;
+
+/**
+ * Test the P-521 map to curve and sqrt_ratio on 58-bit limbs against the BigInteger
+ * implementations.
+ */
+public class P521MapToCurveTest {
+
+  private static final ECParameterSpec SPEC = ECNamedCurveTable.getParameterSpec("P-521");
+  private static final BigInteger P = SPEC.getCurve().getField().getCharacteristic();
+
+  @Test
+  public void testMatchesScalarMap() {
+    ShallueVanDeWoestijneMapToCurve scalarMap =
+        new ShallueVanDeWoestijneMapToCurve(SPEC, P521MapToCurve.Z);
+    ShallueVanDeWoestijneMapToCurve pluggedMap = new ShallueVanDeWoestijneMapToCurve(SPEC,
+        P521MapToCurve.Z, new P521SqrtRatioCalculator());
+    P521MapToCurve map = new P521MapToCurve(SPEC);
+    HashContext ctx = new HashContext();
+
+    Random random = new Random(521);
+    BigInteger[] u = new BigInteger[100];
+    u[0] = BigInteger.ZERO;
+    u[1] = BigInteger.ONE;
+    u[2] = P.subtract(BigInteger.ONE);
+    for (int i = 3; i < u.length; i++) {
+      u[i] = new BigInteger(P.bitLength(), random).mod(P);
+    }
+
+    ECPoint[] points = map.process(u);
+    for (int i = 0; i < u.length; i++) {
+      ECPoint expected = scalarMap.process(u[i]);
+      assertEquals(expected, points[i]);
+      assertEquals(expected, map.process(u[i]));
+      assertEquals(expected, map.process(u[i], ctx));
+      assertEquals(expected, pluggedMap.process(u[i]));
+    }
+    assertEquals(0, map.process(new BigInteger[0]).length);
+  }
+
+  @Test
+  public void testSqrtRatio() {
+    P521SqrtRatioCalculator calculator = new P521SqrtRatioCalculator();
+    GenericSqrtRatioCalculator generic = new GenericSqrtRatioCalculator(SPEC, P521MapToCurve.Z);
+    Random random = new Random(3);
+    for (int i = 0; i < 200; i++) {
+      BigInteger u = new BigInteger(P.bitLength(), random).mod(P);
+      BigInteger v = new BigInteger(P.bitLength(), random).mod(P.subtract(BigInteger.ONE))
+          .add(BigInteger.ONE);
+      SqrtRatio sqrtRatio = calculator.sqrtRatio(u, v);
+      assertEquals(generic.sqrtRatio(u, v).isQR(), sqrtRatio.isQR());
+      // y^2 * v = u if u / v is square, else y^2 * v = Z * u
+      BigInteger expected = sqrtRatio.isQR() ? u : P521MapToCurve.Z.multiply(u).mod(P);
+      assertEquals(expected, sqrtRatio.ratio().pow(2).multiply(v).mod(P));
+    }
+  }
+
+  @Test
+  public void testHashToCurve() {
+    HashToCurveProfile profile = HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_;
+    byte[] dst = "QUUX-V01-CS02-with-P521_XMD:SHA-512_SSWU_RO_".getBytes(StandardCharsets.UTF_8);
+    HashToEllipticCurve h2c = new HashToEllipticCurve(
+        new GenericHashToField(dst, SPEC,
+            new XmdMessageExpansion(H2cUtils.createDigest(profile), profile.getK()),
+            profile.getL()),
+        new P521MapToCurve(SPEC), new GenericCurveProcessor(SPEC));
+    ECPoint point = h2c.hashToEllipticCurve(new byte[0]).normalize();
+    // Test vector of section J.3.1 of RFC 9380
+    assertEquals(new BigInteger(
+        "00fd767cebb2452030358d0e9cf907f525f50920c8f607889a6a35680727f64f4d66b161fafeb2654bea0d"
+        + "35086bec0a10b30b14adef3556ed9f7f1bc23cecc9c088", 16),
+        point.getAffineXCoord().toBigInteger());
+    assertEquals(new BigInteger(
+        "0169ba78d8d851e930680322596e39c78f4fe31b97e57629ef6460ddd68f8763fd7bd767a4e94a80d3d21a"
+        + "3c2ee98347e024fc73ee1c27166dc3fe5eeef782be411d", 16),
+        point.getAffineYCoord().toBigInteger());
+  }
+
+  @Test
+  public void testUnsupportedCurve() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new P521MapToCurve(ECNamedCurveTable.getParameterSpec("P-256")));
+  }
+
+}
@@ -0,0 +1,59 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Testing the variable time map against the straight-line map.
+ */
+@Slf4j
+public class VariableTimeShallueVanDeWoestijneMapToCurveTest {
+
+  @Test
+  public void testMatchesStraightLineMap() throws Exception {
+    final Random random = new Random(45);
+    for (final HashToCurveProfile profile : List.of(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_,
+        HashToCurveProfile.P521_XMD_SHA_512_SSWU_RO_)) {
+      final ECParameterSpec spec = H2cUtils.getParameterSpec(profile);
+      final BigInteger p = spec.getCurve().getField().getCharacteristic();
+      final VariableTimeShallueVanDeWoestijneMapToCurve variableTime =
+          new VariableTimeShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      final ShallueVanDeWoestijneMapToCurve straightLine =
+          new ShallueVanDeWoestijneMapToCurve(spec, profile.getZ());
+      // Zero takes the exceptional case of the map, where Z^2 * u^4 + Z * u^2 = 0
+      assertEquals(straightLine.process(BigInteger.ZERO).normalize(),
+          variableTime.process(BigInteger.ZERO).normalize());
+      assertEquals(straightLine.process(BigInteger.ONE).normalize(),
+          variableTime.process(p.add(BigInteger.ONE)).normalize());
+      for (int i = 0; i < 100; i++) {
+        final BigInteger u = new BigInteger(p.bitLength() + 16, random).mod(p);
+        assertEquals(straightLine.process(u).normalize(), variableTime.process(u).normalize());
+      }
+      log.info("Variable time map matches the straight-line map for {}",
+          profile.getCipherSuiteID());
+    }
+  }
+
+  @Test
+  public void testUnsupportedCurve() throws Exception {
+    assertThrows(IllegalArgumentException.class,
+        () -> new VariableTimeShallueVanDeWoestijneMapToCurve(
+            H2cUtils.getParameterSpec(HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_RO_),
+            BigInteger.valueOf(11)));
+  }
+
+}
@@ -0,0 +1,227 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.crypto.Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA384Digest;
+import org.bouncycastle.crypto.digests.SHA3Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.util.Arrays;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
+
+/**
+ * Test XmdMessageExpansion.
+ */
+@Slf4j
+public class XmdMessageExpansionTest {
+
+  static final byte[] DST = "QUUX-V01-CS02-with-expander-SHA256-128"
+      .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  public void testRfcVector() {
+    XmdMessageExpansion expansion = new XmdMessageExpansion(new SHA256Digest(), 128);
+    byte[] uniformBytes = expansion.expandMessage(new byte[] {}, DST, 0x20);
+    assertEquals("68a985b87eb6b46952128911f2a4412bbc302a9d759667f87f7a21d803f07235",
+        Hex.toHexString(uniformBytes));
+  }
+
+  @Test
+  public void testMatchesReferenceExpansion() {
+    List<Digest> digests = List.of(new SHA256Digest(), new SHA512Digest(), new SHA3Digest(256));
+    int[] lengths = new int[] {0, 1, 32, 48, 96, 98, 130, 1000};
+    byte[][] messages = getMessages();
+
+    for (Digest digest : digests) {
+      XmdMessageExpansion expansion = new XmdMessageExpansion(digest, 128);
+      int s = digest instanceof SHA3Digest ? 1088 : digest.getDigestSize() == 32 ? 512 : 1024;
+      HashContext ctx = new HashContext();
+      for (int len : lengths) {
+        byte[][] batch = expansion.expandMessages(messages, DST, len);
+        for (int i = 0; i < messages.length; i++) {
+          byte[] expected = referenceExpand(digest, s, messages[i], DST, len);
+          assertArrayEquals(expected, expansion.expandMessage(messages[i], DST, len));
+          assertArrayEquals(expected, batch[i]);
+          byte[] out = ctx.getUniformBytes(len);
+          expansion.expandMessage(messages[i], DST, len, out, ctx);
+          assertArrayEquals(expected, Arrays.copyOfRange(out, 0, len));
+        }
+      }
+      log.info("Batch expansion matches reference for {}", digest.getAlgorithmName());
+    }
+  }
+
+  @Test
+  public void testMultiLaneExpansion() {
+    // The test JVM resolves the Vector API module, so batches take the multi-lane path
+    assertTrue(VectorSupport.isEnabled());
+    List<Digest> digests = List.of(new SHA256Digest(), new SHA384Digest(), new SHA512Digest());
+    byte[][] messages = getMessages();
+    for (Digest digest : digests) {
+      int s = digest instanceof SHA256Digest ? 512 : 1024;
+      XmdMessageExpansion expansion = new XmdMessageExpansion(digest, 128);
+      for (int len : new int[] {0, 32, 130, 255 * digest.getDigestSize()}) {
+        byte[][] lanes = expansion.expandMessages(messages, DST, len);
+        byte[][] single = expansion.expandMessages(new byte[][] {messages[5]}, DST, len);
+        System.setProperty(VectorSupport.VECTOR_PROPERTY, "false");
+        try {
+          assertFalse(VectorSupport.isEnabled());
+          byte[][] scalar = expansion.expandMessages(messages, DST, len);
+          for (int i = 0; i < messages.length; i++) {
+            assertArrayEquals(scalar[i], lanes[i]);
+            assertArrayEquals(referenceExpand(digest, s, messages[i], DST, len), lanes[i]);
+          }
+          assertArrayEquals(scalar[5], single[0]);
+        } finally {
+          System.clearProperty(VectorSupport.VECTOR_PROPERTY);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testByteBufferInput() {
+    XmdMessageExpansion expansion = new XmdMessageExpansion(new SHA256Digest(), 128);
+    HashContext ctx = new HashContext();
+    for (byte[] message : getMessages()) {
+      byte[] expected = expansion.expandMessage(message, DST, 96);
+      // The message is placed after a prefix, and followed by trailing bytes beyond the limit
+      ByteBuffer heap = ByteBuffer.allocate(message.length + 10);
+      ByteBuffer direct = ByteBuffer.allocateDirect(message.length + 10);
+      for (ByteBuffer buffer : List.of(heap, direct)) {
+        buffer.position(3);
+        buffer.put(message);
+        buffer.put(new byte[] {1, 2, 3});
+        buffer.position(3).limit(3 + message.length);
+        for (ByteBuffer view : List.of(buffer, buffer.slice(), buffer.asReadOnlyBuffer())) {
+          assertArrayEquals(expected, expansion.expandMessage(view, DST, 96));
+          byte[] out = new byte[96];
+          expansion.expandMessage(view, DST, 96, out, ctx);
+          assertArrayEquals(expected, out);
+        }
+        assertEquals(3, buffer.position());
+        assertEquals(3 + message.length, buffer.limit());
+      }
+    }
+  }
+
+  @Test
+  public void testPrefixSnapshot() {
+    List<Digest> digests = List.of(new SHA256Digest(), new SHA512Digest(), new SHA3Digest(256));
+    byte[] prefix = new byte[200];
+    for (int i = 0; i < prefix.length; i++) {
+      prefix[i] = (byte) (3 * i);
+    }
+    byte[][] messages = getMessages();
+
+    for (Digest digest : digests) {
+      int s = digest instanceof SHA3Digest ? 1088 : digest instanceof SHA256Digest ? 512 : 1024;
+      XmdMessageExpansion prefixed = new XmdMessageExpansion(digest, 128, s).withPrefix(prefix);
+      XmdMessageExpansion nested = new XmdMessageExpansion(digest, 128, s)
+          .withPrefix(Arrays.copyOfRange(prefix, 0, 70))
+          .withPrefix(Arrays.copyOfRange(prefix, 70, prefix.length));
+      HashContext ctx = new HashContext();
+      byte[][] batch = prefixed.expandMessages(messages, DST, 96);
+      for (int i = 0; i < messages.length; i++) {
+        byte[] expected =
+            referenceExpand(digest, s, Arrays.concatenate(prefix, messages[i]), DST, 96);
+        assertArrayEquals(expected, prefixed.expandMessage(messages[i], DST, 96));
+        assertArrayEquals(expected, nested.expandMessage(messages[i], DST, 96));
+        assertArrayEquals(expected, batch[i]);
+        assertArrayEquals(expected, prefixed.expandMessage(ByteBuffer.wrap(messages[i]), DST, 96));
+        byte[] out = new byte[96];
+        prefixed.expandMessage(messages[i], DST, 96, out, ctx);
+        assertArrayEquals(expected, out);
+      }
+    }
+
+    // The snapshot is shared by concurrent expansions
+    XmdMessageExpansion plain = new XmdMessageExpansion(new SHA256Digest(), 128);
+    XmdMessageExpansion prefixed = plain.withPrefix(prefix);
+    IntStream.range(0, 400).parallel().forEach(i -> {
+      byte[] message = messages[i % messages.length];
+      assertArrayEquals(plain.expandMessage(Arrays.concatenate(prefix, message), DST, 48),
+          prefixed.expandMessage(message, DST, 48));
+    });
+  }
+
+  @Test
+  public void testMultipleDsts() {
+    byte[][] dsts = new byte[][] {DST, new byte[0], "TENANT-1".getBytes(StandardCharsets.UTF_8),
+        new byte[255], DST};
+    for (Digest digest : List.of(new SHA256Digest(), new SHA512Digest(), new SHA3Digest(256))) {
+      XmdMessageExpansion expansion = new XmdMessageExpansion(digest, 128);
+      for (XmdMessageExpansion instance : List.of(expansion, expansion.withPrefix(DST))) {
+        for (byte[] message : List.of(new byte[0], new byte[100], new byte[5000])) {
+          for (int len : new int[] {32, 98, 1000}) {
+            byte[][] expanded = instance.expandMessageForDsts(message, dsts, len);
+            assertEquals(dsts.length, expanded.length);
+            for (int i = 0; i < dsts.length; i++) {
+              assertArrayEquals(instance.expandMessage(message, dsts[i], len), expanded[i]);
+            }
+          }
+        }
+      }
+    }
+    XmdMessageExpansion expansion = new XmdMessageExpansion(new SHA256Digest(), 128);
+    assertEquals(0, expansion.expandMessageForDsts(new byte[10], new byte[0][], 32).length);
+    assertThrows(IllegalArgumentException.class,
+        () -> expansion.expandMessageForDsts(new byte[10], new byte[][] {DST, new byte[256]}, 32));
+  }
+
+  static byte[][] getMessages() {
+    byte[][] messages = new byte[40][];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = new byte[i * 7];
+      for (int j = 0; j < messages[i].length; j++) {
+        messages[i][j] = (byte) (i + j);
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Straightforward expand_message_xmd following the steps of RFC 9380, section 5.3.1.
+   */
+  static byte[] referenceExpand(Digest digest, int s, byte[] msg, byte[] dst, int lenInBytes) {
+    int b = digest.getDigestSize();
+    int ell = (int) Math.ceil((double) lenInBytes / b);
+    byte[] dstPrime = Arrays.concatenate(dst, H2cUtils.i2osp(dst.length, 1));
+    byte[] msgPrime = Arrays.concatenate(new byte[][] {H2cUtils.i2osp(0, s / 8), msg,
+        H2cUtils.i2osp(lenInBytes, 2), H2cUtils.i2osp(0, 1), dstPrime});
+    byte[] b0 = hash(digest, msgPrime);
+    byte[] bi = hash(digest, Arrays.concatenate(b0, H2cUtils.i2osp(1, 1), dstPrime));
+    byte[] uniformBytes = bi;
+    for (int i = 2; i <= ell; i++) {
+      bi = hash(digest, Arrays.concatenate(H2cUtils.xor(b0, bi), H2cUtils.i2osp(i, 1), dstPrime));
+      uniformBytes = Arrays.concatenate(uniformBytes, bi);
+    }
+    return Arrays.copyOfRange(uniformBytes, 0, lenInBytes);
+  }
+
+  static byte[] hash(Digest digest, byte[] message) {
+    digest.reset();
+    digest.update(message, 0, message.length);
+    byte[] result = new byte[digest.getDigestSize()];
+    digest.doFinal(result, 0);
+    return result;
+  }
+
+}
@@ -0,0 +1,92 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.load;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds with a relative precision better than 1%.
+ *
+ * <p>Values below 256 are counted exactly. Larger values are counted in buckets of 128 per power of
+ * two, so each bucket spans less than 0.8% of its values. Recording does not allocate. Instances
+ * are not thread safe; each load generator thread records into its own histogram and the
+ * histograms are merged when the run completes.
+ */
+public class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+  private static final int SUB_BUCKET_HALF = 1 << SUB_BUCKET_BITS;
+
+  private final long[] counts = new long[SUB_BUCKET_HALF * 58];
+  private long totalCount;
+  private long maxValue;
+
+  /**
+   * Records a latency.
+   *
+   * @param value the latency in nanoseconds, negative values are recorded as zero
+   */
+  void record(final long value) {
+    final long v = Math.max(0, value);
+    this.counts[indexOf(v)]++;
+    this.totalCount++;
+    this.maxValue = Math.max(this.maxValue, v);
+  }
+
+  /**
+   * Adds the counts of another histogram to this histogram.
+   *
+   * @param other the histogram to add
+   */
+  void add(final LatencyHistogram other) {
+    for (int i = 0; i < this.counts.length; i++) {
+      this.counts[i] += other.counts[i];
+    }
+    this.totalCount += other.totalCount;
+    this.maxValue = Math.max(this.maxValue, other.maxValue);
+  }
+
+  long getTotalCount() {
+    return this.totalCount;
+  }
+
+  long getMaxValue() {
+    return this.maxValue;
+  }
+
+  /**
+   * Returns the value at a percentile, as the highest value of the bucket holding it.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the latency in nanoseconds at the percentile, or 0 if the histogram is empty
+   */
+  long getValueAtPercentile(final double percentile) {
+    if (this.totalCount == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * this.totalCount));
+    long seen = 0;
+    for (int i = 0; i < this.counts.length; i++) {
+      seen += this.counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), this.maxValue);
+      }
+    }
+    return this.maxValue;
+  }
+
+  static int indexOf(final long value) {
+    final int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+    return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+  }
+
+  static long highestValueOf(final int index) {
+    if (index < 2 * SUB_BUCKET_HALF) {
+      return index;
+    }
+    final int shift = index / SUB_BUCKET_HALF - 1;
+    final long lowest = (long) (index - shift * SUB_BUCKET_HALF) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+}
@@ -0,0 +1,396 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.load;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashContext;
+import se.digg.crypto.hashtocurve.HashToEllipticCurve;
+import se.digg.crypto.hashtocurve.HashToScalar;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+
+/**
+ * Load generator for capacity planning. Drives {@link HashToEllipticCurve} and
+ * {@link GenericOPRFHashToScalar} from a number of platform or virtual threads at a target rate,
+ * with a weighted mix of message sizes, profiles and operations, and reports latency percentiles
+ * and throughput.
+ *
+ * <p>Each thread issues its share of the target rate on a fixed schedule. When an operation takes
+ * longer than the schedule allows, the following operations start late, and their latency is
+ * measured from the time they were scheduled to start rather than from the time they actually
+ * started. This corrects for coordinated omission: the reported latency is what a client sending
+ * requests at the target rate would observe, including the time spent waiting behind slow
+ * operations. The uncorrected service time is reported as well. With a target rate of 0 the
+ * threads run unthrottled and both measures are equal.
+ *
+ * <p>Run with the test classpath, for example:
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes:&lt;dependencies&gt; \
+ *     se.digg.crypto.hashtocurve.load.LoadGenerator \
+ *     --threads=8 --rate=20000 --warmup=10s --duration=60s \
+ *     --sizes=32:60,256:30,4096:10 --profiles=P256:70,P384:20,P521:10 --scalar=20
+ * </pre>
+ */
+public final class LoadGenerator {
+
+  private static final String[] OPERATIONS = {"hashToCurve", "hashToScalar"};
+
+  private final Config config;
+  private final List<Target> targets = new ArrayList<>();
+  private final byte[][] messages;
+
+  /**
+   * Load generator configuration.
+   *
+   * @param threads the number of load generating threads
+   * @param virtualThreads true to use virtual threads instead of platform threads
+   * @param targetRate the total target rate in operations per second, or 0 for unthrottled
+   * @param warmUp the warm-up time, during which results are not recorded
+   * @param duration the measured time
+   * @param messageSizes the weighted message sizes in bytes
+   * @param profiles the weighted profiles
+   * @param scalarPercent the percentage of operations hashing to a scalar instead of a point
+   */
+  public record Config(int threads, boolean virtualThreads, double targetRate, Duration warmUp,
+      Duration duration, WeightedChoice<Integer> messageSizes,
+      WeightedChoice<HashToCurveProfile> profiles, int scalarPercent) {
+
+    /**
+     * Parses the command line options. Options not given take their default values.
+     *
+     * @param args options of the form --name=value
+     * @return the configuration
+     * @throws IllegalArgumentException on unknown or malformed options
+     */
+    public static Config parse(final String[] args) {
+      int threads = Runtime.getRuntime().availableProcessors();
+      boolean virtualThreads = false;
+      double rate = 0;
+      Duration warmUp = Duration.ofSeconds(10);
+      Duration duration = Duration.ofSeconds(30);
+      WeightedChoice<Integer> sizes = WeightedChoice.parse("32:1", Integer::valueOf);
+      WeightedChoice<HashToCurveProfile> profiles =
+          WeightedChoice.parse("P256:1", LoadGenerator::parseProfile);
+      int scalarPercent = 0;
+      for (final String arg : args) {
+        final int eq = arg.indexOf('=');
+        final String name = eq < 0 ? arg : arg.substring(0, eq);
+        final String value = eq < 0 ? "" : arg.substring(eq + 1);
+        switch (name) {
+          case "--threads" -> threads = Integer.parseInt(value);
+          case "--virtual" -> virtualThreads = true;
+          case "--rate" -> rate = Double.parseDouble(value);
+          case "--warmup" -> warmUp = parseDuration(value);
+          case "--duration" -> duration = parseDuration(value);
+          case "--sizes" -> sizes = WeightedChoice.parse(value, Integer::valueOf);
+          case "--profiles" -> profiles = WeightedChoice.parse(value, LoadGenerator::parseProfile);
+          case "--scalar" -> scalarPercent = Integer.parseInt(value);
+          default -> throw new IllegalArgumentException("Unknown option " + arg);
+        }
+      }
+      if (threads <= 0 || rate < 0 || scalarPercent < 0 || scalarPercent > 100) {
+        throw new IllegalArgumentException("Illegal load generator configuration");
+      }
+      return new Config(threads, virtualThreads, rate, warmUp, duration, sizes, profiles,
+          scalarPercent);
+    }
+  }
+
+  /**
+   * Results of a load run.
+   *
+   * @param config the configuration of the run
+   * @param latency coordinated omission corrected latency by profile and operation
+   * @param serviceTime uncorrected service time by profile and operation
+   * @param elapsedNanos the measured wall clock time
+   * @param cpuNanos the process CPU time used during the measured time, or -1 if unknown
+   */
+  public record Report(Config config, LatencyHistogram[][] latency,
+      LatencyHistogram[][] serviceTime, long elapsedNanos, long cpuNanos) {
+
+    /**
+     * Get the total number of measured operations.
+     *
+     * @return the number of operations
+     */
+    public long getTotalCount() {
+      long count = 0;
+      for (final LatencyHistogram[] histograms : this.latency) {
+        for (final LatencyHistogram histogram : histograms) {
+          count += histogram.getTotalCount();
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param out the stream to print to
+     */
+    public void print(final PrintStream out) {
+      final long total = this.getTotalCount();
+      final double seconds = this.elapsedNanos / 1e9;
+      final int cores = Runtime.getRuntime().availableProcessors();
+      out.printf(Locale.ROOT, "Threads: %d %s, target rate: %s, measured: %.1f s%n",
+          this.config.threads(), this.config.virtualThreads() ? "virtual" : "platform",
+          this.config.targetRate() > 0 ? String.format(Locale.ROOT, "%.0f/s",
+              this.config.targetRate()) : "unthrottled", seconds);
+      out.printf(Locale.ROOT, "%-26s %-13s %10s %10s %10s %10s %10s %10s%n", "Profile",
+          "Operation", "Count", "p50 us", "p99 us", "p99.9 us", "max us", "svc p99");
+      final LatencyHistogram all = new LatencyHistogram();
+      final LatencyHistogram allService = new LatencyHistogram();
+      final List<HashToCurveProfile> profiles = this.config.profiles().values();
+      for (int p = 0; p < profiles.size(); p++) {
+        for (int o = 0; o < OPERATIONS.length; o++) {
+          final LatencyHistogram histogram = this.latency[p][o];
+          if (histogram.getTotalCount() > 0) {
+            printLine(out, profiles.get(p).getCipherSuiteID(), OPERATIONS[o], histogram,
+                this.serviceTime[p][o]);
+            all.add(histogram);
+            allService.add(this.serviceTime[p][o]);
+          }
+        }
+      }
+      printLine(out, "All", "", all, allService);
+      out.printf(Locale.ROOT, "Throughput: %.0f ops/s, %.0f ops/s per core (%d cores)%n",
+          total / seconds, total / seconds / cores, cores);
+      if (this.cpuNanos > 0) {
+        out.printf(Locale.ROOT, "CPU: %.2f cores busy, %.0f ops per CPU second%n",
+            this.cpuNanos / (double) this.elapsedNanos, total / (this.cpuNanos / 1e9));
+      }
+    }
+
+    private static void printLine(final PrintStream out, final String profile,
+        final String operation, final LatencyHistogram latency,
+        final LatencyHistogram serviceTime) {
+      out.printf(Locale.ROOT, "%-26s %-13s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", profile,
+          operation, latency.getTotalCount(), latency.getValueAtPercentile(50) / 1e3,
+          latency.getValueAtPercentile(99) / 1e3, latency.getValueAtPercentile(99.9) / 1e3,
+          latency.getMaxValue() / 1e3, serviceTime.getValueAtPercentile(99) / 1e3);
+    }
+  }
+
+  /**
+   * Creates a load generator. The hash instances of all profiles and a pool of random messages
+   * are created up front, so that no setup work is measured.
+   *
+   * @param config the configuration
+   */
+  public LoadGenerator(final Config config) {
+    this.config = config;
+    for (final HashToCurveProfile profile : config.profiles().values()) {
+      this.targets.add(new Target(profile));
+    }
+    final SplittableRandom random = new SplittableRandom(1);
+    final List<Integer> sizes = config.messageSizes().values();
+    this.messages = new byte[sizes.size()][];
+    for (int i = 0; i < sizes.size(); i++) {
+      this.messages[i] = new byte[sizes.get(i)];
+      random.nextBytes(this.messages[i]);
+    }
+  }
+
+  /**
+   * Runs the load generator from the command line and prints the report to standard output.
+   *
+   * @param args options of the form --name=value
+   * @throws Exception on errors in the load generating threads
+   */
+  public static void main(final String[] args) throws Exception {
+    new LoadGenerator(Config.parse(args)).run().print(System.out);
+  }
+
+  /**
+   * Runs the warm-up and the measured load.
+   *
+   * @return the report of the measured load
+   * @throws Exception on errors in the load generating threads
+   */
+  public Report run() throws Exception {
+    final int threads = this.config.threads();
+    final long interval = this.config.targetRate() > 0
+        ? (long) (1e9 * threads / this.config.targetRate())
+        : 0;
+    final long start = System.nanoTime() + 10_000_000L;
+    final long measureStart = start + this.config.warmUp().toNanos();
+    final long end = measureStart + this.config.duration().toNanos();
+
+    final List<Worker> workers = new ArrayList<>();
+    for (int i = 0; i < threads; i++) {
+      // Spread the schedules of the threads evenly over the interval
+      workers.add(new Worker(i, start + interval * i / threads, interval, measureStart, end));
+    }
+    final long cpuStart;
+    final ExecutorService executor = this.config.virtualThreads()
+        ? Executors.newVirtualThreadPerTaskExecutor()
+        : Executors.newFixedThreadPool(threads);
+    final List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (final Worker worker : workers) {
+        futures.add(executor.submit(worker));
+      }
+      LockSupport.parkNanos(measureStart - System.nanoTime());
+      cpuStart = getProcessCpuTime();
+      for (final Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    final long cpuEnd = getProcessCpuTime();
+
+    final int profileCount = this.targets.size();
+    final LatencyHistogram[][] latency = newHistograms(profileCount);
+    final LatencyHistogram[][] serviceTime = newHistograms(profileCount);
+    for (final Worker worker : workers) {
+      for (int p = 0; p < profileCount; p++) {
+        for (int o = 0; o < OPERATIONS.length; o++) {
+          latency[p][o].add(worker.latency[p][o]);
+          serviceTime[p][o].add(worker.serviceTime[p][o]);
+        }
+      }
+    }
+    return new Report(this.config, latency, serviceTime, end - measureStart,
+        cpuStart < 0 || cpuEnd < 0 ? -1 : cpuEnd - cpuStart);
+  }
+
+  private static LatencyHistogram[][] newHistograms(final int profileCount) {
+    final LatencyHistogram[][] histograms = new LatencyHistogram[profileCount][OPERATIONS.length];
+    for (int p = 0; p < profileCount; p++) {
+      for (int o = 0; o < OPERATIONS.length; o++) {
+        histograms[p][o] = new LatencyHistogram();
+      }
+    }
+    return histograms;
+  }
+
+  private static long getProcessCpuTime() {
+    if (ManagementFactory.getOperatingSystemMXBean()
+        instanceof final com.sun.management.OperatingSystemMXBean os) {
+      return os.getProcessCpuTime();
+    }
+    return -1;
+  }
+
+  private static HashToCurveProfile parseProfile(final String name) {
+    for (final HashToCurveProfile profile : HashToCurveProfile.values()) {
+      if (profile.getCipherSuiteID().startsWith(name + "_")
+          || profile.getCipherSuiteID().equals(name)) {
+        if (profile == HashToCurveProfile.curve25519_XMD_SHA_512_ELL2_RO_
+            || !profile.isRandomOracle()) {
+          throw new IllegalArgumentException("Profile " + name + " is not supported");
+        }
+        return profile;
+      }
+    }
+    throw new IllegalArgumentException("Unknown profile " + name);
+  }
+
+  private static Duration parseDuration(final String value) {
+    if (value.endsWith("ms")) {
+      return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+    }
+    if (value.endsWith("s")) {
+      return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+    }
+    if (value.endsWith("m")) {
+      return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+    }
+    return Duration.ofSeconds(Long.parseLong(value));
+  }
+
+  /**
+   * The hash instances of a profile.
+   */
+  private static final class Target {
+    final HashToEllipticCurve hashToCurve;
+    final HashToScalar hashToScalar;
+    final byte[] dst;
+
+    Target(final HashToCurveProfile profile) {
+      this.dst = ("LOAD-V01-CS02-with-" + profile.getCipherSuiteID())
+          .getBytes(StandardCharsets.UTF_8);
+      this.hashToCurve = HashToEllipticCurve.getInstance(profile, this.dst);
+      this.hashToScalar = new GenericOPRFHashToScalar(H2cUtils.getParameterSpec(profile),
+          H2cUtils.createDigest(profile), profile.getK());
+    }
+  }
+
+  /**
+   * A load generating thread, issuing operations on its own schedule and recording into its own
+   * histograms.
+   */
+  private final class Worker implements Runnable {
+    final LatencyHistogram[][] latency;
+    final LatencyHistogram[][] serviceTime;
+    private final SplittableRandom random;
+    private final long firstStart;
+    private final long interval;
+    private final long measureStart;
+    private final long end;
+
+    Worker(final int index, final long firstStart, final long interval, final long measureStart,
+        final long end) {
+      this.latency = newHistograms(LoadGenerator.this.targets.size());
+      this.serviceTime = newHistograms(LoadGenerator.this.targets.size());
+      this.random = new SplittableRandom(index + 1);
+      this.firstStart = firstStart;
+      this.interval = interval;
+      this.measureStart = measureStart;
+      this.end = end;
+    }
+
+    @Override
+    public void run() {
+      final HashContext ctx = new HashContext();
+      final Config config = LoadGenerator.this.config;
+      long intended = this.firstStart;
+      long now = System.nanoTime();
+      while (now < this.end) {
+        if (this.interval > 0) {
+          while (now < intended) {
+            LockSupport.parkNanos(intended - now);
+            now = System.nanoTime();
+          }
+        } else {
+          intended = now;
+        }
+        final int profile = config.profiles().chooseIndex(this.random);
+        final byte[] message =
+            LoadGenerator.this.messages[config.messageSizes().chooseIndex(this.random)];
+        final int operation = this.random.nextInt(100) < config.scalarPercent() ? 1 : 0;
+        final Target target = LoadGenerator.this.targets.get(profile);
+
+        final long operationStart = System.nanoTime();
+        if (operation == 0) {
+          target.hashToCurve.hashToEllipticCurve(message, ctx);
+        } else {
+          target.hashToScalar.process(message, target.dst);
+        }
+        now = System.nanoTime();
+        if (intended >= this.measureStart && intended < this.end) {
+          this.latency[profile][operation].record(now - intended);
+          this.serviceTime[profile][operation].record(now - operationStart);
+        }
+        intended += this.interval;
+      }
+    }
+  }
+
+}
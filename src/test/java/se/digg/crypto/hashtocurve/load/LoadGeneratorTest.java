@@ -0,0 +1,102 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Tests of the load generator harness.
+ */
+@Slf4j
+class LoadGeneratorTest {
+
+  @Test
+  void histogramPercentiles() {
+    SplittableRandom random = new SplittableRandom(3);
+    long[] values = new long[100_000];
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < values.length; i++) {
+      // Log-uniform latencies from 100 ns to 100 ms
+      values[i] = (long) Math.pow(10, 2 + 6 * random.nextDouble());
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    for (double percentile : new double[] {50, 90, 99, 99.9, 100}) {
+      long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      long estimate = histogram.getValueAtPercentile(percentile);
+      assertTrue(estimate >= exact && estimate <= exact * 1.01,
+          "Percentile " + percentile + ": " + estimate + " vs " + exact);
+    }
+    assertEquals(values[values.length - 1], histogram.getMaxValue());
+    assertEquals(values.length, histogram.getTotalCount());
+
+    for (long value = 0; value < 1 << 20; value++) {
+      int index = LatencyHistogram.indexOf(value);
+      assertTrue(LatencyHistogram.highestValueOf(index) >= value);
+      assertTrue(index == 0 || LatencyHistogram.highestValueOf(index - 1) < value);
+    }
+  }
+
+  @Test
+  void weightedChoice() {
+    WeightedChoice<Integer> choice = WeightedChoice.parse("10:1, 20:3,30", Integer::valueOf);
+    assertEquals(3, choice.values().size());
+    SplittableRandom random = new SplittableRandom(5);
+    int[] counts = new int[3];
+    for (int i = 0; i < 50_000; i++) {
+      counts[choice.chooseIndex(random)]++;
+    }
+    assertEquals(0.2, counts[0] / 50_000.0, 0.02);
+    assertEquals(0.6, counts[1] / 50_000.0, 0.02);
+    assertEquals(0.2, counts[2] / 50_000.0, 0.02);
+    assertThrows(IllegalArgumentException.class,
+        () -> WeightedChoice.parse("10:0", Integer::valueOf));
+  }
+
+  @Test
+  void configParsing() {
+    LoadGenerator.Config config = LoadGenerator.Config.parse(new String[] {"--threads=3",
+        "--virtual", "--rate=500", "--warmup=250ms", "--duration=2s", "--sizes=16:1,1024:1",
+        "--profiles=P384:2,P521", "--scalar=25"});
+    assertEquals(3, config.threads());
+    assertTrue(config.virtualThreads());
+    assertEquals(250, config.warmUp().toMillis());
+    assertEquals(2, config.duration().toSeconds());
+    assertEquals(HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_, config.profiles().values().get(0));
+    assertEquals(25, config.scalarPercent());
+    assertThrows(IllegalArgumentException.class,
+        () -> LoadGenerator.Config.parse(new String[] {"--profiles=curve25519"}));
+    assertThrows(IllegalArgumentException.class,
+        () -> LoadGenerator.Config.parse(new String[] {"--unknown=1"}));
+  }
+
+  @Test
+  void shortRun() throws Exception {
+    LoadGenerator.Config config = LoadGenerator.Config.parse(new String[] {"--threads=2",
+        "--virtual", "--rate=400", "--warmup=200ms", "--duration=500ms", "--sizes=16:3,512:1",
+        "--profiles=P256:2,P384:1", "--scalar=30"});
+    LoadGenerator.Report report = new LoadGenerator(config).run();
+    assertTrue(report.getTotalCount() > 0);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    report.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+    String text = out.toString(StandardCharsets.UTF_8);
+    log.info("Load report:\n{}", text);
+    assertTrue(text.contains("P256_XMD:SHA-256_SSWU_RO_"));
+    assertTrue(text.contains("Throughput"));
+  }
+
+}
@@ -0,0 +1,80 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Random choice among values with relative weights, such as a message size distribution or a
+ * profile mix.
+ *
+ * @param <T> the type of the values
+ */
+public final class WeightedChoice<T> {
+
+  private final List<T> values;
+  private final long[] cumulativeWeights;
+
+  private WeightedChoice(final List<T> values, final long[] cumulativeWeights) {
+    this.values = values;
+    this.cumulativeWeights = cumulativeWeights;
+  }
+
+  /**
+   * Parses a comma separated list of value:weight pairs, for example "32:60,256:30,4096:10". A
+   * value without weight has weight 1.
+   *
+   * @param spec the weighted values
+   * @param parser parses a value
+   * @param <T> the type of the values
+   * @return the weighted choice
+   * @throws IllegalArgumentException if the list is empty or a weight is not positive
+   */
+  public static <T> WeightedChoice<T> parse(final String spec, final Function<String, T> parser) {
+    final List<T> values = new ArrayList<>();
+    final String[] entries = spec.split(",");
+    final long[] cumulativeWeights = new long[entries.length];
+    long total = 0;
+    for (int i = 0; i < entries.length; i++) {
+      final String[] parts = entries[i].trim().split(":");
+      final long weight = parts.length > 1 ? Long.parseLong(parts[1].trim()) : 1;
+      if (parts[0].isBlank() || weight <= 0) {
+        throw new IllegalArgumentException("Illegal weighted value " + entries[i]);
+      }
+      values.add(parser.apply(parts[0].trim()));
+      total += weight;
+      cumulativeWeights[i] = total;
+    }
+    return new WeightedChoice<>(List.copyOf(values), cumulativeWeights);
+  }
+
+  /**
+   * Get the values, in the order they were given.
+   *
+   * @return the values
+   */
+  public List<T> values() {
+    return this.values;
+  }
+
+  /**
+   * Chooses a random value according to the weights.
+   *
+   * @param random the random source
+   * @return the index of the chosen value in {@link #values()}
+   */
+  public int chooseIndex(final SplittableRandom random) {
+    final long r = random.nextLong(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+    int i = 0;
+    while (this.cumulativeWeights[i] <= r) {
+      i++;
+    }
+    return i;
+  }
+
+}
@@ -0,0 +1,106 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+
+/**
+ * Test the hash to curve metrics and their JMX registration.
+ */
+class HashToCurveMetricsTest {
+
+  @Test
+  void testLatencyWindow() throws Exception {
+    LatencyWindow window = new LatencyWindow(16);
+    assertArrayEquals(new long[] {0, 0}, window.percentiles(0.5, 1.0));
+    for (int i = 1; i <= 10; i++) {
+      window.record(i);
+    }
+    assertArrayEquals(new long[] {1, 5, 9, 10}, window.percentiles(0.0, 0.5, 0.9, 1.0));
+
+    // Only the most recent samples of a stripe are kept
+    for (int i = 0; i < 16; i++) {
+      window.record(1000);
+    }
+    assertArrayEquals(new long[] {1000, 1000}, window.percentiles(0.0, 1.0));
+    window.reset();
+    assertArrayEquals(new long[] {0}, window.percentiles(0.5));
+  }
+
+  @Test
+  void testConcurrentRecording() throws Exception {
+    HashToCurveMetrics metrics =
+        HashToCurveMetrics.getInstance(HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_);
+    metrics.reset();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          metrics.recordOperation(i % 100, 100);
+          metrics.recordStage(HashToCurveMetrics.Stage.MAP_TO_CURVE, 40);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(80_000, metrics.getOperationCount());
+    assertEquals(8_000_000, metrics.getTotalNanos());
+    assertEquals(3_200_000, metrics.getMapToCurveNanos());
+    assertEquals(100, metrics.getLatencyP99Nanos());
+    assertEquals(8 * 100 * 4950, metrics.getInputBytes());
+    long[] counts = metrics.getInputSizeCounts();
+    assertEquals(metrics.getInputSizeBuckets().length, counts.length);
+    assertEquals(8 * 100 * 16, counts[0]);
+    assertEquals(8 * 100 * 48, counts[1]);
+    assertEquals(8 * 100 * 36, counts[2]);
+    metrics.reset();
+    assertEquals(0, metrics.getOperationCount());
+    assertEquals(0, metrics.getLatencyMaxNanos());
+  }
+
+  @Test
+  void testRegistration() throws Exception {
+    HashToCurveProfile profile = HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_;
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = HashToCurveMetrics.getObjectName(profile);
+    HashToCurveMetrics.unregister(profile);
+    assertFalse(server.isRegistered(name));
+
+    HashToCurveMetrics metrics = HashToCurveMetrics.register(profile);
+    assertSame(metrics, HashToCurveMetrics.register(profile));
+    assertSame(metrics, HashToCurveMetrics.getInstance(profile));
+    try {
+      assertTrue(server.isRegistered(name));
+      metrics.reset();
+      metrics.recordOperation(3, 1000);
+      metrics.recordRejectedInput();
+      assertEquals(profile.getCipherSuiteID(), server.getAttribute(name, "Profile"));
+      assertEquals(1L, server.getAttribute(name, "OperationCount"));
+      assertEquals(1L, server.getAttribute(name, "RejectedInputCount"));
+      assertEquals(1000L, server.getAttribute(name, "LatencyP50Nanos"));
+      assertArrayEquals(metrics.getInputSizeBuckets(),
+          (String[]) server.getAttribute(name, "InputSizeBuckets"));
+      server.invoke(name, "reset", null, null);
+      assertEquals(0L, server.getAttribute(name, "OperationCount"));
+    } finally {
+      HashToCurveMetrics.unregister(profile);
+    }
+    assertFalse(server.isRegistered(name));
+  }
+
+}
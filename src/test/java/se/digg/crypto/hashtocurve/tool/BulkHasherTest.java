@@ -0,0 +1,205 @@
+// SPDX-FileCopyrightText: 2025 Digg - Agency for Digital Government
+//
+// SPDX-License-Identifier: EUPL-1.2
+
+package se.digg.crypto.hashtocurve.tool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.util.BigIntegers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.digg.crypto.hashtocurve.H2cUtils;
+import se.digg.crypto.hashtocurve.HashToEllipticCurve;
+import se.digg.crypto.hashtocurve.HashToScalar;
+import se.digg.crypto.hashtocurve.data.HashToCurveProfile;
+import se.digg.crypto.hashtocurve.impl.GenericOPRFHashToScalar;
+
+/**
+ * Test the bulk hashing command line tool.
+ */
+public class BulkHasherTest {
+
+  private static final String DST = "QUUX-V01-CS02-with-bulk-hasher";
+
+  @TempDir
+  Path dir;
+
+  @Test
+  public void testLinesToPoints() throws Exception {
+    List<byte[]> messages = messages(300);
+    ByteArrayOutputStream lines = new ByteArrayOutputStream();
+    for (int i = 0; i < messages.size(); i++) {
+      lines.write(messages.get(i));
+      // Mix LF and CRLF line endings, and leave the last line unterminated
+      if (i < messages.size() - 1) {
+        lines.write(i % 3 == 0 ? "\r\n".getBytes(StandardCharsets.US_ASCII) : new byte[] {'\n'});
+      }
+    }
+    Path input = this.dir.resolve("input.txt");
+    Files.write(input, lines.toByteArray());
+
+    for (HashToCurveProfile profile : List.of(HashToCurveProfile.P256_XMD_SHA_256_SSWU_RO_,
+        HashToCurveProfile.BLS12381G1_XMD_SHA_256_SSWU_NU_)) {
+      for (String encoding : List.of("compressed", "uncompressed")) {
+        Path output = this.dir.resolve("points-" + profile.name() + encoding);
+        assertEquals(0, run("--input", input.toString(), "--output", output.toString(),
+            "--profile", profile.getCipherSuiteID(), "--dst", DST, "--encoding", encoding,
+            "--threads", "4", "--chunk-size", "500"));
+        HashToEllipticCurve h2c =
+            HashToEllipticCurve.getInstance(profile, DST.getBytes(StandardCharsets.UTF_8));
+        byte[] result = Files.readAllBytes(output);
+        boolean compressed = "compressed".equals(encoding);
+        int width = H2cUtils.getParameterSpec(profile).getCurve()
+            .getAffinePointEncodingLength(compressed);
+        assertEquals(width * messages.size(), result.length);
+        for (int i = 0; i < messages.size(); i++) {
+          byte[] expected = (profile.isRandomOracle()
+              ? h2c.hashToEllipticCurve(messages.get(i))
+              : h2c.encodeToEllipticCurve(messages.get(i))).getEncoded(compressed);
+          assertArrayEquals(expected, Arrays.copyOfRange(result, i * width, (i + 1) * width));
+        }
+        assertFalse(Files.exists(BulkHasher.checkpointFile(output)));
+      }
+    }
+  }
+
+  @Test
+  public void testLengthPrefixedScalars() throws Exception {
+    List<byte[]> messages = messages(200);
+    Path input = this.dir.resolve("input.bin");
+    Files.write(input, lengthPrefixed(messages));
+    Path output = this.dir.resolve("scalars.bin");
+    assertEquals(0, run("--input", input.toString(), "--output", output.toString(),
+        "--profile", "P384_XMD_SHA_384_SSWU_RO_", "--dst-hex", "0102030405",
+        "--format", "length-prefixed", "--encoding", "scalar", "--chunk-size", "300"));
+
+    ECParameterSpec spec =
+        H2cUtils.getParameterSpec(HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_);
+    HashToScalar hashToScalar = new GenericOPRFHashToScalar(spec,
+        H2cUtils.createDigest(HashToCurveProfile.P384_XMD_SHA_384_SSWU_RO_), 192);
+    byte[] result = Files.readAllBytes(output);
+    assertEquals(48 * messages.size(), result.length);
+    for (int i = 0; i < messages.size(); i++) {
+      BigInteger expected = hashToScalar.process(messages.get(i), new byte[] {1, 2, 3, 4, 5});
+      assertArrayEquals(BigIntegers.asUnsignedByteArray(48, expected),
+          Arrays.copyOfRange(result, i * 48, (i + 1) * 48));
+    }
+  }
+
+  @Test
+  public void testResume() throws Exception {
+    List<byte[]> messages = messages(100);
+    Path input = this.dir.resolve("input.bin");
+    byte[] data = lengthPrefixed(messages);
+    Files.write(input, data);
+    Path expectedOutput = this.dir.resolve("expected.bin");
+    assertEquals(0, run("--input", input.toString(), "--output", expectedOutput.toString(),
+        "--profile", "P256_XMD_SHA_256_SSWU_RO_", "--dst", DST, "--format", "length-prefixed"));
+    byte[] expected = Files.readAllBytes(expectedOutput);
+
+    // Offset of record 40, as saved in a checkpoint by an interrupted run
+    int offset = 0;
+    for (int i = 0; i < 40; i++) {
+      offset += 4 + messages.get(i).length;
+    }
+    Path output = this.dir.resolve("resumed.bin");
+    Files.write(output, Arrays.copyOf(expected, 40 * 33));
+    Files.writeString(BulkHasher.checkpointFile(output), Integer.toString(offset));
+    assertEquals(0, run("--input", input.toString(), "--output", output.toString(),
+        "--profile", "P256_XMD_SHA_256_SSWU_RO_", "--dst", DST, "--format", "length-prefixed",
+        "--resume", "--chunk-size", "64"));
+    assertArrayEquals(expected, Files.readAllBytes(output));
+    assertFalse(Files.exists(BulkHasher.checkpointFile(output)));
+
+    // An explicit start offset leaves the output of the earlier records untouched
+    Path partial = this.dir.resolve("partial.bin");
+    assertEquals(0, run("--input", input.toString(), "--output", partial.toString(),
+        "--profile", "P256_XMD_SHA_256_SSWU_RO_", "--dst", DST, "--format", "length-prefixed",
+        "--start-offset", Integer.toString(offset)));
+    byte[] result = Files.readAllBytes(partial);
+    assertArrayEquals(new byte[40 * 33], Arrays.copyOf(result, 40 * 33));
+    assertArrayEquals(Arrays.copyOfRange(expected, 40 * 33, expected.length),
+        Arrays.copyOfRange(result, 40 * 33, result.length));
+
+    // Offsets within a record are rejected
+    assertEquals(1, run("--input", input.toString(), "--output", partial.toString(),
+        "--profile", "P256_XMD_SHA_256_SSWU_RO_", "--dst", DST, "--format", "length-prefixed",
+        "--start-offset", Integer.toString(offset + 1)));
+  }
+
+  @Test
+  public void testInvalidArguments() throws Exception {
+    assertEquals(2, run("--input", "in", "--output", "out", "--dst", DST));
+    assertEquals(2, run("--input", "in", "--output", "out", "--dst", DST, "--profile", "P257"));
+    assertEquals(2, run("--input", "in", "--output", "out", "--dst", DST, "--profile",
+        "P256_XMD_SHA_256_SSWU_RO_", "--threads", "0"));
+    assertEquals(2, run("--input", "in", "--output", "out", "--dst", DST, "--profile",
+        "curve25519_XMD_SHA_512_ELL2_RO_"));
+    assertEquals(2, run("--input", "in", "--output", "out", "--dst-hex", "xyz", "--profile",
+        "P256_XMD_SHA_256_SSWU_RO_"));
+
+    Path input = this.dir.resolve("truncated.bin");
+    Files.write(input, new byte[] {0, 0, 0, 9, 1, 2});
+    assertEquals(1, run("--input", input.toString(), "--output",
+        this.dir.resolve("out").toString(), "--dst", DST, "--profile",
+        "P256_XMD_SHA_256_SSWU_RO_", "--format", "length-prefixed"));
+  }
+
+  @Test
+  public void testRecordFormat() {
+    int[] payload = new int[2];
+    ByteBuffer lines = ByteBuffer.wrap("ab\r\n\ncd".getBytes(StandardCharsets.US_ASCII));
+    assertEquals(4, RecordFormat.LINES.next(lines, 0, true, payload));
+    assertArrayEquals(new int[] {0, 2}, payload);
+    assertEquals(5, RecordFormat.LINES.next(lines, 4, true, payload));
+    assertArrayEquals(new int[] {4, 4}, payload);
+    assertEquals(-1, RecordFormat.LINES.next(lines, 5, false, payload));
+    assertEquals(7, RecordFormat.LINES.next(lines, 5, true, payload));
+    assertArrayEquals(new int[] {5, 7}, payload);
+
+    ByteBuffer prefixed = ByteBuffer.wrap(new byte[] {0, 0, 0, 2, 7, 8, 0, 0});
+    assertEquals(6, RecordFormat.LENGTH_PREFIXED.next(prefixed, 0, true, payload));
+    assertArrayEquals(new int[] {4, 6}, payload);
+    assertEquals(-1, RecordFormat.LENGTH_PREFIXED.next(prefixed, 6, false, payload));
+    assertTrue(RecordFormat.LENGTH_PREFIXED.next(ByteBuffer.allocate(0), 0, false, payload) < 0);
+  }
+
+  private static int run(final String... args) {
+    return BulkHasher.run(args, new PrintStream(new ByteArrayOutputStream(), true,
+        StandardCharsets.UTF_8));
+  }
+
+  private static List<byte[]> messages(final int count) {
+    List<byte[]> messages = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      messages.add(i % 17 == 5 ? new byte[0]
+          : ("identifier-" + i + "-" + "x".repeat(i % 23)).getBytes(StandardCharsets.UTF_8));
+    }
+    return messages;
+  }
+
+  private static byte[] lengthPrefixed(final List<byte[]> messages) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] message : messages) {
+      out.writeBytes(ByteBuffer.allocate(4).putInt(message.length).array());
+      out.writeBytes(message);
+    }
+    return out.toByteArray();
+  }
+
+}